@@ -0,0 +1,41 @@
+package benchmarks;
+
+import analysis.AnalysisReport;
+import analysis.HeliosAnalyzer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnalyzerBenchmark {
+    @Param({"headline", "article"})
+    public String size;
+
+    private HeliosAnalyzer analyzer;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        analyzer = Corpus.analyzer();
+        text = Corpus.text(size);
+    }
+
+    @Benchmark
+    public AnalysisReport analyze() {
+        return analyzer.analyze(text);
+    }
+}
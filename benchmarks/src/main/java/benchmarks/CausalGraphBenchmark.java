@@ -0,0 +1,66 @@
+package benchmarks;
+
+import analysis.CausalPropagationEngine;
+import analysis.ImpactResult;
+import analysis.RuleBasedEventClassifier;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import knowledge.CausalGraph;
+import knowledge.Entity;
+import knowledge.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Entity matching and propagation on their own, so a change in analyze() can be traced to the stage that caused it.
+// The synthetic graphs show how both scale with entity count, which the ten-entity bundled graph cannot.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CausalGraphBenchmark {
+    @Param({"bundled", "10000", "100000"})
+    public String graphSize;
+
+    @Param({"headline", "article"})
+    public String size;
+
+    private CausalGraph graph;
+    private CausalPropagationEngine propagationEngine;
+    private String text;
+    private Event event;
+    private Set<Entity> entities;
+
+    @Setup
+    public void setUp() {
+        graph = Corpus.graph(graphSize);
+        RuleBasedEventClassifier classifier = Corpus.classifier(graph);
+        propagationEngine = new CausalPropagationEngine(graph);
+        text = Corpus.text(graphSize, size);
+        event = new Event(UUID.randomUUID(), classifier.classify(text), Instant.now(), text);
+        entities = classifier.extractEntities(text);
+    }
+
+    @Benchmark
+    public Set<Entity> findEntitiesInText() {
+        return graph.findEntitiesInText(text);
+    }
+
+    @Benchmark
+    public List<ImpactResult> propagate() {
+        return propagationEngine.propagate(event, entities);
+    }
+}
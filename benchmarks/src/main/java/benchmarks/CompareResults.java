@@ -0,0 +1,100 @@
+package benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Compares two JMH JSON result files, e.g. the results of two commits:
+//   java -cp benchmarks/target/benchmarks.jar benchmarks.CompareResults results/abc123.json results/def456.json
+// A change is only flagged when it is larger than the two runs' error bars combined.
+public final class CompareResults {
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private CompareResults() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: CompareResults <baseline.json> <candidate.json>");
+            return;
+        }
+        Map<String, JsonNode> baseline = load(Path.of(args[0]));
+        Map<String, JsonNode> candidate = load(Path.of(args[1]));
+
+        System.out.printf(
+            "%-70s %16s %16s %9s %12s %12s%n",
+            "benchmark",
+            "baseline",
+            "candidate",
+            "change",
+            "B/op before",
+            "B/op after"
+        );
+        for (Map.Entry<String, JsonNode> entry : candidate.entrySet()) {
+            JsonNode after = entry.getValue();
+            JsonNode before = baseline.get(entry.getKey());
+            JsonNode afterMetric = after.path("primaryMetric");
+            String unit = afterMetric.path("scoreUnit").asText();
+            if (before == null) {
+                System.out.printf("%-70s %16s %16s %9s%n", entry.getKey(), "-", format(afterMetric, unit), "new");
+                continue;
+            }
+            JsonNode beforeMetric = before.path("primaryMetric");
+            double oldScore = beforeMetric.path("score").asDouble();
+            double newScore = afterMetric.path("score").asDouble();
+            double change = oldScore == 0.0 ? 0.0 : (newScore - oldScore) / oldScore * 100.0;
+            double noise = error(beforeMetric) + error(afterMetric);
+            System.out.printf(
+                "%-70s %16s %16s %+8.1f%%%s %12s %12s%n",
+                entry.getKey(),
+                format(beforeMetric, unit),
+                format(afterMetric, unit),
+                change,
+                Math.abs(newScore - oldScore) > noise ? "*" : " ",
+                allocation(before),
+                allocation(after)
+            );
+        }
+        for (String key : baseline.keySet()) {
+            if (!candidate.containsKey(key)) {
+                JsonNode metric = baseline.get(key).path("primaryMetric");
+                System.out.printf("%-70s %16s %16s %9s%n", key, format(metric, ""), "-", "removed");
+            }
+        }
+    }
+
+    // Keyed by benchmark, parameters and thread count, since the same method can appear once per @Param value.
+    private static Map<String, JsonNode> load(Path file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file.toFile())) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText().replaceFirst("^benchmarks\\.", ""));
+            result.path("params").fields().forEachRemaining(param ->
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText())
+            );
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static double error(JsonNode metric) {
+        double error = metric.path("scoreError").asDouble(0.0);
+        return Double.isNaN(error) ? 0.0 : error;
+    }
+
+    private static String format(JsonNode metric, String unit) {
+        String shownUnit = unit.isEmpty() ? metric.path("scoreUnit").asText() : unit;
+        return String.format("%.3f %s", metric.path("score").asDouble(), shownUnit);
+    }
+
+    // Older JMH versions prefix secondary metric names with a middle dot.
+    private static String allocation(JsonNode result) {
+        JsonNode secondary = result.path("secondaryMetrics");
+        JsonNode metric = secondary.has(ALLOCATION_METRIC)
+            ? secondary.get(ALLOCATION_METRIC)
+            : secondary.get("\u00b7" + ALLOCATION_METRIC);
+        return metric == null ? "-" : String.format("%.0f", metric.path("score").asDouble());
+    }
+}
@@ -0,0 +1,100 @@
+package benchmarks;
+
+import analysis.CausalPropagationEngine;
+import analysis.ExplanationSynthesizer;
+import analysis.HeliosAnalyzer;
+import analysis.RuleBasedEventClassifier;
+import knowledge.CausalGraph;
+import knowledge.CausalGraphLoader;
+import knowledge.SyntheticCorpusSpec;
+import knowledge.SyntheticGraphGenerator;
+import knowledge.SyntheticGraphSpec;
+
+// Inputs shared by the benchmarks: one headline and one full article of the length the BBC scraper returns, both
+// mentioning entities from the bundled causal graph so every stage has real work to do.
+final class Corpus {
+    static final String HEADLINE = "Bank of England raises interest rates as oil prices push inflation higher";
+
+    static final String ARTICLE = String.join(
+        "\n\n",
+        "The Bank of England has raised interest rates for the fourteenth time in a row, lifting the base rate to "
+            + "5.25% as policymakers warned that inflation was proving stickier than expected. The Monetary Policy "
+            + "Committee voted six to three in favour of the quarter-point rise, with two members backing a larger "
+            + "increase and one preferring to hold.",
+        "Governor Andrew Bailey said the committee had seen \"significant upside news\" in recent wage and price "
+            + "data. Core inflation, which strips out volatile food and energy prices, rose unexpectedly last month, "
+            + "and services inflation remains well above levels consistent with the 2% target.",
+        "Oil prices added to the pressure. Brent crude climbed above $90 a barrel this week after OPEC and its allies "
+            + "extended production cuts into the new year, and WTI followed. Higher crude feeds directly into petrol "
+            + "and heating costs, and economists expect energy to keep headline CPI elevated through the winter.",
+        "Markets reacted quickly. The pound strengthened against the dollar and the euro as traders priced in the "
+            + "prospect of rates staying higher for longer, which weighed on exporters whose overseas earnings are "
+            + "worth less in sterling. Shares in retail banks rose on hopes of wider lending margins, while "
+            + "housebuilders fell sharply as investors bet that higher mortgage costs would cool the housing market.",
+        "Airlines were also lower, with fuel one of the largest cost lines for carriers. Energy producers, by "
+            + "contrast, extended their gains as the oil price rally lifted expectations for cash flow and "
+            + "shareholder returns. Analysts at several brokers raised their forecasts for North Sea producers.",
+        "Mortgage lenders moved swiftly to pass on the increase. The average two-year fixed deal now carries a rate "
+            + "of more than 6%, according to Moneyfacts, the highest since the aftermath of last autumn's mini-budget. "
+            + "Around 1.4 million households are expected to come off cheaper fixed-rate deals over the next year.",
+        "Business groups urged caution. The British Chambers of Commerce said firms were already struggling with "
+            + "higher borrowing costs and weak demand, and warned that further increases risked tipping the economy "
+            + "into recession. The CBI said the committee should pause to let earlier rises feed through.",
+        "The Bank's own forecasts suggest inflation will fall to around 5% by the end of the year, helped by lower "
+            + "wholesale gas prices, before returning to target in 2025. But Mr Bailey said the path for rates would "
+            + "depend on the data, and that the committee stood ready to act again if price pressures persisted.",
+        "Chancellor Jeremy Hunt said the government would \"stick resolutely\" to its plan to halve inflation this "
+            + "year. \"High inflation is a persistent danger to family finances and the longer it persists the more "
+            + "damage it does,\" he said, adding that support would be available for borrowers in difficulty."
+    );
+
+    private static final long SEED = 42L;
+
+    private Corpus() {
+    }
+
+    static CausalGraph graph() {
+        return CausalGraphLoader.loadFromResource("/causal_graph.json");
+    }
+
+    // "bundled" is the shipped graph; a number is a synthetic graph of that many entities with the default shape.
+    static CausalGraph graph(String graph) {
+        return "bundled".equals(graph) ? graph() : synthetic(graph).build();
+    }
+
+    static RuleBasedEventClassifier classifier(CausalGraph graph) {
+        return RuleBasedEventClassifier.fromResources(graph, "/entity_aliases.json");
+    }
+
+    static HeliosAnalyzer analyzer() {
+        CausalGraph graph = graph();
+        return new HeliosAnalyzer(classifier(graph), new CausalPropagationEngine(graph), new ExplanationSynthesizer());
+    }
+
+    static String text(String size) {
+        return switch (size) {
+            case "headline" -> HEADLINE;
+            case "article" -> ARTICLE;
+            default -> throw new IllegalArgumentException("Unknown text size: " + size);
+        };
+    }
+
+    // The first synthetic headline-only or article story, so the text mentions entities of that graph.
+    static String text(String graph, String size) {
+        if ("bundled".equals(graph)) {
+            return text(size);
+        }
+        boolean article = text(size) == ARTICLE;
+        StringBuilder text = new StringBuilder();
+        synthetic(graph).forEachStory(SyntheticCorpusSpec.of(50, SEED), story -> {
+            if (text.isEmpty() && story.body().isEmpty() != article) {
+                text.append(story.title()).append('\n').append(story.body());
+            }
+        });
+        return text.toString().strip();
+    }
+
+    private static SyntheticGraphGenerator synthetic(String graph) {
+        return new SyntheticGraphGenerator(SyntheticGraphSpec.of(Integer.parseInt(graph), SEED));
+    }
+}
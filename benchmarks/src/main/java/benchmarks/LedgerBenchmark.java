@@ -0,0 +1,100 @@
+package benchmarks;
+
+import analysis.PortfolioView;
+import analysis.TradeExecutionResult;
+import analysis.TradeSide;
+import analysis.TradeTicket;
+import analysis.TradingLedger;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The uncontended benchmarks give the single-threaded cost; the "contended" group runs three traders against one
+// reader polling the portfolio, which is what the web server sees when /api/portfolio is refreshed during trading.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LedgerBenchmark {
+    private static final double STARTING_CASH = 1_000_000_000.0;
+    private static final String[] SYMBOLS = {"BARC.L", "LLOY.L", "BDEV.L", "IAG.L", "SHEL.L", "BP.L"};
+
+    @State(Scope.Benchmark)
+    public static class SharedLedger {
+        TradingLedger ledger;
+
+        @Setup
+        public void setUp() {
+            ledger = new TradingLedger(STARTING_CASH);
+            // A few open positions, so snapshots have something to value.
+            for (String symbol : SYMBOLS) {
+                ledger.execute(new TradeTicket(symbol, TradeSide.BUY, 100, 100.0, "seed", null, null));
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            ledger.close();
+        }
+    }
+
+    @State(Scope.Group)
+    public static class GroupLedger extends SharedLedger {
+    }
+
+    // Each trader alternates buying and selling the same lot, so positions and cash stay bounded however long it runs.
+    @State(Scope.Thread)
+    public static class Trader {
+        private TradeTicket buy;
+        private TradeTicket sell;
+        private boolean holding;
+
+        @Setup
+        public void setUp() {
+            String symbol = SYMBOLS[(int) (Thread.currentThread().getId() % SYMBOLS.length)];
+            buy = new TradeTicket(symbol, TradeSide.BUY, 10, 101.0, "bench", null, null);
+            sell = new TradeTicket(symbol, TradeSide.SELL, 10, 102.0, "bench", null, null);
+        }
+
+        TradeTicket next() {
+            holding = !holding;
+            return holding ? buy : sell;
+        }
+    }
+
+    @Benchmark
+    public TradeExecutionResult execute(SharedLedger state, Trader trader) {
+        return state.ledger.execute(trader.next());
+    }
+
+    @Benchmark
+    public PortfolioView snapshot(SharedLedger state) {
+        return state.ledger.snapshot();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public TradeExecutionResult contendedExecute(GroupLedger state, Trader trader) {
+        return state.ledger.execute(trader.next());
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public PortfolioView contendedSnapshot(GroupLedger state) {
+        return state.ledger.snapshot();
+    }
+}
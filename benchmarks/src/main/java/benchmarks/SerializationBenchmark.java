@@ -0,0 +1,75 @@
+package benchmarks;
+
+import analysis.PortfolioView;
+import analysis.RecommendationEngine;
+import analysis.TradeSide;
+import analysis.TradeTicket;
+import analysis.TradingLedger;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ingestion.StoryDetail;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import presentation.StoryInsights;
+
+// Serialises the two largest responses the web server sends, with a mapper configured as HeliosWebServer's is.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private PortfolioView portfolio;
+    private StoryInsights insights;
+
+    @Setup
+    public void setUp() {
+        // Enough trades to fill the recent-trades list and give the equity timeline a full set of points.
+        try (TradingLedger ledger = new TradingLedger(1_000_000.0)) {
+            String[] symbols = {"BARC.L", "LLOY.L", "BDEV.L", "IAG.L", "SHEL.L", "BP.L", "HSBA.L", "TSCO.L"};
+            for (int i = 0; i < 400; i++) {
+                String symbol = symbols[i % symbols.length];
+                TradeSide side = (i / symbols.length) % 2 == 0 ? TradeSide.BUY : TradeSide.SELL;
+                ledger.execute(new TradeTicket(symbol, side, 10, 100.0 + i % 7, "bench", "story-" + i, "Story " + i));
+            }
+            portfolio = ledger.snapshot();
+        }
+
+        RecommendationEngine recommendationEngine = new RecommendationEngine(Corpus.analyzer());
+        StoryDetail detail = new StoryDetail(
+            "story-1",
+            Corpus.HEADLINE,
+            Corpus.ARTICLE,
+            "https://www.bbc.co.uk/news/business-00000000",
+            "2024-08-01T12:00:00Z",
+            "BBC Business",
+            "BARC.L"
+        );
+        insights = new StoryInsights(
+            detail,
+            recommendationEngine.recommend(detail.title() + "\n" + detail.body(), detail.suggestedSymbol())
+        );
+    }
+
+    @Benchmark
+    public byte[] portfolioView() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(portfolio);
+    }
+
+    @Benchmark
+    public byte[] storyInsights() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(insights);
+    }
+}
@@ -0,0 +1,235 @@
+package analysis;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import knowledge.PriceTick;
+
+public final class AccountLedgerService implements Closeable {
+    public static final String DEFAULT_ACCOUNT = "default";
+
+    private static final Pattern ACCOUNT_ID = Pattern.compile("[a-z0-9][a-z0-9_-]{0,63}");
+    private static final int RECENT_TRADE_CAPACITY = 1_024;
+
+    private final Path directory;
+    private final double startingCash;
+    private final long idleTimeoutNanos;
+    private final RiskLimits riskLimits;
+    private final Map<String, AccountSlot> accounts = new ConcurrentHashMap<>();
+    private final Map<String, PriceTick> latestPrices = new ConcurrentHashMap<>();
+
+    public AccountLedgerService(Path directory, double startingCash, Duration idleTimeout) {
+        this(directory, startingCash, idleTimeout, RiskLimits.unlimited());
+    }
+
+    public AccountLedgerService(Path directory, double startingCash, Duration idleTimeout, RiskLimits riskLimits) {
+        if (startingCash <= 0.0) {
+            throw new IllegalArgumentException("startingCash must be positive");
+        }
+        this.directory = directory;
+        this.startingCash = startingCash;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.riskLimits = riskLimits;
+    }
+
+    public TradeExecutionResult execute(String accountId, TradeTicket ticket) {
+        return withLedger(accountId, ledger -> ledger.execute(ticket));
+    }
+
+    public TradeBatchResult executeBatch(String accountId, List<TradeTicket> tickets) {
+        return withLedger(accountId, ledger -> ledger.executeBatch(tickets));
+    }
+
+    public OrderView submitOrder(String accountId, OrderRequest request) {
+        return withSlot(accountId, slot -> {
+            if (request != null && request.symbol() != null) {
+                PriceTick latest = latestPrices.get(request.symbol().trim().toUpperCase(Locale.ROOT));
+                if (latest != null) {
+                    slot.orders().seedPrice(latest);
+                }
+            }
+            return slot.orders().submit(request);
+        });
+    }
+
+    public OrderView cancelOrder(String accountId, String orderId) {
+        return withSlot(accountId, slot -> slot.orders().cancel(orderId));
+    }
+
+    public OrderView orderStatus(String accountId, String orderId) {
+        return withSlot(accountId, slot -> slot.orders().status(orderId));
+    }
+
+    public List<OrderView> openOrders(String accountId) {
+        return withSlot(accountId, slot -> slot.orders().openOrders());
+    }
+
+    public RiskReport riskReport(String accountId) {
+        return withLedger(accountId, TradingLedger::riskReport);
+    }
+
+    public PortfolioView snapshot(String accountId) {
+        return withLedger(accountId, TradingLedger::snapshot);
+    }
+
+    public TradeHistoryPage history(String accountId, String before, int limit, String symbol) {
+        return withLedger(accountId, ledger -> ledger.history(before, limit, symbol));
+    }
+
+    public List<EquityPoint> equityHistory(String accountId, long fromMillis, long toMillis, int maxPoints) {
+        return withLedger(accountId, ledger -> ledger.equityHistory(fromMillis, toMillis, maxPoints));
+    }
+
+    public int markToMarket(Collection<PriceTick> ticks) {
+        Map<String, PriceTick> coalesced = TradingLedger.coalesce(ticks);
+        if (coalesced.isEmpty()) {
+            return 0;
+        }
+        for (Map.Entry<String, PriceTick> entry : coalesced.entrySet()) {
+            latestPrices.merge(
+                entry.getKey(),
+                entry.getValue(),
+                (current, candidate) -> candidate.getTimestampMillis() >= current.getTimestampMillis() ? candidate : current
+            );
+        }
+
+        int updated = 0;
+        for (AccountSlot slot : accounts.values()) {
+            synchronized (slot) {
+                if (!slot.evicted && slot.ledger != null) {
+                    updated += slot.ledger.applyMarks(coalesced);
+                    if (slot.orders != null) {
+                        slot.orders.onPrices(coalesced);
+                    }
+                }
+            }
+        }
+        return updated;
+    }
+
+    public int activeAccounts() {
+        return accounts.size();
+    }
+
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (AccountSlot slot : new ArrayList<>(accounts.values())) {
+            synchronized (slot) {
+                // Resting orders only live in memory, so accounts holding them stay loaded.
+                if (slot.evicted || now - slot.lastAccessNanos < idleTimeoutNanos || slot.hasOpenOrders()) {
+                    continue;
+                }
+                slot.evict();
+                accounts.remove(slot.accountId, slot);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    @Override
+    public void close() {
+        List<AccountSlot> slots = new ArrayList<>(accounts.values());
+        for (AccountSlot slot : slots) {
+            synchronized (slot) {
+                if (!slot.evicted) {
+                    slot.evict();
+                    accounts.remove(slot.accountId, slot);
+                }
+            }
+        }
+    }
+
+    public static String normalizeAccountId(String accountId) {
+        if (accountId == null || accountId.isBlank()) {
+            return DEFAULT_ACCOUNT;
+        }
+        String normalized = accountId.trim().toLowerCase(Locale.ROOT);
+        if (!ACCOUNT_ID.matcher(normalized).matches()) {
+            throw new IllegalArgumentException("Invalid account id: " + accountId);
+        }
+        return normalized;
+    }
+
+    private <T> T withLedger(String accountId, Function<TradingLedger, T> operation) {
+        return withSlot(accountId, slot -> operation.apply(slot.ledger()));
+    }
+
+    private <T> T withSlot(String accountId, Function<AccountSlot, T> operation) {
+        String normalized = normalizeAccountId(accountId);
+        while (true) {
+            AccountSlot slot = accounts.computeIfAbsent(normalized, AccountSlot::new);
+            // Each account has its own slot monitor, so different accounts never contend on a shared lock.
+            synchronized (slot) {
+                if (slot.evicted) {
+                    continue;
+                }
+                slot.lastAccessNanos = System.nanoTime();
+                return operation.apply(slot);
+            }
+        }
+    }
+
+    private final class AccountSlot {
+        private final String accountId;
+        private TradingLedger ledger;
+        private OrderEngine orders;
+        private long lastAccessNanos = System.nanoTime();
+        private boolean evicted;
+
+        private AccountSlot(String accountId) {
+            this.accountId = accountId;
+        }
+
+        private TradingLedger ledger() {
+            if (ledger == null) {
+                TradeHistoryStore history = TradeHistoryStore.open(
+                    directory.resolve(accountId).resolve("trades"),
+                    RECENT_TRADE_CAPACITY
+                );
+                EquitySeriesStore equitySeries = null;
+                try {
+                    equitySeries = EquitySeriesStore.open(directory.resolve(accountId).resolve("equity"));
+                    ledger = new TradingLedger(startingCash, history, riskLimits, equitySeries);
+                    ledger.applyMarks(latestPrices);
+                } catch (RuntimeException exception) {
+                    history.close();
+                    if (equitySeries != null) {
+                        equitySeries.close();
+                    }
+                    throw exception;
+                }
+            }
+            return ledger;
+        }
+
+        private OrderEngine orders() {
+            if (orders == null) {
+                orders = new OrderEngine(ledger());
+            }
+            return orders;
+        }
+
+        private boolean hasOpenOrders() {
+            return orders != null && orders.openOrderCount() > 0;
+        }
+
+        private void evict() {
+            evicted = true;
+            orders = null;
+            if (ledger != null) {
+                ledger.close();
+                ledger = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package analysis;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import util.LatencyHistogram;
+
+// Shares analysis threads between priority classes by stride scheduling: each class advances its own virtual clock
+// by 1/weight per task it runs, and the class furthest behind goes next. A class that has been idle re-enters at the
+// current virtual time, so a story click arriving behind a deep backfill queue is picked by the next free worker
+// instead of waiting its turn. Tasks are never interrupted; preemption happens between tasks, which is why callers
+// should submit bulk work as many small tasks.
+public final class AnalysisExecutor implements Closeable {
+    private final Object monitor = new Object();
+    private final Map<AnalysisPriority, ClassQueue> classes = new EnumMap<>(AnalysisPriority.class);
+    private final List<Thread> workers = new ArrayList<>();
+
+    private double virtualTime;
+    private boolean closed;
+
+    public AnalysisExecutor(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        for (AnalysisPriority priority : AnalysisPriority.values()) {
+            classes.put(priority, new ClassQueue(priority));
+        }
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(this::work, "analysis-worker-" + i);
+            thread.setDaemon(true);
+            workers.add(thread);
+            thread.start();
+        }
+    }
+
+    // Blocks while the class queue is full, which is how a bulk replay is throttled to the pace the workers allow it.
+    public <T> CompletableFuture<T> submit(AnalysisPriority priority, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Task<T> queued = new Task<>(task, future, System.nanoTime());
+        synchronized (monitor) {
+            ClassQueue queue = classes.get(priority);
+            while (!closed && queue.tasks.size() >= priority.queueCapacity()) {
+                try {
+                    monitor.wait();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while queueing " + priority + " analysis", exception);
+                }
+            }
+            if (closed) {
+                throw new IllegalStateException("Analysis executor is closed");
+            }
+            if (queue.tasks.isEmpty()) {
+                queue.pass = Math.max(queue.pass, virtualTime);
+            }
+            queue.tasks.addLast(queued);
+            monitor.notifyAll();
+        }
+        return future;
+    }
+
+    public List<PriorityStats> stats() {
+        List<PriorityStats> stats = new ArrayList<>();
+        for (ClassQueue queue : classes.values()) {
+            int queued;
+            long failed;
+            synchronized (monitor) {
+                queued = queue.tasks.size();
+                failed = queue.failed;
+            }
+            stats.add(new PriorityStats(
+                queue.priority,
+                queue.priority.weight(),
+                queued,
+                queue.totalLatency.count(),
+                failed,
+                queue.queueWait.snapshot(),
+                queue.totalLatency.snapshot()
+            ));
+        }
+        return stats;
+    }
+
+    // Runs everything already queued, then stops the workers.
+    @Override
+    public void close() {
+        synchronized (monitor) {
+            closed = true;
+            monitor.notifyAll();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void work() {
+        while (true) {
+            ClassQueue queue;
+            Task<?> task;
+            synchronized (monitor) {
+                while ((queue = nextLocked()) == null) {
+                    if (closed) {
+                        return;
+                    }
+                    try {
+                        monitor.wait();
+                    } catch (InterruptedException exception) {
+                        return;
+                    }
+                }
+                virtualTime = queue.pass;
+                queue.pass += 1.0 / queue.priority.weight();
+                task = queue.tasks.pollFirst();
+                monitor.notifyAll();
+            }
+
+            queue.queueWait.record((System.nanoTime() - task.enqueuedNanos) / 1_000);
+            run(queue, task);
+        }
+    }
+
+    // Every caller joins its future, so it is completed whatever the task throws, Errors included; otherwise a
+    // StackOverflowError on a deep graph would hang the caller and take this worker down with it. Latency is recorded
+    // before completion so a caller that has joined always sees its task in stats().
+    private <T> void run(ClassQueue queue, Task<T> task) {
+        T result;
+        try {
+            result = task.body.get();
+        } catch (Throwable failure) {
+            synchronized (monitor) {
+                queue.failed++;
+            }
+            queue.totalLatency.record((System.nanoTime() - task.enqueuedNanos) / 1_000);
+            if (failure instanceof Error) {
+                System.err.println(queue.priority + " analysis failed: " + failure);
+            }
+            task.future.completeExceptionally(failure);
+            return;
+        }
+        queue.totalLatency.record((System.nanoTime() - task.enqueuedNanos) / 1_000);
+        task.future.complete(result);
+    }
+
+    private ClassQueue nextLocked() {
+        ClassQueue best = null;
+        for (ClassQueue queue : classes.values()) {
+            if (!queue.tasks.isEmpty() && (best == null || queue.pass < best.pass)) {
+                best = queue;
+            }
+        }
+        return best;
+    }
+
+    private record Task<T>(Supplier<T> body, CompletableFuture<T> future, long enqueuedNanos) {
+    }
+
+    private static final class ClassQueue {
+        private final AnalysisPriority priority;
+        private final ArrayDeque<Task<?>> tasks = new ArrayDeque<>();
+        private final LatencyHistogram queueWait = new LatencyHistogram();
+        private final LatencyHistogram totalLatency = new LatencyHistogram();
+        private double pass;
+        private long failed;
+
+        private ClassQueue(AnalysisPriority priority) {
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package analysis;
+
+// Declared from most to least urgent; the executor breaks scheduling ties in this order.
+public enum AnalysisPriority {
+    INTERACTIVE(16, 1_024),
+    LIVE_FEED(4, 8_192),
+    BACKFILL(1, 1_024);
+
+    private final int weight;
+    private final int queueCapacity;
+
+    AnalysisPriority(int weight, int queueCapacity) {
+        this.weight = weight;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int weight() {
+        return weight;
+    }
+
+    public int queueCapacity() {
+        return queueCapacity;
+    }
+}
@@ -0,0 +1,101 @@
+package analysis;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import util.MappedJsonlReader;
+
+public final class AnalysisReplay {
+    private static final int IN_FLIGHT_PER_THREAD = 8;
+
+    private final HeliosAnalyzer analyzer;
+    private final int parallelism;
+    private final AnalysisExecutor executor;
+
+    public AnalysisReplay(HeliosAnalyzer analyzer, int parallelism) {
+        this(analyzer, parallelism, null);
+    }
+
+    // With a shared executor every record becomes its own BACKFILL task, so interactive and live analysis can overtake
+    // the replay between records instead of waiting for it to finish.
+    public AnalysisReplay(HeliosAnalyzer analyzer, int parallelism, AnalysisExecutor executor) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        this.analyzer = analyzer;
+        this.parallelism = parallelism;
+        this.executor = executor;
+    }
+
+    // Unordered replays parse and analyze on every thread at once and call the sink concurrently. Ordered replays
+    // parse on the caller's thread, analyze a bounded window in parallel and deliver results in file order; replays on
+    // a shared executor always take that path so the window bounds how much backfill is queued at once.
+    public <T> ReplaySummary replay(
+        MappedJsonlReader<T> reader,
+        Function<T, String> textOf,
+        boolean ordered,
+        BiConsumer<T, AnalysisReport> sink
+    ) {
+        long started = System.nanoTime();
+        long records = ordered || executor != null
+            ? replayOrdered(reader, textOf, sink)
+            : reader.forEachParallel(parallelism, record -> sink.accept(record, analyzer.analyze(textOf.apply(record))));
+        long elapsedNanos = Math.max(1, System.nanoTime() - started);
+        return new ReplaySummary(
+            records,
+            TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+            records * 1_000_000_000.0 / elapsedNanos
+        );
+    }
+
+    private <T> long replayOrdered(MappedJsonlReader<T> reader, Function<T, String> textOf, BiConsumer<T, AnalysisReport> sink) {
+        ExecutorService pool = executor != null ? null : Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "analysis-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ArrayDeque<Pending<T>> window = new ArrayDeque<>();
+        int capacity = parallelism * IN_FLIGHT_PER_THREAD;
+        try {
+            long records = reader.forEach(record -> {
+                if (window.size() == capacity) {
+                    deliver(window.pollFirst(), sink);
+                }
+                Future<AnalysisReport> report = pool != null
+                    ? pool.submit(() -> analyzer.analyze(textOf.apply(record)))
+                    : executor.submit(AnalysisPriority.BACKFILL, () -> analyzer.analyze(textOf.apply(record)));
+                window.addLast(new Pending<>(record, report));
+            });
+            while (!window.isEmpty()) {
+                deliver(window.pollFirst(), sink);
+            }
+            return records;
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private static <T> void deliver(Pending<T> pending, BiConsumer<T, AnalysisReport> sink) {
+        try {
+            sink.accept(pending.record(), pending.report().get());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during analysis replay", exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Analysis replay failed", exception.getCause());
+        }
+    }
+
+    private record Pending<T>(T record, Future<AnalysisReport> report) {
+    }
+}
@@ -0,0 +1,28 @@
+package analysis;
+
+import java.time.Instant;
+import java.util.List;
+
+public record AnalyzedEvent(
+    String source,
+    String title,
+    Instant timestamp,
+    String eventType,
+    List<String> entities,
+    List<TradeRecommendation> recommendations,
+    long latencyMicros,
+    String duplicateOf
+) {
+    // duplicateOf names the source and title of the earlier story whose analysis a near-duplicate reuses.
+    public AnalyzedEvent(
+        String source,
+        String title,
+        Instant timestamp,
+        String eventType,
+        List<String> entities,
+        List<TradeRecommendation> recommendations,
+        long latencyMicros
+    ) {
+        this(source, title, timestamp, eventType, entities, recommendations, latencyMicros, null);
+    }
+}
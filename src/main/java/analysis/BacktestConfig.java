@@ -0,0 +1,14 @@
+package analysis;
+
+// Configs that share a RecommendationEngine instance share its precomputed recommendations, so graph variants are
+// expressed as distinct engines and everything else as strategy parameters.
+public record BacktestConfig(String name, RecommendationEngine recommender, BacktestStrategy strategy, double startingCash) {
+    public BacktestConfig {
+        if (recommender == null || strategy == null) {
+            throw new IllegalArgumentException("recommender and strategy are required");
+        }
+        if (!(startingCash > 0.0)) {
+            throw new IllegalArgumentException("startingCash must be positive");
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package analysis;
+
+public record BacktestEvent(long timestampMillis, String title, String text) {
+}
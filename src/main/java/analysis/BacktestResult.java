@@ -0,0 +1,20 @@
+package analysis;
+
+import java.util.List;
+
+public record BacktestResult(
+    String name,
+    int trades,
+    int rejectedTrades,
+    double startingCash,
+    double finalEquity,
+    double pnl,
+    double returnPct,
+    int closingTrades,
+    int winningTrades,
+    double hitRate,
+    double maxDrawdown,
+    double maxDrawdownPct,
+    List<EquityPoint> equityCurve
+) {
+}
@@ -0,0 +1,9 @@
+package analysis;
+
+import java.util.List;
+
+// Implementations are shared by every event of a run and may be shared between runs of a sweep, so they must not
+// keep mutable state; anything that depends on the run belongs in the MarketView.
+public interface BacktestStrategy {
+    List<TradeTicket> decide(BacktestEvent event, List<TradeRecommendation> recommendations, MarketView market);
+}
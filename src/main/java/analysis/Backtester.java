@@ -0,0 +1,282 @@
+package analysis;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import knowledge.PriceTick;
+
+// Replays events and prices in timestamp order through a private TradingLedger per configuration. The merged
+// timeline and the recommendations for each engine are built once and never modified, so a sweep's runs share
+// nothing mutable and scale with the number of cores.
+public final class Backtester {
+    private static final int HISTORY_CAPACITY = 64;
+    private static final int CURVE_POINTS = 200;
+    private static final int RECOMMEND_CHUNK = 256;
+
+    private final List<BacktestEvent> events;
+    private final long[] stepTimes;
+    private final int[] stepEvents;
+    private final List<Map<String, PriceTick>> stepMarks;
+
+    public Backtester(List<BacktestEvent> events, List<PriceTick> prices) {
+        List<BacktestEvent> sortedEvents = new ArrayList<>(events);
+        sortedEvents.sort(Comparator.comparingLong(BacktestEvent::timestampMillis));
+        List<PriceTick> sortedPrices = new ArrayList<>(prices);
+        sortedPrices.sort(Comparator.comparingLong(PriceTick::getTimestampMillis));
+        this.events = List.copyOf(sortedEvents);
+
+        // Ticks sharing a timestamp become one mark, and marks at an event's timestamp are applied before it, so a
+        // strategy always trades at the price that was current when the headline landed.
+        List<Long> times = new ArrayList<>();
+        List<Integer> eventIndexes = new ArrayList<>();
+        List<Map<String, PriceTick>> marks = new ArrayList<>();
+        int p = 0;
+        int e = 0;
+        while (p < sortedPrices.size() || e < sortedEvents.size()) {
+            boolean priceNext = e == sortedEvents.size()
+                || (p < sortedPrices.size() && sortedPrices.get(p).getTimestampMillis() <= sortedEvents.get(e).timestampMillis());
+            if (priceNext) {
+                long time = sortedPrices.get(p).getTimestampMillis();
+                int end = p;
+                while (end < sortedPrices.size() && sortedPrices.get(end).getTimestampMillis() == time) {
+                    end++;
+                }
+                times.add(time);
+                eventIndexes.add(-1);
+                marks.add(Map.copyOf(TradingLedger.coalesce(sortedPrices.subList(p, end))));
+                p = end;
+            } else {
+                times.add(sortedEvents.get(e).timestampMillis());
+                eventIndexes.add(e);
+                marks.add(null);
+                e++;
+            }
+        }
+        this.stepTimes = times.stream().mapToLong(Long::longValue).toArray();
+        this.stepEvents = eventIndexes.stream().mapToInt(Integer::intValue).toArray();
+        this.stepMarks = marks;
+    }
+
+    public int eventCount() {
+        return events.size();
+    }
+
+    public int stepCount() {
+        return stepTimes.length;
+    }
+
+    public BacktestResult run(BacktestConfig config) {
+        return run(config, recommend(config.recommender(), null));
+    }
+
+    public List<BacktestResult> sweep(List<BacktestConfig> configs, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "backtest-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<RecommendationEngine, List<List<TradeRecommendation>>> recommendations = new IdentityHashMap<>();
+            for (BacktestConfig config : configs) {
+                if (!recommendations.containsKey(config.recommender())) {
+                    recommendations.put(config.recommender(), recommend(config.recommender(), executor));
+                }
+            }
+
+            List<Future<BacktestResult>> runs = new ArrayList<>(configs.size());
+            for (BacktestConfig config : configs) {
+                List<List<TradeRecommendation>> shared = recommendations.get(config.recommender());
+                runs.add(executor.submit(() -> run(config, shared)));
+            }
+            List<BacktestResult> results = new ArrayList<>(runs.size());
+            for (Future<BacktestResult> run : runs) {
+                results.add(await(run));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<List<TradeRecommendation>> recommend(RecommendationEngine recommender, ExecutorService executor) {
+        List<List<TradeRecommendation>> byEvent = new ArrayList<>(Collections.nCopies(events.size(), null));
+        if (executor == null) {
+            for (int i = 0; i < events.size(); i++) {
+                byEvent.set(i, List.copyOf(recommender.recommend(events.get(i).text())));
+            }
+            return byEvent;
+        }
+        List<Future<?>> chunks = new ArrayList<>();
+        for (int start = 0; start < events.size(); start += RECOMMEND_CHUNK) {
+            int from = start;
+            int to = Math.min(events.size(), start + RECOMMEND_CHUNK);
+            chunks.add(executor.submit(() -> {
+                for (int i = from; i < to; i++) {
+                    byEvent.set(i, List.copyOf(recommender.recommend(events.get(i).text())));
+                }
+            }));
+        }
+        for (Future<?> chunk : chunks) {
+            await(chunk);
+        }
+        // Each worker sets only its own slots, and Future.get() orders those writes before this read.
+        return byEvent;
+    }
+
+    private BacktestResult run(BacktestConfig config, List<List<TradeRecommendation>> recommendations) {
+        Run run = new Run();
+        TradingLedger ledger = new TradingLedger(
+            config.startingCash(),
+            TradeHistoryStore.inMemory(HISTORY_CAPACITY),
+            RiskLimits.unlimited(),
+            EquitySeriesStore.inMemory()
+        );
+        TimeSeriesDownsampler curve = stepTimes.length == 0
+            ? null
+            : new TimeSeriesDownsampler(stepTimes[0], stepTimes[stepTimes.length - 1] + 1, CURVE_POINTS);
+        double peak = config.startingCash();
+        double maxDrawdown = 0.0;
+        double maxDrawdownPct = 0.0;
+
+        try {
+            for (int step = 0; step < stepTimes.length; step++) {
+                long time = stepTimes[step];
+                int eventIndex = stepEvents[step];
+                if (eventIndex < 0) {
+                    Map<String, PriceTick> marks = stepMarks.get(step);
+                    ledger.revalue(marks);
+                    for (Map.Entry<String, PriceTick> mark : marks.entrySet()) {
+                        run.lastPrices.put(mark.getKey(), mark.getValue().getPrice());
+                    }
+                } else {
+                    BacktestEvent event = events.get(eventIndex);
+                    for (TradeTicket ticket : config.strategy().decide(event, recommendations.get(eventIndex), run)) {
+                        try {
+                            run.apply(ledger.executeAt(ticket, time));
+                        } catch (IllegalArgumentException rejected) {
+                            run.rejected++;
+                        }
+                    }
+                }
+
+                double equity = ledger.equity();
+                peak = Math.max(peak, equity);
+                if (peak - equity > maxDrawdown) {
+                    maxDrawdown = peak - equity;
+                    maxDrawdownPct = maxDrawdown / peak * 100.0;
+                }
+                curve.accept(time, equity);
+            }
+
+            double finalEquity = ledger.equity();
+            double pnl = finalEquity - config.startingCash();
+            return new BacktestResult(
+                config.name(),
+                run.trades,
+                run.rejected,
+                config.startingCash(),
+                round(finalEquity),
+                round(pnl),
+                round(pnl / config.startingCash() * 100.0),
+                run.closing,
+                run.winning,
+                run.closing == 0 ? 0.0 : round((double) run.winning / run.closing),
+                round(maxDrawdown),
+                round(maxDrawdownPct),
+                curve == null ? List.of() : points(curve)
+            );
+        } finally {
+            ledger.close();
+        }
+    }
+
+    private static List<EquityPoint> points(TimeSeriesDownsampler curve) {
+        long[] times = new long[CURVE_POINTS];
+        double[] values = new double[CURVE_POINTS];
+        int count = curve.result(times, values);
+        List<EquityPoint> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            points.add(new EquityPoint(Instant.ofEpochMilli(times[i]).toString(), round(values[i])));
+        }
+        return List.copyOf(points);
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during backtest", exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Backtest failed", exception.getCause());
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    // Per-run state; it doubles as the strategy's view of the market so strategies themselves stay stateless.
+    private static final class Run implements MarketView {
+        private final Map<String, Double> lastPrices = new HashMap<>();
+        private final Map<String, Integer> positions = new HashMap<>();
+        private final Map<String, Double> averageCost = new HashMap<>();
+        private int trades;
+        private int rejected;
+        private int closing;
+        private int winning;
+
+        @Override
+        public double lastPrice(String symbol) {
+            Double price = lastPrices.get(normalize(symbol));
+            return price == null ? Double.NaN : price;
+        }
+
+        @Override
+        public int position(String symbol) {
+            return positions.getOrDefault(normalize(symbol), 0);
+        }
+
+        private void apply(ExecutedTrade trade) {
+            trades++;
+            String symbol = trade.symbol();
+            int held = positions.getOrDefault(symbol, 0);
+            if (trade.side() == TradeSide.BUY) {
+                double cost = averageCost.getOrDefault(symbol, 0.0);
+                averageCost.put(symbol, (cost * held + trade.price() * trade.quantity()) / (held + trade.quantity()));
+                positions.put(symbol, held + trade.quantity());
+                return;
+            }
+            closing++;
+            if (trade.price() > averageCost.getOrDefault(symbol, trade.price())) {
+                winning++;
+            }
+            if (held == trade.quantity()) {
+                positions.remove(symbol);
+                averageCost.remove(symbol);
+            } else {
+                positions.put(symbol, held - trade.quantity());
+            }
+        }
+
+        private static String normalize(String symbol) {
+            return symbol == null ? "" : symbol.trim().toUpperCase(Locale.ROOT);
+        }
+    }
+}
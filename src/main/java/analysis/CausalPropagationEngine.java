@@ -3,6 +3,7 @@ package analysis;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -22,10 +23,22 @@ public final class CausalPropagationEngine {
     }
 
     public List<ImpactResult> propagate(Event event, Set<Entity> extractedEntities) {
+        Map<Entity, Double> shocks = new LinkedHashMap<>();
+        for (Entity seed : extractedEntities) {
+            shocks.put(seed, 1.0);
+        }
+        return propagate(event, shocks);
+    }
+
+    // A negative shock flips the sign of every downstream contribution, so "rates lower than expected" runs the same
+    // graph walk as "rates higher" with the directions reversed.
+    public List<ImpactResult> propagate(Event event, Map<Entity, Double> seedShocks) {
         Map<String, ScoreAccumulator> accumulators = new HashMap<>();
 
-        for (Entity seed : extractedEntities) {
-            traverse(seed, 1, 1.0, accumulators);
+        for (Map.Entry<Entity, Double> seed : seedShocks.entrySet()) {
+            if (seed.getValue() != 0.0) {
+                traverse(seed.getKey(), 1, seed.getValue(), accumulators);
+            }
         }
 
         List<ImpactResult> results = new ArrayList<>();
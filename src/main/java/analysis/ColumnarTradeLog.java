@@ -0,0 +1,473 @@
+package analysis;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+final class ColumnarTradeLog implements Closeable {
+    private static final int PENDING_ROWS = 512;
+    private static final int REPLAY_CHUNK_ROWS = 4_096;
+    private static final String SYMBOLS_FILE = "symbols.txt";
+    private static final String TEXT_FILE = "text.dat";
+
+    private enum Column {
+        TIMESTAMP("timestamp.col", Long.BYTES),
+        SYMBOL("symbol.col", Integer.BYTES),
+        SIDE("side.col", Byte.BYTES),
+        QUANTITY("quantity.col", Integer.BYTES),
+        PRICE("price.col", Double.BYTES),
+        NOTIONAL("notional.col", Double.BYTES),
+        EQUITY("equity.col", Double.BYTES),
+        TOTAL_PNL("total_pnl.col", Double.BYTES),
+        TEXT_END("text_end.col", Long.BYTES);
+
+        private final String fileName;
+        private final int width;
+
+        Column(String fileName, int width) {
+            this.fileName = fileName;
+            this.width = width;
+        }
+    }
+
+    private static final Column[] COLUMNS = Column.values();
+
+    private final Path directory;
+    private final FileChannel[] channels = new FileChannel[COLUMNS.length];
+    private final ByteBuffer[] pending = new ByteBuffer[COLUMNS.length];
+    private final FileChannel textChannel;
+    private final FileChannel symbolChannel;
+    private final List<String> symbols = new ArrayList<>();
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private final List<IntList> rowsBySymbol = new ArrayList<>();
+    private final List<String> pendingSymbols = new ArrayList<>();
+
+    private ByteBuffer pendingText = ByteBuffer.allocate(16 * 1024);
+    private int flushedRows;
+    private int pendingRows;
+    private long textEnd;
+
+    private ColumnarTradeLog(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+
+        loadSymbols(directory.resolve(SYMBOLS_FILE));
+        symbolChannel = FileChannel.open(
+            directory.resolve(SYMBOLS_FILE),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND
+        );
+        textChannel = openColumn(directory.resolve(TEXT_FILE));
+
+        long rows = Long.MAX_VALUE;
+        for (Column column : COLUMNS) {
+            FileChannel channel = openColumn(directory.resolve(column.fileName));
+            channels[column.ordinal()] = channel;
+            pending[column.ordinal()] = ByteBuffer.allocate(PENDING_ROWS * column.width);
+            rows = Math.min(rows, channel.size() / column.width);
+        }
+        if (rows > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Trade log exceeds supported size: " + directory);
+        }
+
+        // A torn write leaves columns with different lengths; keep only rows that every column holds.
+        flushedRows = (int) rows;
+        for (Column column : COLUMNS) {
+            FileChannel channel = channels[column.ordinal()];
+            channel.truncate((long) flushedRows * column.width);
+            channel.position(channel.size());
+        }
+        textEnd = flushedRows == 0 ? 0L : readLong(Column.TEXT_END, flushedRows - 1);
+        textChannel.truncate(textEnd);
+        textChannel.position(textEnd);
+
+        rebuildSymbolIndex();
+    }
+
+    static ColumnarTradeLog open(Path directory) {
+        try {
+            return new ColumnarTradeLog(directory);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to open trade log at " + directory, exception);
+        }
+    }
+
+    int size() {
+        return flushedRows + pendingRows;
+    }
+
+    void append(ExecutedTrade trade) {
+        if (pendingRows == PENDING_ROWS) {
+            flush();
+        }
+
+        int symbolId = symbolIdFor(trade.symbol());
+        byte[] note = nullToEmpty(trade.note()).getBytes(StandardCharsets.UTF_8);
+        byte[] storyTitle = nullToEmpty(trade.storyTitle()).getBytes(StandardCharsets.UTF_8);
+        int textLength = Integer.BYTES + note.length + storyTitle.length;
+        ensureTextCapacity(textLength);
+        pendingText.putInt(note.length).put(note).put(storyTitle);
+        textEnd += textLength;
+
+        pending[Column.TIMESTAMP.ordinal()].putLong(Instant.parse(trade.timestamp()).toEpochMilli());
+        pending[Column.SYMBOL.ordinal()].putInt(symbolId);
+        pending[Column.SIDE.ordinal()].put((byte) trade.side().ordinal());
+        pending[Column.QUANTITY.ordinal()].putInt(trade.quantity());
+        pending[Column.PRICE.ordinal()].putDouble(trade.price());
+        pending[Column.NOTIONAL.ordinal()].putDouble(trade.notional());
+        pending[Column.EQUITY.ordinal()].putDouble(trade.equityAfterTrade());
+        pending[Column.TOTAL_PNL.ordinal()].putDouble(trade.totalPnlAfterTrade());
+        pending[Column.TEXT_END.ordinal()].putLong(textEnd);
+
+        rowsBySymbol.get(symbolId).add(size());
+        pendingRows++;
+    }
+
+    void flush() {
+        if (pendingRows == 0) {
+            return;
+        }
+        long symbolsEnd = -1L;
+        try {
+            // Text and dictionary first: a crash before the columns land leaves unreferenced bytes only.
+            writeAt(textChannel, pendingText, textEnd - pendingText.position());
+            if (!pendingSymbols.isEmpty()) {
+                symbolsEnd = symbolChannel.size();
+                StringBuilder lines = new StringBuilder();
+                for (String symbol : pendingSymbols) {
+                    lines.append(symbol).append('\n');
+                }
+                writeFully(symbolChannel, ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8)));
+            }
+            for (Column column : COLUMNS) {
+                writeAt(channels[column.ordinal()], pending[column.ordinal()], (long) flushedRows * column.width);
+            }
+        } catch (IOException exception) {
+            // Nothing pending is cleared until every file has taken it, and text and columns are written at fixed
+            // offsets, so the next flush rewrites the same rows in place. The dictionary is appended, so it is cut
+            // back rather than left to repeat its lines.
+            truncateQuietly(symbolChannel, symbolsEnd);
+            throw new IllegalStateException("Unable to flush trade log at " + directory, exception);
+        }
+        pendingText.clear();
+        pendingSymbols.clear();
+        for (ByteBuffer buffer : pending) {
+            buffer.clear();
+        }
+        flushedRows += pendingRows;
+        pendingRows = 0;
+    }
+
+    int[] rowsBefore(int beforeRow, int limit, String symbol) {
+        int upper = Math.min(beforeRow, size());
+        if (symbol == null || symbol.isBlank()) {
+            int count = Math.max(0, Math.min(limit, upper));
+            int[] rows = new int[count];
+            for (int i = 0; i < count; i++) {
+                rows[i] = upper - 1 - i;
+            }
+            return rows;
+        }
+
+        Integer symbolId = symbolIds.get(symbol);
+        if (symbolId == null) {
+            return new int[0];
+        }
+        IntList postings = rowsBySymbol.get(symbolId);
+        int end = postings.lowerBound(upper);
+        int count = Math.max(0, Math.min(limit, end));
+        int[] rows = new int[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = postings.get(end - 1 - i);
+        }
+        return rows;
+    }
+
+    int countForSymbol(String symbol) {
+        Integer symbolId = symbolIds.get(symbol);
+        return symbolId == null ? 0 : rowsBySymbol.get(symbolId).size();
+    }
+
+    List<ExecutedTrade> read(int[] rows) {
+        flush();
+        if (rows.length == 0) {
+            return List.of();
+        }
+        try {
+            ByteBuffer timestamps = readCells(Column.TIMESTAMP, rows);
+            ByteBuffer symbolCells = readCells(Column.SYMBOL, rows);
+            ByteBuffer sides = readCells(Column.SIDE, rows);
+            ByteBuffer quantities = readCells(Column.QUANTITY, rows);
+            ByteBuffer prices = readCells(Column.PRICE, rows);
+            ByteBuffer notionals = readCells(Column.NOTIONAL, rows);
+            ByteBuffer equities = readCells(Column.EQUITY, rows);
+            ByteBuffer totalPnls = readCells(Column.TOTAL_PNL, rows);
+            ByteBuffer textEnds = readCells(Column.TEXT_END, rows);
+
+            int[] previousRows = new int[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                previousRows[i] = Math.max(0, rows[i] - 1);
+            }
+            ByteBuffer textStarts = readCells(Column.TEXT_END, previousRows);
+
+            TradeSide[] sideValues = TradeSide.values();
+            List<ExecutedTrade> trades = new ArrayList<>(rows.length);
+            for (int i = 0; i < rows.length; i++) {
+                long start = rows[i] == 0 ? 0L : textStarts.getLong(i * Long.BYTES);
+                long end = textEnds.getLong(i * Long.BYTES);
+                ByteBuffer text = ByteBuffer.allocate((int) (end - start));
+                readFully(textChannel, text, start);
+                text.flip();
+                byte[] note = new byte[text.getInt()];
+                text.get(note);
+                byte[] storyTitle = new byte[text.remaining()];
+                text.get(storyTitle);
+
+                trades.add(new ExecutedTrade(
+                    TradeHistoryStore.tradeIdFor(rows[i] + 1L),
+                    Instant.ofEpochMilli(timestamps.getLong(i * Long.BYTES)).toString(),
+                    symbols.get(symbolCells.getInt(i * Integer.BYTES)),
+                    sideValues[sides.get(i)],
+                    quantities.getInt(i * Integer.BYTES),
+                    prices.getDouble(i * Double.BYTES),
+                    notionals.getDouble(i * Double.BYTES),
+                    new String(note, StandardCharsets.UTF_8),
+                    new String(storyTitle, StandardCharsets.UTF_8),
+                    equities.getDouble(i * Double.BYTES),
+                    totalPnls.getDouble(i * Double.BYTES)
+                ));
+            }
+            return trades;
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to read trade log at " + directory, exception);
+        }
+    }
+
+    void forEach(Consumer<ExecutedTrade> consumer) {
+        int total = size();
+        for (int from = 0; from < total; from += REPLAY_CHUNK_ROWS) {
+            int count = Math.min(REPLAY_CHUNK_ROWS, total - from);
+            int[] rows = new int[count];
+            for (int i = 0; i < count; i++) {
+                rows[i] = from + i;
+            }
+            read(rows).forEach(consumer);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            closeQuietly(textChannel);
+            closeQuietly(symbolChannel);
+            for (FileChannel channel : channels) {
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    private ByteBuffer readCells(Column column, int[] rows) throws IOException {
+        int width = column.width;
+        FileChannel channel = channels[column.ordinal()];
+        ByteBuffer cells = ByteBuffer.allocate(rows.length * width);
+
+        int low = Integer.MAX_VALUE;
+        int high = Integer.MIN_VALUE;
+        for (int row : rows) {
+            low = Math.min(low, row);
+            high = Math.max(high, row);
+        }
+
+        int span = high - low + 1;
+        if (span <= rows.length * 4) {
+            ByteBuffer block = ByteBuffer.allocate(span * width);
+            readFully(channel, block, (long) low * width);
+            for (int i = 0; i < rows.length; i++) {
+                cells.put(i * width, block, (rows[i] - low) * width, width);
+            }
+            return cells;
+        }
+
+        for (int i = 0; i < rows.length; i++) {
+            ByteBuffer cell = cells.slice(i * width, width);
+            readFully(channel, cell, (long) rows[i] * width);
+        }
+        return cells;
+    }
+
+    private long readLong(Column column, int row) throws IOException {
+        ByteBuffer cell = ByteBuffer.allocate(Long.BYTES);
+        readFully(channels[column.ordinal()], cell, (long) row * column.width);
+        return cell.getLong(0);
+    }
+
+    private int symbolIdFor(String symbol) {
+        Integer existing = symbolIds.get(symbol);
+        if (existing != null) {
+            return existing;
+        }
+        int id = registerSymbol(symbol);
+        pendingSymbols.add(symbol);
+        return id;
+    }
+
+    private int registerSymbol(String symbol) {
+        int id = symbols.size();
+        symbols.add(symbol);
+        symbolIds.put(symbol, id);
+        rowsBySymbol.add(new IntList());
+        return id;
+    }
+
+    private void loadSymbols(Path symbolFile) throws IOException {
+        if (!Files.exists(symbolFile)) {
+            return;
+        }
+        byte[] content = Files.readAllBytes(symbolFile);
+        int start = 0;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] == '\n') {
+                registerSymbol(new String(content, start, i - start, StandardCharsets.UTF_8));
+                start = i + 1;
+            }
+        }
+        if (start < content.length) {
+            try (FileChannel channel = FileChannel.open(symbolFile, StandardOpenOption.WRITE)) {
+                channel.truncate(start);
+            }
+        }
+    }
+
+    private void rebuildSymbolIndex() throws IOException {
+        FileChannel channel = channels[Column.SYMBOL.ordinal()];
+        ByteBuffer chunk = ByteBuffer.allocate(REPLAY_CHUNK_ROWS * Integer.BYTES);
+        int row = 0;
+        while (row < flushedRows) {
+            chunk.clear();
+            int count = Math.min(REPLAY_CHUNK_ROWS, flushedRows - row);
+            chunk.limit(count * Integer.BYTES);
+            readFully(channel, chunk, (long) row * Integer.BYTES);
+            chunk.flip();
+            for (int i = 0; i < count; i++) {
+                int symbolId = chunk.getInt();
+                if (symbolId < 0 || symbolId >= rowsBySymbol.size()) {
+                    throw new IllegalStateException("Trade log references unknown symbol id " + symbolId + " at " + directory);
+                }
+                rowsBySymbol.get(symbolId).add(row + i);
+            }
+            row += count;
+        }
+    }
+
+    private void ensureTextCapacity(int additional) {
+        if (pendingText.remaining() >= additional) {
+            return;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(pendingText.capacity() * 2, pendingText.position() + additional));
+        pendingText.flip();
+        grown.put(pendingText);
+        pendingText = grown;
+    }
+
+    // Writes the buffer's contents without consuming them, so a failed flush can be retried from the same bytes.
+    private static void writeAt(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        ByteBuffer contents = buffer.duplicate().flip();
+        long offset = position;
+        while (contents.hasRemaining()) {
+            offset += channel.write(contents, offset);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of trade log column at offset " + offset);
+            }
+            offset += read;
+        }
+    }
+
+    private static FileChannel openColumn(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void truncateQuietly(FileChannel channel, long size) {
+        if (size < 0) {
+            return;
+        }
+        try {
+            channel.truncate(size);
+        } catch (IOException ignored) {
+            // The flush is already failing with the error that matters.
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing useful to do while closing.
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static final class IntList {
+        private int[] values = new int[8];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int get(int index) {
+            return values[index];
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private int lowerBound(int key) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package analysis;
+
+public record EntityHeat(
+    String entity,
+    String window,
+    double positive,
+    double negative,
+    double net,
+    double mentions
+) {
+}
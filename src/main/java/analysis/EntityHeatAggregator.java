@@ -0,0 +1,114 @@
+package analysis;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Keeps exponentially decayed positive, negative and mention totals per entity for each window. Every cell remembers
+// only the time it was last brought up to date, so an impact costs a handful of multiplies per window no matter how
+// many events came before it, and readers decay values to "now" without writing anything back.
+public final class EntityHeatAggregator {
+    private static final int INITIAL_ENTITIES = 64;
+    private static final HeatWindow[] WINDOWS = HeatWindow.values();
+
+    private final Object monitor = new Object();
+    private final Map<String, Integer> entityIds = new HashMap<>();
+    private final double[] decayPerMilli = new double[WINDOWS.length];
+
+    private String[] names = new String[INITIAL_ENTITIES];
+    private long[] updatedMillis = new long[INITIAL_ENTITIES];
+    private double[][] positive = new double[WINDOWS.length][INITIAL_ENTITIES];
+    private double[][] negative = new double[WINDOWS.length][INITIAL_ENTITIES];
+    private double[][] mentions = new double[WINDOWS.length][INITIAL_ENTITIES];
+
+    public EntityHeatAggregator() {
+        for (int w = 0; w < WINDOWS.length; w++) {
+            decayPerMilli[w] = Math.log(2.0) / WINDOWS[w].halfLife().toMillis();
+        }
+    }
+
+    public void record(AnalysisReport report) {
+        record(report.event().getTimestamp(), report.rankedImpacts());
+    }
+
+    public void record(Instant at, List<ImpactResult> impacts) {
+        long millis = at.toEpochMilli();
+        synchronized (monitor) {
+            for (ImpactResult impact : impacts) {
+                int id = idLocked(impact.getEntity().getCanonicalName(), millis);
+                double up = 0.0;
+                double down = 0.0;
+                switch (impact.getDirection()) {
+                    case POSITIVE -> up = impact.getScore();
+                    case NEGATIVE -> down = impact.getScore();
+                    case MIXED -> {
+                        up = impact.getScore() / 2.0;
+                        down = impact.getScore() / 2.0;
+                    }
+                }
+
+                long last = updatedMillis[id];
+                for (int w = 0; w < WINDOWS.length; w++) {
+                    if (millis >= last) {
+                        double decay = Math.exp(-decayPerMilli[w] * (millis - last));
+                        positive[w][id] = positive[w][id] * decay + up;
+                        negative[w][id] = negative[w][id] * decay + down;
+                        mentions[w][id] = mentions[w][id] * decay + 1.0;
+                    } else {
+                        // A late event is aged to the cell's clock rather than rewinding the clock for everyone else.
+                        double decay = Math.exp(-decayPerMilli[w] * (last - millis));
+                        positive[w][id] += up * decay;
+                        negative[w][id] += down * decay;
+                        mentions[w][id] += decay;
+                    }
+                }
+                updatedMillis[id] = Math.max(last, millis);
+            }
+        }
+    }
+
+    public List<EntityHeat> topMovers(HeatWindow window, Instant now, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        int w = window.ordinal();
+        long nowMillis = now.toEpochMilli();
+        List<EntityHeat> heat = new ArrayList<>();
+        synchronized (monitor) {
+            for (int id = 0; id < entityIds.size(); id++) {
+                double decay = Math.exp(-decayPerMilli[w] * Math.max(0, nowMillis - updatedMillis[id]));
+                double up = positive[w][id] * decay;
+                double down = negative[w][id] * decay;
+                heat.add(new EntityHeat(names[id], window.label(), up, down, up - down, mentions[w][id] * decay));
+            }
+        }
+        heat.sort(Comparator.comparingDouble((EntityHeat entity) -> Math.abs(entity.net())).reversed());
+        return List.copyOf(heat.subList(0, Math.min(limit, heat.size())));
+    }
+
+    private int idLocked(String entity, long firstMillis) {
+        Integer existing = entityIds.get(entity);
+        if (existing != null) {
+            return existing;
+        }
+        int id = entityIds.size();
+        if (id == names.length) {
+            int capacity = names.length * 2;
+            names = Arrays.copyOf(names, capacity);
+            updatedMillis = Arrays.copyOf(updatedMillis, capacity);
+            for (int w = 0; w < WINDOWS.length; w++) {
+                positive[w] = Arrays.copyOf(positive[w], capacity);
+                negative[w] = Arrays.copyOf(negative[w], capacity);
+                mentions[w] = Arrays.copyOf(mentions[w], capacity);
+            }
+        }
+        names[id] = entity;
+        updatedMillis[id] = firstMillis;
+        entityIds.put(entity, id);
+        return id;
+    }
+}
@@ -0,0 +1,369 @@
+package analysis;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+public final class EquitySeriesStore implements Closeable {
+    private static final int SEGMENT_POINTS = 16_384;
+    private static final int POINT_BYTES = Long.BYTES + Double.BYTES;
+    private static final int PENDING_POINTS = 256;
+    private static final int RESIDENT_SEGMENTS = 2;
+    private static final int MAX_IN_MEMORY_SEGMENTS = 64;
+    private static final int MAX_QUERY_POINTS = 5_000;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".eq";
+
+    private final Object monitor = new Object();
+    private final Path directory;
+    private final List<Segment> segments = new ArrayList<>();
+    private final ByteBuffer pending = ByteBuffer.allocate(PENDING_POINTS * POINT_BYTES);
+
+    private FileChannel activeChannel;
+    private long totalPoints;
+
+    private EquitySeriesStore(Path directory) throws IOException {
+        this.directory = directory;
+        if (directory == null) {
+            return;
+        }
+        Files.createDirectories(directory);
+
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing
+                .filter(file -> {
+                    String name = file.getFileName().toString();
+                    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                })
+                .sorted()
+                .toList();
+        }
+
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            boolean last = i == files.size() - 1;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // A torn write can leave a partial trailing point; drop it so every record stays aligned.
+                int count = (int) Math.min(SEGMENT_POINTS, channel.size() / POINT_BYTES);
+                channel.truncate((long) count * POINT_BYTES);
+                if (count == 0) {
+                    if (last) {
+                        Files.delete(file);
+                    }
+                    continue;
+                }
+                Segment segment = new Segment(segmentNumber(file), file);
+                if (i >= files.size() - RESIDENT_SEGMENTS) {
+                    segment.load(channel, count);
+                } else {
+                    segment.count = count;
+                    segment.firstMillis = readPoint(channel, 0).getLong();
+                    segment.lastMillis = readPoint(channel, count - 1).getLong();
+                }
+                segments.add(segment);
+                totalPoints += count;
+            }
+        }
+
+        Segment tail = tail();
+        if (tail != null && tail.count < SEGMENT_POINTS) {
+            activeChannel = FileChannel.open(tail.file, StandardOpenOption.WRITE);
+            activeChannel.position(activeChannel.size());
+        }
+    }
+
+    public static EquitySeriesStore inMemory() {
+        try {
+            return new EquitySeriesStore(null);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to create in-memory equity series", exception);
+        }
+    }
+
+    public static EquitySeriesStore open(Path directory) {
+        try {
+            return new EquitySeriesStore(directory);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to open equity series at " + directory, exception);
+        }
+    }
+
+    public long size() {
+        synchronized (monitor) {
+            return totalPoints;
+        }
+    }
+
+    public void append(long epochMillis, double equity) {
+        synchronized (monitor) {
+            Segment tail = tail();
+            // Segments are searched by time, so the series must never step backwards even if the clock does.
+            long millis = tail == null ? epochMillis : Math.max(epochMillis, tail.lastMillis);
+            if (tail == null || tail.count == SEGMENT_POINTS) {
+                tail = rollLocked(tail == null ? 1 : tail.number + 1);
+            }
+
+            if (tail.count == 0) {
+                tail.firstMillis = millis;
+            }
+            tail.times[tail.count] = millis;
+            tail.values[tail.count] = equity;
+            tail.lastMillis = millis;
+            tail.count++;
+            totalPoints++;
+
+            if (directory != null) {
+                pending.putLong(millis).putDouble(equity);
+                if (!pending.hasRemaining()) {
+                    flushLocked();
+                }
+            }
+        }
+    }
+
+    public void flush() {
+        synchronized (monitor) {
+            flushLocked();
+        }
+    }
+
+    public List<EquityPoint> query(long fromMillis, long toMillis, int maxPoints) {
+        if (maxPoints < 3 || maxPoints > MAX_QUERY_POINTS) {
+            throw new IllegalArgumentException("points must be between 3 and " + MAX_QUERY_POINTS);
+        }
+        synchronized (monitor) {
+            if (segments.isEmpty()) {
+                return List.of();
+            }
+            long from = Math.max(fromMillis, segments.get(0).firstMillis);
+            long to = Math.min(toMillis, tail().lastMillis + 1);
+            if (from >= to) {
+                return List.of();
+            }
+
+            TimeSeriesDownsampler sampler = new TimeSeriesDownsampler(from, to, maxPoints);
+            try {
+                for (Segment segment : segments) {
+                    if (segment.lastMillis < from || segment.firstMillis >= to) {
+                        continue;
+                    }
+                    if (segment.isResident()) {
+                        scanResident(segment, from, to, sampler);
+                    } else {
+                        scanFile(segment, sampler);
+                    }
+                }
+            } catch (IOException exception) {
+                throw new IllegalStateException("Unable to read equity series at " + directory, exception);
+            }
+            return points(sampler, maxPoints);
+        }
+    }
+
+    // The portfolio view only needs a recent curve, so it never reads past the newest resident segments.
+    public List<EquityPoint> recent(int maxPoints) {
+        synchronized (monitor) {
+            int first = segments.size();
+            while (first > Math.max(0, segments.size() - RESIDENT_SEGMENTS) && segments.get(first - 1).isResident()) {
+                first--;
+            }
+            if (first == segments.size()) {
+                return List.of();
+            }
+            long from = segments.get(first).firstMillis;
+            long to = tail().lastMillis + 1;
+            TimeSeriesDownsampler sampler = new TimeSeriesDownsampler(from, to, maxPoints);
+            for (int i = first; i < segments.size(); i++) {
+                scanResident(segments.get(i), from, to, sampler);
+            }
+            return points(sampler, maxPoints);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (monitor) {
+            try {
+                flushLocked();
+            } finally {
+                closeActiveLocked();
+            }
+        }
+    }
+
+    private Segment rollLocked(int number) {
+        flushLocked();
+        closeActiveLocked();
+
+        Segment segment;
+        if (directory == null) {
+            segment = new Segment(number, null);
+            if (segments.size() == MAX_IN_MEMORY_SEGMENTS) {
+                totalPoints -= segments.remove(0).count;
+            }
+        } else {
+            Path file = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+            segment = new Segment(number, file);
+            try {
+                activeChannel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            } catch (IOException exception) {
+                throw new IllegalStateException("Unable to create equity segment " + file, exception);
+            }
+            // Older segments stay on disk and are read back only when a query reaches them.
+            int resident = 1;
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                if (segments.get(i).isResident() && resident++ >= RESIDENT_SEGMENTS) {
+                    segments.get(i).evict();
+                }
+            }
+        }
+        segment.times = new long[SEGMENT_POINTS];
+        segment.values = new double[SEGMENT_POINTS];
+        segments.add(segment);
+        return segment;
+    }
+
+    private void flushLocked() {
+        if (activeChannel == null || pending.position() == 0) {
+            return;
+        }
+        try {
+            pending.flip();
+            while (pending.hasRemaining()) {
+                activeChannel.write(pending);
+            }
+            pending.clear();
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to flush equity series at " + directory, exception);
+        }
+    }
+
+    private void closeActiveLocked() {
+        if (activeChannel == null) {
+            return;
+        }
+        try {
+            activeChannel.close();
+        } catch (IOException ignored) {
+            // Nothing useful to do while closing.
+        }
+        activeChannel = null;
+    }
+
+    private Segment tail() {
+        return segments.isEmpty() ? null : segments.get(segments.size() - 1);
+    }
+
+    private static void scanResident(Segment segment, long from, long to, TimeSeriesDownsampler sampler) {
+        int start = Arrays.binarySearch(segment.times, 0, segment.count, from);
+        if (start < 0) {
+            start = -start - 1;
+        } else {
+            while (start > 0 && segment.times[start - 1] == from) {
+                start--;
+            }
+        }
+        for (int i = start; i < segment.count && segment.times[i] < to; i++) {
+            sampler.accept(segment.times[i], segment.values[i]);
+        }
+    }
+
+    private static void scanFile(Segment segment, TimeSeriesDownsampler sampler) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(segment.count * POINT_BYTES);
+        try (FileChannel channel = FileChannel.open(segment.file, StandardOpenOption.READ)) {
+            readFully(channel, buffer, 0L);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            sampler.accept(buffer.getLong(), buffer.getDouble());
+        }
+    }
+
+    private static List<EquityPoint> points(TimeSeriesDownsampler sampler, int maxPoints) {
+        long[] times = new long[maxPoints];
+        double[] values = new double[maxPoints];
+        int count = sampler.result(times, values);
+        List<EquityPoint> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            points.add(new EquityPoint(Instant.ofEpochMilli(times[i]).toString(), values[i]));
+        }
+        return List.copyOf(points);
+    }
+
+    private static ByteBuffer readPoint(FileChannel channel, int index) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(POINT_BYTES);
+        readFully(channel, buffer, (long) index * POINT_BYTES);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of equity segment at offset " + offset);
+            }
+            offset += read;
+        }
+    }
+
+    private static int segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        String digits = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+        try {
+            return Integer.parseInt(digits);
+        } catch (NumberFormatException exception) {
+            throw new IllegalStateException("Unexpected equity segment name: " + file, exception);
+        }
+    }
+
+    private static final class Segment {
+        private final int number;
+        private final Path file;
+        private long firstMillis;
+        private long lastMillis;
+        private int count;
+        private long[] times;
+        private double[] values;
+
+        private Segment(int number, Path file) {
+            this.number = number;
+            this.file = file;
+        }
+
+        private boolean isResident() {
+            return times != null;
+        }
+
+        private void load(FileChannel channel, int points) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(points * POINT_BYTES);
+            readFully(channel, buffer, 0L);
+            buffer.flip();
+            times = new long[SEGMENT_POINTS];
+            values = new double[SEGMENT_POINTS];
+            for (int i = 0; i < points; i++) {
+                times[i] = buffer.getLong();
+                values[i] = buffer.getDouble();
+            }
+            count = points;
+            firstMillis = times[0];
+            lastMillis = times[points - 1];
+        }
+
+        private void evict() {
+            times = null;
+            values = null;
+        }
+    }
+}
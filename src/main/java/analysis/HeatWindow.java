@@ -0,0 +1,34 @@
+package analysis;
+
+import java.time.Duration;
+
+public enum HeatWindow {
+    FIVE_MINUTES("5m", Duration.ofMinutes(5)),
+    ONE_HOUR("1h", Duration.ofHours(1)),
+    ONE_DAY("1d", Duration.ofDays(1));
+
+    private final String label;
+    private final Duration halfLife;
+
+    HeatWindow(String label, Duration halfLife) {
+        this.label = label;
+        this.halfLife = halfLife;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public Duration halfLife() {
+        return halfLife;
+    }
+
+    public static HeatWindow fromLabel(String label) {
+        for (HeatWindow window : values()) {
+            if (window.label.equalsIgnoreCase(label)) {
+                return window;
+            }
+        }
+        throw new IllegalArgumentException("window must be one of 5m, 1h or 1d");
+    }
+}
@@ -12,15 +12,38 @@ public final class HeliosAnalyzer {
     private final EventClassifier classifier;
     private final CausalPropagationEngine propagationEngine;
     private final ExplanationSynthesizer synthesizer;
+    private final EntityHeatAggregator heat;
+    private final ImpactArchive archive;
 
     public HeliosAnalyzer(
         EventClassifier classifier,
         CausalPropagationEngine propagationEngine,
         ExplanationSynthesizer synthesizer
+    ) {
+        this(classifier, propagationEngine, synthesizer, null);
+    }
+
+    public HeliosAnalyzer(
+        EventClassifier classifier,
+        CausalPropagationEngine propagationEngine,
+        ExplanationSynthesizer synthesizer,
+        EntityHeatAggregator heat
+    ) {
+        this(classifier, propagationEngine, synthesizer, heat, null);
+    }
+
+    public HeliosAnalyzer(
+        EventClassifier classifier,
+        CausalPropagationEngine propagationEngine,
+        ExplanationSynthesizer synthesizer,
+        EntityHeatAggregator heat,
+        ImpactArchive archive
     ) {
         this.classifier = classifier;
         this.propagationEngine = propagationEngine;
         this.synthesizer = synthesizer;
+        this.heat = heat;
+        this.archive = archive;
     }
 
     public AnalysisReport analyze(String rawText) {
@@ -29,6 +52,12 @@ public final class HeliosAnalyzer {
         Set<Entity> extracted = classifier.extractEntities(rawText);
         List<ImpactResult> impacts = propagationEngine.propagate(event, extracted);
         String explanation = synthesizer.synthesize(event, impacts);
+        if (heat != null) {
+            heat.record(event.getTimestamp(), impacts);
+        }
+        if (archive != null) {
+            archive.append(event.getTimestamp(), type, impacts);
+        }
         return new AnalysisReport(event, impacts, explanation);
     }
 }
@@ -0,0 +1,535 @@
+package analysis;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import knowledge.EventType;
+import knowledge.ImpactDirection;
+
+// One row per impact, one file per column, with entity names and rationales dictionary-encoded. Rows are grouped
+// into fixed-size blocks whose timestamp range is kept in blocks.idx, so a time-bounded scan skips whole blocks and
+// maps only the columns its filters and grouping touch.
+public final class ImpactArchive implements Closeable {
+    static final int BLOCK_ROWS = 65_536;
+    private static final int PENDING_ROWS = 4_096;
+    private static final int BLOCK_INDEX_BYTES = 2 * Long.BYTES;
+    private static final String ENTITIES_FILE = "entities.txt";
+    private static final String RATIONALES_FILE = "rationales.txt";
+    private static final String BLOCK_INDEX_FILE = "blocks.idx";
+    private static final EventType[] EVENT_TYPES = EventType.values();
+    private static final ImpactDirection[] DIRECTIONS = ImpactDirection.values();
+
+    private enum Column {
+        TIMESTAMP("timestamp.col", Long.BYTES),
+        EVENT_TYPE("event_type.col", Byte.BYTES),
+        ENTITY("entity.col", Integer.BYTES),
+        DIRECTION("direction.col", Byte.BYTES),
+        SCORE("score.col", Float.BYTES),
+        RATIONALE("rationale.col", Integer.BYTES);
+
+        private final String fileName;
+        private final int width;
+
+        Column(String fileName, int width) {
+            this.fileName = fileName;
+            this.width = width;
+        }
+    }
+
+    private static final Column[] COLUMNS = Column.values();
+
+    private final Object monitor = new Object();
+    private final Path directory;
+    private final FileChannel[] channels = new FileChannel[COLUMNS.length];
+    private final ByteBuffer[] pending = new ByteBuffer[COLUMNS.length];
+    private final FileChannel blockIndexChannel;
+    private final Dictionary entities;
+    private final Dictionary rationales;
+
+    private long[] blockMin = new long[16];
+    private long[] blockMax = new long[16];
+    private int indexedBlocks;
+    private long flushedRows;
+    private int pendingRows;
+
+    private ImpactArchive(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        this.entities = new Dictionary(directory.resolve(ENTITIES_FILE));
+        this.rationales = new Dictionary(directory.resolve(RATIONALES_FILE));
+
+        long rows = Long.MAX_VALUE;
+        for (Column column : COLUMNS) {
+            FileChannel channel = openFile(directory.resolve(column.fileName));
+            channels[column.ordinal()] = channel;
+            pending[column.ordinal()] = ByteBuffer.allocate(PENDING_ROWS * column.width);
+            rows = Math.min(rows, channel.size() / column.width);
+        }
+        // A torn write leaves columns with different lengths; keep only rows that every column holds.
+        flushedRows = rows;
+        for (Column column : COLUMNS) {
+            FileChannel channel = channels[column.ordinal()];
+            channel.truncate(flushedRows * column.width);
+            channel.position(channel.size());
+        }
+
+        blockIndexChannel = openFile(directory.resolve(BLOCK_INDEX_FILE));
+        loadBlockIndex();
+    }
+
+    public static ImpactArchive open(Path directory) {
+        try {
+            return new ImpactArchive(directory);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to open impact archive at " + directory, exception);
+        }
+    }
+
+    public long size() {
+        synchronized (monitor) {
+            return flushedRows + pendingRows;
+        }
+    }
+
+    public void append(AnalysisReport report) {
+        append(report.event().getTimestamp(), report.event().getType(), report.rankedImpacts());
+    }
+
+    public void append(Instant timestamp, EventType eventType, List<ImpactResult> impacts) {
+        long millis = timestamp.toEpochMilli();
+        synchronized (monitor) {
+            for (ImpactResult impact : impacts) {
+                if (impact.getEntity() == null || impact.getDirection() == null) {
+                    continue;
+                }
+                if (pendingRows == PENDING_ROWS) {
+                    flushLocked();
+                }
+                pending[Column.TIMESTAMP.ordinal()].putLong(millis);
+                pending[Column.EVENT_TYPE.ordinal()].put((byte) eventType.ordinal());
+                pending[Column.ENTITY.ordinal()].putInt(entities.idFor(impact.getEntity().getCanonicalName()));
+                pending[Column.DIRECTION.ordinal()].put((byte) impact.getDirection().ordinal());
+                pending[Column.SCORE.ordinal()].putFloat((float) impact.getScore());
+                pending[Column.RATIONALE.ordinal()].putInt(rationales.idFor(impact.getRationale()));
+                includeInBlock(flushedRows + pendingRows, millis);
+                pendingRows++;
+            }
+        }
+    }
+
+    public void flush() {
+        synchronized (monitor) {
+            flushLocked();
+        }
+    }
+
+    public ImpactBreakdown query(ImpactQuery query) {
+        long started = System.nanoTime();
+        long rows;
+        long[] mins;
+        long[] maxs;
+        List<String> entityNames;
+        List<String> rationaleTexts;
+        synchronized (monitor) {
+            flushLocked();
+            rows = flushedRows;
+            int blocks = blockCount(rows);
+            mins = Arrays.copyOf(blockMin, blocks);
+            maxs = Arrays.copyOf(blockMax, blocks);
+            entityNames = entities.snapshot();
+            rationaleTexts = rationales.snapshot();
+        }
+
+        Scan scan = new Scan(query, entityNames, rationaleTexts);
+        int scannedBlocks = 0;
+        int skippedBlocks = 0;
+        long scannedRows = 0;
+        if (!scan.empty) {
+            long from = query.from() == null ? Long.MIN_VALUE : query.from().toEpochMilli();
+            long to = query.to() == null ? Long.MAX_VALUE : query.to().toEpochMilli();
+            for (int block = 0; block < mins.length; block++) {
+                if (maxs[block] < from || mins[block] >= to) {
+                    skippedBlocks++;
+                    continue;
+                }
+                long start = (long) block * BLOCK_ROWS;
+                int count = (int) Math.min(BLOCK_ROWS, rows - start);
+                boolean wholeBlock = mins[block] >= from && maxs[block] < to;
+                scan.block(start, count, wholeBlock ? Long.MIN_VALUE : from, wholeBlock ? Long.MAX_VALUE : to);
+                scannedBlocks++;
+                scannedRows += count;
+            }
+        }
+
+        return new ImpactBreakdown(
+            query.groupBy().label(),
+            scan.groups(),
+            scan.matched,
+            scannedRows,
+            scannedBlocks,
+            scan.empty ? mins.length : skippedBlocks,
+            (System.nanoTime() - started) / 1_000
+        );
+    }
+
+    @Override
+    public void close() {
+        synchronized (monitor) {
+            try {
+                flushLocked();
+            } finally {
+                entities.close();
+                rationales.close();
+                closeQuietly(blockIndexChannel);
+                for (FileChannel channel : channels) {
+                    closeQuietly(channel);
+                }
+            }
+        }
+    }
+
+    private void flushLocked() {
+        if (pendingRows == 0) {
+            return;
+        }
+        try {
+            // Dictionaries first: a crash before the columns land leaves unreferenced entries only.
+            entities.flush();
+            rationales.flush();
+            // Columns are written at their committed offsets and cleared only once all of them have taken the rows,
+            // so a failure part way leaves every column pending and the next flush rewrites the same rows in place.
+            for (Column column : COLUMNS) {
+                writeAt(channels[column.ordinal()], pending[column.ordinal()], flushedRows * column.width);
+            }
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to flush impact archive at " + directory, exception);
+        }
+        for (ByteBuffer buffer : pending) {
+            buffer.clear();
+        }
+        flushedRows += pendingRows;
+        pendingRows = 0;
+        try {
+            writeBlockIndex((int) (flushedRows / BLOCK_ROWS));
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to flush impact archive at " + directory, exception);
+        }
+    }
+
+    private void includeInBlock(long row, long millis) {
+        int block = (int) (row / BLOCK_ROWS);
+        if (row % BLOCK_ROWS == 0) {
+            setBlockRange(block, millis, millis);
+        } else {
+            setBlockRange(block, Math.min(blockMin[block], millis), Math.max(blockMax[block], millis));
+        }
+    }
+
+    private void setBlockRange(int block, long min, long max) {
+        if (block == blockMin.length) {
+            blockMin = Arrays.copyOf(blockMin, block * 2);
+            blockMax = Arrays.copyOf(blockMax, block * 2);
+        }
+        blockMin[block] = min;
+        blockMax[block] = max;
+    }
+
+    // Only complete blocks are indexed on disk; the open block's range is rebuilt from its timestamps on open.
+    private void loadBlockIndex() throws IOException {
+        int completeBlocks = (int) (flushedRows / BLOCK_ROWS);
+        int stored = (int) Math.min(completeBlocks, blockIndexChannel.size() / BLOCK_INDEX_BYTES);
+        blockIndexChannel.truncate((long) stored * BLOCK_INDEX_BYTES);
+        blockIndexChannel.position(blockIndexChannel.size());
+
+        ByteBuffer index = ByteBuffer.allocate(stored * BLOCK_INDEX_BYTES);
+        readFully(blockIndexChannel, index, 0);
+        index.flip();
+        for (int block = 0; block < stored; block++) {
+            setBlockRange(block, index.getLong(), index.getLong());
+        }
+        indexedBlocks = stored;
+
+        for (long row = (long) stored * BLOCK_ROWS; row < flushedRows; row += BLOCK_ROWS) {
+            int count = (int) Math.min(BLOCK_ROWS, flushedRows - row);
+            ByteBuffer timestamps = ByteBuffer.allocate(count * Long.BYTES);
+            readFully(channels[Column.TIMESTAMP.ordinal()], timestamps, row * Long.BYTES);
+            for (int i = 0; i < count; i++) {
+                includeInBlock(row + i, timestamps.getLong(i * Long.BYTES));
+            }
+        }
+        writeBlockIndex(completeBlocks);
+    }
+
+    private void writeBlockIndex(int completeBlocks) throws IOException {
+        if (completeBlocks <= indexedBlocks) {
+            return;
+        }
+        ByteBuffer entries = ByteBuffer.allocate((completeBlocks - indexedBlocks) * BLOCK_INDEX_BYTES);
+        for (int block = indexedBlocks; block < completeBlocks; block++) {
+            entries.putLong(blockMin[block]).putLong(blockMax[block]);
+        }
+        writeAt(blockIndexChannel, entries, (long) indexedBlocks * BLOCK_INDEX_BYTES);
+        indexedBlocks = completeBlocks;
+    }
+
+    private ByteBuffer map(Column column, long startRow, int count) {
+        try {
+            return channels[column.ordinal()].map(FileChannel.MapMode.READ_ONLY, startRow * column.width, (long) count * column.width);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to read impact archive at " + directory, exception);
+        }
+    }
+
+    private static int blockCount(long rows) {
+        return (int) ((rows + BLOCK_ROWS - 1) / BLOCK_ROWS);
+    }
+
+    // Writes the buffer's contents without consuming them, so a failed flush can be retried from the same bytes.
+    private static void writeAt(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        ByteBuffer contents = buffer.duplicate().flip();
+        long offset = position;
+        while (contents.hasRemaining()) {
+            offset += channel.write(contents, offset);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of impact archive column at offset " + offset);
+            }
+            offset += read;
+        }
+    }
+
+    private static FileChannel openFile(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing useful to do while closing.
+        }
+    }
+
+    // Filters are resolved to column codes up front, so the inner loop compares primitives only. A filter naming a
+    // value the archive has never seen cannot match and short-circuits the whole scan.
+    private final class Scan {
+        private final ImpactQuery query;
+        private final List<String> entityNames;
+        private final List<String> rationaleTexts;
+        private final int eventTypeCode;
+        private final int entityCode;
+        private final int directionCode;
+        private final int rationaleCode;
+        private final long[] counts;
+        private final double[] totals;
+        private final boolean empty;
+        private long matched;
+
+        private Scan(ImpactQuery query, List<String> entityNames, List<String> rationaleTexts) {
+            this.query = query;
+            this.entityNames = entityNames;
+            this.rationaleTexts = rationaleTexts;
+            this.eventTypeCode = query.eventType() == null ? -1 : query.eventType().ordinal();
+            this.directionCode = query.direction() == null ? -1 : query.direction().ordinal();
+            this.entityCode = query.entity() == null ? -1 : lookup(entityNames, query.entity());
+            this.rationaleCode = query.rationale() == null ? -1 : lookup(rationaleTexts, query.rationale());
+            this.empty = entityCode == -2 || rationaleCode == -2;
+            int groups = switch (query.groupBy()) {
+                case ENTITY -> entityNames.size();
+                case EVENT_TYPE -> EVENT_TYPES.length;
+                case DIRECTION -> DIRECTIONS.length;
+                case RATIONALE -> rationaleTexts.size();
+            };
+            this.counts = new long[groups];
+            this.totals = new double[groups];
+        }
+
+        private void block(long start, int count, long from, long to) {
+            boolean timeFilter = from != Long.MIN_VALUE || to != Long.MAX_VALUE;
+            LongBuffer timestamps = timeFilter ? map(Column.TIMESTAMP, start, count).asLongBuffer() : null;
+            ByteBuffer eventTypes = needs(Column.EVENT_TYPE) ? map(Column.EVENT_TYPE, start, count) : null;
+            IntBuffer entityIds = needs(Column.ENTITY) ? map(Column.ENTITY, start, count).asIntBuffer() : null;
+            ByteBuffer directions = needs(Column.DIRECTION) ? map(Column.DIRECTION, start, count) : null;
+            IntBuffer rationaleIds = needs(Column.RATIONALE) ? map(Column.RATIONALE, start, count).asIntBuffer() : null;
+            FloatBuffer scores = map(Column.SCORE, start, count).asFloatBuffer();
+
+            for (int i = 0; i < count; i++) {
+                if (timeFilter) {
+                    long millis = timestamps.get(i);
+                    if (millis < from || millis >= to) {
+                        continue;
+                    }
+                }
+                if (eventTypeCode >= 0 && eventTypes.get(i) != eventTypeCode) {
+                    continue;
+                }
+                if (entityCode >= 0 && entityIds.get(i) != entityCode) {
+                    continue;
+                }
+                if (directionCode >= 0 && directions.get(i) != directionCode) {
+                    continue;
+                }
+                if (rationaleCode >= 0 && rationaleIds.get(i) != rationaleCode) {
+                    continue;
+                }
+                int key = switch (query.groupBy()) {
+                    case ENTITY -> entityIds.get(i);
+                    case EVENT_TYPE -> eventTypes.get(i);
+                    case DIRECTION -> directions.get(i);
+                    case RATIONALE -> rationaleIds.get(i);
+                };
+                counts[key]++;
+                totals[key] += scores.get(i);
+                matched++;
+            }
+        }
+
+        private boolean needs(Column column) {
+            return switch (column) {
+                case EVENT_TYPE -> eventTypeCode >= 0 || query.groupBy() == ImpactDimension.EVENT_TYPE;
+                case ENTITY -> entityCode >= 0 || query.groupBy() == ImpactDimension.ENTITY;
+                case DIRECTION -> directionCode >= 0 || query.groupBy() == ImpactDimension.DIRECTION;
+                case RATIONALE -> rationaleCode >= 0 || query.groupBy() == ImpactDimension.RATIONALE;
+                default -> true;
+            };
+        }
+
+        private List<ImpactGroup> groups() {
+            List<ImpactGroup> groups = new ArrayList<>();
+            for (int key = 0; key < counts.length; key++) {
+                if (counts[key] == 0) {
+                    continue;
+                }
+                String label = switch (query.groupBy()) {
+                    case ENTITY -> entityNames.get(key);
+                    case EVENT_TYPE -> EVENT_TYPES[key].name();
+                    case DIRECTION -> DIRECTIONS[key].name();
+                    case RATIONALE -> rationaleTexts.get(key);
+                };
+                groups.add(new ImpactGroup(label, counts[key], round(totals[key]), round(totals[key] / counts[key])));
+            }
+            groups.sort(Comparator.comparingLong(ImpactGroup::impacts).reversed().thenComparing(ImpactGroup::key));
+            return groups;
+        }
+
+        private static int lookup(List<String> values, String wanted) {
+            String normalized = Dictionary.normalize(wanted);
+            int fallback = -2;
+            for (int i = 0; i < values.size(); i++) {
+                if (values.get(i).equals(normalized)) {
+                    return i;
+                }
+                if (fallback == -2 && values.get(i).equalsIgnoreCase(normalized)) {
+                    fallback = i;
+                }
+            }
+            return fallback;
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 10_000.0) / 10_000.0;
+        }
+    }
+
+    // Newline-separated values whose line number is their code; new values are written before any row uses them.
+    private static final class Dictionary {
+        private final FileChannel channel;
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final StringBuilder pendingLines = new StringBuilder();
+
+        private Dictionary(Path file) throws IOException {
+            if (Files.exists(file)) {
+                byte[] content = Files.readAllBytes(file);
+                int start = 0;
+                for (int i = 0; i < content.length; i++) {
+                    if (content[i] == '\n') {
+                        register(new String(content, start, i - start, StandardCharsets.UTF_8));
+                        start = i + 1;
+                    }
+                }
+                if (start < content.length) {
+                    try (FileChannel torn = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                        torn.truncate(start);
+                    }
+                }
+            }
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        private int idFor(String value) {
+            String normalized = normalize(value);
+            Integer existing = ids.get(normalized);
+            if (existing != null) {
+                return existing;
+            }
+            pendingLines.append(normalized).append('\n');
+            return register(normalized);
+        }
+
+        private List<String> snapshot() {
+            return List.copyOf(values);
+        }
+
+        private void flush() throws IOException {
+            if (pendingLines.isEmpty()) {
+                return;
+            }
+            // Appended, so a partial write is cut back; otherwise the retry would repeat lines and shift every code.
+            long committed = channel.size();
+            try {
+                writeFully(channel, ByteBuffer.wrap(pendingLines.toString().getBytes(StandardCharsets.UTF_8)));
+            } catch (IOException exception) {
+                try {
+                    channel.truncate(committed);
+                } catch (IOException truncateFailure) {
+                    exception.addSuppressed(truncateFailure);
+                }
+                throw exception;
+            }
+            pendingLines.setLength(0);
+        }
+
+        private void close() {
+            closeQuietly(channel);
+        }
+
+        private int register(String value) {
+            int id = values.size();
+            values.add(value);
+            ids.put(value, id);
+            return id;
+        }
+
+        private static String normalize(String value) {
+            return value == null ? "" : value.replace('\n', ' ').replace('\r', ' ').trim();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package analysis;
+
+import java.util.List;
+
+public record ImpactBreakdown(
+    String groupBy,
+    List<ImpactGroup> groups,
+    long matchedImpacts,
+    long scannedRows,
+    int scannedBlocks,
+    int skippedBlocks,
+    long elapsedMicros
+) {
+}
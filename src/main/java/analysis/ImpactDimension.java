@@ -0,0 +1,27 @@
+package analysis;
+
+public enum ImpactDimension {
+    ENTITY("entity"),
+    EVENT_TYPE("type"),
+    DIRECTION("direction"),
+    RATIONALE("rationale");
+
+    private final String label;
+
+    ImpactDimension(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public static ImpactDimension fromLabel(String label) {
+        for (ImpactDimension dimension : values()) {
+            if (dimension.label.equalsIgnoreCase(label)) {
+                return dimension;
+            }
+        }
+        throw new IllegalArgumentException("groupBy must be one of entity, type, direction or rationale");
+    }
+}
@@ -0,0 +1,4 @@
+package analysis;
+
+public record ImpactGroup(String key, long impacts, double totalScore, double averageScore) {
+}
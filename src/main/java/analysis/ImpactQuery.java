@@ -0,0 +1,52 @@
+package analysis;
+
+import java.time.Instant;
+import knowledge.EventType;
+import knowledge.ImpactDirection;
+
+// Null filters match everything; the time range is [from, to).
+public record ImpactQuery(
+    ImpactDimension groupBy,
+    Instant from,
+    Instant to,
+    EventType eventType,
+    String entity,
+    ImpactDirection direction,
+    String rationale
+) {
+    public ImpactQuery {
+        if (groupBy == null) {
+            throw new IllegalArgumentException("groupBy is required");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (entity != null && entity.isBlank()) {
+            entity = null;
+        }
+    }
+
+    public static ImpactQuery groupBy(ImpactDimension dimension) {
+        return new ImpactQuery(dimension, null, null, null, null, null, null);
+    }
+
+    public ImpactQuery between(Instant from, Instant to) {
+        return new ImpactQuery(groupBy, from, to, eventType, entity, direction, rationale);
+    }
+
+    public ImpactQuery eventType(EventType eventType) {
+        return new ImpactQuery(groupBy, from, to, eventType, entity, direction, rationale);
+    }
+
+    public ImpactQuery entity(String entity) {
+        return new ImpactQuery(groupBy, from, to, eventType, entity, direction, rationale);
+    }
+
+    public ImpactQuery direction(ImpactDirection direction) {
+        return new ImpactQuery(groupBy, from, to, eventType, entity, direction, rationale);
+    }
+
+    public ImpactQuery rationale(String rationale) {
+        return new ImpactQuery(groupBy, from, to, eventType, entity, direction, rationale);
+    }
+}
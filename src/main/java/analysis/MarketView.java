@@ -0,0 +1,8 @@
+package analysis;
+
+public interface MarketView {
+    // NaN until the first tick for the symbol has been replayed.
+    double lastPrice(String symbol);
+
+    int position(String symbol);
+}
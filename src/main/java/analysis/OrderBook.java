@@ -0,0 +1,193 @@
+package analysis;
+
+import java.util.Arrays;
+import java.util.List;
+
+final class OrderBook {
+    private final PriceLadder bids = new PriceLadder(false);
+    private final PriceLadder asks = new PriceLadder(true);
+    private final PriceLadder buyStops = new PriceLadder(true);
+    private final PriceLadder sellStops = new PriceLadder(false);
+
+    private long lastPriceTicks = -1L;
+
+    long lastPriceTicks() {
+        return lastPriceTicks;
+    }
+
+    void setLastPriceTicks(long priceTicks) {
+        this.lastPriceTicks = priceTicks;
+    }
+
+    boolean isEmpty() {
+        return bids.size == 0 && asks.size == 0 && buyStops.size == 0 && sellStops.size == 0;
+    }
+
+    boolean isMarketable(Order order, long marketTicks) {
+        return ladderFor(order).crosses(order.priceTicks, marketTicks);
+    }
+
+    void rest(Order order) {
+        ladderFor(order).add(order);
+    }
+
+    void remove(Order order) {
+        ladderFor(order).remove(order);
+    }
+
+    void drainTriggered(long marketTicks, List<Order> triggered) {
+        bids.drain(marketTicks, triggered);
+        asks.drain(marketTicks, triggered);
+        buyStops.drain(marketTicks, triggered);
+        sellStops.drain(marketTicks, triggered);
+    }
+
+    private PriceLadder ladderFor(Order order) {
+        if (order.type == OrderType.LIMIT) {
+            return order.side == TradeSide.BUY ? bids : asks;
+        }
+        return order.side == TradeSide.BUY ? buyStops : sellStops;
+    }
+
+    static final class Order {
+        long id;
+        String symbol;
+        TradeSide side;
+        OrderType type;
+        int quantity;
+        double price;
+        long priceTicks;
+        String note;
+        String storyId;
+        String storyTitle;
+        String submittedAt;
+
+        private Order previous;
+        private Order next;
+
+        void clear() {
+            symbol = null;
+            side = null;
+            type = null;
+            note = null;
+            storyId = null;
+            storyTitle = null;
+            submittedAt = null;
+            previous = null;
+            next = null;
+        }
+    }
+
+    private static final class Level {
+        private Order head;
+        private Order tail;
+
+        private void append(Order order) {
+            order.previous = tail;
+            order.next = null;
+            if (tail == null) {
+                head = order;
+            } else {
+                tail.next = order;
+            }
+            tail = order;
+        }
+
+        private void unlink(Order order) {
+            if (order.previous == null) {
+                head = order.next;
+            } else {
+                order.previous.next = order.next;
+            }
+            if (order.next == null) {
+                tail = order.previous;
+            } else {
+                order.next.previous = order.previous;
+            }
+            order.previous = null;
+            order.next = null;
+        }
+    }
+
+    // Price levels are kept in a sorted long array with the best level last, so matching pops from the end.
+    // Keys are negated for ladders whose best price is the lowest, which keeps the array ascending either way.
+    private static final class PriceLadder {
+        private final boolean triggersAtOrAbove;
+        private long[] keys = new long[8];
+        private Level[] levels = new Level[8];
+        private int size;
+
+        private PriceLadder(boolean triggersAtOrAbove) {
+            this.triggersAtOrAbove = triggersAtOrAbove;
+        }
+
+        private boolean crosses(long priceTicks, long marketTicks) {
+            return triggersAtOrAbove ? marketTicks >= priceTicks : marketTicks <= priceTicks;
+        }
+
+        private void add(Order order) {
+            long key = keyFor(order.priceTicks);
+            int index = Arrays.binarySearch(keys, 0, size, key);
+            if (index < 0) {
+                index = -index - 1;
+                insertLevel(index, key);
+            }
+            levels[index].append(order);
+        }
+
+        private void remove(Order order) {
+            int index = Arrays.binarySearch(keys, 0, size, keyFor(order.priceTicks));
+            if (index < 0) {
+                return;
+            }
+            Level level = levels[index];
+            level.unlink(order);
+            if (level.head == null) {
+                removeLevel(index);
+            }
+        }
+
+        private void drain(long marketTicks, List<Order> triggered) {
+            while (size > 0 && crosses(priceFor(keys[size - 1]), marketTicks)) {
+                Level level = levels[size - 1];
+                for (Order order = level.head; order != null; ) {
+                    Order next = order.next;
+                    order.previous = null;
+                    order.next = null;
+                    triggered.add(order);
+                    order = next;
+                }
+                level.head = null;
+                level.tail = null;
+                removeLevel(size - 1);
+            }
+        }
+
+        private long keyFor(long priceTicks) {
+            return triggersAtOrAbove ? -priceTicks : priceTicks;
+        }
+
+        private long priceFor(long key) {
+            return triggersAtOrAbove ? -key : key;
+        }
+
+        private void insertLevel(int index, long key) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                levels = Arrays.copyOf(levels, size * 2);
+            }
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(levels, index, levels, index + 1, size - index);
+            keys[index] = key;
+            levels[index] = new Level();
+            size++;
+        }
+
+        private void removeLevel(int index) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(levels, index + 1, levels, index, size - index - 1);
+            size--;
+            levels[size] = null;
+        }
+    }
+}
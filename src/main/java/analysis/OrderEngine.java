@@ -0,0 +1,262 @@
+package analysis;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import knowledge.PriceTick;
+
+public final class OrderEngine {
+    private static final long PRICE_SCALE = 10_000L;
+    private static final int MAX_FINISHED_ORDERS = 10_000;
+    private static final int MAX_POOLED_ORDERS = 4_096;
+    private static final String ORDER_ID_PREFIX = "ORD-";
+
+    private final Object monitor = new Object();
+    private final TradingLedger ledger;
+    private final Map<String, OrderBook> booksBySymbol = new HashMap<>();
+    private final Map<Long, OrderBook.Order> openOrders = new HashMap<>();
+    private final Map<Long, OrderView> finishedOrders = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, OrderView> eldest) {
+            return size() > MAX_FINISHED_ORDERS;
+        }
+    };
+    private final ArrayDeque<OrderBook.Order> pool = new ArrayDeque<>();
+    private final List<OrderBook.Order> triggered = new ArrayList<>();
+
+    private long sequence = 1;
+
+    public OrderEngine(TradingLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    public OrderView submit(OrderRequest request) {
+        validate(request);
+        String symbol = request.symbol().trim().toUpperCase(Locale.ROOT);
+        long priceTicks = toTicks(request.price());
+        ledger.admitOrder(request.quantity(), request.price());
+
+        synchronized (monitor) {
+            OrderBook book = booksBySymbol.computeIfAbsent(symbol, ignored -> new OrderBook());
+            OrderBook.Order order = acquire();
+            order.id = sequence++;
+            order.symbol = symbol;
+            order.side = request.side();
+            order.type = request.type();
+            order.quantity = request.quantity();
+            order.price = request.price();
+            order.priceTicks = priceTicks;
+            order.note = request.note() == null ? "" : request.note().trim();
+            order.storyId = request.storyId();
+            order.storyTitle = request.storyTitle() == null ? "" : request.storyTitle().trim();
+            order.submittedAt = now();
+
+            long lastTicks = book.lastPriceTicks();
+            if (lastTicks > 0 && book.isMarketable(order, lastTicks)) {
+                return fillLocked(order, lastTicks);
+            }
+
+            book.rest(order);
+            openOrders.put(order.id, order);
+            return view(order, OrderStatus.OPEN, order.submittedAt, 0.0, null, null);
+        }
+    }
+
+    public OrderView cancel(String orderId) {
+        long id = parseOrderId(orderId);
+        synchronized (monitor) {
+            OrderBook.Order order = openOrders.remove(id);
+            if (order == null) {
+                OrderView finished = finishedOrders.get(id);
+                if (finished == null) {
+                    throw new IllegalArgumentException("Order not found: " + orderId);
+                }
+                throw new IllegalArgumentException("Order " + orderId + " is already " + finished.status());
+            }
+            booksBySymbol.get(order.symbol).remove(order);
+            return finishLocked(order, OrderStatus.CANCELLED, 0.0, null, "Cancelled by user");
+        }
+    }
+
+    public OrderView status(String orderId) {
+        long id = parseOrderId(orderId);
+        synchronized (monitor) {
+            OrderBook.Order order = openOrders.get(id);
+            if (order != null) {
+                return view(order, OrderStatus.OPEN, order.submittedAt, 0.0, null, null);
+            }
+            OrderView finished = finishedOrders.get(id);
+            if (finished == null) {
+                throw new IllegalArgumentException("Order not found: " + orderId);
+            }
+            return finished;
+        }
+    }
+
+    public List<OrderView> openOrders() {
+        synchronized (monitor) {
+            List<OrderView> views = new ArrayList<>(openOrders.size());
+            for (OrderBook.Order order : openOrders.values()) {
+                views.add(view(order, OrderStatus.OPEN, order.submittedAt, 0.0, null, null));
+            }
+            views.sort(Comparator.comparing(OrderView::orderId, Comparator.comparingLong(OrderEngine::parseOrderId)));
+            return views;
+        }
+    }
+
+    public int openOrderCount() {
+        synchronized (monitor) {
+            return openOrders.size();
+        }
+    }
+
+    public List<OrderView> onPrices(Collection<PriceTick> ticks) {
+        return onPrices(TradingLedger.coalesce(ticks));
+    }
+
+    void seedPrice(PriceTick tick) {
+        synchronized (monitor) {
+            String symbol = tick.getSymbol().trim().toUpperCase(Locale.ROOT);
+            OrderBook book = booksBySymbol.computeIfAbsent(symbol, ignored -> new OrderBook());
+            if (book.lastPriceTicks() < 0) {
+                book.setLastPriceTicks(toTicks(tick.getPrice()));
+            }
+        }
+    }
+
+    List<OrderView> onPrices(Map<String, PriceTick> latestBySymbol) {
+        synchronized (monitor) {
+            List<OrderView> results = new ArrayList<>();
+            for (Map.Entry<String, PriceTick> entry : latestBySymbol.entrySet()) {
+                OrderBook book = booksBySymbol.get(entry.getKey());
+                if (book == null) {
+                    continue;
+                }
+                long marketTicks = toTicks(entry.getValue().getPrice());
+                book.setLastPriceTicks(marketTicks);
+                if (book.isEmpty()) {
+                    continue;
+                }
+
+                triggered.clear();
+                book.drainTriggered(marketTicks, triggered);
+                for (OrderBook.Order order : triggered) {
+                    openOrders.remove(order.id);
+                    results.add(fillLocked(order, marketTicks));
+                }
+                triggered.clear();
+            }
+            return results;
+        }
+    }
+
+    private OrderView fillLocked(OrderBook.Order order, long marketTicks) {
+        double fillPrice = (double) marketTicks / PRICE_SCALE;
+        try {
+            TradeExecutionResult result = ledger.execute(new TradeTicket(
+                order.symbol,
+                order.side,
+                order.quantity,
+                fillPrice,
+                order.note,
+                order.storyId,
+                order.storyTitle
+            ), false);
+            return finishLocked(order, OrderStatus.FILLED, fillPrice, result.trade().tradeId(), null);
+        } catch (IllegalArgumentException exception) {
+            return finishLocked(order, OrderStatus.REJECTED, 0.0, null, exception.getMessage());
+        }
+    }
+
+    private OrderView finishLocked(OrderBook.Order order, OrderStatus status, double fillPrice, String tradeId, String reason) {
+        OrderView view = view(order, status, now(), fillPrice, tradeId, reason);
+        finishedOrders.put(order.id, view);
+        release(order);
+        return view;
+    }
+
+    private static OrderView view(
+        OrderBook.Order order,
+        OrderStatus status,
+        String updatedAt,
+        double fillPrice,
+        String tradeId,
+        String reason
+    ) {
+        return new OrderView(
+            ORDER_ID_PREFIX + order.id,
+            order.symbol,
+            order.side,
+            order.type,
+            order.quantity,
+            order.price,
+            status,
+            order.submittedAt,
+            updatedAt,
+            fillPrice,
+            tradeId,
+            reason
+        );
+    }
+
+    private OrderBook.Order acquire() {
+        OrderBook.Order order = pool.pollFirst();
+        return order == null ? new OrderBook.Order() : order;
+    }
+
+    private void release(OrderBook.Order order) {
+        order.clear();
+        if (pool.size() < MAX_POOLED_ORDERS) {
+            pool.addFirst(order);
+        }
+    }
+
+    private static void validate(OrderRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Order request is required");
+        }
+        if (request.symbol() == null || request.symbol().isBlank()) {
+            throw new IllegalArgumentException("Symbol is required");
+        }
+        if (request.side() == null) {
+            throw new IllegalArgumentException("Order side is required");
+        }
+        if (request.type() == null) {
+            throw new IllegalArgumentException("Order type is required");
+        }
+        if (request.quantity() <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        if (request.price() <= 0.0) {
+            throw new IllegalArgumentException("Price must be greater than zero");
+        }
+    }
+
+    private static long toTicks(double price) {
+        return Math.round(price * PRICE_SCALE);
+    }
+
+    private static long parseOrderId(String orderId) {
+        String value = orderId == null ? "" : orderId.trim().toUpperCase(Locale.ROOT);
+        if (value.startsWith(ORDER_ID_PREFIX)) {
+            value = value.substring(ORDER_ID_PREFIX.length());
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException("Invalid order id: " + orderId, exception);
+        }
+    }
+
+    private static String now() {
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS).toString();
+    }
+}
@@ -0,0 +1,14 @@
+package analysis;
+
+public record OrderRequest(
+    String symbol,
+    TradeSide side,
+    OrderType type,
+    int quantity,
+    double price,
+    String note,
+    String storyId,
+    String storyTitle,
+    String accountId
+) {
+}
@@ -0,0 +1,8 @@
+package analysis;
+
+public enum OrderStatus {
+    OPEN,
+    FILLED,
+    CANCELLED,
+    REJECTED
+}
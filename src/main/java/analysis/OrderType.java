@@ -0,0 +1,6 @@
+package analysis;
+
+public enum OrderType {
+    LIMIT,
+    STOP
+}
@@ -0,0 +1,17 @@
+package analysis;
+
+public record OrderView(
+    String orderId,
+    String symbol,
+    TradeSide side,
+    OrderType type,
+    int quantity,
+    double price,
+    OrderStatus status,
+    String submittedAt,
+    String updatedAt,
+    double fillPrice,
+    String tradeId,
+    String reason
+) {
+}
@@ -0,0 +1,14 @@
+package analysis;
+
+import util.LatencySnapshot;
+
+public record PriorityStats(
+    AnalysisPriority priority,
+    int weight,
+    int queued,
+    long completed,
+    long failed,
+    LatencySnapshot queueWaitMicros,
+    LatencySnapshot totalMicros
+) {
+}
@@ -24,10 +24,25 @@ public final class RecommendationEngine {
 
     public List<TradeRecommendation> recommend(String storyText, String storySymbolHint) {
         AnalysisReport report = analyzer.analyze(storyText);
-        List<TradeRecommendation> recommendations = new ArrayList<>();
+        List<TradeRecommendation> recommendations = recommend(report.rankedImpacts());
         Set<String> usedSymbols = new HashSet<>();
+        for (TradeRecommendation recommendation : recommendations) {
+            usedSymbols.add(recommendation.suggestedSymbol());
+        }
 
-        for (ImpactResult impact : report.rankedImpacts()) {
+        String normalizedHint = normalizeSymbol(storySymbolHint);
+        if (!normalizedHint.isBlank() && !usedSymbols.contains(normalizedHint)) {
+            if (recommendations.size() < 6) {
+                recommendations.add(buildStoryRecommendation(storyText, normalizedHint));
+            }
+        }
+
+        return recommendations;
+    }
+
+    public List<TradeRecommendation> recommend(List<ImpactResult> rankedImpacts) {
+        List<TradeRecommendation> recommendations = new ArrayList<>();
+        for (ImpactResult impact : rankedImpacts) {
             String symbol = entitySymbolMap.getOrDefault(
                 impact.getEntity().getCanonicalName(),
                 syntheticTicker(impact.getEntity().getCanonicalName())
@@ -39,20 +54,11 @@ public final class RecommendationEngine {
                 impact.getScore(),
                 impact.getRationale()
             ));
-            usedSymbols.add(symbol);
 
             if (recommendations.size() >= 6) {
                 break;
             }
         }
-
-        String normalizedHint = normalizeSymbol(storySymbolHint);
-        if (!normalizedHint.isBlank() && !usedSymbols.contains(normalizedHint)) {
-            if (recommendations.size() < 6) {
-                recommendations.add(buildStoryRecommendation(storyText, normalizedHint));
-            }
-        }
-
         return recommendations;
     }
 
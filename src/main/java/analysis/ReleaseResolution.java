@@ -0,0 +1,12 @@
+package analysis;
+
+import java.util.List;
+
+public record ReleaseResolution(
+    ScenarioOutcome outcome,
+    boolean precomputed,
+    long resolveMicros,
+    List<TradeRecommendation> recommendations,
+    String explanation
+) {
+}
@@ -0,0 +1,11 @@
+package analysis;
+
+import java.util.List;
+
+public record ReleaseScenario(
+    ScenarioOutcome outcome,
+    List<ImpactResult> impacts,
+    String explanation,
+    List<TradeRecommendation> recommendations
+) {
+}
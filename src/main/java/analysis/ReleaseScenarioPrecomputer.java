@@ -0,0 +1,120 @@
+package analysis;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import knowledge.Entity;
+import knowledge.Event;
+
+// Scheduled releases are known in advance, only their outcome is not. Each release is propagated once per outcome
+// ahead of time, so when the headline lands the answer is a lookup plus a check that the headline is about the
+// same entities, and the full analysis only runs for headlines that fail that check.
+public final class ReleaseScenarioPrecomputer {
+    private final EventClassifier classifier;
+    private final CausalPropagationEngine propagationEngine;
+    private final ExplanationSynthesizer synthesizer;
+    private final RecommendationEngine recommendationEngine;
+    private final Map<UUID, Precomputed> cache = new ConcurrentHashMap<>();
+
+    public ReleaseScenarioPrecomputer(
+        EventClassifier classifier,
+        CausalPropagationEngine propagationEngine,
+        ExplanationSynthesizer synthesizer,
+        RecommendationEngine recommendationEngine
+    ) {
+        this.classifier = classifier;
+        this.propagationEngine = propagationEngine;
+        this.synthesizer = synthesizer;
+        this.recommendationEngine = recommendationEngine;
+    }
+
+    public Map<ScenarioOutcome, ReleaseScenario> precompute(Event release) {
+        return cache.computeIfAbsent(release.getId(), ignored -> compute(release)).scenarios;
+    }
+
+    public boolean isPrecomputed(UUID releaseId) {
+        return cache.containsKey(releaseId);
+    }
+
+    public ReleaseResolution resolve(Event release, String headline) {
+        long started = System.nanoTime();
+        Precomputed precomputed = cache.computeIfAbsent(release.getId(), ignored -> compute(release));
+        ScenarioOutcome outcome = ScenarioOutcome.fromHeadline(headline);
+
+        if (outcome != null && confirms(precomputed, headline)) {
+            ReleaseScenario scenario = precomputed.scenarios.get(outcome);
+            return new ReleaseResolution(
+                outcome,
+                true,
+                (System.nanoTime() - started) / 1_000,
+                scenario.recommendations(),
+                scenario.explanation()
+            );
+        }
+
+        // The headline is about something the calendar entry did not predict, so the cached scenarios do not apply.
+        List<TradeRecommendation> recommendations = recommendationEngine.recommend(headline);
+        return new ReleaseResolution(outcome, false, (System.nanoTime() - started) / 1_000, recommendations, "");
+    }
+
+    public int evictReleasedBefore(Instant cutoff) {
+        int before = cache.size();
+        cache.values().removeIf(entry -> entry.releasedAt.isBefore(cutoff));
+        return before - cache.size();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private boolean confirms(Precomputed precomputed, String headline) {
+        if (precomputed.seeds.isEmpty()) {
+            return false;
+        }
+        for (Entity entity : classifier.extractEntities(headline)) {
+            if (precomputed.seeds.contains(entity)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Precomputed compute(Event release) {
+        Set<Entity> seeds = classifier.extractEntities(release.getRawText());
+        Map<ScenarioOutcome, ReleaseScenario> scenarios = new EnumMap<>(ScenarioOutcome.class);
+        for (ScenarioOutcome outcome : ScenarioOutcome.values()) {
+            Map<Entity, Double> shocks = new LinkedHashMap<>();
+            for (Entity seed : seeds) {
+                shocks.put(seed, outcome.shock());
+            }
+            Event scenarioEvent = new Event(
+                release.getId(),
+                classifier.classify(release.getRawText()),
+                release.getTimestamp(),
+                release.getRawText() + " (" + outcome.name().toLowerCase(Locale.ROOT).replace('_', ' ') + ")"
+            );
+            List<ImpactResult> impacts = propagationEngine.propagate(scenarioEvent, shocks);
+            scenarios.put(outcome, new ReleaseScenario(
+                outcome,
+                List.copyOf(impacts),
+                synthesizer.synthesize(scenarioEvent, impacts),
+                List.copyOf(recommendationEngine.recommend(impacts))
+            ));
+        }
+        return new Precomputed(release.getTimestamp(), seeds, Collections.unmodifiableMap(scenarios));
+    }
+
+    private record Precomputed(
+        Instant releasedAt,
+        Set<Entity> seeds,
+        Map<ScenarioOutcome, ReleaseScenario> scenarios
+    ) {
+    }
+}
@@ -0,0 +1,4 @@
+package analysis;
+
+public record ReplaySummary(long records, long elapsedMillis, double recordsPerSecond) {
+}
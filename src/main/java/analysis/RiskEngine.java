@@ -0,0 +1,78 @@
+package analysis;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+final class RiskEngine {
+    private static final RiskRule[] RULES = RiskRule.values();
+
+    private final RiskLimits limits;
+    private final long[] rejections = new long[RULES.length];
+    private final double bucketCapacity;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    RiskEngine(RiskLimits limits) {
+        this.limits = limits;
+        this.bucketCapacity = Math.max(1.0, limits.maxOrdersPerSecond());
+        this.tokens = bucketCapacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    RiskLimits limits() {
+        return limits;
+    }
+
+    void admitOrders(int count, long nowNanos) {
+        if (Double.isInfinite(limits.maxOrdersPerSecond())) {
+            return;
+        }
+        double elapsedSeconds = (nowNanos - lastRefillNanos) / 1_000_000_000.0;
+        tokens = Math.min(bucketCapacity, tokens + elapsedSeconds * limits.maxOrdersPerSecond());
+        lastRefillNanos = nowNanos;
+        if (tokens < count) {
+            throw reject(RiskRule.ORDER_RATE, limits.maxOrdersPerSecond(), count);
+        }
+        tokens -= count;
+    }
+
+    void checkNotional(double notional) {
+        if (notional > limits.maxOrderNotional()) {
+            throw reject(RiskRule.MAX_ORDER_NOTIONAL, limits.maxOrderNotional(), notional);
+        }
+    }
+
+    void checkExposure(double symbolExposureAfter, double grossExposureAfter, double equityAfter) {
+        if (symbolExposureAfter > limits.maxSymbolExposure()) {
+            throw reject(RiskRule.SYMBOL_EXPOSURE, limits.maxSymbolExposure(), symbolExposureAfter);
+        }
+        if (grossExposureAfter > limits.maxGrossExposure()) {
+            throw reject(RiskRule.GROSS_EXPOSURE, limits.maxGrossExposure(), grossExposureAfter);
+        }
+        if (equityAfter > 0.0 && symbolExposureAfter / equityAfter > limits.maxConcentration()) {
+            throw reject(RiskRule.CONCENTRATION, limits.maxConcentration(), symbolExposureAfter / equityAfter);
+        }
+    }
+
+    Map<RiskRule, Long> rejectionCounts() {
+        Map<RiskRule, Long> counts = new EnumMap<>(RiskRule.class);
+        for (RiskRule rule : RULES) {
+            counts.put(rule, rejections[rule.ordinal()]);
+        }
+        return counts;
+    }
+
+    private RiskRejectedException reject(RiskRule rule, double limit, double attempted) {
+        rejections[rule.ordinal()]++;
+        String message = String.format(
+            Locale.ROOT,
+            "Risk check %s failed: %.2f exceeds limit %.2f",
+            rule,
+            attempted,
+            limit
+        );
+        return new RiskRejectedException(rule, limit, attempted, message);
+    }
+}
@@ -0,0 +1,31 @@
+package analysis;
+
+public record RiskLimits(
+    double maxOrderNotional,
+    double maxSymbolExposure,
+    double maxGrossExposure,
+    double maxConcentration,
+    double maxOrdersPerSecond
+) {
+    public RiskLimits {
+        if (!(maxOrderNotional > 0.0) || !(maxSymbolExposure > 0.0) || !(maxGrossExposure > 0.0)) {
+            throw new IllegalArgumentException("Notional and exposure limits must be positive");
+        }
+        if (!(maxConcentration > 0.0)) {
+            throw new IllegalArgumentException("maxConcentration must be positive");
+        }
+        if (!(maxOrdersPerSecond > 0.0)) {
+            throw new IllegalArgumentException("maxOrdersPerSecond must be positive");
+        }
+    }
+
+    public static RiskLimits unlimited() {
+        return new RiskLimits(
+            Double.POSITIVE_INFINITY,
+            Double.POSITIVE_INFINITY,
+            Double.POSITIVE_INFINITY,
+            Double.POSITIVE_INFINITY,
+            Double.POSITIVE_INFINITY
+        );
+    }
+}
@@ -0,0 +1,28 @@
+package analysis;
+
+public final class RiskRejectedException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final RiskRule rule;
+    private final double limit;
+    private final double attempted;
+
+    public RiskRejectedException(RiskRule rule, double limit, double attempted, String message) {
+        super(message);
+        this.rule = rule;
+        this.limit = limit;
+        this.attempted = attempted;
+    }
+
+    public RiskRule rule() {
+        return rule;
+    }
+
+    public double limit() {
+        return limit;
+    }
+
+    public double attempted() {
+        return attempted;
+    }
+}
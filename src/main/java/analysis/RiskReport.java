@@ -0,0 +1,11 @@
+package analysis;
+
+import java.util.Map;
+
+public record RiskReport(
+    RiskLimits limits,
+    Map<RiskRule, Long> rejectionsByRule,
+    double grossExposure,
+    double equity
+) {
+}
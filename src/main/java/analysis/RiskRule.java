@@ -0,0 +1,9 @@
+package analysis;
+
+public enum RiskRule {
+    MAX_ORDER_NOTIONAL,
+    SYMBOL_EXPOSURE,
+    GROSS_EXPOSURE,
+    CONCENTRATION,
+    ORDER_RATE
+}
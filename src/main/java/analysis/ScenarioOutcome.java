@@ -0,0 +1,81 @@
+package analysis;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public enum ScenarioOutcome {
+    ABOVE_CONSENSUS(
+        1.0,
+        List.of(
+            "above consensus", "above expectations", "above forecast", "higher than expected", "hotter than expected",
+            "stronger than expected", "surprise rise", "unexpectedly rises"
+        ),
+        List.of("beats", "raises rates", "rate hike", "hikes")
+    ),
+    IN_LINE(
+        0.0,
+        List.of("in line", "as expected", "matches expectations", "meets expectations"),
+        List.of("holds rates", "leaves rates unchanged", "unchanged")
+    ),
+    BELOW_CONSENSUS(
+        -1.0,
+        List.of(
+            "below consensus", "below expectations", "below forecast", "lower than expected", "cooler than expected",
+            "weaker than expected", "surprise fall", "unexpectedly falls"
+        ),
+        List.of("misses", "cuts rates", "rate cut")
+    );
+
+    private final double shock;
+    private final List<Pattern> consensusCues;
+    private final List<Pattern> actionCues;
+
+    ScenarioOutcome(double shock, List<String> consensusCues, List<String> actionCues) {
+        this.shock = shock;
+        this.consensusCues = cues(consensusCues);
+        this.actionCues = cues(actionCues);
+    }
+
+    public double shock() {
+        return shock;
+    }
+
+    // A comparison with consensus describes the release itself, so it outranks an action verb: "inflation below
+    // expectations as BoE hikes" is a soft print. Within a tier surprise cues beat "in line" ones, so "unchanged ...
+    // but above expectations" reads as a surprise, and a headline with cues for both surprises resolves to nothing
+    // rather than to whichever cue was checked first.
+    public static ScenarioOutcome fromHeadline(String headline) {
+        String text = headline.toLowerCase(Locale.ROOT);
+        for (boolean consensus : new boolean[] {true, false}) {
+            boolean above = ABOVE_CONSENSUS.matches(text, consensus);
+            boolean below = BELOW_CONSENSUS.matches(text, consensus);
+            if (above && below) {
+                return null;
+            }
+            if (above || below) {
+                return above ? ABOVE_CONSENSUS : BELOW_CONSENSUS;
+            }
+            if (IN_LINE.matches(text, consensus)) {
+                return IN_LINE;
+            }
+        }
+        return null;
+    }
+
+    private boolean matches(String text, boolean consensus) {
+        for (Pattern cue : consensus ? consensusCues : actionCues) {
+            if (cue.matcher(text).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Whole words only, so "dismisses" is not "misses", and a cue right after "not" or "no" does not count.
+    private static List<Pattern> cues(List<String> cues) {
+        return cues.stream()
+            .map(cue -> Pattern.compile("(?<!\\bnot )(?<!\\bno )(?<!\\bnever )\\b" + Pattern.quote(cue) + "\\b"))
+            .toList();
+    }
+}
@@ -0,0 +1,49 @@
+package analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Buys a fixed notional on confident BUY calls and closes the whole position on confident SELL calls; the ledger is
+// long-only, so a SELL without a position is ignored.
+public record ThresholdStrategy(double minConfidence, double notionalPerTrade) implements BacktestStrategy {
+    public ThresholdStrategy {
+        if (minConfidence < 0.0 || minConfidence > 1.0) {
+            throw new IllegalArgumentException("minConfidence must be between 0 and 1");
+        }
+        if (!(notionalPerTrade > 0.0)) {
+            throw new IllegalArgumentException("notionalPerTrade must be positive");
+        }
+    }
+
+    @Override
+    public List<TradeTicket> decide(BacktestEvent event, List<TradeRecommendation> recommendations, MarketView market) {
+        List<TradeTicket> tickets = new ArrayList<>();
+        for (TradeRecommendation recommendation : recommendations) {
+            if (recommendation.confidence() < minConfidence) {
+                continue;
+            }
+            String symbol = recommendation.suggestedSymbol();
+            double price = market.lastPrice(symbol);
+            if (Double.isNaN(price)) {
+                continue;
+            }
+            if ("BUY".equals(recommendation.action())) {
+                int quantity = (int) Math.floor(notionalPerTrade / price);
+                if (quantity > 0) {
+                    tickets.add(new TradeTicket(symbol, TradeSide.BUY, quantity, price, recommendation.rationale(), "", event.title()));
+                }
+            } else if ("SELL".equals(recommendation.action()) && market.position(symbol) > 0) {
+                tickets.add(new TradeTicket(
+                    symbol,
+                    TradeSide.SELL,
+                    market.position(symbol),
+                    price,
+                    recommendation.rationale(),
+                    "",
+                    event.title()
+                ));
+            }
+        }
+        return tickets;
+    }
+}
@@ -0,0 +1,164 @@
+package analysis;
+
+final class TimeSeriesDownsampler {
+    private static final int BUCKETS_PER_POINT = 2;
+
+    private final long fromMillis;
+    private final long toMillis;
+    private final int maxPoints;
+    private final int bucketCount;
+    private final long[] minTimes;
+    private final double[] minValues;
+    private final long[] maxTimes;
+    private final double[] maxValues;
+    private final boolean[] occupied;
+
+    private long[] rawTimes;
+    private double[] rawValues;
+    private int rawCount;
+
+    TimeSeriesDownsampler(long fromMillis, long toMillis, int maxPoints) {
+        if (maxPoints < 3) {
+            throw new IllegalArgumentException("maxPoints must be at least 3");
+        }
+        this.fromMillis = fromMillis;
+        this.toMillis = Math.max(toMillis, fromMillis + 1);
+        this.maxPoints = maxPoints;
+        this.bucketCount = maxPoints * BUCKETS_PER_POINT;
+        this.minTimes = new long[bucketCount];
+        this.minValues = new double[bucketCount];
+        this.maxTimes = new long[bucketCount];
+        this.maxValues = new double[bucketCount];
+        this.occupied = new boolean[bucketCount];
+        this.rawTimes = new long[maxPoints];
+        this.rawValues = new double[maxPoints];
+    }
+
+    void accept(long timeMillis, double value) {
+        if (timeMillis < fromMillis || timeMillis >= toMillis) {
+            return;
+        }
+        if (rawTimes != null) {
+            if (rawCount < maxPoints) {
+                rawTimes[rawCount] = timeMillis;
+                rawValues[rawCount] = value;
+                rawCount++;
+            } else {
+                rawTimes = null;
+                rawValues = null;
+            }
+        }
+
+        int bucket = (int) Math.min(bucketCount - 1, (timeMillis - fromMillis) * bucketCount / (toMillis - fromMillis));
+        if (!occupied[bucket]) {
+            occupied[bucket] = true;
+            minTimes[bucket] = timeMillis;
+            minValues[bucket] = value;
+            maxTimes[bucket] = timeMillis;
+            maxValues[bucket] = value;
+            return;
+        }
+        if (value < minValues[bucket]) {
+            minTimes[bucket] = timeMillis;
+            minValues[bucket] = value;
+        }
+        if (value > maxValues[bucket]) {
+            maxTimes[bucket] = timeMillis;
+            maxValues[bucket] = value;
+        }
+    }
+
+    // Min/max bucketing keeps every spike in a bounded candidate set; LTTB then picks the visually
+    // significant points from those candidates.
+    int result(long[] times, double[] values) {
+        if (rawTimes != null) {
+            System.arraycopy(rawTimes, 0, times, 0, rawCount);
+            System.arraycopy(rawValues, 0, values, 0, rawCount);
+            return rawCount;
+        }
+
+        long[] candidateTimes = new long[bucketCount * 2];
+        double[] candidateValues = new double[bucketCount * 2];
+        int candidates = 0;
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            if (!occupied[bucket]) {
+                continue;
+            }
+            boolean minFirst = minTimes[bucket] <= maxTimes[bucket];
+            long firstTime = minFirst ? minTimes[bucket] : maxTimes[bucket];
+            double firstValue = minFirst ? minValues[bucket] : maxValues[bucket];
+            long secondTime = minFirst ? maxTimes[bucket] : minTimes[bucket];
+            double secondValue = minFirst ? maxValues[bucket] : minValues[bucket];
+            candidateTimes[candidates] = firstTime;
+            candidateValues[candidates] = firstValue;
+            candidates++;
+            if (secondTime != firstTime || secondValue != firstValue) {
+                candidateTimes[candidates] = secondTime;
+                candidateValues[candidates] = secondValue;
+                candidates++;
+            }
+        }
+        return largestTriangleThreeBuckets(candidateTimes, candidateValues, candidates, times, values);
+    }
+
+    private int largestTriangleThreeBuckets(
+        long[] inTimes,
+        double[] inValues,
+        int count,
+        long[] outTimes,
+        double[] outValues
+    ) {
+        if (count <= maxPoints) {
+            System.arraycopy(inTimes, 0, outTimes, 0, count);
+            System.arraycopy(inValues, 0, outValues, 0, count);
+            return count;
+        }
+
+        double every = (double) (count - 2) / (maxPoints - 2);
+        int selected = 0;
+        int anchor = 0;
+        outTimes[selected] = inTimes[0];
+        outValues[selected] = inValues[0];
+        selected++;
+
+        for (int i = 0; i < maxPoints - 2; i++) {
+            int nextStart = (int) Math.floor((i + 1) * every) + 1;
+            int nextEnd = Math.min((int) Math.floor((i + 2) * every) + 1, count);
+            double averageTime = 0.0;
+            double averageValue = 0.0;
+            for (int j = nextStart; j < nextEnd; j++) {
+                averageTime += inTimes[j];
+                averageValue += inValues[j];
+            }
+            int nextLength = Math.max(1, nextEnd - nextStart);
+            averageTime /= nextLength;
+            averageValue /= nextLength;
+
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double anchorTime = inTimes[anchor];
+            double anchorValue = inValues[anchor];
+            double maxArea = -1.0;
+            int chosen = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs(
+                    (anchorTime - averageTime) * (inValues[j] - anchorValue)
+                        - (anchorTime - inTimes[j]) * (averageValue - anchorValue)
+                );
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = j;
+                }
+            }
+            outTimes[selected] = inTimes[chosen];
+            outValues[selected] = inValues[chosen];
+            selected++;
+            anchor = chosen;
+        }
+
+        outTimes[selected] = inTimes[count - 1];
+        outValues[selected] = inValues[count - 1];
+        selected++;
+        return selected;
+    }
+}
@@ -0,0 +1,6 @@
+package analysis;
+
+import java.util.List;
+
+public record TradeBatchResult(List<ExecutedTrade> trades, PortfolioView portfolio) {
+}
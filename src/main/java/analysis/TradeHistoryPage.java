@@ -0,0 +1,6 @@
+package analysis;
+
+import java.util.List;
+
+public record TradeHistoryPage(List<ExecutedTrade> trades, String nextBefore, long totalTrades) {
+}
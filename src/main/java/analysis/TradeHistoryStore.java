@@ -0,0 +1,188 @@
+package analysis;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+public final class TradeHistoryStore implements Closeable {
+    private static final String TRADE_ID_PREFIX = "TRD-";
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final Object monitor = new Object();
+    private final ExecutedTrade[] recent;
+    private final ColumnarTradeLog log;
+
+    private int recentHead;
+    private int recentCount;
+    private long totalTrades;
+
+    private TradeHistoryStore(int recentCapacity, ColumnarTradeLog log) {
+        if (recentCapacity <= 0) {
+            throw new IllegalArgumentException("recentCapacity must be positive");
+        }
+        this.recent = new ExecutedTrade[recentCapacity];
+        this.log = log;
+        if (log != null) {
+            this.totalTrades = log.size();
+            int[] rows = log.rowsBefore(log.size(), recentCapacity, null);
+            List<ExecutedTrade> newestFirst = log.read(rows);
+            for (int i = newestFirst.size() - 1; i >= 0; i--) {
+                pushRecent(newestFirst.get(i));
+            }
+        }
+    }
+
+    public static TradeHistoryStore inMemory(int recentCapacity) {
+        return new TradeHistoryStore(recentCapacity, null);
+    }
+
+    public static TradeHistoryStore open(Path directory, int recentCapacity) {
+        return new TradeHistoryStore(recentCapacity, ColumnarTradeLog.open(directory));
+    }
+
+    public long size() {
+        synchronized (monitor) {
+            return totalTrades;
+        }
+    }
+
+    public void append(ExecutedTrade trade) {
+        synchronized (monitor) {
+            long expected = totalTrades + 1;
+            if (sequenceOf(trade.tradeId()) != expected) {
+                throw new IllegalStateException("Trade " + trade.tradeId() + " is out of sequence; expected " + tradeIdFor(expected));
+            }
+            if (log != null) {
+                log.append(trade);
+            }
+            pushRecent(trade);
+            totalTrades++;
+        }
+    }
+
+    public void flush() {
+        synchronized (monitor) {
+            if (log != null) {
+                log.flush();
+            }
+        }
+    }
+
+    public List<ExecutedTrade> recent(int limit) {
+        synchronized (monitor) {
+            int count = Math.min(limit, recentCount);
+            List<ExecutedTrade> trades = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                trades.add(recentAt(i));
+            }
+            return trades;
+        }
+    }
+
+    public TradeHistoryPage page(String before, int limit, String symbol) {
+        long beforeSequence = before == null || before.isBlank() ? Long.MAX_VALUE : sequenceOf(before);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String symbolFilter = symbol == null ? "" : symbol.trim().toUpperCase(Locale.ROOT);
+
+        synchronized (monitor) {
+            List<ExecutedTrade> trades = log == null
+                ? pageFromRecent(beforeSequence, pageSize, symbolFilter)
+                : log.read(log.rowsBefore((int) Math.min(beforeSequence - 1, Integer.MAX_VALUE), pageSize, symbolFilter));
+
+            long matching = symbolFilter.isBlank() ? totalTrades : countForSymbolLocked(symbolFilter);
+            String nextBefore = null;
+            if (trades.size() == pageSize) {
+                String oldest = trades.get(trades.size() - 1).tradeId();
+                if (sequenceOf(oldest) > 1) {
+                    nextBefore = oldest;
+                }
+            }
+            return new TradeHistoryPage(List.copyOf(trades), nextBefore, matching);
+        }
+    }
+
+    public void replay(Consumer<ExecutedTrade> consumer) {
+        synchronized (monitor) {
+            if (log != null) {
+                log.forEach(consumer);
+                return;
+            }
+            for (int i = recentCount - 1; i >= 0; i--) {
+                consumer.accept(recentAt(i));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (monitor) {
+            if (log != null) {
+                log.close();
+            }
+        }
+    }
+
+    static String tradeIdFor(long sequence) {
+        return TRADE_ID_PREFIX + sequence;
+    }
+
+    static long sequenceOf(String tradeId) {
+        String value = tradeId == null ? "" : tradeId.trim().toUpperCase(Locale.ROOT);
+        if (value.startsWith(TRADE_ID_PREFIX)) {
+            value = value.substring(TRADE_ID_PREFIX.length());
+        }
+        try {
+            long sequence = Long.parseLong(value);
+            if (sequence <= 0) {
+                throw new IllegalArgumentException("Invalid trade id: " + tradeId);
+            }
+            return sequence;
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException("Invalid trade id: " + tradeId, exception);
+        }
+    }
+
+    private long countForSymbolLocked(String symbol) {
+        if (log != null) {
+            return log.countForSymbol(symbol);
+        }
+        long count = 0;
+        for (int i = 0; i < recentCount; i++) {
+            if (symbol.equals(recentAt(i).symbol())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private List<ExecutedTrade> pageFromRecent(long beforeSequence, int pageSize, String symbolFilter) {
+        List<ExecutedTrade> trades = new ArrayList<>();
+        for (int i = 0; i < recentCount && trades.size() < pageSize; i++) {
+            ExecutedTrade trade = recentAt(i);
+            if (sequenceOf(trade.tradeId()) >= beforeSequence) {
+                continue;
+            }
+            if (!symbolFilter.isBlank() && !symbolFilter.equals(trade.symbol())) {
+                continue;
+            }
+            trades.add(trade);
+        }
+        return trades;
+    }
+
+    private void pushRecent(ExecutedTrade trade) {
+        recentHead = (recentHead + 1) % recent.length;
+        recent[recentHead] = trade;
+        if (recentCount < recent.length) {
+            recentCount++;
+        }
+    }
+
+    private ExecutedTrade recentAt(int newestOffset) {
+        int index = Math.floorMod(recentHead - newestOffset, recent.length);
+        return recent[index];
+    }
+}
@@ -7,6 +7,18 @@ public record TradeTicket(
     double price,
     String note,
     String storyId,
-    String storyTitle
+    String storyTitle,
+    String accountId
 ) {
+    public TradeTicket(
+        String symbol,
+        TradeSide side,
+        int quantity,
+        double price,
+        String note,
+        String storyId,
+        String storyTitle
+    ) {
+        this(symbol, side, quantity, price, note, storyId, storyTitle, null);
+    }
 }
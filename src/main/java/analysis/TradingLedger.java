@@ -1,91 +1,233 @@
 package analysis;
 
+import java.io.Closeable;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import knowledge.PriceTick;
 
-public final class TradingLedger {
+public final class TradingLedger implements Closeable {
     private static final int MAX_RECENT_TRADES = 40;
+    private static final int IN_MEMORY_HISTORY_CAPACITY = 1_024;
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int TIMELINE_POINTS = 240;
 
     private final Object monitor = new Object();
     private final double startingCash;
 
     private double cash;
     private double realizedPnl;
-    private int sequence = 1;
+    private double marketValue;
+    private long sequence = 1;
     private final Map<String, PositionState> positionsBySymbol = new HashMap<>();
-    private final List<ExecutedTrade> recentTrades = new ArrayList<>();
+    private final TradeHistoryStore history;
+    private final RiskEngine riskEngine;
+    private final EquitySeriesStore equitySeries;
 
     public TradingLedger(double startingCash) {
+        this(startingCash, TradeHistoryStore.inMemory(IN_MEMORY_HISTORY_CAPACITY));
+    }
+
+    public TradingLedger(double startingCash, TradeHistoryStore history) {
+        this(startingCash, history, RiskLimits.unlimited());
+    }
+
+    public TradingLedger(double startingCash, TradeHistoryStore history, RiskLimits riskLimits) {
+        this(startingCash, history, riskLimits, EquitySeriesStore.inMemory());
+    }
+
+    public TradingLedger(
+        double startingCash,
+        TradeHistoryStore history,
+        RiskLimits riskLimits,
+        EquitySeriesStore equitySeries
+    ) {
         if (startingCash <= 0.0) {
             throw new IllegalArgumentException("startingCash must be positive");
         }
         this.startingCash = startingCash;
         this.cash = startingCash;
+        this.history = history;
+        this.riskEngine = new RiskEngine(riskLimits);
+        this.equitySeries = equitySeries;
+
+        synchronized (monitor) {
+            history.replay(this::restoreLocked);
+            sequence = history.size() + 1;
+            if (equitySeries.size() == 0) {
+                recordEquityLocked();
+                equitySeries.flush();
+            }
+        }
     }
 
     public TradeExecutionResult execute(TradeTicket ticket) {
+        return execute(ticket, true);
+    }
+
+    TradeExecutionResult execute(TradeTicket ticket, boolean newOrder) {
         synchronized (monitor) {
             TradeTicket normalized = normalize(ticket);
-            double notional = normalized.quantity() * normalized.price();
+            if (newOrder) {
+                riskEngine.admitOrders(1, System.nanoTime());
+            }
+            checkRiskLocked(normalized);
+            Checkpoint checkpoint = new Checkpoint();
+            checkpoint.remember(normalized.symbol());
+            double notional = applyLocked(normalized);
+            ExecutedTrade trade = recordLocked(normalized, notional, Instant.now().truncatedTo(ChronoUnit.MILLIS).toString());
 
-            PositionState position = positionsBySymbol.get(normalized.symbol());
-            if (normalized.side() == TradeSide.BUY) {
-                if (notional > cash) {
-                    throw new IllegalArgumentException("Insufficient cash for BUY order");
-                }
-                cash -= notional;
-                if (position == null) {
-                    positionsBySymbol.put(normalized.symbol(), new PositionState(normalized.quantity(), normalized.price(), normalized.price()));
-                } else {
-                    double newQuantity = position.quantity + normalized.quantity();
-                    double weightedAverage = ((position.averagePrice * position.quantity) + notional) / newQuantity;
-                    position.quantity += normalized.quantity();
-                    position.averagePrice = weightedAverage;
-                    position.lastPrice = normalized.price();
-                }
-            } else {
-                if (position == null || position.quantity < normalized.quantity()) {
-                    throw new IllegalArgumentException("Insufficient position for SELL order");
-                }
-                cash += notional;
-                realizedPnl += (normalized.price() - position.averagePrice) * normalized.quantity();
+            recordTradesLocked(List.of(normalized), List.of(trade), checkpoint);
 
-                position.quantity -= normalized.quantity();
-                if (position.quantity == 0) {
-                    positionsBySymbol.remove(normalized.symbol());
-                } else {
-                    position.lastPrice = normalized.price();
+            return new TradeExecutionResult(trade, snapshotLocked());
+        }
+    }
+
+    public TradeBatchResult executeBatch(List<TradeTicket> tickets) {
+        if (tickets == null || tickets.isEmpty()) {
+            throw new IllegalArgumentException("At least one trade is required");
+        }
+        if (tickets.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch exceeds " + MAX_BATCH_SIZE + " trades");
+        }
+
+        List<TradeTicket> normalized = new ArrayList<>(tickets.size());
+        for (int i = 0; i < tickets.size(); i++) {
+            try {
+                normalized.add(normalize(tickets.get(i)));
+            } catch (IllegalArgumentException exception) {
+                throw batchRejection(i, tickets.get(i), exception);
+            }
+        }
+
+        synchronized (monitor) {
+            // An all-or-nothing batch is one order to the rate limit; charging each ticket would cap a basket at the
+            // bucket size however idle the account is.
+            riskEngine.admitOrders(1, System.nanoTime());
+            Checkpoint checkpoint = new Checkpoint();
+            String timestamp = Instant.now().truncatedTo(ChronoUnit.MILLIS).toString();
+            List<ExecutedTrade> trades = new ArrayList<>(normalized.size());
+
+            for (int i = 0; i < normalized.size(); i++) {
+                TradeTicket ticket = normalized.get(i);
+                checkpoint.remember(ticket.symbol());
+                try {
+                    checkRiskLocked(ticket);
+                    double notional = applyLocked(ticket);
+                    trades.add(recordLocked(ticket, notional, timestamp));
+                } catch (IllegalArgumentException exception) {
+                    checkpoint.restore();
+                    throw batchRejection(i, ticket, exception);
                 }
             }
 
-            double equity = currentEquityLocked();
-            double totalPnl = equity - startingCash;
-            ExecutedTrade trade = new ExecutedTrade(
-                nextTradeId(),
-                Instant.now().toString(),
-                normalized.symbol(),
-                normalized.side(),
-                normalized.quantity(),
-                normalized.price(),
-                round(notional),
-                normalized.note(),
-                normalized.storyTitle(),
-                round(equity),
-                round(totalPnl)
-            );
+            recordTradesLocked(normalized, trades, checkpoint);
+
+            return new TradeBatchResult(List.copyOf(trades), snapshotLocked());
+        }
+    }
+
+    // Backtests drive the ledger on simulated time, so these skip order-rate admission, which is measured against the
+    // wall clock, the per-trade snapshot and flush, and the equity series; the backtester samples equity itself.
+    ExecutedTrade executeAt(TradeTicket ticket, long epochMillis) {
+        synchronized (monitor) {
+            TradeTicket normalized = normalize(ticket);
+            checkRiskLocked(normalized);
+            Checkpoint checkpoint = new Checkpoint();
+            checkpoint.remember(normalized.symbol());
+            double notional = applyLocked(normalized);
+            ExecutedTrade trade = recordLocked(normalized, notional, Instant.ofEpochMilli(epochMillis).toString());
+            try {
+                history.append(trade);
+            } catch (RuntimeException exception) {
+                checkpoint.restore();
+                throw exception;
+            }
+            return trade;
+        }
+    }
+
+    int revalue(Map<String, PriceTick> coalesced) {
+        synchronized (monitor) {
+            return revalueLocked(coalesced);
+        }
+    }
 
-            recentTrades.add(0, trade);
-            if (recentTrades.size() > MAX_RECENT_TRADES) {
-                recentTrades.remove(recentTrades.size() - 1);
+    double equity() {
+        synchronized (monitor) {
+            return currentEquityLocked();
+        }
+    }
+
+    public int markToMarket(Collection<PriceTick> ticks) {
+        Map<String, PriceTick> latest = coalesce(ticks);
+        if (latest.isEmpty()) {
+            return 0;
+        }
+        synchronized (monitor) {
+            return applyMarksLocked(latest);
+        }
+    }
+
+    static Map<String, PriceTick> coalesce(Collection<PriceTick> ticks) {
+        Map<String, PriceTick> latest = new HashMap<>();
+        for (PriceTick tick : ticks) {
+            String symbol = tick.getSymbol().trim().toUpperCase(Locale.ROOT);
+            PriceTick current = latest.get(symbol);
+            if (current == null || tick.getTimestampMillis() >= current.getTimestampMillis()) {
+                latest.put(symbol, tick);
             }
+        }
+        return latest;
+    }
 
-            return new TradeExecutionResult(trade, snapshotLocked());
+    int applyMarks(Map<String, PriceTick> coalesced) {
+        synchronized (monitor) {
+            return applyMarksLocked(coalesced);
+        }
+    }
+
+    private int applyMarksLocked(Map<String, PriceTick> coalesced) {
+        int updated = revalueLocked(coalesced);
+        if (updated > 0) {
+            recordEquityLocked();
+        }
+        return updated;
+    }
+
+    private int revalueLocked(Map<String, PriceTick> coalesced) {
+        int updated = 0;
+        if (coalesced.size() < positionsBySymbol.size()) {
+            for (Map.Entry<String, PriceTick> entry : coalesced.entrySet()) {
+                PositionState position = positionsBySymbol.get(entry.getKey());
+                if (position != null && markLocked(position, entry.getValue())) {
+                    updated++;
+                }
+            }
+            return updated;
         }
+        for (Map.Entry<String, PositionState> entry : positionsBySymbol.entrySet()) {
+            PriceTick tick = coalesced.get(entry.getKey());
+            if (tick != null && markLocked(entry.getValue(), tick)) {
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    private boolean markLocked(PositionState position, PriceTick tick) {
+        double previousPrice = position.lastPrice;
+        if (!position.mark(tick)) {
+            return false;
+        }
+        marketValue += position.quantity * (position.lastPrice - previousPrice);
+        return true;
     }
 
     public PortfolioView snapshot() {
@@ -94,35 +236,201 @@ public final class TradingLedger {
         }
     }
 
+    public RiskReport riskReport() {
+        synchronized (monitor) {
+            return new RiskReport(
+                riskEngine.limits(),
+                riskEngine.rejectionCounts(),
+                round(marketValue),
+                round(currentEquityLocked())
+            );
+        }
+    }
+
+    void admitOrder(int quantity, double price) {
+        synchronized (monitor) {
+            riskEngine.admitOrders(1, System.nanoTime());
+            riskEngine.checkNotional(quantity * price);
+        }
+    }
+
+    public TradeHistoryPage history(String before, int limit, String symbol) {
+        return history.page(before, limit, symbol);
+    }
+
+    public List<EquityPoint> equityHistory(long fromMillis, long toMillis, int maxPoints) {
+        return equitySeries.query(fromMillis, toMillis, maxPoints);
+    }
+
+    @Override
+    public void close() {
+        synchronized (monitor) {
+            try {
+                history.close();
+            } finally {
+                equitySeries.close();
+            }
+        }
+    }
+
+    // The portfolio must end up holding exactly the trades the history took. One it refused is rolled back; one it
+    // took but could not flush stays, as it is still pending and goes out with the next flush.
+    private void recordTradesLocked(List<TradeTicket> tickets, List<ExecutedTrade> trades, Checkpoint checkpoint) {
+        int appended = 0;
+        try {
+            for (ExecutedTrade trade : trades) {
+                history.append(trade);
+                appended++;
+            }
+            history.flush();
+        } catch (RuntimeException exception) {
+            if (appended < trades.size()) {
+                checkpoint.restore();
+                for (int i = 0; i < appended; i++) {
+                    applyLocked(tickets.get(i));
+                    sequence++;
+                }
+            }
+            if (appended > 0) {
+                recordEquityLocked();
+            }
+            throw exception;
+        }
+        recordEquityLocked();
+        equitySeries.flush();
+    }
+
+    private void recordEquityLocked() {
+        equitySeries.append(System.currentTimeMillis(), round(currentEquityLocked()));
+    }
+
+    private void restoreLocked(ExecutedTrade trade) {
+        try {
+            applyLocked(new TradeTicket(trade.symbol(), trade.side(), trade.quantity(), trade.price(), trade.note(), "", trade.storyTitle()));
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalStateException("Trade history is inconsistent at " + trade.tradeId(), exception);
+        }
+    }
+
+    private ExecutedTrade recordLocked(TradeTicket normalized, double notional, String timestamp) {
+        double equity = currentEquityLocked();
+        double totalPnl = equity - startingCash;
+        return new ExecutedTrade(
+            nextTradeId(),
+            timestamp,
+            normalized.symbol(),
+            normalized.side(),
+            normalized.quantity(),
+            normalized.price(),
+            round(notional),
+            normalized.note(),
+            normalized.storyTitle(),
+            round(equity),
+            round(totalPnl)
+        );
+    }
+
+    private static IllegalArgumentException batchRejection(int index, TradeTicket ticket, IllegalArgumentException cause) {
+        String description = ticket == null
+            ? "trade " + (index + 1)
+            : "trade " + (index + 1) + " (" + ticket.side() + " " + ticket.quantity() + " " + ticket.symbol() + ")";
+        String message = "Batch rejected at " + description + ": " + cause.getMessage();
+        if (cause instanceof RiskRejectedException risk) {
+            return new RiskRejectedException(risk.rule(), risk.limit(), risk.attempted(), message);
+        }
+        return new IllegalArgumentException(message, cause);
+    }
+
+    private void checkRiskLocked(TradeTicket normalized) {
+        double notional = normalized.quantity() * normalized.price();
+        riskEngine.checkNotional(notional);
+        if (normalized.side() == TradeSide.SELL) {
+            return;
+        }
+
+        PositionState position = positionsBySymbol.get(normalized.symbol());
+        int currentQuantity = position == null ? 0 : position.quantity;
+        double currentExposure = position == null ? 0.0 : position.quantity * position.lastPrice;
+        double symbolExposureAfter = (currentQuantity + normalized.quantity()) * normalized.price();
+        double grossExposureAfter = marketValue - currentExposure + symbolExposureAfter;
+        double equityAfter = cash - notional + grossExposureAfter;
+        riskEngine.checkExposure(symbolExposureAfter, grossExposureAfter, equityAfter);
+    }
+
+    private double applyLocked(TradeTicket normalized) {
+        double notional = normalized.quantity() * normalized.price();
+
+        PositionState position = positionsBySymbol.get(normalized.symbol());
+        if (normalized.side() == TradeSide.BUY) {
+            if (notional > cash) {
+                throw new IllegalArgumentException("Insufficient cash for BUY order");
+            }
+            cash -= notional;
+            if (position == null) {
+                positionsBySymbol.put(
+                    normalized.symbol(),
+                    new PositionState(normalized.quantity(), normalized.price(), normalized.price(), Long.MIN_VALUE)
+                );
+                marketValue += notional;
+            } else {
+                marketValue -= position.quantity * position.lastPrice;
+                double newQuantity = position.quantity + normalized.quantity();
+                double weightedAverage = ((position.averagePrice * position.quantity) + notional) / newQuantity;
+                position.quantity += normalized.quantity();
+                position.averagePrice = weightedAverage;
+                position.markTrade(normalized.price());
+                marketValue += position.quantity * position.lastPrice;
+            }
+        } else {
+            if (position == null || position.quantity < normalized.quantity()) {
+                throw new IllegalArgumentException("Insufficient position for SELL order");
+            }
+            cash += notional;
+            realizedPnl += (normalized.price() - position.averagePrice) * normalized.quantity();
+
+            marketValue -= position.quantity * position.lastPrice;
+            position.quantity -= normalized.quantity();
+            if (position.quantity == 0) {
+                positionsBySymbol.remove(normalized.symbol());
+            } else {
+                position.markTrade(normalized.price());
+                marketValue += position.quantity * position.lastPrice;
+            }
+        }
+        return notional;
+    }
+
     private PortfolioView snapshotLocked() {
         List<PositionView> positions = new ArrayList<>();
         double unrealizedPnl = 0.0;
+        double exactMarketValue = 0.0;
 
         for (Map.Entry<String, PositionState> entry : positionsBySymbol.entrySet()) {
             String symbol = entry.getKey();
             PositionState position = entry.getValue();
-            double marketValue = position.quantity * position.lastPrice;
+            double positionValue = position.quantity * position.lastPrice;
             double positionUnrealized = (position.lastPrice - position.averagePrice) * position.quantity;
             unrealizedPnl += positionUnrealized;
+            exactMarketValue += positionValue;
 
             positions.add(new PositionView(
                 symbol,
                 position.quantity,
                 round(position.averagePrice),
                 round(position.lastPrice),
-                round(marketValue),
+                round(positionValue),
                 round(positionUnrealized)
             ));
         }
 
         positions.sort(Comparator.comparing(PositionView::symbol));
+        // Snapshots walk every position anyway, so resync the incremental total to shed rounding drift.
+        marketValue = exactMarketValue;
         double equity = currentEquityLocked();
         double totalPnl = equity - startingCash;
 
-        List<EquityPoint> timeline = recentTrades.stream()
-            .map(trade -> new EquityPoint(trade.timestamp(), trade.equityAfterTrade()))
-            .sorted(Comparator.comparing(EquityPoint::timestamp))
-            .toList();
+        List<ExecutedTrade> recentTrades = history.recent(MAX_RECENT_TRADES);
+        List<EquityPoint> timeline = equitySeries.recent(TIMELINE_POINTS);
 
         return new PortfolioView(
             round(startingCash),
@@ -133,15 +441,11 @@ public final class TradingLedger {
             round(unrealizedPnl),
             List.copyOf(positions),
             List.copyOf(recentTrades),
-            List.copyOf(timeline)
+            timeline
         );
     }
 
     private double currentEquityLocked() {
-        double marketValue = 0.0;
-        for (PositionState position : positionsBySymbol.values()) {
-            marketValue += position.quantity * position.lastPrice;
-        }
         return cash + marketValue;
     }
 
@@ -159,18 +463,28 @@ public final class TradingLedger {
         if (ticket.quantity() <= 0) {
             throw new IllegalArgumentException("Quantity must be greater than zero");
         }
-        if (ticket.price() <= 0.0) {
+        // Written so a NaN price, e.g. a strategy quoting a symbol it has no mark for, is rejected too.
+        if (!(ticket.price() > 0.0)) {
             throw new IllegalArgumentException("Price must be greater than zero");
         }
 
         String note = ticket.note() == null ? "" : ticket.note().trim();
         String storyTitle = ticket.storyTitle() == null ? "" : ticket.storyTitle().trim();
 
-        return new TradeTicket(symbol, ticket.side(), ticket.quantity(), ticket.price(), note, ticket.storyId(), storyTitle);
+        return new TradeTicket(
+            symbol,
+            ticket.side(),
+            ticket.quantity(),
+            ticket.price(),
+            note,
+            ticket.storyId(),
+            storyTitle,
+            ticket.accountId()
+        );
     }
 
     private String nextTradeId() {
-        String id = "TRD-" + sequence;
+        String id = TradeHistoryStore.tradeIdFor(sequence);
         sequence++;
         return id;
     }
@@ -179,15 +493,64 @@ public final class TradingLedger {
         return Math.round(value * 100.0) / 100.0;
     }
 
+    private final class Checkpoint {
+        private final double cash = TradingLedger.this.cash;
+        private final double realizedPnl = TradingLedger.this.realizedPnl;
+        private final double marketValue = TradingLedger.this.marketValue;
+        private final long sequence = TradingLedger.this.sequence;
+        private final Map<String, PositionState> positions = new HashMap<>();
+
+        private void remember(String symbol) {
+            if (!positions.containsKey(symbol)) {
+                PositionState position = positionsBySymbol.get(symbol);
+                positions.put(symbol, position == null ? null : position.copy());
+            }
+        }
+
+        private void restore() {
+            TradingLedger.this.cash = cash;
+            TradingLedger.this.realizedPnl = realizedPnl;
+            TradingLedger.this.marketValue = marketValue;
+            TradingLedger.this.sequence = sequence;
+            for (Map.Entry<String, PositionState> entry : positions.entrySet()) {
+                if (entry.getValue() == null) {
+                    positionsBySymbol.remove(entry.getKey());
+                } else {
+                    positionsBySymbol.put(entry.getKey(), entry.getValue().copy());
+                }
+            }
+        }
+    }
+
     private static final class PositionState {
         private int quantity;
         private double averagePrice;
         private double lastPrice;
+        private long lastMarkMillis;
 
-        private PositionState(int quantity, double averagePrice, double lastPrice) {
+        private PositionState(int quantity, double averagePrice, double lastPrice, long lastMarkMillis) {
             this.quantity = quantity;
             this.averagePrice = averagePrice;
             this.lastPrice = lastPrice;
+            this.lastMarkMillis = lastMarkMillis;
+        }
+
+        private PositionState copy() {
+            return new PositionState(quantity, averagePrice, lastPrice, lastMarkMillis);
+        }
+
+        private void markTrade(double price) {
+            lastPrice = price;
+        }
+
+        private boolean mark(PriceTick tick) {
+            // Feeds may deliver batches out of order; never let an older tick overwrite a newer mark.
+            if (tick.getTimestampMillis() < lastMarkMillis) {
+                return false;
+            }
+            lastPrice = tick.getPrice();
+            lastMarkMillis = tick.getTimestampMillis();
+            return true;
         }
     }
 }
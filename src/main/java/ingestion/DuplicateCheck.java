@@ -0,0 +1,8 @@
+package ingestion;
+
+// leaderKey is the key of the first item in the cluster, which is key itself for that first item.
+public record DuplicateCheck(String key, String leaderKey, double similarity) {
+    public boolean duplicate() {
+        return !key.equals(leaderKey);
+    }
+}
@@ -1,39 +1,53 @@
 package ingestion;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
 import knowledge.Event;
 import knowledge.EventType;
+import util.CsvReader;
 
 public final class EconomicCalendarIngestionService {
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
     public List<Event> parseCsv(Path csvPath) {
-        try {
-            List<String> lines = Files.readAllLines(csvPath);
-            List<Event> events = new ArrayList<>();
-            for (String line : lines) {
-                if (line.isBlank() || line.startsWith("#") || line.startsWith("timestamp")) {
-                    continue;
-                }
+        List<Event> events = new ArrayList<>();
+        stream(csvPath, events::add);
+        return events;
+    }
 
-                String[] parts = line.split(",", 2);
-                if (parts.length != 2) {
+    public int stream(Path csvPath, Consumer<Event> sink) {
+        int count = 0;
+        try (CsvReader reader = new CsvReader(Files.newBufferedReader(csvPath, StandardCharsets.UTF_8))) {
+            List<String> fields;
+            while ((fields = reader.next()) != null) {
+                String first = fields.get(0).trim();
+                if (fields.size() < 2 || first.isEmpty() || first.startsWith("#") || first.startsWith("timestamp")) {
                     continue;
                 }
 
-                LocalDateTime dateTime = LocalDateTime.parse(parts[0].trim(), FORMATTER);
-                Instant timestamp = dateTime.toInstant(ZoneOffset.UTC);
-                events.add(new Event(java.util.UUID.randomUUID(), EventType.MACRO, timestamp, parts[1].trim()));
+                // Unquoted descriptions used to be split on the first comma only, so keep any extra columns together.
+                String description = String.join(",", fields.subList(1, fields.size())).trim();
+                Instant timestamp;
+                try {
+                    timestamp = LocalDateTime.parse(first, FORMATTER).toInstant(ZoneOffset.UTC);
+                } catch (DateTimeParseException exception) {
+                    throw new IllegalStateException("Invalid calendar timestamp on line " + reader.recordLine() + " of " + csvPath, exception);
+                }
+                sink.accept(new Event(UUID.randomUUID(), EventType.MACRO, timestamp, description));
+                count++;
             }
-            return events;
+            return count;
         } catch (IOException exception) {
             throw new IllegalStateException("Unable to parse economic calendar CSV at " + csvPath, exception);
         }
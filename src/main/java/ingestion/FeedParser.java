@@ -0,0 +1,141 @@
+package ingestion;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.function.Consumer;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+final class FeedParser {
+    // Factories are expensive to look up but safe to share once configured. DTDs and external entities are
+    // disabled outright, which shuts off XXE and entity-expansion payloads from hostile feeds.
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private FeedParser() {
+    }
+
+    static int parse(String source, InputStream input, Instant fetchedAt, Consumer<RawEventRecord> sink) {
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(input);
+            int emitted = 0;
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && isItem(reader.getLocalName())) {
+                    sink.accept(readItem(reader, source, fetchedAt));
+                    emitted++;
+                }
+            }
+            return emitted;
+        } catch (XMLStreamException exception) {
+            throw new IllegalStateException("Failed to parse feed: " + source, exception);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // Nothing useful to do while closing.
+                }
+            }
+        }
+    }
+
+    private static RawEventRecord readItem(XMLStreamReader reader, String source, Instant fetchedAt) throws XMLStreamException {
+        String title = "";
+        String description = "";
+        String content = "";
+        String link = null;
+        String guid = null;
+        Instant published = null;
+        Instant updated = null;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT && isItem(reader.getLocalName())) {
+                break;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            switch (reader.getLocalName()) {
+                case "title" -> title = readText(reader);
+                case "description", "summary" -> description = readText(reader);
+                case "content", "encoded" -> content = readText(reader);
+                case "guid", "id" -> guid = blankToNull(readText(reader));
+                case "link" -> {
+                    // Atom links carry the URL in href; only the alternate (or unlabelled) link points at the story.
+                    String href = reader.getAttributeValue(null, "href");
+                    String rel = reader.getAttributeValue(null, "rel");
+                    String text = readText(reader);
+                    if (href != null) {
+                        if ((rel == null || "alternate".equals(rel)) && link == null) {
+                            link = blankToNull(href.trim());
+                        }
+                    } else if (link == null) {
+                        link = blankToNull(text);
+                    }
+                }
+                case "pubDate", "published", "date" -> published = parseDate(readText(reader));
+                case "updated" -> updated = parseDate(readText(reader));
+                default -> readText(reader);
+            }
+        }
+
+        String body = description.isBlank() ? content : description;
+        Instant timestamp = published != null ? published : updated != null ? updated : fetchedAt;
+        return new RawEventRecord(source, title, title + "\n" + body, timestamp, guid != null ? guid : link, link);
+    }
+
+    // Collects the text of the current element, including any nested markup, and leaves the reader on its end tag.
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> depth++;
+                case XMLStreamConstants.END_ELEMENT -> depth--;
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE -> text.append(reader.getText());
+                default -> {
+                }
+            }
+        }
+        return text.toString().trim();
+    }
+
+    static Instant parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        } catch (DateTimeParseException ignored) {
+            // Atom and Dublin Core dates are ISO-8601.
+        }
+        try {
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException ignored) {
+            return null;
+        }
+    }
+
+    private static boolean isItem(String localName) {
+        return "item".equals(localName) || "entry".equals(localName);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
@@ -0,0 +1,5 @@
+package ingestion;
+
+// The ETag and Last-Modified a feed last answered with, replayed as If-None-Match and If-Modified-Since.
+public record FeedValidators(String etag, String lastModified) {
+}
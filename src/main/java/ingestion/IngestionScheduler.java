@@ -2,27 +2,343 @@ package ingestion;
 
 import java.net.URI;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
 
+// Each source is its own chain of one-shot timers: the next run is only scheduled once the previous one has finished,
+// so a slow feed can never overlap itself and an exception can never cancel future runs. Fetches are asynchronous,
+// which is what lets a couple of timer threads drive thousands of feeds.
 public final class IngestionScheduler {
-    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+    private static final int DEFAULT_TIMER_THREADS = 2;
+    private static final int DEFAULT_MAX_CONCURRENT_FETCHES = 64;
+    private static final Duration DEFAULT_MAX_BACKOFF = Duration.ofHours(1);
+    private static final Duration DEFAULT_CHECKPOINT_INTERVAL = Duration.ofSeconds(30);
+    private static final long RETRY_DELAY_MILLIS = 100;
+
     private final RssIngestionService rssIngestionService;
+    private final Consumer<List<RawEventRecord>> recordSink;
+    private final ScheduledExecutorService timer;
+    private final ScheduledExecutorService checkpointer;
+    private final Map<URI, Feed> feeds = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final StampedLock checkpointLock = new StampedLock();
+    private final int maxConcurrentFetches;
+    private final long maxBackoffMillis;
+
+    private volatile boolean shutdown;
+    private volatile boolean checkpointPending;
 
     public IngestionScheduler(RssIngestionService rssIngestionService) {
+        this(rssIngestionService, records -> {
+        });
+    }
+
+    public IngestionScheduler(RssIngestionService rssIngestionService, Consumer<List<RawEventRecord>> recordSink) {
+        this(
+            rssIngestionService,
+            recordSink,
+            DEFAULT_TIMER_THREADS,
+            DEFAULT_MAX_CONCURRENT_FETCHES,
+            DEFAULT_MAX_BACKOFF,
+            DEFAULT_CHECKPOINT_INTERVAL
+        );
+    }
+
+    public IngestionScheduler(
+        RssIngestionService rssIngestionService,
+        int timerThreads,
+        int maxConcurrentFetches,
+        Duration maxBackoff,
+        Duration checkpointInterval
+    ) {
+        this(rssIngestionService, records -> {
+        }, timerThreads, maxConcurrentFetches, maxBackoff, checkpointInterval);
+    }
+
+    // The sink sees each run's fresh records after they are on disk; it may block, which slows that feed's cadence.
+    public IngestionScheduler(
+        RssIngestionService rssIngestionService,
+        Consumer<List<RawEventRecord>> recordSink,
+        int timerThreads,
+        int maxConcurrentFetches,
+        Duration maxBackoff,
+        Duration checkpointInterval
+    ) {
+        if (timerThreads <= 0 || maxConcurrentFetches <= 0) {
+            throw new IllegalArgumentException("timerThreads and maxConcurrentFetches must be positive");
+        }
+        if (maxBackoff.isNegative() || maxBackoff.isZero() || checkpointInterval.isNegative() || checkpointInterval.isZero()) {
+            throw new IllegalArgumentException("maxBackoff and checkpointInterval must be positive");
+        }
         this.rssIngestionService = rssIngestionService;
+        this.recordSink = recordSink;
+        this.maxConcurrentFetches = maxConcurrentFetches;
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.timer = Executors.newScheduledThreadPool(timerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "ingestion-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // The checkpoint waits for runs to drain, so it gets its own thread rather than parking one the feeds share.
+        this.checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ingestion-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkpointMillis = checkpointInterval.toMillis();
+        checkpointer.scheduleWithFixedDelay(this::checkpoint, checkpointMillis, checkpointMillis, TimeUnit.MILLISECONDS);
     }
 
     public void scheduleRssPolling(List<URI> sources, Path outputPath, int intervalMinutes) {
-        executorService.scheduleAtFixedRate(() -> {
-            List<RawEventRecord> records = rssIngestionService.poll(sources);
-            rssIngestionService.persist(outputPath, records);
-        }, 0, intervalMinutes, TimeUnit.MINUTES);
+        Duration interval = Duration.ofMinutes(intervalMinutes);
+        for (URI source : sources) {
+            addSource(source, outputPath, interval, interval.dividedBy(10));
+        }
+    }
+
+    // The first run lands somewhere inside the jitter window so sources added together do not all fire at once.
+    public void addSource(URI source, Path outputPath, Duration interval, Duration jitter) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        if (jitter.isNegative()) {
+            throw new IllegalArgumentException("jitter must not be negative");
+        }
+        if (shutdown) {
+            throw new IllegalStateException("Scheduler has been shut down");
+        }
+        Feed feed = new Feed(source, outputPath, interval.toMillis(), jitter.toMillis());
+        if (feeds.putIfAbsent(source, feed) != null) {
+            throw new IllegalArgumentException("Source is already scheduled: " + source);
+        }
+        scheduleLater(feed, randomUpTo(feed.jitterMillis));
+    }
+
+    public boolean removeSource(URI source) {
+        Feed feed = feeds.remove(source);
+        if (feed == null) {
+            return false;
+        }
+        synchronized (feed) {
+            feed.removed = true;
+        }
+        return true;
+    }
+
+    public SourceSchedule schedule(URI source) {
+        Feed feed = feeds.get(source);
+        return feed == null ? null : feed.snapshot();
+    }
+
+    public List<SourceSchedule> schedules() {
+        List<SourceSchedule> schedules = new ArrayList<>(feeds.size());
+        for (Feed feed : feeds.values()) {
+            schedules.add(feed.snapshot());
+        }
+        schedules.sort(Comparator.comparing(SourceSchedule::nextRunAt, Comparator.nullsLast(Comparator.naturalOrder())));
+        return schedules;
     }
 
     public void shutdown() {
-        executorService.shutdown();
+        shutdown = true;
+        timer.shutdown();
+        checkpointer.shutdown();
+        checkpoint();
+    }
+
+    private void run(Feed feed) {
+        synchronized (feed) {
+            if (feed.removed || shutdown) {
+                return;
+            }
+            feed.running = true;
+        }
+        // Runs that would exceed the fetch budget, or that arrive while a checkpoint is waiting, step back briefly
+        // instead of blocking a timer thread that other feeds are waiting on. StampedLock still grants read locks
+        // while a writer waits, so without the pending flag steady traffic would starve the checkpoint.
+        if (checkpointPending) {
+            deferRun(feed);
+            return;
+        }
+        if (inFlight.incrementAndGet() > maxConcurrentFetches) {
+            inFlight.decrementAndGet();
+            deferRun(feed);
+            return;
+        }
+        long stamp = checkpointLock.tryReadLock();
+        if (stamp == 0L) {
+            inFlight.decrementAndGet();
+            deferRun(feed);
+            return;
+        }
+
+        Instant startedAt = Instant.now();
+        try {
+            rssIngestionService.fetch(feed.source)
+                .whenComplete((result, failure) -> complete(feed, startedAt, stamp, result, failure));
+        } catch (RuntimeException exception) {
+            complete(feed, startedAt, stamp, null, exception);
+        }
+    }
+
+    private void complete(Feed feed, Instant startedAt, long stamp, SourceFetchResult result, Throwable failure) {
+        String error = failure == null ? result.error() : String.valueOf(failure.getMessage());
+        int recordCount = 0;
+        try {
+            if (error == null) {
+                if (!result.records().isEmpty()) {
+                    rssIngestionService.appendRecords(feed.outputPath, result.records());
+                    recordCount = result.records().size();
+                }
+                // Under the read lock, so a checkpoint sees the records and their dedup state together or not at all.
+                rssIngestionService.commit(result);
+            }
+        } catch (RuntimeException exception) {
+            error = "Persist failed: " + exception.getMessage();
+        } finally {
+            checkpointLock.unlockRead(stamp);
+            inFlight.decrementAndGet();
+        }
+        if (recordCount > 0) {
+            try {
+                recordSink.accept(result.records());
+            } catch (RuntimeException exception) {
+                System.err.println("Record sink failed for " + feed.source + ": " + exception.getMessage());
+            }
+        }
+
+        long delayMillis;
+        int failures;
+        synchronized (feed) {
+            feed.running = false;
+            feed.lastRunAt = startedAt;
+            feed.lastLatencyMillis = Duration.between(startedAt, Instant.now()).toMillis();
+            if (error == null) {
+                feed.lastSuccessAt = Instant.now();
+                feed.consecutiveFailures = 0;
+                feed.lastError = null;
+                feed.recordsIngested += recordCount;
+                delayMillis = feed.intervalMillis + randomUpTo(feed.jitterMillis);
+            } else {
+                feed.consecutiveFailures++;
+                feed.lastError = error;
+                delayMillis = backoffMillis(feed);
+            }
+            failures = feed.consecutiveFailures;
+        }
+        if (error != null) {
+            System.err.println("RSS source " + feed.source + " failed (" + failures + " in a row): " + error);
+        }
+        scheduleLater(feed, delayMillis);
+    }
+
+    private long backoffMillis(Feed feed) {
+        long base = feed.intervalMillis;
+        for (int i = 1; i < feed.consecutiveFailures && base < maxBackoffMillis; i++) {
+            base *= 2;
+        }
+        base = Math.min(base, maxBackoffMillis);
+        // Jittering the upper half keeps feeds that failed together, e.g. during an outage, from retrying in step.
+        return base / 2 + randomUpTo(base - base / 2);
+    }
+
+    private void deferRun(Feed feed) {
+        synchronized (feed) {
+            feed.running = false;
+        }
+        scheduleLater(feed, RETRY_DELAY_MILLIS + randomUpTo(RETRY_DELAY_MILLIS));
+    }
+
+    private void scheduleLater(Feed feed, long delayMillis) {
+        synchronized (feed) {
+            if (feed.removed || shutdown) {
+                return;
+            }
+            feed.nextRunAt = Instant.now().plusMillis(delayMillis);
+        }
+        try {
+            timer.schedule(() -> run(feed), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException exception) {
+            // Only happens once the scheduler is shutting down.
+        }
+    }
+
+    // Dedup state may only be saved once every item it marks as seen has been flushed, so the checkpoint waits for
+    // in-flight runs to drain while new runs back off.
+    private void checkpoint() {
+        checkpointPending = true;
+        try {
+            long stamp = checkpointLock.tryWriteLock(rssIngestionService.fetchDeadline().toMillis() * 2, TimeUnit.MILLISECONDS);
+            if (stamp == 0L) {
+                System.err.println("Skipped ingestion checkpoint: runs did not drain in time");
+                return;
+            }
+            try {
+                rssIngestionService.saveState();
+            } finally {
+                checkpointLock.unlockWrite(stamp);
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException exception) {
+            System.err.println("Ingestion checkpoint failed: " + exception.getMessage());
+        } finally {
+            checkpointPending = false;
+        }
+    }
+
+    private static long randomUpTo(long bound) {
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    private static final class Feed {
+        private final URI source;
+        private final Path outputPath;
+        private final long intervalMillis;
+        private final long jitterMillis;
+        private Instant nextRunAt;
+        private Instant lastRunAt;
+        private Instant lastSuccessAt;
+        private long lastLatencyMillis;
+        private int consecutiveFailures;
+        private String lastError;
+        private boolean running;
+        private boolean removed;
+        private long recordsIngested;
+
+        private Feed(URI source, Path outputPath, long intervalMillis, long jitterMillis) {
+            this.source = source;
+            this.outputPath = outputPath;
+            this.intervalMillis = intervalMillis;
+            this.jitterMillis = jitterMillis;
+        }
+
+        private synchronized SourceSchedule snapshot() {
+            return new SourceSchedule(
+                source,
+                Duration.ofMillis(intervalMillis),
+                nextRunAt,
+                lastRunAt,
+                lastSuccessAt,
+                lastLatencyMillis,
+                consecutiveFailures,
+                lastError,
+                running,
+                recordsIngested
+            );
+        }
     }
 }
@@ -0,0 +1,215 @@
+package ingestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Clusters re-worded copies of the same story. Each text becomes a MinHash signature over its word unigrams and
+// bigrams, and only cluster leaders are indexed, by the hash of each band of their signature. A lookup therefore
+// compares against the few leaders that share a band instead of against the whole window.
+public final class NearDuplicateDetector {
+    private static final int HASHES = 64;
+    private static final int BANDS = 16;
+    private static final int ROWS = HASHES / BANDS;
+    private static final double DEFAULT_THRESHOLD = 0.7;
+    private static final int DEFAULT_CAPACITY = 65_536;
+    private static final long[] SEEDS = seeds();
+
+    private final Object monitor = new Object();
+    private final double threshold;
+    private final int capacity;
+    private final Map<Long, List<Item>> buckets = new HashMap<>();
+    private final LinkedHashMap<String, Item> items = new LinkedHashMap<>();
+
+    public NearDuplicateDetector() {
+        this(DEFAULT_THRESHOLD, DEFAULT_CAPACITY);
+    }
+
+    // With 16 bands of 4 rows, pairs at the default 0.7 similarity become candidates ~99% of the time and pairs
+    // at 0.3 only ~12% of the time; candidates are then checked against the threshold itself.
+    public NearDuplicateDetector(double threshold, int capacity) {
+        if (!(threshold > 0.0 && threshold <= 1.0)) {
+            throw new IllegalArgumentException("threshold must be in (0, 1]");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.threshold = threshold;
+        this.capacity = capacity;
+    }
+
+    public DuplicateCheck check(NewsStory story) {
+        return check(story.id(), story.title() + "\n" + story.summary());
+    }
+
+    // The first text seen for a cluster leads it; later texts at or above the threshold report that leader. Keys
+    // that were already checked get their original answer back, so callers can re-submit the same item freely.
+    public DuplicateCheck check(String key, String text) {
+        if (key == null || key.isBlank()) {
+            throw new IllegalArgumentException("key is required");
+        }
+        int[] signature = signature(text);
+        long[] bands = signature == null ? null : bandKeys(signature);
+
+        synchronized (monitor) {
+            Item known = items.get(key);
+            if (known != null) {
+                return known.check;
+            }
+            Item leader = null;
+            double similarity = 0.0;
+            if (bands != null) {
+                for (long band : bands) {
+                    List<Item> bucket = buckets.get(band);
+                    if (bucket == null) {
+                        continue;
+                    }
+                    for (Item candidate : bucket) {
+                        if (candidate == leader) {
+                            continue;
+                        }
+                        double estimate = similarity(signature, candidate.signature);
+                        if (estimate >= threshold && estimate > similarity) {
+                            leader = candidate;
+                            similarity = estimate;
+                        }
+                    }
+                }
+            }
+
+            Item item;
+            if (leader == null) {
+                item = new Item(new DuplicateCheck(key, key, 1.0), signature, bands);
+                if (bands != null) {
+                    for (long band : bands) {
+                        buckets.computeIfAbsent(band, ignored -> new ArrayList<>(1)).add(item);
+                    }
+                }
+            } else {
+                item = new Item(new DuplicateCheck(key, leader.check.key(), similarity), null, null);
+            }
+            items.put(key, item);
+            if (items.size() > capacity) {
+                evictEldest();
+            }
+            return item.check;
+        }
+    }
+
+    public int size() {
+        synchronized (monitor) {
+            return items.size();
+        }
+    }
+
+    private void evictEldest() {
+        Iterator<Item> eldest = items.values().iterator();
+        Item item = eldest.next();
+        eldest.remove();
+        if (item.bands == null) {
+            return;
+        }
+        for (long band : item.bands) {
+            List<Item> bucket = buckets.get(band);
+            bucket.remove(item);
+            if (bucket.isEmpty()) {
+                buckets.remove(band);
+            }
+        }
+    }
+
+    // Null when the text has no words, which leaves it unclustered rather than grouped with every other empty text.
+    static int[] signature(String text) {
+        List<String> tokens = SearchIndex.tokenize(text == null ? "" : text);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        int[] minimums = new int[HASHES];
+        Arrays.fill(minimums, Integer.MAX_VALUE);
+        long previous = 0L;
+        for (int i = 0; i < tokens.size(); i++) {
+            long unigram = hash(tokens.get(i));
+            accumulate(minimums, unigram);
+            if (i > 0) {
+                // Bigrams keep word order in play, so "oil prices surge" and "oil prices slump" stay apart.
+                accumulate(minimums, mix(previous * 0x9E3779B97F4A7C15L + unigram));
+            }
+            previous = unigram;
+        }
+        return minimums;
+    }
+
+    static double similarity(int[] left, int[] right) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (left[i] == right[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    // A full mixing round per permutation keeps neighbouring rows independent; a cheaper multiply-add let rows of a
+    // band correlate and roughly doubled the candidates each lookup had to verify.
+    private static void accumulate(int[] minimums, long shingle) {
+        for (int i = 0; i < HASHES; i++) {
+            int value = (int) (mix(shingle ^ SEEDS[i]) >>> 33);
+            if (value < minimums[i]) {
+                minimums[i] = value;
+            }
+        }
+    }
+
+    private static long[] bandKeys(int[] signature) {
+        long[] keys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long key = band;
+            for (int row = 0; row < ROWS; row++) {
+                key = key * 0x100000001B3L + signature[band * ROWS + row];
+            }
+            keys[band] = mix(key);
+        }
+        return keys;
+    }
+
+    private static long hash(String token) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            hash = (hash ^ token.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    private static long[] seeds() {
+        long[] seeds = new long[HASHES];
+        long state = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < HASHES; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            seeds[i] = mix(state);
+        }
+        return seeds;
+    }
+
+    // Only leaders carry a signature and band keys; members just remember which leader they joined.
+    private static final class Item {
+        private final DuplicateCheck check;
+        private final int[] signature;
+        private final long[] bands;
+
+        private Item(DuplicateCheck check, int[] signature, long[] bands) {
+            this.check = check;
+            this.signature = signature;
+            this.bands = bands;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ingestion;
+
+import java.io.Closeable;
+import java.util.List;
+import knowledge.PriceTick;
+
+public interface PriceSource extends Closeable {
+    List<PriceTick> poll(int maxTicks);
+
+    default void track(String symbol, double referencePrice) {
+    }
+
+    @Override
+    default void close() {
+    }
+}
@@ -2,5 +2,8 @@ package ingestion;
 
 import java.time.Instant;
 
-public record RawEventRecord(String source, String title, String rawText, Instant timestamp) {
+public record RawEventRecord(String source, String title, String rawText, Instant timestamp, String guid, String link) {
+    public RawEventRecord(String source, String title, String rawText, Instant timestamp) {
+        this(source, title, rawText, timestamp, null, null);
+    }
 }
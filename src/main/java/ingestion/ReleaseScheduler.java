@@ -0,0 +1,152 @@
+package ingestion;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import knowledge.Event;
+
+// Fires each calendar release on a dedicated timer thread at its scheduled instant. The timer only hands events to a
+// separate worker pool, so a slow analysis can never delay the next release behind it.
+public final class ReleaseScheduler implements Closeable {
+    private static final Comparator<Event> BY_RELEASE_TIME =
+        Comparator.comparing(Event::getTimestamp).thenComparing(Event::getId);
+
+    private final Object monitor = new Object();
+    private final PriorityQueue<Event> upcoming = new PriorityQueue<>(BY_RELEASE_TIME);
+    private final Map<UUID, Event> scheduled = new HashMap<>();
+    private final Consumer<Event> handler;
+    private final Clock clock;
+    private final ExecutorService workers;
+    private final Thread timer;
+
+    private boolean closed;
+
+    public ReleaseScheduler(Consumer<Event> handler) {
+        this(handler, Clock.systemUTC(), 2);
+    }
+
+    public ReleaseScheduler(Consumer<Event> handler, Clock clock, int workerThreads) {
+        if (workerThreads <= 0) {
+            throw new IllegalArgumentException("workerThreads must be positive");
+        }
+        this.handler = handler;
+        this.clock = clock;
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "release-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer = new Thread(this::runTimer, "release-timer");
+        timer.setDaemon(true);
+        timer.start();
+    }
+
+    // Releases already in the past are ignored; replaying them on start-up would announce stale data as news.
+    public boolean schedule(Event event) {
+        synchronized (monitor) {
+            if (closed || scheduled.containsKey(event.getId()) || !event.getTimestamp().isAfter(clock.instant())) {
+                return false;
+            }
+            scheduled.put(event.getId(), event);
+            upcoming.add(event);
+            if (upcoming.peek() == event) {
+                monitor.notifyAll();
+            }
+            return true;
+        }
+    }
+
+    public boolean cancel(UUID eventId) {
+        synchronized (monitor) {
+            Event event = scheduled.remove(eventId);
+            if (event == null) {
+                return false;
+            }
+            upcoming.remove(event);
+            monitor.notifyAll();
+            return true;
+        }
+    }
+
+    public List<Event> upcoming(int limit) {
+        synchronized (monitor) {
+            List<Event> events = new ArrayList<>(upcoming);
+            events.sort(BY_RELEASE_TIME);
+            return List.copyOf(events.subList(0, Math.min(limit, events.size())));
+        }
+    }
+
+    public int pending() {
+        synchronized (monitor) {
+            return upcoming.size();
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (monitor) {
+            closed = true;
+            upcoming.clear();
+            scheduled.clear();
+            monitor.notifyAll();
+        }
+        workers.shutdownNow();
+    }
+
+    private void runTimer() {
+        while (true) {
+            Event due;
+            synchronized (monitor) {
+                try {
+                    while (true) {
+                        if (closed) {
+                            return;
+                        }
+                        Event head = upcoming.peek();
+                        if (head == null) {
+                            monitor.wait();
+                            continue;
+                        }
+                        // Re-read the clock after every wake-up: notifications and spurious wake-ups both land here.
+                        long waitMillis = head.getTimestamp().toEpochMilli() - clock.millis();
+                        if (waitMillis <= 0) {
+                            due = upcoming.poll();
+                            scheduled.remove(due.getId());
+                            break;
+                        }
+                        monitor.wait(waitMillis);
+                    }
+                } catch (InterruptedException exception) {
+                    return;
+                }
+            }
+            dispatch(due);
+        }
+    }
+
+    private void dispatch(Event event) {
+        try {
+            workers.execute(() -> {
+                try {
+                    handler.accept(event);
+                } catch (RuntimeException exception) {
+                    System.err.println(
+                        "Release handler failed for " + event.getId() + " at " + event.getTimestamp() + ": " + exception.getMessage()
+                    );
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            // Only happens once the scheduler is closing.
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package ingestion;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import knowledge.PriceTick;
+
+public final class ReplayPriceSource implements PriceSource {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Path file;
+    private final boolean jsonLines;
+    private final BufferedReader reader;
+    private long lineNumber;
+    private boolean exhausted;
+
+    public ReplayPriceSource(Path file) {
+        this.file = file;
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        this.jsonLines = name.endsWith(".jsonl") || name.endsWith(".json");
+        try {
+            this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to open price replay file " + file, exception);
+        }
+    }
+
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    @Override
+    public synchronized List<PriceTick> poll(int maxTicks) {
+        if (exhausted || maxTicks <= 0) {
+            return List.of();
+        }
+        List<PriceTick> ticks = new ArrayList<>(Math.min(maxTicks, 4_096));
+        try {
+            String line;
+            while (ticks.size() < maxTicks && (line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                PriceTick tick = jsonLines ? parseJson(line) : parseCsv(line);
+                if (tick != null) {
+                    ticks.add(tick);
+                }
+            }
+            if (ticks.size() < maxTicks) {
+                exhausted = true;
+            }
+            return ticks;
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to read price replay file " + file, exception);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        exhausted = true;
+        try {
+            reader.close();
+        } catch (IOException ignored) {
+            // The replay is finished either way.
+        }
+    }
+
+    private PriceTick parseCsv(String line) {
+        String[] parts = line.split(",");
+        if (parts.length < 3) {
+            throw malformed("expected timestamp,symbol,price");
+        }
+        if (lineNumber == 1 && parts[0].trim().equalsIgnoreCase("timestamp")) {
+            return null;
+        }
+        return tick(parts[1].trim(), parts[2].trim(), parts[0].trim());
+    }
+
+    private PriceTick parseJson(String line) throws IOException {
+        JsonNode node = OBJECT_MAPPER.readTree(line);
+        JsonNode symbol = node.get("symbol");
+        JsonNode price = node.get("price");
+        JsonNode timestamp = node.get("timestamp");
+        if (symbol == null || price == null || timestamp == null) {
+            throw malformed("expected symbol, price and timestamp fields");
+        }
+        return tick(symbol.asText(), price.asText(), timestamp.asText());
+    }
+
+    private PriceTick tick(String symbol, String price, String timestamp) {
+        try {
+            return new PriceTick(symbol.toUpperCase(Locale.ROOT), Double.parseDouble(price), parseTimestamp(timestamp));
+        } catch (IllegalArgumentException | DateTimeParseException exception) {
+            throw malformed(exception.getMessage());
+        }
+    }
+
+    private static long parseTimestamp(String value) {
+        if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(value);
+        }
+        if (value.endsWith("Z") || value.contains("+")) {
+            return Instant.parse(value).toEpochMilli();
+        }
+        return LocalDateTime.parse(value).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private IllegalStateException malformed(String detail) {
+        return new IllegalStateException("Malformed price tick at " + file + ":" + lineNumber + " (" + detail + ")");
+    }
+}
@@ -1,59 +1,296 @@
 package ingestion;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import javax.xml.parsers.DocumentBuilderFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import util.JsonlArchive;
 import util.JsonlStore;
 
 public final class RssIngestionService {
+    private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(15);
+    private static final String USER_AGENT = "Mozilla/5.0 (HeliosMVP)";
+    private static final String VALIDATORS_FILE = "feed-validators.json";
+    private static final String SEEN_ITEMS_FILE = "seen-items.bin";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private final JsonlStore jsonlStore;
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+    private final long deadlineMillis;
+    private final Path stateDirectory;
+    private final Map<String, FeedValidators> validatorsBySource = new ConcurrentHashMap<>();
+    private final SeenItemIndex seenItems;
 
     public RssIngestionService(JsonlStore jsonlStore) {
+        this(jsonlStore, DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+    }
+
+    public RssIngestionService(JsonlStore jsonlStore, Duration connectTimeout, Duration readTimeout) {
+        this(jsonlStore, connectTimeout, readTimeout, null);
+    }
+
+    public RssIngestionService(JsonlStore jsonlStore, Duration connectTimeout, Duration readTimeout, Path stateDirectory) {
+        if (connectTimeout.isNegative() || connectTimeout.isZero() || readTimeout.isNegative() || readTimeout.isZero()) {
+            throw new IllegalArgumentException("Timeouts must be positive");
+        }
         this.jsonlStore = jsonlStore;
+        this.readTimeout = readTimeout;
+        this.deadlineMillis = connectTimeout.plus(readTimeout).toMillis();
+        this.httpClient = HttpClient.newBuilder()
+            .connectTimeout(connectTimeout)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+        this.stateDirectory = stateDirectory;
+        if (stateDirectory == null) {
+            this.seenItems = SeenItemIndex.inMemory();
+        } else {
+            this.seenItems = SeenItemIndex.open(stateDirectory.resolve(SEEN_ITEMS_FILE));
+            loadValidators(stateDirectory.resolve(VALIDATORS_FILE));
+        }
     }
 
-    public List<RawEventRecord> poll(List<URI> rssSources) {
+    // Fetches every source once and appends what is new to outputPath, committing each feed after its records.
+    public List<RawEventRecord> poll(List<URI> rssSources, Path outputPath) {
         List<RawEventRecord> records = new ArrayList<>();
-        for (URI source : rssSources) {
-            records.addAll(fetchSource(source));
+        for (SourceFetchResult result : pollSources(rssSources)) {
+            if (result.succeeded()) {
+                appendRecords(outputPath, result.records());
+                commit(result);
+                records.addAll(result.records());
+            }
         }
+        saveState();
         return records;
     }
 
-    private List<RawEventRecord> fetchSource(URI source) {
-        List<RawEventRecord> records = new ArrayList<>();
-        try (InputStream inputStream = source.toURL().openStream()) {
-            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(inputStream);
-            NodeList items = document.getElementsByTagName("item");
-            for (int i = 0; i < items.getLength(); i++) {
-                Element item = (Element) items.item(i);
-                String title = text(item, "title");
-                String description = text(item, "description");
-                records.add(new RawEventRecord(source.toString(), title, title + "\n" + description, Instant.now()));
+    // Every source is requested up front, so a cycle takes roughly as long as its slowest feed.
+    public List<SourceFetchResult> pollSources(List<URI> rssSources) {
+        List<CompletableFuture<SourceFetchResult>> pending = new ArrayList<>(rssSources.size());
+        for (URI source : rssSources) {
+            pending.add(fetch(source));
+        }
+        List<SourceFetchResult> results = new ArrayList<>(pending.size());
+        for (CompletableFuture<SourceFetchResult> result : pending) {
+            results.add(result.join());
+        }
+        return results;
+    }
+
+    // Never completes exceptionally: failures, including timeouts, come back as an unsuccessful result.
+    public CompletableFuture<SourceFetchResult> fetch(URI source) {
+        long started = System.nanoTime();
+        AtomicReference<InputStream> body = new AtomicReference<>();
+        AtomicReference<HttpResponse<?>> completed = new AtomicReference<>();
+        CompletableFuture<List<RawEventRecord>> parsed;
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(source)
+                .timeout(readTimeout)
+                .header("User-Agent", USER_AGENT)
+                .GET();
+            FeedValidators known = validatorsBySource.get(source.toString());
+            if (known != null && known.etag() != null) {
+                request.header("If-None-Match", known.etag());
+            }
+            if (known != null && known.lastModified() != null) {
+                request.header("If-Modified-Since", known.lastModified());
             }
-            return records;
-        } catch (Exception exception) {
-            throw new IllegalStateException("Failed to fetch RSS source: " + source, exception);
+            parsed = httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(response -> {
+                    try (InputStream input = response.body()) {
+                        if (response.statusCode() == 304) {
+                            return null;
+                        }
+                        if (response.statusCode() >= 400) {
+                            throw new IllegalStateException("HTTP " + response.statusCode());
+                        }
+                        completed.set(response);
+                        body.set(input);
+                        List<RawEventRecord> records = new ArrayList<>();
+                        FeedParser.parse(source.toString(), input, Instant.now(), records::add);
+                        return records;
+                    } catch (IOException exception) {
+                        throw new UncheckedIOException(exception);
+                    }
+                });
+        } catch (IllegalArgumentException exception) {
+            parsed = CompletableFuture.failedFuture(exception);
+        }
+
+        // The request timeout stops once headers arrive; the deadline also bounds a body that stalls mid-stream,
+        // and closing the stream unblocks the parser still waiting on it.
+        return parsed
+            .orTimeout(deadlineMillis, TimeUnit.MILLISECONDS)
+            .whenComplete((records, failure) -> {
+                if (failure != null) {
+                    closeQuietly(body.get());
+                }
+            })
+            .handle((records, failure) -> {
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                if (failure != null) {
+                    return new SourceFetchResult(source, List.of(), describe(failure), elapsedMillis, false, 0);
+                }
+                if (records == null) {
+                    return new SourceFetchResult(source, List.of(), null, elapsedMillis, true, 0);
+                }
+                // Nothing is marked seen and the validators stay put until commit(), after the caller has persisted
+                // the records; otherwise a failed append would lose them behind the dedup index and a 304.
+                List<RawEventRecord> fresh = new ArrayList<>();
+                List<String> keys = new ArrayList<>();
+                Set<String> inFeed = new HashSet<>();
+                for (RawEventRecord record : records) {
+                    String key = itemKey(source.toString(), record);
+                    if (inFeed.add(key) && !seenItems.contains(key)) {
+                        fresh.add(record);
+                        keys.add(key);
+                    }
+                }
+                return new SourceFetchResult(
+                    source,
+                    fresh,
+                    null,
+                    elapsedMillis,
+                    false,
+                    records.size() - fresh.size(),
+                    List.copyOf(keys),
+                    validators(completed.get())
+                );
+            });
+    }
+
+    // Records a successful fetch as ingested. Call it only once its records are durable; saveState then checkpoints it.
+    public void commit(SourceFetchResult result) {
+        if (!result.succeeded()) {
+            return;
+        }
+        for (String key : result.itemKeys()) {
+            seenItems.markSeen(key);
+        }
+        if (result.validators() != null) {
+            rememberValidators(result.source(), result.validators());
+        }
+    }
+
+    private String describe(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof TimeoutException) {
+            return "Timed out after " + deadlineMillis + " ms";
         }
+        String message = cause.getMessage();
+        return message == null || message.isBlank() ? cause.getClass().getSimpleName() : message;
     }
 
-    public void persist(java.nio.file.Path outputPath, List<RawEventRecord> records) {
+    public Duration fetchDeadline() {
+        return Duration.ofMillis(deadlineMillis);
+    }
+
+    public void persist(Path outputPath, SourceFetchResult result) {
+        appendRecords(outputPath, result.records());
+        commit(result);
+        saveState();
+    }
+
+    // Appends and flushes without checkpointing dedup state; callers must call saveState once the records are durable.
+    public void appendRecords(Path outputPath, List<RawEventRecord> records) {
         for (RawEventRecord record : records) {
             jsonlStore.append(outputPath, record);
         }
+        jsonlStore.flush(outputPath);
+    }
+
+    public void persist(JsonlArchive<RawEventRecord> archive, SourceFetchResult result) {
+        for (RawEventRecord record : result.records()) {
+            archive.append(record);
+        }
+        archive.flush();
+        commit(result);
+        saveState();
+    }
+
+    // Only committed items reach the saved state, and they are committed after their records are durable, so a
+    // crash or a failed append can only cause an item to be fetched twice, never lost.
+    public void saveState() {
+        if (stateDirectory == null) {
+            return;
+        }
+        seenItems.save();
+        Path file = stateDirectory.resolve(VALIDATORS_FILE);
+        Path temporary = stateDirectory.resolve(VALIDATORS_FILE + ".tmp");
+        try {
+            Files.createDirectories(stateDirectory);
+            OBJECT_MAPPER.writeValue(temporary.toFile(), new TreeMap<>(validatorsBySource));
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to save feed validators to " + file, exception);
+        }
+    }
+
+    private void loadValidators(Path file) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            validatorsBySource.putAll(OBJECT_MAPPER.readValue(file.toFile(), new TypeReference<Map<String, FeedValidators>>() {
+            }));
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to load feed validators from " + file, exception);
+        }
+    }
+
+    private static FeedValidators validators(HttpResponse<?> response) {
+        return new FeedValidators(
+            response.headers().firstValue("ETag").orElse(null),
+            response.headers().firstValue("Last-Modified").orElse(null)
+        );
+    }
+
+    private void rememberValidators(URI source, FeedValidators validators) {
+        if (validators.etag() == null && validators.lastModified() == null) {
+            validatorsBySource.remove(source.toString());
+        } else {
+            validatorsBySource.put(source.toString(), validators);
+        }
+    }
+
+    private static String itemKey(String source, RawEventRecord record) {
+        if (record.guid() != null) {
+            return source + "\n" + record.guid();
+        }
+        return source + "\n" + record.title() + "\n" + record.rawText();
     }
 
-    private static String text(Element parent, String tagName) {
-        NodeList nodes = parent.getElementsByTagName(tagName);
-        if (nodes.getLength() == 0) {
-            return "";
+    private static void closeQuietly(InputStream input) {
+        if (input == null) {
+            return;
+        }
+        try {
+            input.close();
+        } catch (IOException ignored) {
+            // Nothing useful to do while closing.
         }
-        return nodes.item(0).getTextContent();
     }
 }
@@ -0,0 +1,11 @@
+package ingestion;
+
+import java.time.Instant;
+
+public record SearchDocument(String key, String kind, String source, String title, String url, String text, Instant timestamp) {
+    public SearchDocument {
+        if (key == null || key.isBlank()) {
+            throw new IllegalArgumentException("Search document key is required");
+        }
+    }
+}
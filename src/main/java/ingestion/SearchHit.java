@@ -0,0 +1,13 @@
+package ingestion;
+
+public record SearchHit(
+    String key,
+    String kind,
+    String source,
+    String title,
+    String url,
+    String publishedAt,
+    String snippet,
+    double score
+) {
+}
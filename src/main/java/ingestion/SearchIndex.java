@@ -0,0 +1,1037 @@
+package ingestion;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Full-text index over stories and feed items. Postings are kept per term as delta-encoded varint doc ids, each
+// followed by the term frequency and its positions, so phrase checks only decode positions for candidate documents.
+// Documents are appended to documents.log as they arrive; index.bin is a periodic snapshot of the postings, and
+// anything logged after the last snapshot is re-indexed on open.
+public final class SearchIndex implements Closeable {
+    private static final int FORMAT_VERSION = 1;
+    private static final String LOG_FILE = "documents.log";
+    private static final String SNAPSHOT_FILE = "index.bin";
+    private static final int MAX_TOKEN_LENGTH = 64;
+    private static final int MAX_LIMIT = 100;
+    private static final int SNIPPET_CHARS = 200;
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+    // Recency scales relevance between RECENCY_FLOOR for very old documents and 1.0 for brand new ones.
+    private static final double RECENCY_FLOOR = 0.5;
+    private static final double RECENCY_HALF_LIFE_MILLIS = 30.0 * 24 * 60 * 60 * 1000;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object checkpointMonitor = new Object();
+    private final Path directory;
+    private final FileChannel log;
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final Map<Long, Integer> docsByKey = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+
+    private long[] timestamps = new long[1_024];
+    private int[] lengths = new int[1_024];
+    private long[] offsets = new long[1_024];
+    private long[] keyHashes = new long[1_024];
+    private long[] contentHashes = new long[1_024];
+    private int docCount;
+    private int liveDocs;
+    private long liveLength;
+    private byte[] pendingLog = new byte[64 * 1024];
+    private int pendingLogBytes;
+    private long flushedLogBytes;
+    private boolean dirty;
+
+    private SearchIndex(Path directory) throws IOException {
+        this.directory = directory;
+        if (directory == null) {
+            this.log = null;
+            return;
+        }
+        Files.createDirectories(directory);
+        this.log = FileChannel.open(
+            directory.resolve(LOG_FILE),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE
+        );
+        long replayFrom = loadSnapshot(directory.resolve(SNAPSHOT_FILE), log.size());
+        replayLog(replayFrom);
+    }
+
+    public static SearchIndex inMemory() {
+        try {
+            return new SearchIndex(null);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to create search index", exception);
+        }
+    }
+
+    public static SearchIndex open(Path directory) {
+        try {
+            return new SearchIndex(directory);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to open search index at " + directory, exception);
+        }
+    }
+
+    public boolean add(NewsStory story) {
+        return add(new SearchDocument(
+            "story:" + story.id(),
+            "story",
+            story.source(),
+            story.title(),
+            story.url(),
+            story.summary(),
+            parseTimestamp(story.publishedAt())
+        ));
+    }
+
+    // Shares its key with the story it expands, so the full body replaces the summary in the index.
+    public boolean add(StoryDetail detail) {
+        return add(new SearchDocument(
+            "story:" + detail.id(),
+            "story",
+            detail.source(),
+            detail.title(),
+            detail.url(),
+            detail.body(),
+            parseTimestamp(detail.publishedAt())
+        ));
+    }
+
+    public boolean add(RawEventRecord record) {
+        String identity = record.guid() != null && !record.guid().isBlank()
+            ? record.guid()
+            : record.link() != null && !record.link().isBlank() ? record.link() : record.title() + '\n' + record.rawText();
+        return add(new SearchDocument(
+            "event:" + record.source() + '\n' + identity,
+            "event",
+            record.source(),
+            record.title(),
+            record.link(),
+            record.rawText(),
+            record.timestamp() == null ? Instant.now() : record.timestamp()
+        ));
+    }
+
+    public int addAll(List<RawEventRecord> records) {
+        int added = 0;
+        for (RawEventRecord record : records) {
+            if (add(record)) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    // Re-adding a key with unchanged title, url and text is a no-op, so re-scraping the same page is cheap; a changed
+    // document replaces the earlier version but keeps the earlier timestamp for ranking.
+    public boolean add(SearchDocument document) {
+        long keyHash = hash64(document.key());
+        long contentHash = hash64(nullToEmpty(document.title()) + '\u0000' + nullToEmpty(document.url()) + '\u0000'
+            + nullToEmpty(document.text()));
+        lock.writeLock().lock();
+        try {
+            Integer previous = docsByKey.get(keyHash);
+            long timestamp = document.timestamp() == null ? System.currentTimeMillis() : document.timestamp().toEpochMilli();
+            if (previous != null) {
+                if (contentHashes[previous] == contentHash) {
+                    return false;
+                }
+                timestamp = Math.min(timestamp, timestamps[previous]);
+            }
+            byte[] record = encode(document, timestamp);
+            long offset = flushedLogBytes + pendingLogBytes;
+            appendLog(record);
+            index(document, timestamp, offset, keyHash, contentHash);
+            dirty = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SearchResults search(String query, int limit, boolean newestFirst) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        long started = System.nanoTime();
+        SearchQuery.Node root = SearchQuery.parse(query);
+        List<String> scoring = new ArrayList<>();
+        SearchQuery.scoringTerms(root, scoring);
+
+        lock.readLock().lock();
+        try {
+            Map<String, TermMatches> decoded = new HashMap<>();
+            int[] matches = evaluate(root, decoded);
+            double[] scores = newestFirst ? null : relevance(matches, scoring, decoded);
+            int[] top = newestFirst ? newest(matches, limit) : best(matches, scores, limit);
+
+            List<SearchHit> hits = new ArrayList<>(top.length);
+            for (int index : top) {
+                int doc = newestFirst ? index : matches[index];
+                SearchDocument document = readDocument(doc);
+                hits.add(new SearchHit(
+                    document.key(),
+                    document.kind(),
+                    document.source(),
+                    document.title(),
+                    document.url(),
+                    Instant.ofEpochMilli(timestamps[doc]).toString(),
+                    snippet(document.text(), scoring),
+                    scores == null ? 0.0 : Math.round(scores[index] * 10_000.0) / 10_000.0
+                ));
+            }
+            return new SearchResults(query, matches.length, hits, (System.nanoTime() - started) / 1_000);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void flush() {
+        if (log == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            flushLogLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Captures the snapshot under the lock and writes it with no lock held, so neither searches nor indexing wait on
+    // the disk. Document slots and postings bytes are only ever appended to, so the capture can hold on to the live
+    // arrays with their current lengths instead of copying them.
+    public void checkpoint() {
+        if (log == null) {
+            return;
+        }
+        synchronized (checkpointMonitor) {
+            Snapshot snapshot;
+            lock.writeLock().lock();
+            try {
+                flushLogLocked();
+                if (!dirty) {
+                    return;
+                }
+                snapshot = snapshotLocked();
+                dirty = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            try {
+                writeSnapshot(directory.resolve(SNAPSHOT_FILE), snapshot);
+            } catch (RuntimeException exception) {
+                lock.writeLock().lock();
+                try {
+                    dirty = true;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw exception;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (log == null) {
+            return;
+        }
+        try {
+            checkpoint();
+        } finally {
+            try {
+                log.close();
+            } catch (IOException ignored) {
+                // Nothing useful to do while closing.
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        forEachToken(text, (token, position) -> tokens.add(token));
+        return tokens;
+    }
+
+    private void index(SearchDocument document, long timestamp, long offset, long keyHash, long contentHash) {
+        int doc = docCount;
+        ensureDocCapacity(doc + 1);
+        Map<String, IntList> positions = new HashMap<>();
+        int length = forEachToken(indexedText(document), (token, position) ->
+            positions.computeIfAbsent(token, ignored -> new IntList()).add(position)
+        );
+        for (Map.Entry<String, IntList> entry : positions.entrySet()) {
+            terms.computeIfAbsent(entry.getKey(), ignored -> new Postings()).add(doc, entry.getValue());
+        }
+
+        timestamps[doc] = timestamp;
+        lengths[doc] = length;
+        offsets[doc] = offset;
+        keyHashes[doc] = keyHash;
+        contentHashes[doc] = contentHash;
+        docCount++;
+        Integer previous = docsByKey.put(keyHash, doc);
+        if (previous != null) {
+            deleted.set(previous);
+            liveDocs--;
+            liveLength -= lengths[previous];
+        }
+        liveDocs++;
+        liveLength += length;
+    }
+
+    private int[] evaluate(SearchQuery.Node node, Map<String, TermMatches> decoded) {
+        if (node instanceof SearchQuery.Term term) {
+            return live(matches(term.token(), decoded, false).docs);
+        }
+        if (node instanceof SearchQuery.Phrase phrase) {
+            return phrase(phrase.tokens(), decoded);
+        }
+        if (node instanceof SearchQuery.And and) {
+            List<int[]> included = new ArrayList<>();
+            for (SearchQuery.Node child : and.included()) {
+                included.add(evaluate(child, decoded));
+            }
+            // Intersecting the shortest lists first keeps every intermediate result small.
+            included.sort((left, right) -> Integer.compare(left.length, right.length));
+            int[] result = included.get(0);
+            for (int i = 1; i < included.size() && result.length > 0; i++) {
+                result = intersect(result, included.get(i));
+            }
+            for (SearchQuery.Node child : and.excluded()) {
+                if (result.length == 0) {
+                    break;
+                }
+                result = subtract(result, evaluate(child, decoded));
+            }
+            return result;
+        }
+        SearchQuery.Or or = (SearchQuery.Or) node;
+        int[] result = new int[0];
+        for (SearchQuery.Node child : or.alternatives()) {
+            result = union(result, evaluate(child, decoded));
+        }
+        return result;
+    }
+
+    private int[] phrase(List<String> tokens, Map<String, TermMatches> decoded) {
+        TermMatches[] parts = new TermMatches[tokens.size()];
+        int[] candidates = null;
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = matches(tokens.get(i), decoded, true);
+            candidates = candidates == null ? live(parts[i].docs) : intersect(candidates, parts[i].docs);
+        }
+        int[] cursors = new int[parts.length];
+        int[] result = new int[candidates.length];
+        int count = 0;
+        for (int doc : candidates) {
+            int[][] positions = new int[parts.length][];
+            for (int i = 0; i < parts.length; i++) {
+                while (parts[i].docs[cursors[i]] < doc) {
+                    cursors[i]++;
+                }
+                positions[i] = parts[i].positions(cursors[i]);
+            }
+            if (adjacent(positions)) {
+                result[count++] = doc;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static boolean adjacent(int[][] positions) {
+        for (int start : positions[0]) {
+            boolean found = true;
+            for (int i = 1; i < positions.length && found; i++) {
+                found = Arrays.binarySearch(positions[i], start + i) >= 0;
+            }
+            if (found) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Recency can only lower a score, so documents whose BM25 alone cannot reach the current top k are skipped before
+    // paying for the decay. Scores of the documents that make it are updated in place.
+    private int[] best(int[] docs, double[] scores, int limit) {
+        long now = System.currentTimeMillis();
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, (left, right) -> Double.compare(scores[left], scores[right]));
+        for (int i = 0; i < docs.length; i++) {
+            if (best.size() == limit && scores[i] <= scores[best.peek()]) {
+                continue;
+            }
+            double age = Math.max(0, now - timestamps[docs[i]]);
+            scores[i] *= RECENCY_FLOOR + (1.0 - RECENCY_FLOOR) * Math.pow(0.5, age / RECENCY_HALF_LIFE_MILLIS);
+            if (best.size() < limit) {
+                best.add(i);
+            } else if (scores[i] > scores[best.peek()]) {
+                best.poll();
+                best.add(i);
+            }
+        }
+        int[] top = new int[best.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = best.poll();
+        }
+        return top;
+    }
+
+    private int[] newest(int[] matches, int limit) {
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, (left, right) -> Long.compare(timestamps[left], timestamps[right]));
+        for (int doc : matches) {
+            if (best.size() < limit) {
+                best.add(doc);
+            } else if (timestamps[doc] > timestamps[best.peek()]) {
+                best.poll();
+                best.add(doc);
+            }
+        }
+        int[] top = new int[best.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = best.poll();
+        }
+        return top;
+    }
+
+    // BM25 over the included terms.
+    private double[] relevance(int[] docs, List<String> scoring, Map<String, TermMatches> decoded) {
+        double[] scores = new double[docs.length];
+        double averageLength = liveDocs == 0 ? 1.0 : Math.max(1.0, (double) liveLength / liveDocs);
+        for (String token : scoring.stream().distinct().toList()) {
+            TermMatches term = matches(token, decoded, false);
+            double idf = Math.log(1.0 + (liveDocs - term.liveDocFreq + 0.5) / (term.liveDocFreq + 0.5));
+            // Both lists are sorted, so one forward walk finds every term frequency.
+            int cursor = 0;
+            for (int i = 0; i < docs.length; i++) {
+                while (cursor < term.docs.length && term.docs[cursor] < docs[i]) {
+                    cursor++;
+                }
+                if (cursor == term.docs.length) {
+                    break;
+                }
+                if (term.docs[cursor] != docs[i]) {
+                    continue;
+                }
+                double tf = term.freqs[cursor];
+                double norm = BM25_K1 * (1.0 - BM25_B + BM25_B * lengths[docs[i]] / averageLength);
+                scores[i] += idf * tf * (BM25_K1 + 1.0) / (tf + norm);
+            }
+        }
+        return scores;
+    }
+
+    // Positions are only decoded for phrase terms; a term first seen outside a phrase is decoded again if needed.
+    private TermMatches matches(String token, Map<String, TermMatches> decoded, boolean withPositions) {
+        TermMatches cached = decoded.get(token);
+        if (cached != null && (!withPositions || cached.positionStarts != null)) {
+            return cached;
+        }
+        Postings postings = terms.get(token);
+        TermMatches matches = postings == null ? TermMatches.EMPTY : postings.decode(deleted, withPositions);
+        decoded.put(token, matches);
+        return matches;
+    }
+
+    private int[] live(int[] docs) {
+        if (deleted.isEmpty()) {
+            return docs;
+        }
+        int[] result = new int[docs.length];
+        int count = 0;
+        for (int doc : docs) {
+            if (!deleted.get(doc)) {
+                result[count++] = doc;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private SearchDocument readDocument(int doc) {
+        long offset = offsets[doc];
+        try {
+            byte[] record;
+            if (log == null || offset >= flushedLogBytes) {
+                int start = (int) (offset - flushedLogBytes);
+                int length = ByteBuffer.wrap(pendingLog, start, Integer.BYTES).getInt();
+                record = Arrays.copyOfRange(pendingLog, start + Integer.BYTES, start + Integer.BYTES + length);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+                readFully(header, offset);
+                ByteBuffer body = ByteBuffer.allocate(header.getInt(0));
+                readFully(body, offset + Integer.BYTES);
+                record = body.array();
+            }
+            return decode(ByteBuffer.wrap(record));
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to read search index at " + directory, exception);
+        }
+    }
+
+    private void appendLog(byte[] record) {
+        int needed = Integer.BYTES + record.length;
+        if (log != null && pendingLogBytes + needed > pendingLog.length && pendingLogBytes > 0) {
+            flushLogLocked();
+        }
+        if (pendingLogBytes + needed > pendingLog.length) {
+            pendingLog = Arrays.copyOf(pendingLog, Math.max(pendingLog.length * 2, pendingLogBytes + needed));
+        }
+        ByteBuffer.wrap(pendingLog, pendingLogBytes, needed).putInt(record.length).put(record);
+        pendingLogBytes += needed;
+    }
+
+    private void flushLogLocked() {
+        if (pendingLogBytes == 0) {
+            return;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(pendingLog, 0, pendingLogBytes);
+            long position = flushedLogBytes;
+            while (buffer.hasRemaining()) {
+                position += log.write(buffer, position);
+            }
+            flushedLogBytes += pendingLogBytes;
+            pendingLogBytes = 0;
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to write search index log at " + directory, exception);
+        }
+    }
+
+    private void replayLog(long from) throws IOException {
+        long size = log.size();
+        long position = from;
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        while (position + Integer.BYTES <= size) {
+            header.clear();
+            readFully(header, position);
+            int length = header.getInt(0);
+            if (length < 0 || position + Integer.BYTES + length > size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(body, position + Integer.BYTES);
+            body.flip();
+            SearchDocument document = decode(body);
+            long keyHash = hash64(document.key());
+            long contentHash = hash64(nullToEmpty(document.title()) + '\u0000' + nullToEmpty(document.url()) + '\u0000'
+                + nullToEmpty(document.text()));
+            index(document, document.timestamp().toEpochMilli(), position, keyHash, contentHash);
+            dirty = true;
+            position += Integer.BYTES + length;
+        }
+        // A torn append leaves a partial record at the end; drop it so new records start on a boundary.
+        log.truncate(position);
+        flushedLogBytes = position;
+    }
+
+    private long loadSnapshot(Path file, long logSize) throws IOException {
+        if (!Files.exists(file)) {
+            return 0L;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            int version = input.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported search index version " + version);
+            }
+            long logBytes = input.readLong();
+            if (logBytes > logSize) {
+                // The snapshot is ahead of the log it describes; rebuilding from the log is the only safe option.
+                System.err.println("Search index snapshot is ahead of its log; rebuilding " + directory);
+                return 0L;
+            }
+            int count = input.readInt();
+            ensureDocCapacity(count);
+            for (int doc = 0; doc < count; doc++) {
+                timestamps[doc] = input.readLong();
+                lengths[doc] = input.readInt();
+                offsets[doc] = input.readLong();
+                keyHashes[doc] = input.readLong();
+                contentHashes[doc] = input.readLong();
+            }
+            long[] words = new long[input.readInt()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = input.readLong();
+            }
+            BitSet loadedDeleted = BitSet.valueOf(words);
+            int termCount = input.readInt();
+            Map<String, Postings> loadedTerms = new HashMap<>(termCount * 2);
+            for (int i = 0; i < termCount; i++) {
+                String term = input.readUTF();
+                Postings postings = new Postings();
+                postings.docFreq = input.readInt();
+                postings.lastDoc = input.readInt();
+                postings.size = input.readInt();
+                postings.bytes = new byte[Math.max(16, postings.size)];
+                input.readFully(postings.bytes, 0, postings.size);
+                loadedTerms.put(term, postings);
+            }
+
+            terms.putAll(loadedTerms);
+            deleted.or(loadedDeleted);
+            docCount = count;
+            for (int doc = 0; doc < count; doc++) {
+                if (!deleted.get(doc)) {
+                    docsByKey.put(keyHashes[doc], doc);
+                    liveDocs++;
+                    liveLength += lengths[doc];
+                }
+            }
+            return logBytes;
+        }
+    }
+
+    private Snapshot snapshotLocked() {
+        List<TermSnapshot> termSnapshots = new ArrayList<>(terms.size());
+        for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+            Postings postings = entry.getValue();
+            termSnapshots.add(new TermSnapshot(entry.getKey(), postings.bytes, postings.size, postings.docFreq, postings.lastDoc));
+        }
+        return new Snapshot(
+            flushedLogBytes,
+            docCount,
+            timestamps,
+            lengths,
+            offsets,
+            keyHashes,
+            contentHashes,
+            deleted.toLongArray(),
+            termSnapshots
+        );
+    }
+
+    private static void writeSnapshot(Path file, Snapshot snapshot) {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (OutputStream stream = Files.newOutputStream(temporary);
+                 DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeLong(snapshot.logBytes());
+                output.writeInt(snapshot.docCount());
+                for (int doc = 0; doc < snapshot.docCount(); doc++) {
+                    output.writeLong(snapshot.timestamps()[doc]);
+                    output.writeInt(snapshot.lengths()[doc]);
+                    output.writeLong(snapshot.offsets()[doc]);
+                    output.writeLong(snapshot.keyHashes()[doc]);
+                    output.writeLong(snapshot.contentHashes()[doc]);
+                }
+                output.writeInt(snapshot.deleted().length);
+                for (long word : snapshot.deleted()) {
+                    output.writeLong(word);
+                }
+                output.writeInt(snapshot.terms().size());
+                for (TermSnapshot term : snapshot.terms()) {
+                    output.writeUTF(term.term());
+                    output.writeInt(term.docFreq());
+                    output.writeInt(term.lastDoc());
+                    output.writeInt(term.size());
+                    output.write(term.bytes(), 0, term.size());
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to save search index " + file, exception);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = log.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of search index log at offset " + offset);
+            }
+            offset += read;
+        }
+    }
+
+    private void ensureDocCapacity(int needed) {
+        if (needed <= timestamps.length) {
+            return;
+        }
+        int capacity = Math.max(needed, timestamps.length * 2);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        keyHashes = Arrays.copyOf(keyHashes, capacity);
+        contentHashes = Arrays.copyOf(contentHashes, capacity);
+    }
+
+    private static String indexedText(SearchDocument document) {
+        return nullToEmpty(document.title()) + '\n' + nullToEmpty(document.text());
+    }
+
+    private static String snippet(String text, List<String> scoring) {
+        String value = nullToEmpty(text).replaceAll("\\s+", " ").trim();
+        if (value.length() <= SNIPPET_CHARS) {
+            return value;
+        }
+        String lower = value.toLowerCase(Locale.ROOT);
+        int first = -1;
+        for (String token : scoring) {
+            int at = lower.indexOf(token);
+            if (at >= 0 && (first < 0 || at < first)) {
+                first = at;
+            }
+        }
+        int start = Math.max(0, first - SNIPPET_CHARS / 4);
+        int end = Math.min(value.length(), start + SNIPPET_CHARS);
+        return (start > 0 ? "..." : "") + value.substring(start, end) + (end < value.length() ? "..." : "");
+    }
+
+    private static int forEachToken(String text, TokenSink sink) {
+        if (text == null) {
+            return 0;
+        }
+        StringBuilder token = new StringBuilder();
+        int position = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (token.length() < MAX_TOKEN_LENGTH) {
+                    token.append(Character.toLowerCase(c));
+                }
+            } else if (c == '\'' && token.length() > 0) {
+                // Apostrophes are dropped so "Lloyd's" and "Lloyds" meet in the same term.
+                continue;
+            } else if (token.length() > 0) {
+                sink.accept(token.toString(), position++);
+                token.setLength(0);
+            }
+        }
+        return position;
+    }
+
+    private static byte[] encode(SearchDocument document, long timestamp) {
+        byte[][] fields = {
+            utf8(document.key()),
+            utf8(document.kind()),
+            utf8(document.source()),
+            utf8(document.title()),
+            utf8(document.url()),
+            utf8(document.text())
+        };
+        int size = Long.BYTES;
+        for (byte[] field : fields) {
+            size += Integer.BYTES + field.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size).putLong(timestamp);
+        for (byte[] field : fields) {
+            buffer.putInt(field.length).put(field);
+        }
+        return buffer.array();
+    }
+
+    private static SearchDocument decode(ByteBuffer buffer) {
+        long timestamp = buffer.getLong();
+        String key = readString(buffer);
+        String kind = readString(buffer);
+        String source = readString(buffer);
+        String title = readString(buffer);
+        String url = readString(buffer);
+        String text = readString(buffer);
+        return new SearchDocument(key, kind, source, title, url, text, Instant.ofEpochMilli(timestamp));
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        return nullToEmpty(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Instant parseTimestamp(String value) {
+        if (value == null || value.isBlank()) {
+            return Instant.now();
+        }
+        try {
+            return Instant.parse(value.trim());
+        } catch (DateTimeParseException exception) {
+            return Instant.now();
+        }
+    }
+
+    // FNV-1a with a final mix; keys only need to be unique among the documents in one index.
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static int[] intersect(int[] left, int[] right) {
+        int[] result = new int[Math.min(left.length, right.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[count++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int[] union(int[] left, int[] right) {
+        int[] result = new int[left.length + right.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length || j < right.length) {
+            if (j == right.length || (i < left.length && left[i] < right[j])) {
+                result[count++] = left[i++];
+            } else if (i == left.length || right[j] < left[i]) {
+                result[count++] = right[j++];
+            } else {
+                result[count++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int[] subtract(int[] left, int[] right) {
+        int[] result = new int[left.length];
+        int count = 0;
+        int j = 0;
+        for (int doc : left) {
+            while (j < right.length && right[j] < doc) {
+                j++;
+            }
+            if (j == right.length || right[j] != doc) {
+                result[count++] = doc;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private interface TokenSink {
+        void accept(String token, int position);
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    // Each posting is varint(doc delta), varint(freq), varint(position bytes) and then the position deltas, so a scan
+    // that does not need positions can hop over them.
+    private record Snapshot(
+        long logBytes,
+        int docCount,
+        long[] timestamps,
+        int[] lengths,
+        long[] offsets,
+        long[] keyHashes,
+        long[] contentHashes,
+        long[] deleted,
+        List<TermSnapshot> terms
+    ) {
+    }
+
+    private record TermSnapshot(String term, byte[] bytes, int size, int docFreq, int lastDoc) {
+    }
+
+    private static final class Postings {
+        private byte[] bytes = new byte[16];
+        private int size;
+        private int docFreq;
+        private int lastDoc = -1;
+
+        private void add(int doc, IntList positions) {
+            int positionBytes = 0;
+            int previous = 0;
+            for (int i = 0; i < positions.size; i++) {
+                positionBytes += varintLength(positions.values[i] - previous);
+                previous = positions.values[i];
+            }
+            ensureCapacity(15 + positionBytes);
+            writeVarint(doc - lastDoc);
+            writeVarint(positions.size);
+            writeVarint(positionBytes);
+            previous = 0;
+            for (int i = 0; i < positions.size; i++) {
+                writeVarint(positions.values[i] - previous);
+                previous = positions.values[i];
+            }
+            lastDoc = doc;
+            docFreq++;
+        }
+
+        private TermMatches decode(BitSet deleted, boolean withPositions) {
+            int[] docs = new int[docFreq];
+            int[] freqs = new int[docFreq];
+            int[] positionStarts = withPositions ? new int[docFreq] : null;
+            int position = 0;
+            int doc = -1;
+            for (int i = 0; i < docFreq; i++) {
+                int value = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[position++];
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                doc += value;
+                docs[i] = doc;
+                value = 0;
+                shift = 0;
+                do {
+                    b = bytes[position++];
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                freqs[i] = value;
+                value = 0;
+                shift = 0;
+                do {
+                    b = bytes[position++];
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                if (positionStarts != null) {
+                    positionStarts[i] = position;
+                }
+                position += value;
+            }
+            int liveDocFreq = docFreq;
+            if (!deleted.isEmpty()) {
+                for (int live : docs) {
+                    if (deleted.get(live)) {
+                        liveDocFreq--;
+                    }
+                }
+            }
+            return new TermMatches(bytes, docs, freqs, positionStarts, liveDocFreq);
+        }
+
+        private void writeVarint(int value) {
+            int remaining = value;
+            while ((remaining & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            bytes[size++] = (byte) remaining;
+        }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+            }
+        }
+
+        private static int varintLength(int value) {
+            int length = 1;
+            int remaining = value >>> 7;
+            while (remaining != 0) {
+                length++;
+                remaining >>>= 7;
+            }
+            return length;
+        }
+    }
+
+    private static int readVarint(byte[] bytes, int[] cursor) {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = bytes[cursor[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    // A decoded postings list for one query. Positions stay encoded until a phrase check asks for them.
+    private static final class TermMatches {
+        private static final TermMatches EMPTY = new TermMatches(new byte[0], new int[0], new int[0], new int[0], 0);
+
+        private final byte[] bytes;
+        private final int[] docs;
+        private final int[] freqs;
+        private final int[] positionStarts;
+        private final int liveDocFreq;
+
+        private TermMatches(byte[] bytes, int[] docs, int[] freqs, int[] positionStarts, int liveDocFreq) {
+            this.bytes = bytes;
+            this.docs = docs;
+            this.freqs = freqs;
+            this.positionStarts = positionStarts;
+            this.liveDocFreq = liveDocFreq;
+        }
+
+        private int[] positions(int index) {
+            int[] positions = new int[freqs[index]];
+            int[] cursor = {positionStarts[index]};
+            int position = 0;
+            for (int i = 0; i < positions.length; i++) {
+                position += readVarint(bytes, cursor);
+                positions[i] = position;
+            }
+            return positions;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package ingestion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Parses queries such as  rates AND (housing OR mortgage) -"buy to let"  into a small tree. Adjacent clauses are
+// ANDed, OR binds looser than AND, and a leading '-' or NOT excludes a clause.
+final class SearchQuery {
+    private static final int MAX_CLAUSES = 64;
+
+    sealed interface Node permits Term, Phrase, And, Or {
+    }
+
+    record Term(String token) implements Node {
+    }
+
+    record Phrase(List<String> tokens) implements Node {
+    }
+
+    // Excluded clauses only narrow the included ones, so an And always carries at least one included clause.
+    record And(List<Node> included, List<Node> excluded) implements Node {
+    }
+
+    record Or(List<Node> alternatives) implements Node {
+    }
+
+    private final List<String> lexemes;
+    private int next;
+    private int clauses;
+
+    private SearchQuery(List<String> lexemes) {
+        this.lexemes = lexemes;
+    }
+
+    static Node parse(String query) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query is required");
+        }
+        SearchQuery parser = new SearchQuery(lex(query));
+        Node root = parser.parseOr();
+        if (parser.next < parser.lexemes.size()) {
+            throw new IllegalArgumentException("Unexpected '" + parser.lexemes.get(parser.next) + "' in search query");
+        }
+        if (root == null) {
+            throw new IllegalArgumentException("Search query needs at least one term to match");
+        }
+        return root;
+    }
+
+    // Terms in included clauses; these are the ones that contribute to the relevance score.
+    static void scoringTerms(Node node, List<String> terms) {
+        if (node instanceof Term term) {
+            terms.add(term.token());
+        } else if (node instanceof Phrase phrase) {
+            terms.addAll(phrase.tokens());
+        } else if (node instanceof And and) {
+            for (Node child : and.included()) {
+                scoringTerms(child, terms);
+            }
+        } else if (node instanceof Or or) {
+            for (Node child : or.alternatives()) {
+                scoringTerms(child, terms);
+            }
+        }
+    }
+
+    private Node parseOr() {
+        List<Node> alternatives = new ArrayList<>();
+        alternatives.add(parseAnd());
+        while (peekKeyword("OR")) {
+            next++;
+            alternatives.add(parseAnd());
+        }
+        alternatives.removeIf(node -> node == null);
+        if (alternatives.isEmpty()) {
+            return null;
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : new Or(List.copyOf(alternatives));
+    }
+
+    private Node parseAnd() {
+        List<Node> included = new ArrayList<>();
+        List<Node> excluded = new ArrayList<>();
+        boolean any = false;
+        while (next < lexemes.size() && !peekKeyword("OR") && !")".equals(lexemes.get(next))) {
+            if (peekKeyword("AND")) {
+                next++;
+                continue;
+            }
+            boolean negated = false;
+            if (peekKeyword("NOT") || "-".equals(lexemes.get(next))) {
+                negated = true;
+                next++;
+            }
+            Node clause = parsePrimary();
+            any = true;
+            if (clause != null) {
+                (negated ? excluded : included).add(clause);
+            }
+        }
+        if (!any) {
+            throw new IllegalArgumentException("Search query has an empty clause");
+        }
+        if (included.isEmpty()) {
+            if (!excluded.isEmpty()) {
+                throw new IllegalArgumentException("Excluded terms need at least one term to match");
+            }
+            return null;
+        }
+        if (excluded.isEmpty() && included.size() == 1) {
+            return included.get(0);
+        }
+        return new And(List.copyOf(included), List.copyOf(excluded));
+    }
+
+    private Node parsePrimary() {
+        if (next >= lexemes.size()) {
+            throw new IllegalArgumentException("Search query ends unexpectedly");
+        }
+        if (++clauses > MAX_CLAUSES) {
+            throw new IllegalArgumentException("Search query has more than " + MAX_CLAUSES + " clauses");
+        }
+        String lexeme = lexemes.get(next++);
+        if ("(".equals(lexeme)) {
+            Node inner = parseOr();
+            if (next >= lexemes.size() || !")".equals(lexemes.get(next))) {
+                throw new IllegalArgumentException("Unbalanced parentheses in search query");
+            }
+            next++;
+            return inner;
+        }
+        boolean quoted = lexeme.startsWith("\"");
+        List<String> tokens = SearchIndex.tokenize(quoted ? lexeme.substring(1) : lexeme);
+        // Punctuation-only clauses match nothing rather than everything, so they are dropped.
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        return tokens.size() == 1 ? new Term(tokens.get(0)) : new Phrase(List.copyOf(tokens));
+    }
+
+    private boolean peekKeyword(String keyword) {
+        return next < lexemes.size() && keyword.equals(lexemes.get(next));
+    }
+
+    // Phrases come back prefixed with a quote so that a quoted "or" is never mistaken for the operator.
+    private static List<String> lex(String query) {
+        List<String> lexemes = new ArrayList<>();
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                lexemes.add(String.valueOf(c));
+                i++;
+            } else if (c == '"') {
+                int end = query.indexOf('"', i + 1);
+                if (end < 0) {
+                    end = query.length();
+                }
+                lexemes.add("\"" + query.substring(i + 1, end));
+                i = end + 1;
+            } else if (c == '-' && (lexemes.isEmpty() || i == 0 || Character.isWhitespace(query.charAt(i - 1)) || query.charAt(i - 1) == '(')) {
+                lexemes.add("-");
+                i++;
+            } else {
+                int end = i;
+                while (end < query.length() && !Character.isWhitespace(query.charAt(end)) && "()\"".indexOf(query.charAt(end)) < 0) {
+                    end++;
+                }
+                String word = query.substring(i, end);
+                String upper = word.toUpperCase(Locale.ROOT);
+                lexemes.add(word.equals(upper) && ("AND".equals(upper) || "OR".equals(upper) || "NOT".equals(upper)) ? upper : word);
+                i = end;
+            }
+        }
+        return lexemes;
+    }
+}
@@ -0,0 +1,6 @@
+package ingestion;
+
+import java.util.List;
+
+public record SearchResults(String query, int totalMatches, List<SearchHit> hits, long elapsedMicros) {
+}
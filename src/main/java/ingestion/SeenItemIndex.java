@@ -0,0 +1,182 @@
+package ingestion;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+// Remembers which feed items have already been ingested. Recent fingerprints are held exactly; older ones fall back
+// to two rotating Bloom filter generations, so memory stays fixed however long the service runs.
+final class SeenItemIndex {
+    private static final int BLOOM_BITS = 1 << 24;
+    private static final int BLOOM_HASHES = 10;
+    private static final int GENERATION_CAPACITY = 1_000_000;
+    private static final int RECENT_CAPACITY = 16_384;
+    private static final int FORMAT_VERSION = 1;
+
+    private final Object monitor = new Object();
+    private final Path file;
+    private final LinkedHashSet<Long> recent = new LinkedHashSet<>();
+
+    private long[] current = new long[BLOOM_BITS / Long.SIZE];
+    private long[] previous = new long[BLOOM_BITS / Long.SIZE];
+    private int currentCount;
+    private boolean dirty;
+
+    private SeenItemIndex(Path file) {
+        this.file = file;
+    }
+
+    static SeenItemIndex inMemory() {
+        return new SeenItemIndex(null);
+    }
+
+    static SeenItemIndex open(Path file) {
+        SeenItemIndex index = new SeenItemIndex(file);
+        if (Files.exists(file)) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+                index.load(input);
+            } catch (IOException exception) {
+                throw new IllegalStateException("Unable to load seen-item index " + file, exception);
+            }
+        }
+        return index;
+    }
+
+    boolean contains(String key) {
+        byte[] digest = sha256(key);
+        ByteBuffer buffer = ByteBuffer.wrap(digest);
+        long first = buffer.getLong();
+        long second = buffer.getLong() | 1L;
+
+        synchronized (monitor) {
+            return recent.contains(first) || mightContain(current, first, second) || mightContain(previous, first, second);
+        }
+    }
+
+    boolean markSeen(String key) {
+        byte[] digest = sha256(key);
+        ByteBuffer buffer = ByteBuffer.wrap(digest);
+        long first = buffer.getLong();
+        long second = buffer.getLong() | 1L;
+
+        synchronized (monitor) {
+            if (recent.contains(first) || mightContain(current, first, second) || mightContain(previous, first, second)) {
+                return false;
+            }
+            remember(first);
+            if (currentCount == GENERATION_CAPACITY) {
+                long[] recycled = previous;
+                Arrays.fill(recycled, 0L);
+                previous = current;
+                current = recycled;
+                currentCount = 0;
+            }
+            // Double hashing derives every probe position from the two halves of one digest.
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (int) Math.floorMod(first + i * second, (long) BLOOM_BITS);
+                current[bit >>> 6] |= 1L << bit;
+            }
+            currentCount++;
+            dirty = true;
+            return true;
+        }
+    }
+
+    void save() {
+        if (file == null) {
+            return;
+        }
+        synchronized (monitor) {
+            if (!dirty) {
+                return;
+            }
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                if (file.getParent() != null) {
+                    Files.createDirectories(file.getParent());
+                }
+                try (OutputStream stream = Files.newOutputStream(temporary);
+                     DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+                    output.writeInt(FORMAT_VERSION);
+                    output.writeInt(currentCount);
+                    writeWords(output, current);
+                    writeWords(output, previous);
+                    output.writeInt(recent.size());
+                    for (long fingerprint : recent) {
+                        output.writeLong(fingerprint);
+                    }
+                }
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                dirty = false;
+            } catch (IOException exception) {
+                throw new IllegalStateException("Unable to save seen-item index " + file, exception);
+            }
+        }
+    }
+
+    private void load(DataInputStream input) throws IOException {
+        int version = input.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported seen-item index version " + version);
+        }
+        currentCount = input.readInt();
+        readWords(input, current);
+        readWords(input, previous);
+        int recentCount = input.readInt();
+        for (int i = 0; i < recentCount; i++) {
+            remember(input.readLong());
+        }
+    }
+
+    private void remember(long fingerprint) {
+        recent.add(fingerprint);
+        if (recent.size() > RECENT_CAPACITY) {
+            Iterator<Long> eldest = recent.iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private static boolean mightContain(long[] words, long first, long second) {
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            int bit = (int) Math.floorMod(first + i * second, (long) BLOOM_BITS);
+            if ((words[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeWords(DataOutputStream output, long[] words) throws IOException {
+        for (long word : words) {
+            output.writeLong(word);
+        }
+    }
+
+    private static void readWords(DataInputStream input, long[] words) throws IOException {
+        for (int i = 0; i < words.length; i++) {
+            words[i] = input.readLong();
+        }
+    }
+
+    private static byte[] sha256(String key) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is unavailable", exception);
+        }
+    }
+}
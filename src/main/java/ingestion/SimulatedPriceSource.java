@@ -0,0 +1,66 @@
+package ingestion;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import knowledge.PriceTick;
+
+public final class SimulatedPriceSource implements PriceSource {
+    // The walk stays within this factor of the reference price, and a rounded price never reaches zero, so a long
+    // run cannot drift into ticks that PriceTick rejects.
+    private static final double MAX_DRIFT_FACTOR = 10.0;
+    private static final double MIN_PRICE = 0.01;
+
+    private final SplittableRandom random;
+    private final double volatility;
+    private final Map<String, Double> pricesBySymbol = new LinkedHashMap<>();
+    private final Map<String, Double> referencesBySymbol = new LinkedHashMap<>();
+
+    private String[] symbols = new String[0];
+    private int cursor;
+
+    public SimulatedPriceSource(Map<String, Double> startingPrices, double volatility, long seed) {
+        if (volatility < 0.0) {
+            throw new IllegalArgumentException("volatility must not be negative");
+        }
+        this.random = new SplittableRandom(seed);
+        this.volatility = volatility;
+        startingPrices.forEach(this::track);
+    }
+
+    // One step per symbol per poll, so volatility is per poll interval however large a batch the caller allows.
+    @Override
+    public synchronized List<PriceTick> poll(int maxTicks) {
+        if (symbols.length == 0 || maxTicks <= 0) {
+            return List.of();
+        }
+        long now = System.currentTimeMillis();
+        int count = Math.min(maxTicks, symbols.length);
+        List<PriceTick> ticks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String symbol = symbols[cursor];
+            cursor = (cursor + 1) % symbols.length;
+            double reference = referencesBySymbol.get(symbol);
+            double next = pricesBySymbol.get(symbol) * Math.exp(volatility * random.nextGaussian());
+            next = Math.max(reference / MAX_DRIFT_FACTOR, Math.min(reference * MAX_DRIFT_FACTOR, next));
+            pricesBySymbol.put(symbol, next);
+            ticks.add(new PriceTick(symbol, Math.max(MIN_PRICE, Math.round(next * 100.0) / 100.0), now));
+        }
+        return ticks;
+    }
+
+    @Override
+    public synchronized void track(String symbol, double referencePrice) {
+        if (symbol == null || symbol.isBlank() || !(referencePrice > 0.0)) {
+            return;
+        }
+        String normalized = symbol.trim().toUpperCase(Locale.ROOT);
+        if (pricesBySymbol.putIfAbsent(normalized, referencePrice) == null) {
+            referencesBySymbol.put(normalized, referencePrice);
+            symbols = pricesBySymbol.keySet().toArray(new String[0]);
+        }
+    }
+}
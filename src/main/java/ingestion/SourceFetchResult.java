@@ -0,0 +1,25 @@
+package ingestion;
+
+import java.net.URI;
+import java.util.List;
+
+// itemKeys and validators are what RssIngestionService.commit records once the records are durable; validators is
+// null unless the feed answered with a full body.
+public record SourceFetchResult(
+    URI source,
+    List<RawEventRecord> records,
+    String error,
+    long elapsedMillis,
+    boolean notModified,
+    int duplicates,
+    List<String> itemKeys,
+    FeedValidators validators
+) {
+    public SourceFetchResult(URI source, List<RawEventRecord> records, String error, long elapsedMillis, boolean notModified, int duplicates) {
+        this(source, records, error, elapsedMillis, notModified, duplicates, List.of(), null);
+    }
+
+    public boolean succeeded() {
+        return error == null;
+    }
+}
@@ -0,0 +1,19 @@
+package ingestion;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+
+public record SourceSchedule(
+    URI source,
+    Duration interval,
+    Instant nextRunAt,
+    Instant lastRunAt,
+    Instant lastSuccessAt,
+    long lastLatencyMillis,
+    int consecutiveFailures,
+    String lastError,
+    boolean running,
+    long recordsIngested
+) {
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -30,6 +31,14 @@ public final class CausalGraphLoader {
         }
     }
 
+    public static CausalGraph load(Path file) {
+        try {
+            return buildGraph(OBJECT_MAPPER.readValue(file.toFile(), GraphDocument.class));
+        } catch (IOException exception) {
+            throw new IllegalStateException("Failed to load causal graph from " + file, exception);
+        }
+    }
+
     private static CausalGraph buildGraph(GraphDocument document) {
         CausalGraph graph = new CausalGraph();
 
@@ -65,7 +74,7 @@ public final class CausalGraphLoader {
         return graph;
     }
 
-    private static UUID stableId(String canonicalName) {
+    static UUID stableId(String canonicalName) {
         return UUID.nameUUIDFromBytes(canonicalName.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
     }
 
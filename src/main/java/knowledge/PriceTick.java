@@ -0,0 +1,30 @@
+package knowledge;
+
+import java.util.Objects;
+
+public final class PriceTick {
+    private final String symbol;
+    private final double price;
+    private final long timestampMillis;
+
+    public PriceTick(String symbol, double price, long timestampMillis) {
+        this.symbol = Objects.requireNonNull(symbol, "symbol");
+        if (!(price > 0.0) || Double.isInfinite(price)) {
+            throw new IllegalArgumentException("price must be positive");
+        }
+        this.price = price;
+        this.timestampMillis = timestampMillis;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+}
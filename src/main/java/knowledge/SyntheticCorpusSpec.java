@@ -0,0 +1,36 @@
+package knowledge;
+
+import java.time.Instant;
+
+// articleFraction of the stories carry a body of roughly articleWords words; the rest are headline-only. Mentions are
+// drawn with Zipf popularity, so a few entities dominate the news as they do in practice, and aliasMentionRate of
+// them use an alias instead of the canonical name.
+public record SyntheticCorpusSpec(
+    int stories,
+    double articleFraction,
+    int articleWords,
+    double headlineMentions,
+    double mentionsPer100Words,
+    double aliasMentionRate,
+    Instant start,
+    long seed
+) {
+    public SyntheticCorpusSpec {
+        if (stories < 0 || articleWords < 0) {
+            throw new IllegalArgumentException("stories and articleWords must not be negative");
+        }
+        if (!(articleFraction >= 0.0 && articleFraction <= 1.0) || !(aliasMentionRate >= 0.0 && aliasMentionRate <= 1.0)) {
+            throw new IllegalArgumentException("articleFraction and aliasMentionRate must be between 0 and 1");
+        }
+        if (!(headlineMentions >= 0.0) || !(mentionsPer100Words >= 0.0)) {
+            throw new IllegalArgumentException("mention rates must not be negative");
+        }
+        if (start == null) {
+            throw new IllegalArgumentException("start is required");
+        }
+    }
+
+    public static SyntheticCorpusSpec of(int stories, long seed) {
+        return new SyntheticCorpusSpec(stories, 0.3, 600, 1.5, 2.0, 0.3, Instant.parse("2024-01-01T00:00:00Z"), seed);
+    }
+}
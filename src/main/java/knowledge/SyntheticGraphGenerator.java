@@ -0,0 +1,426 @@
+package knowledge;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+// Builds large, reproducible causal graphs and news corpora for scale testing. Every property of an entity - its
+// name, aliases and outgoing links - is a pure function of the seed and its index, so graphs of a million entities
+// are streamed to disk without being held in memory, and a corpus can name entities without loading the graph.
+public final class SyntheticGraphGenerator {
+    // Two-letter consonant-vowel syllables, so a sequence of them can only be split one way and names stay unique.
+    private static final String[] SYLLABLES = syllables("bdfgklmnprst", "aeio");
+    private static final String[] COMPANY_SUFFIXES = {
+        "Holdings", "Group", "plc", "Industries", "Capital", "Resources", "Systems", "Partners"
+    };
+    private static final String[] SECTOR_SUFFIXES = {"Sector", "Industry"};
+    private static final String[] COMMODITY_SUFFIXES = {"Ore", "Grain", "Metals", "Crude"};
+    private static final String[] COUNTRY_SUFFIXES = {"Republic", "Federation"};
+    private static final String[] POLICY_SUFFIXES = {"Central Bank", "Monetary Authority", "Treasury"};
+    private static final String[] RATIONALES = {
+        "Supply chain exposure passes cost changes downstream.",
+        "Shared funding costs move both balance sheets together.",
+        "End demand for one drives orders at the other.",
+        "Input price changes are passed through with a lag.",
+        "Currency translation shifts reported earnings.",
+        "Regulatory changes spill over across the group.",
+        "Customers switch between the two on relative price.",
+        "Credit exposure links the two counterparties."
+    };
+    private static final String[] HEADLINES_0 = {
+        "Markets steady ahead of central bank decision",
+        "Inflation data keeps traders cautious",
+        "Global shares drift as investors await jobs figures"
+    };
+    private static final String[] HEADLINES_1 = {
+        "%s shares slide as investors weigh the outlook",
+        "%s raises guidance after a strong quarter",
+        "%s hit by sanctions over supply dispute",
+        "Inflation worries weigh on %s",
+        "%s rallies as demand recovers"
+    };
+    private static final String[] HEADLINES_2 = {
+        "%s and %s agree merger talks",
+        "%s warns on earnings as %s costs climb",
+        "%s gains while %s slips on rate fears"
+    };
+    private static final String[] PLAIN_SENTENCES = {
+        "Investors have grown more cautious in recent weeks as the outlook for growth has weakened.",
+        "The figures were broadly in line with forecasts, though analysts pointed to softer demand.",
+        "Trading volumes were light ahead of the weekend and volatility remained subdued.",
+        "Economists expect borrowing costs to stay higher for longer than markets had hoped.",
+        "The company said it would update the market on its strategy later in the year.",
+        "Several brokers trimmed their forecasts, citing higher wage costs and weaker margins."
+    };
+    private static final String[] MENTION_SENTENCES = {
+        "Shares in %s moved sharply after the announcement.",
+        "Analysts said %s was most exposed to the change in conditions.",
+        "%s reported a rise in revenue but warned that costs were climbing.",
+        "The decision is expected to weigh on %s over the coming quarter.",
+        "Demand linked to %s has held up better than many had feared."
+    };
+    private static final long NAME_SALT = 0x6E616D65L;
+    private static final long TICKER_SALT = 0x7469636BL;
+    private static final long ENTITY_SALT = 0x656E7469L;
+    private static final long LINK_SALT = 0x6C696E6BL;
+    private static final long STORY_SALT = 0x73746F72L;
+    private static final long POPULARITY_MULTIPLIER = 0x5DEECE66DL;
+    private static final int PARAGRAPH_WORDS = 80;
+
+    private final SyntheticGraphSpec spec;
+    private final int nameSyllables;
+    private final long popularityModulus;
+
+    public SyntheticGraphGenerator(SyntheticGraphSpec spec) {
+        this.spec = spec;
+        int syllables = 3;
+        while (Math.pow(SYLLABLES.length, syllables) < spec.entities()) {
+            syllables++;
+        }
+        this.nameSyllables = syllables;
+        // A prime modulus makes index -> (index * m + c) mod p a bijection; see popularEntity().
+        this.popularityModulus = BigInteger.valueOf(spec.entities()).nextProbablePrime().longValue();
+    }
+
+    public SyntheticGraphSpec spec() {
+        return spec;
+    }
+
+    public String canonicalName(int index) {
+        return capitalize(word(index)) + " " + pick(suffixes(type(index)), mix(spec.seed() ^ NAME_SALT, index));
+    }
+
+    public EntityType type(int index) {
+        double draw = unit(mix(spec.seed() ^ ENTITY_SALT, index));
+        if (draw < 0.80) {
+            return EntityType.COMPANY;
+        }
+        if (draw < 0.90) {
+            return EntityType.SECTOR;
+        }
+        if (draw < 0.95) {
+            return EntityType.COMMODITY;
+        }
+        return draw < 0.99 ? EntityType.COUNTRY : EntityType.POLICY_BODY;
+    }
+
+    // The bare name, a ticker and a short form. A collision swaps the last of these for another entity's bare name,
+    // the way "Shell" or "Apple" can mean more than one thing.
+    public List<String> aliases(int index) {
+        SplittableRandom random = new SplittableRandom(mix(spec.seed() ^ ENTITY_SALT, index) + 1);
+        List<String> aliases = new ArrayList<>(spec.aliasesPerEntity());
+        String word = capitalize(word(index));
+        aliases.add(word);
+        if (spec.aliasesPerEntity() > 1) {
+            aliases.add(ticker(index));
+        }
+        if (spec.aliasesPerEntity() > 2) {
+            aliases.add(word + " " + pick(suffixes(type(index)), random.nextLong()));
+        }
+        if (random.nextDouble() < spec.aliasCollisionRate()) {
+            int other = random.nextInt(spec.entities() - 1);
+            aliases.set(aliases.size() - 1, capitalize(word(other >= index ? other + 1 : other)));
+        }
+        return aliases;
+    }
+
+    public CausalGraph build() {
+        CausalGraph graph = new CausalGraph();
+        Entity[] entities = new Entity[spec.entities()];
+        for (int index = 0; index < entities.length; index++) {
+            String name = canonicalName(index);
+            entities[index] = new Entity(CausalGraphLoader.stableId(name), type(index), name, Set.copyOf(aliases(index)));
+            graph.addEntity(entities[index]);
+        }
+        for (int index = 0; index < entities.length; index++) {
+            for (Link link : links(index)) {
+                graph.addLink(entities[index], entities[link.target()], link.direction(), link.strength(), link.rationale());
+            }
+        }
+        return graph;
+    }
+
+    // Streams the graph in the GraphDocument schema that CausalGraphLoader reads.
+    public void write(Path file) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (JsonGenerator json = new JsonFactory().createGenerator(file.toFile(), JsonEncoding.UTF8)) {
+                // One entity or link per line keeps multi-gigabyte files greppable and diffable.
+                json.setPrettyPrinter(new MinimalPrettyPrinter() {
+                    @Override
+                    public void writeArrayValueSeparator(JsonGenerator generator) throws IOException {
+                        generator.writeRaw(generator.getOutputContext().getNestingDepth() == 2 ? ",\n" : ",");
+                    }
+                });
+                json.writeStartObject();
+                json.writeArrayFieldStart("entities");
+                for (int index = 0; index < spec.entities(); index++) {
+                    json.writeStartObject();
+                    json.writeStringField("canonicalName", canonicalName(index));
+                    json.writeStringField("type", type(index).name());
+                    json.writeArrayFieldStart("aliases");
+                    for (String alias : aliases(index)) {
+                        json.writeString(alias);
+                    }
+                    json.writeEndArray();
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+                json.writeArrayFieldStart("links");
+                for (int index = 0; index < spec.entities(); index++) {
+                    String source = canonicalName(index);
+                    for (Link link : links(index)) {
+                        json.writeStartObject();
+                        json.writeStringField("source", source);
+                        json.writeStringField("target", canonicalName(link.target()));
+                        json.writeStringField("direction", link.direction().name());
+                        json.writeNumberField("strength", link.strength());
+                        json.writeStringField("rationale", link.rationale());
+                        json.writeEndObject();
+                    }
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to write synthetic graph to " + file, exception);
+        }
+    }
+
+    // Stories are produced one at a time, in publication order, so corpora larger than memory can be written out.
+    public void forEachStory(SyntheticCorpusSpec corpus, Consumer<SyntheticStory> sink) {
+        for (int index = 0; index < corpus.stories(); index++) {
+            SplittableRandom random = new SplittableRandom(mix(corpus.seed() ^ STORY_SALT, index));
+            Set<Integer> mentioned = new LinkedHashSet<>();
+
+            List<String> headlineMentions = new ArrayList<>();
+            int headlineCount = draws(random, corpus.headlineMentions());
+            for (int i = 0; i < headlineCount; i++) {
+                int entity = popularEntity(random);
+                if (mentioned.add(entity)) {
+                    headlineMentions.add(mention(random, entity, corpus.aliasMentionRate()));
+                }
+            }
+            String title = headline(random, headlineMentions);
+
+            String body = "";
+            if (corpus.articleWords() > 0 && random.nextDouble() < corpus.articleFraction()) {
+                body = article(random, corpus, new ArrayList<>(mentioned), mentioned);
+            }
+
+            List<String> mentions = new ArrayList<>(mentioned.size());
+            for (int entity : mentioned) {
+                mentions.add(canonicalName(entity));
+            }
+            sink.accept(new SyntheticStory(
+                "synthetic-" + index,
+                title,
+                body,
+                corpus.start().plus(Duration.ofMinutes(index)),
+                List.copyOf(mentions)
+            ));
+        }
+    }
+
+    private String headline(SplittableRandom random, List<String> mentions) {
+        if (mentions.isEmpty()) {
+            return HEADLINES_0[random.nextInt(HEADLINES_0.length)];
+        }
+        String title = mentions.size() == 1
+            ? String.format(HEADLINES_1[random.nextInt(HEADLINES_1.length)], mentions.get(0))
+            : String.format(HEADLINES_2[random.nextInt(HEADLINES_2.length)], mentions.get(0), mentions.get(1));
+        if (mentions.size() > 2) {
+            title += " with " + String.join(" and ", mentions.subList(2, mentions.size())) + " in focus";
+        }
+        return title;
+    }
+
+    // Half of the body's mentions return to the headline's entities, as a real article keeps coming back to its subject.
+    private String article(SplittableRandom random, SyntheticCorpusSpec corpus, List<Integer> subjects, Set<Integer> mentioned) {
+        StringBuilder body = new StringBuilder();
+        int words = 0;
+        int paragraphWords = 0;
+        while (words < corpus.articleWords()) {
+            String sentence = PLAIN_SENTENCES[random.nextInt(PLAIN_SENTENCES.length)];
+            int sentenceWords = wordCount(sentence);
+            int mentions = draws(random, corpus.mentionsPer100Words() * sentenceWords / 100.0);
+            for (int i = 0; i < mentions; i++) {
+                int entity = !subjects.isEmpty() && random.nextBoolean()
+                    ? subjects.get(random.nextInt(subjects.size()))
+                    : popularEntity(random);
+                mentioned.add(entity);
+                String template = MENTION_SENTENCES[random.nextInt(MENTION_SENTENCES.length)];
+                String text = String.format(template, mention(random, entity, corpus.aliasMentionRate()));
+                // The mention sentence stands in for filler of about the same length, so the rate holds per word.
+                if (i == 0) {
+                    sentence = text;
+                    sentenceWords = wordCount(text);
+                } else {
+                    sentence += " " + text;
+                    sentenceWords += wordCount(text);
+                }
+            }
+            if (paragraphWords >= PARAGRAPH_WORDS) {
+                body.append("\n\n");
+                paragraphWords = 0;
+            } else if (body.length() > 0) {
+                body.append(' ');
+            }
+            body.append(sentence);
+            words += sentenceWords;
+            paragraphWords += sentenceWords;
+        }
+        return body.toString();
+    }
+
+    private String mention(SplittableRandom random, int entity, double aliasRate) {
+        if (random.nextDouble() < aliasRate) {
+            List<String> aliases = aliases(entity);
+            return aliases.get(random.nextInt(aliases.size()));
+        }
+        return canonicalName(entity);
+    }
+
+    // Zipf(1) over popularity ranks, with ranks scattered across indexes so popularity is unrelated to link order.
+    private int popularEntity(SplittableRandom random) {
+        long rank = Math.min(spec.entities() - 1, (long) Math.pow(spec.entities() + 1.0, random.nextDouble()) - 1);
+        long index = rank;
+        do {
+            index = Math.floorMod(index * POPULARITY_MULTIPLIER + spec.seed(), popularityModulus);
+        } while (index >= spec.entities());
+        return (int) index;
+    }
+
+    // Back links (to an earlier index) are the only way to close a cycle, so with cycleDensity 0 the graph is a DAG.
+    private List<Link> links(int index) {
+        SplittableRandom random = new SplittableRandom(mix(spec.seed() ^ LINK_SALT, index));
+        double exponent = spec.degreeExponent();
+        double minimum = spec.meanOutDegree() * (exponent - 2.0) / (exponent - 1.0);
+        double degree = minimum * Math.pow(1.0 - random.nextDouble(), -1.0 / (exponent - 1.0));
+        int forward = spec.entities() - 1 - index;
+        int backward = spec.cycleDensity() > 0.0 ? index : 0;
+        int count = Math.min(forward + backward, draws(random, degree));
+
+        Set<Integer> targets = new LinkedHashSet<>();
+        for (int attempt = 0; targets.size() < count && attempt < count * 4; attempt++) {
+            boolean back = forward == 0 || (backward > 0 && random.nextDouble() < spec.cycleDensity());
+            targets.add(back ? random.nextInt(backward) : index + 1 + random.nextInt(forward));
+        }
+        List<Link> links = new ArrayList<>(targets.size());
+        for (int target : targets) {
+            double direction = random.nextDouble();
+            links.add(new Link(
+                target,
+                direction < 0.45 ? ImpactDirection.POSITIVE : direction < 0.9 ? ImpactDirection.NEGATIVE : ImpactDirection.MIXED,
+                Math.round((0.1 + 0.85 * random.nextDouble()) * 100.0) / 100.0,
+                RATIONALES[random.nextInt(RATIONALES.length)]
+            ));
+        }
+        return links;
+    }
+
+    // Each syllable is offset by a hash of the syllables below it. That keeps the mapping invertible, so names stay
+    // unique, while neighbouring indexes still get unrelated-looking names.
+    private String word(int index) {
+        StringBuilder word = new StringBuilder(nameSyllables * 2);
+        long remaining = index;
+        long prefix = 0;
+        for (int position = 0; position < nameSyllables; position++) {
+            int digit = (int) (remaining % SYLLABLES.length);
+            remaining /= SYLLABLES.length;
+            int offset = (int) Math.floorMod(mix(spec.seed() ^ NAME_SALT, prefix * 31 + position), (long) SYLLABLES.length);
+            word.append(SYLLABLES[(digit + offset) % SYLLABLES.length]);
+            prefix = prefix * SYLLABLES.length + digit;
+        }
+        return word.toString();
+    }
+
+    // Five letters in base 26, scrambled the same way as names, so every entity gets a distinct ticker.
+    private String ticker(int index) {
+        StringBuilder ticker = new StringBuilder(7);
+        long remaining = index;
+        long prefix = 0;
+        for (int position = 0; position < 5; position++) {
+            int digit = (int) (remaining % 26);
+            remaining /= 26;
+            int offset = (int) Math.floorMod(mix(spec.seed() ^ TICKER_SALT, prefix * 31 + position), 26L);
+            ticker.append((char) ('A' + (digit + offset) % 26));
+            prefix = prefix * 26 + digit;
+        }
+        return ticker.append(".L").toString();
+    }
+
+    private static String[] suffixes(EntityType type) {
+        return switch (type) {
+            case COMPANY -> COMPANY_SUFFIXES;
+            case SECTOR -> SECTOR_SUFFIXES;
+            case COMMODITY -> COMMODITY_SUFFIXES;
+            case COUNTRY -> COUNTRY_SUFFIXES;
+            case POLICY_BODY -> POLICY_SUFFIXES;
+        };
+    }
+
+    // Rounds a fractional expectation up or down at random, so the long-run average matches it exactly.
+    private static int draws(SplittableRandom random, double expected) {
+        int whole = (int) Math.min(Integer.MAX_VALUE, expected);
+        return random.nextDouble() < expected - whole ? whole + 1 : whole;
+    }
+
+    private static int wordCount(String text) {
+        int words = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == ' ') {
+                words++;
+            }
+        }
+        return words;
+    }
+
+    private static String pick(String[] values, long hash) {
+        return values[(int) Math.floorMod(hash, (long) values.length)];
+    }
+
+    private static String capitalize(String word) {
+        return word.substring(0, 1).toUpperCase(Locale.ROOT) + word.substring(1);
+    }
+
+    private static double unit(long hash) {
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+
+    private static long mix(long seed, long value) {
+        long z = seed + value * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static String[] syllables(String consonants, String vowels) {
+        String[] syllables = new String[consonants.length() * vowels.length()];
+        int next = 0;
+        for (char consonant : consonants.toCharArray()) {
+            for (char vowel : vowels.toCharArray()) {
+                syllables[next++] = "" + consonant + vowel;
+            }
+        }
+        return syllables;
+    }
+
+    private record Link(int target, ImpactDirection direction, double strength, String rationale) {
+    }
+}
@@ -0,0 +1,36 @@
+package knowledge;
+
+// Out-degrees follow a power law with the given exponent, scaled to meanOutDegree; the exponent must exceed 2 for
+// that mean to exist. cycleDensity is the share of links that point back to an earlier entity, which is what creates
+// cycles, so 0 yields a DAG. aliasCollisionRate is the share of entities that borrow another entity's alias.
+public record SyntheticGraphSpec(
+    int entities,
+    double meanOutDegree,
+    double degreeExponent,
+    double cycleDensity,
+    int aliasesPerEntity,
+    double aliasCollisionRate,
+    long seed
+) {
+    public SyntheticGraphSpec {
+        if (entities < 2) {
+            throw new IllegalArgumentException("entities must be at least 2");
+        }
+        if (!(meanOutDegree > 0.0)) {
+            throw new IllegalArgumentException("meanOutDegree must be positive");
+        }
+        if (!(degreeExponent > 2.0)) {
+            throw new IllegalArgumentException("degreeExponent must be greater than 2");
+        }
+        if (!(cycleDensity >= 0.0 && cycleDensity <= 1.0) || !(aliasCollisionRate >= 0.0 && aliasCollisionRate <= 1.0)) {
+            throw new IllegalArgumentException("cycleDensity and aliasCollisionRate must be between 0 and 1");
+        }
+        if (aliasesPerEntity < 1 || aliasesPerEntity > 3) {
+            throw new IllegalArgumentException("aliasesPerEntity must be between 1 and 3");
+        }
+    }
+
+    public static SyntheticGraphSpec of(int entities, long seed) {
+        return new SyntheticGraphSpec(entities, 4.0, 2.5, 0.05, 2, 0.02, seed);
+    }
+}
@@ -0,0 +1,8 @@
+package knowledge;
+
+import java.time.Instant;
+import java.util.List;
+
+// mentions lists the canonical names of the entities the text was written about, as ground truth for extraction.
+public record SyntheticStory(String id, String title, String body, Instant publishedAt, List<String> mentions) {
+}
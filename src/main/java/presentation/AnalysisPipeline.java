@@ -0,0 +1,422 @@
+package presentation;
+
+import analysis.AnalysisExecutor;
+import analysis.AnalysisPriority;
+import analysis.AnalyzedEvent;
+import analysis.CausalPropagationEngine;
+import analysis.EntityHeatAggregator;
+import analysis.EventClassifier;
+import analysis.ImpactArchive;
+import analysis.ImpactResult;
+import analysis.RecommendationEngine;
+import ingestion.DuplicateCheck;
+import ingestion.NearDuplicateDetector;
+import ingestion.RawEventRecord;
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import knowledge.Entity;
+import knowledge.Event;
+import util.JsonlStore;
+import util.StageMetrics;
+import util.StagedPipeline;
+
+// Wires ingestion to analysis and storage: ingest -> dedupe -> classify -> propagate -> recommend -> persist.
+// Dedupe and persist are single-threaded on purpose: the first owns an unsynchronised window, the second keeps the
+// output file in arrival order for its stage. With a NearDuplicateDetector, re-worded copies of a story skip the
+// analysis stages and persist reuses the analysis of the first copy once it arrives. With an AnalysisExecutor the
+// stage threads only hand the analysis over and wait for it, so feed traffic is scheduled as LIVE_FEED against story
+// clicks and backfill rather than competing with them on threads of its own.
+public final class AnalysisPipeline implements Closeable {
+    private static final int DEDUPE_WINDOW = 65_536;
+
+    private final StagedPipeline<RawEventRecord> pipeline;
+    private final List<Consumer<AnalyzedEvent>> subscribers = new CopyOnWriteArrayList<>();
+    private final Map<String, Boolean> recentKeys = new LinkedHashMap<>(1024, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > DEDUPE_WINDOW;
+        }
+    };
+    private final Map<String, AnalyzedEvent> leaderResults = new LinkedHashMap<>(1024, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AnalyzedEvent> eldest) {
+            return size() > DEDUPE_WINDOW;
+        }
+    };
+    private final Map<String, Boolean> failedLeaders = new LinkedHashMap<>(64, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > DEDUPE_WINDOW;
+        }
+    };
+    // Copies that overtook their leader in the parallel stages wait here until the leader is persisted. A list is
+    // never dropped unpublished: eviction analyses its copies instead of reusing a leader that may never come.
+    private final Map<String, List<Received>> waitingCopies = new LinkedHashMap<>(64, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<Received>> eldest) {
+            if (size() <= DEDUPE_WINDOW) {
+                return false;
+            }
+            analyseWaiting(eldest.getKey(), eldest.getValue());
+            return true;
+        }
+    };
+    private final EventClassifier classifier;
+    private final CausalPropagationEngine propagationEngine;
+    private final RecommendationEngine recommendationEngine;
+    private final EntityHeatAggregator heat;
+    private final ImpactArchive archive;
+    private final NearDuplicateDetector duplicates;
+    private final AnalysisExecutor executor;
+    private final JsonlStore jsonlStore;
+    private final Path outputPath;
+
+    public AnalysisPipeline(
+        EventClassifier classifier,
+        CausalPropagationEngine propagationEngine,
+        RecommendationEngine recommendationEngine,
+        JsonlStore jsonlStore,
+        Path outputPath,
+        int parallelism,
+        int queueCapacity
+    ) {
+        this(classifier, propagationEngine, recommendationEngine, null, jsonlStore, outputPath, parallelism, queueCapacity);
+    }
+
+    public AnalysisPipeline(
+        EventClassifier classifier,
+        CausalPropagationEngine propagationEngine,
+        RecommendationEngine recommendationEngine,
+        EntityHeatAggregator heat,
+        JsonlStore jsonlStore,
+        Path outputPath,
+        int parallelism,
+        int queueCapacity
+    ) {
+        this(classifier, propagationEngine, recommendationEngine, heat, null, jsonlStore, outputPath, parallelism, queueCapacity);
+    }
+
+    public AnalysisPipeline(
+        EventClassifier classifier,
+        CausalPropagationEngine propagationEngine,
+        RecommendationEngine recommendationEngine,
+        EntityHeatAggregator heat,
+        ImpactArchive archive,
+        JsonlStore jsonlStore,
+        Path outputPath,
+        int parallelism,
+        int queueCapacity
+    ) {
+        this(
+            classifier,
+            propagationEngine,
+            recommendationEngine,
+            heat,
+            archive,
+            null,
+            jsonlStore,
+            outputPath,
+            parallelism,
+            queueCapacity
+        );
+    }
+
+    public AnalysisPipeline(
+        EventClassifier classifier,
+        CausalPropagationEngine propagationEngine,
+        RecommendationEngine recommendationEngine,
+        EntityHeatAggregator heat,
+        ImpactArchive archive,
+        NearDuplicateDetector duplicates,
+        JsonlStore jsonlStore,
+        Path outputPath,
+        int parallelism,
+        int queueCapacity
+    ) {
+        this(
+            classifier,
+            propagationEngine,
+            recommendationEngine,
+            heat,
+            archive,
+            duplicates,
+            null,
+            jsonlStore,
+            outputPath,
+            parallelism,
+            queueCapacity
+        );
+    }
+
+    public AnalysisPipeline(
+        EventClassifier classifier,
+        CausalPropagationEngine propagationEngine,
+        RecommendationEngine recommendationEngine,
+        EntityHeatAggregator heat,
+        ImpactArchive archive,
+        NearDuplicateDetector duplicates,
+        AnalysisExecutor executor,
+        JsonlStore jsonlStore,
+        Path outputPath,
+        int parallelism,
+        int queueCapacity
+    ) {
+        this.classifier = classifier;
+        this.propagationEngine = propagationEngine;
+        this.recommendationEngine = recommendationEngine;
+        this.heat = heat;
+        this.archive = archive;
+        this.duplicates = duplicates;
+        this.executor = executor;
+        this.jsonlStore = jsonlStore;
+        this.outputPath = outputPath;
+        this.pipeline = StagedPipeline.<RawEventRecord>builder()
+            .stage("dedupe", 1, queueCapacity, this::dedupe)
+            .stage("classify", parallelism, queueCapacity, (Received record) -> {
+                if (record.leaderKey() != null) {
+                    return new Classified(record, null, Set.of());
+                }
+                try {
+                    return analyse(() -> classify(record));
+                } catch (RuntimeException exception) {
+                    return new Classified(leaderFailed(record, "classify", exception), null, Set.of());
+                }
+            })
+            .stage("propagate", parallelism, queueCapacity, (Classified classified) -> {
+                if (classified.event() == null) {
+                    return new Propagated(classified, List.of());
+                }
+                try {
+                    return analyse(() -> propagate(classified));
+                } catch (RuntimeException exception) {
+                    Received received = leaderFailed(classified.received(), "propagate", exception);
+                    return new Propagated(new Classified(received, null, Set.of()), List.of());
+                }
+            })
+            .stage("recommend", parallelism, queueCapacity, (Propagated propagated) -> {
+                if (propagated.classified().event() == null) {
+                    return new Analyzed(propagated.classified().received(), null);
+                }
+                try {
+                    return new Analyzed(propagated.classified().received(), analyse(() -> recommend(propagated)));
+                } catch (RuntimeException exception) {
+                    return new Analyzed(leaderFailed(propagated.classified().received(), "recommend", exception), null);
+                }
+            })
+            .sink("persist", 1, queueCapacity, this::persist);
+    }
+
+    public void subscribe(Consumer<AnalyzedEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    // Blocks while the first stage is full; that is the backpressure reaching the ingestion side.
+    public void submit(RawEventRecord record) {
+        pipeline.submit(record);
+    }
+
+    public void submitAll(List<RawEventRecord> records) {
+        for (RawEventRecord record : records) {
+            pipeline.submit(record);
+        }
+    }
+
+    public List<StageMetrics> metrics() {
+        return pipeline.metrics();
+    }
+
+    // Copies still waiting once the sink has drained belong to leaders that will never arrive, so they are analysed
+    // themselves rather than lost.
+    @Override
+    public void close() {
+        pipeline.close();
+        List<Map.Entry<String, List<Received>>> remaining = new ArrayList<>(waitingCopies.entrySet());
+        waitingCopies.clear();
+        for (Map.Entry<String, List<Received>> entry : remaining) {
+            analyseWaiting(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void persist(Analyzed analyzed) {
+        Received received = analyzed.received();
+        if (received.leaderKey() == null) {
+            if (analyzed.event() == null) {
+                // The leader failed in an earlier stage; its copies fall back to their own analysis.
+                failedLeaders.put(received.key(), Boolean.TRUE);
+                List<Received> copies = waitingCopies.remove(received.key());
+                if (copies != null) {
+                    analyseWaiting(received.key(), copies);
+                }
+                return;
+            }
+            publish(analyzed.event());
+            if (duplicates != null) {
+                leaderResults.put(received.key(), analyzed.event());
+                List<Received> copies = waitingCopies.remove(received.key());
+                if (copies != null) {
+                    for (Received copy : copies) {
+                        publish(reuse(copy, analyzed.event()));
+                    }
+                }
+            }
+            return;
+        }
+        AnalyzedEvent leader = leaderResults.get(received.leaderKey());
+        if (leader != null) {
+            publish(reuse(received, leader));
+        } else if (failedLeaders.containsKey(received.leaderKey())) {
+            analyseWaiting(received.leaderKey(), List.of(received));
+        } else {
+            waitingCopies.computeIfAbsent(received.leaderKey(), ignored -> new ArrayList<>()).add(received);
+        }
+    }
+
+    // The first copy that analyses cleanly stands in for the missing leader, and the rest of the cluster reuses it.
+    private void analyseWaiting(String leaderKey, List<Received> copies) {
+        AnalyzedEvent standIn = null;
+        for (Received copy : copies) {
+            if (standIn != null) {
+                publish(reuse(copy, standIn));
+                continue;
+            }
+            try {
+                Received alone = new Received(copy.record(), copy.key(), null, copy.receivedNanos());
+                standIn = analyse(() -> recommend(propagate(classify(alone))));
+            } catch (RuntimeException exception) {
+                System.err.println("Analysis of near-duplicate " + copy.record().title() + " failed: " + exception.getMessage());
+                continue;
+            }
+            leaderResults.put(leaderKey, standIn);
+            publish(standIn);
+        }
+    }
+
+    private <T> T analyse(Supplier<T> work) {
+        if (executor == null) {
+            return work.get();
+        }
+        try {
+            return executor.submit(AnalysisPriority.LIVE_FEED, work).join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (exception.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+    }
+
+    private Classified classify(Received record) {
+        String text = record.record().rawText();
+        Event event = new Event(
+            UUID.randomUUID(),
+            classifier.classify(text),
+            record.record().timestamp() == null ? Instant.now() : record.record().timestamp(),
+            text
+        );
+        return new Classified(record, event, classifier.extractEntities(text));
+    }
+
+    private Propagated propagate(Classified classified) {
+        List<ImpactResult> impacts = propagationEngine.propagate(classified.event(), classified.entities());
+        if (heat != null) {
+            heat.record(classified.event().getTimestamp(), impacts);
+        }
+        if (archive != null) {
+            archive.append(classified.event().getTimestamp(), classified.event().getType(), impacts);
+        }
+        return new Propagated(classified, impacts);
+    }
+
+    private AnalyzedEvent recommend(Propagated propagated) {
+        Classified classified = propagated.classified();
+        List<String> entities = new ArrayList<>();
+        for (Entity entity : classified.entities()) {
+            entities.add(entity.getCanonicalName());
+        }
+        entities.sort(null);
+        return new AnalyzedEvent(
+            classified.received().record().source(),
+            classified.received().record().title(),
+            classified.event().getTimestamp(),
+            classified.event().getType().name(),
+            List.copyOf(entities),
+            List.copyOf(recommendationEngine.recommend(propagated.impacts())),
+            (System.nanoTime() - classified.received().receivedNanos()) / 1_000
+        );
+    }
+
+    // Without a detector nothing can be waiting on a leader, so failures stay with the stage that raised them.
+    private Received leaderFailed(Received received, String stage, RuntimeException exception) {
+        if (duplicates == null) {
+            throw exception;
+        }
+        System.err.println("Pipeline stage " + stage + " failed: " + exception.getMessage());
+        return received;
+    }
+
+    private void publish(AnalyzedEvent analyzed) {
+        jsonlStore.append(outputPath, analyzed);
+        for (Consumer<AnalyzedEvent> subscriber : subscribers) {
+            subscriber.accept(analyzed);
+        }
+    }
+
+    private static AnalyzedEvent reuse(Received copy, AnalyzedEvent leader) {
+        RawEventRecord record = copy.record();
+        return new AnalyzedEvent(
+            record.source(),
+            record.title(),
+            record.timestamp() == null ? Instant.now() : record.timestamp(),
+            leader.eventType(),
+            leader.entities(),
+            leader.recommendations(),
+            (System.nanoTime() - copy.receivedNanos()) / 1_000,
+            leader.source() + ": " + leader.title()
+        );
+    }
+
+    private Received dedupe(RawEventRecord record) {
+        if (record.rawText() == null || record.rawText().isBlank()) {
+            return null;
+        }
+        String key = record.guid() != null && !record.guid().isBlank()
+            ? record.source() + '\n' + record.guid()
+            : record.source() + '\n' + record.title() + '\n' + record.rawText();
+        if (recentKeys.put(key, Boolean.TRUE) != null) {
+            return null;
+        }
+        String leaderKey = null;
+        if (duplicates != null) {
+            DuplicateCheck check = duplicates.check(key, record.rawText());
+            leaderKey = check.duplicate() ? check.leaderKey() : null;
+        }
+        return new Received(record, key, leaderKey, System.nanoTime());
+    }
+
+    // leaderKey is set for near-duplicates, which carry no analysis of their own through the middle stages.
+    private record Received(RawEventRecord record, String key, String leaderKey, long receivedNanos) {
+    }
+
+    private record Classified(Received received, Event event, Set<Entity> entities) {
+    }
+
+    private record Propagated(Classified classified, List<ImpactResult> impacts) {
+    }
+
+    private record Analyzed(Received received, AnalyzedEvent event) {
+    }
+}
@@ -1,15 +1,51 @@
 package presentation;
 
+import analysis.AnalysisReplay;
 import analysis.AnalysisReport;
+import analysis.BacktestConfig;
+import analysis.BacktestEvent;
+import analysis.BacktestResult;
+import analysis.Backtester;
 import analysis.CausalPropagationEngine;
 import analysis.ExplanationSynthesizer;
 import analysis.HeliosAnalyzer;
+import analysis.ImpactArchive;
+import analysis.ImpactBreakdown;
+import analysis.ImpactDimension;
+import analysis.ImpactGroup;
+import analysis.ImpactQuery;
+import analysis.RecommendationEngine;
+import analysis.ReplaySummary;
 import analysis.RuleBasedEventClassifier;
+import analysis.ThresholdStrategy;
+import ingestion.NearDuplicateDetector;
+import ingestion.PriceSource;
+import ingestion.RawEventRecord;
+import ingestion.ReplayPriceSource;
+import ingestion.SearchHit;
+import ingestion.SearchIndex;
+import ingestion.SearchResults;
+import ingestion.SimulatedPriceSource;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 import knowledge.CausalGraph;
 import knowledge.CausalGraphLoader;
+import knowledge.EventType;
+import knowledge.ImpactDirection;
+import knowledge.PriceTick;
+import knowledge.SyntheticCorpusSpec;
+import knowledge.SyntheticGraphGenerator;
+import knowledge.SyntheticGraphSpec;
+import util.JsonlStore;
+import util.MappedJsonlReader;
+import util.StageMetrics;
 
 public final class HeliosCli {
     private static final int DEFAULT_PORT = 8080;
+    private static final double SIMULATED_VOLATILITY = 0.0005;
 
     private HeliosCli() {
     }
@@ -24,6 +60,13 @@ public final class HeliosCli {
         switch (command) {
             case "explain" -> runExplain(args);
             case "serve" -> runServer(args);
+            case "replay" -> runReplay(args);
+            case "pipeline" -> runPipeline(args);
+            case "backtest" -> runBacktest(args);
+            case "impacts" -> runImpacts(args);
+            case "index" -> runIndex(args);
+            case "search" -> runSearch(args);
+            case "generate" -> runGenerate(args);
             default -> printUsage();
         }
     }
@@ -48,21 +91,445 @@ public final class HeliosCli {
         System.out.print(report.formattedExplanation());
     }
 
+    private static void runReplay(String[] args) {
+        if (args.length < 2) {
+            printUsage();
+            return;
+        }
+        boolean ordered = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String graphPath = null;
+        for (int i = 2; i < args.length; i++) {
+            if ("--ordered".equals(args[i])) {
+                ordered = true;
+            } else if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if ("--graph".equals(args[i]) && i + 1 < args.length) {
+                graphPath = args[++i];
+            }
+        }
+
+        CausalGraph causalGraph = loadGraph(graphPath);
+        RuleBasedEventClassifier classifier = RuleBasedEventClassifier.fromResources(causalGraph, "/entity_aliases.json");
+        HeliosAnalyzer analyzer = new HeliosAnalyzer(classifier, new CausalPropagationEngine(causalGraph), new ExplanationSynthesizer());
+        AnalysisReplay replay = new AnalysisReplay(analyzer, threads);
+
+        LongAdder impacts = new LongAdder();
+        try (MappedJsonlReader<RawEventRecord> reader = MappedJsonlReader.open(java.nio.file.Path.of(args[1]), RawEventRecord.class)) {
+            ReplaySummary summary = replay.replay(
+                reader,
+                RawEventRecord::rawText,
+                ordered,
+                (record, report) -> impacts.add(report.rankedImpacts().size())
+            );
+            System.out.printf(
+                "Replayed %d events in %d ms (%.0f events/s, %d impacts)%n",
+                summary.records(),
+                summary.elapsedMillis(),
+                summary.recordsPerSecond(),
+                impacts.sum()
+            );
+        }
+    }
+
+    private static void runPipeline(String[] args) {
+        if (args.length < 3) {
+            printUsage();
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        int capacity = 1_024;
+        java.nio.file.Path archivePath = null;
+        double similarity = 0.7;
+        String graphPath = null;
+        for (int i = 3; i < args.length; i++) {
+            if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if ("--queue".equals(args[i]) && i + 1 < args.length) {
+                capacity = Integer.parseInt(args[++i]);
+            } else if ("--archive".equals(args[i]) && i + 1 < args.length) {
+                archivePath = java.nio.file.Path.of(args[++i]);
+            } else if ("--similarity".equals(args[i]) && i + 1 < args.length) {
+                similarity = Double.parseDouble(args[++i]);
+            } else if ("--graph".equals(args[i]) && i + 1 < args.length) {
+                graphPath = args[++i];
+            }
+        }
+
+        CausalGraph causalGraph = loadGraph(graphPath);
+        RuleBasedEventClassifier classifier = RuleBasedEventClassifier.fromResources(causalGraph, "/entity_aliases.json");
+        CausalPropagationEngine propagationEngine = new CausalPropagationEngine(causalGraph);
+        HeliosAnalyzer analyzer = new HeliosAnalyzer(classifier, propagationEngine, new ExplanationSynthesizer());
+
+        long started = System.nanoTime();
+        LongAdder reused = new LongAdder();
+        List<StageMetrics> metrics;
+        try (
+            JsonlStore store = new JsonlStore();
+            MappedJsonlReader<RawEventRecord> reader = MappedJsonlReader.open(java.nio.file.Path.of(args[1]), RawEventRecord.class);
+            ImpactArchive archive = archivePath == null ? null : ImpactArchive.open(archivePath)
+        ) {
+            AnalysisPipeline pipeline = new AnalysisPipeline(
+                classifier,
+                propagationEngine,
+                new RecommendationEngine(analyzer),
+                null,
+                archive,
+                new NearDuplicateDetector(similarity, 65_536),
+                store,
+                java.nio.file.Path.of(args[2]),
+                threads,
+                capacity
+            );
+            pipeline.subscribe(analyzed -> {
+                if (analyzed.duplicateOf() != null) {
+                    reused.increment();
+                }
+            });
+            reader.forEach(pipeline::submit);
+            pipeline.close();
+            metrics = pipeline.metrics();
+        }
+        System.out.printf(
+            "Pipeline finished in %d ms (%d near-duplicates reused an earlier analysis)%n",
+            (System.nanoTime() - started) / 1_000_000,
+            reused.sum()
+        );
+        for (StageMetrics stage : metrics) {
+            System.out.printf(
+                "  %-10s x%-2d processed %8d  dropped %6d  failed %4d  %10.0f/s%n",
+                stage.stage(),
+                stage.parallelism(),
+                stage.processed(),
+                stage.dropped(),
+                stage.failed(),
+                stage.averagePerSecond()
+            );
+        }
+    }
+
+    private static void runBacktest(String[] args) {
+        if (args.length < 3) {
+            printUsage();
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        double startingCash = 100_000.0;
+        double[] confidences = {0.5};
+        double[] notionals = {10_000.0};
+        for (int i = 3; i < args.length; i++) {
+            if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if ("--cash".equals(args[i]) && i + 1 < args.length) {
+                startingCash = Double.parseDouble(args[++i]);
+            } else if ("--confidence".equals(args[i]) && i + 1 < args.length) {
+                confidences = parseGrid(args[++i]);
+            } else if ("--notional".equals(args[i]) && i + 1 < args.length) {
+                notionals = parseGrid(args[++i]);
+            }
+        }
+
+        List<BacktestEvent> events = new ArrayList<>();
+        try (MappedJsonlReader<RawEventRecord> reader = MappedJsonlReader.open(java.nio.file.Path.of(args[1]), RawEventRecord.class)) {
+            reader.forEach(record -> {
+                if (record.timestamp() != null && record.rawText() != null) {
+                    events.add(new BacktestEvent(record.timestamp().toEpochMilli(), record.title(), record.rawText()));
+                }
+            });
+        }
+        List<PriceTick> prices = new ArrayList<>();
+        try (ReplayPriceSource source = new ReplayPriceSource(java.nio.file.Path.of(args[2]))) {
+            while (!source.isExhausted()) {
+                prices.addAll(source.poll(4_096));
+            }
+        }
+
+        CausalGraph causalGraph = CausalGraphLoader.loadFromResource("/causal_graph.json");
+        RuleBasedEventClassifier classifier = RuleBasedEventClassifier.fromResources(causalGraph, "/entity_aliases.json");
+        HeliosAnalyzer analyzer = new HeliosAnalyzer(classifier, new CausalPropagationEngine(causalGraph), new ExplanationSynthesizer());
+        RecommendationEngine recommender = new RecommendationEngine(analyzer);
+        List<BacktestConfig> configs = new ArrayList<>();
+        for (double confidence : confidences) {
+            for (double notional : notionals) {
+                configs.add(new BacktestConfig(
+                    String.format(java.util.Locale.ROOT, "conf=%.2f notional=%.0f", confidence, notional),
+                    recommender,
+                    new ThresholdStrategy(confidence, notional),
+                    startingCash
+                ));
+            }
+        }
+
+        long started = System.nanoTime();
+        Backtester backtester = new Backtester(events, prices);
+        List<BacktestResult> results = new ArrayList<>(backtester.sweep(configs, threads));
+        results.sort(Comparator.comparingDouble(BacktestResult::pnl).reversed());
+        System.out.printf(
+            "Backtested %d configurations over %d events and %d price ticks in %d ms%n",
+            configs.size(),
+            events.size(),
+            prices.size(),
+            (System.nanoTime() - started) / 1_000_000
+        );
+        for (BacktestResult result : results) {
+            System.out.printf(
+                "  %-28s pnl %12.2f (%7.2f%%)  trades %5d  rejected %4d  hit %5.2f  max dd %10.2f (%6.2f%%)%n",
+                result.name(),
+                result.pnl(),
+                result.returnPct(),
+                result.trades(),
+                result.rejectedTrades(),
+                result.hitRate(),
+                result.maxDrawdown(),
+                result.maxDrawdownPct()
+            );
+        }
+    }
+
+    private static void runImpacts(String[] args) {
+        if (args.length < 2) {
+            printUsage();
+            return;
+        }
+        ImpactDimension groupBy = ImpactDimension.ENTITY;
+        Instant from = null;
+        Instant to = null;
+        EventType eventType = null;
+        String entity = null;
+        ImpactDirection direction = null;
+        String rationale = null;
+        int limit = 20;
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--group-by" -> groupBy = ImpactDimension.fromLabel(value);
+                case "--from" -> from = Instant.parse(value);
+                case "--to" -> to = Instant.parse(value);
+                case "--type" -> eventType = EventType.valueOf(value.toUpperCase(java.util.Locale.ROOT));
+                case "--entity" -> entity = value;
+                case "--direction" -> direction = ImpactDirection.valueOf(value.toUpperCase(java.util.Locale.ROOT));
+                case "--rationale" -> rationale = value;
+                case "--limit" -> limit = Integer.parseInt(value);
+                default -> {
+                    printUsage();
+                    return;
+                }
+            }
+        }
+        ImpactQuery query = new ImpactQuery(groupBy, from, to, eventType, entity, direction, rationale);
+
+        ImpactBreakdown breakdown;
+        try (ImpactArchive archive = ImpactArchive.open(java.nio.file.Path.of(args[1]))) {
+            breakdown = archive.query(query);
+        }
+        System.out.printf(
+            "%d matching impacts by %s (%d rows scanned, %d blocks skipped, %.1f ms)%n",
+            breakdown.matchedImpacts(),
+            breakdown.groupBy(),
+            breakdown.scannedRows(),
+            breakdown.skippedBlocks(),
+            breakdown.elapsedMicros() / 1_000.0
+        );
+        for (ImpactGroup group : breakdown.groups().subList(0, Math.min(limit, breakdown.groups().size()))) {
+            System.out.printf("  %10d  avg %.3f  %s%n", group.impacts(), group.averageScore(), group.key());
+        }
+    }
+
+    private static void runIndex(String[] args) {
+        if (args.length < 3) {
+            printUsage();
+            return;
+        }
+        long started = System.nanoTime();
+        LongAdder added = new LongAdder();
+        int documents;
+        try (
+            MappedJsonlReader<RawEventRecord> reader = MappedJsonlReader.open(java.nio.file.Path.of(args[1]), RawEventRecord.class);
+            SearchIndex index = SearchIndex.open(java.nio.file.Path.of(args[2]))
+        ) {
+            reader.forEach(record -> {
+                if (index.add(record)) {
+                    added.increment();
+                }
+            });
+            index.checkpoint();
+            documents = index.size();
+        }
+        System.out.printf(
+            "Indexed %d new or changed documents in %d ms (%d searchable)%n",
+            added.sum(),
+            (System.nanoTime() - started) / 1_000_000,
+            documents
+        );
+    }
+
+    private static void runSearch(String[] args) {
+        if (args.length < 3) {
+            printUsage();
+            return;
+        }
+        int limit = 10;
+        boolean newestFirst = false;
+        for (int i = 3; i < args.length; i++) {
+            if ("--recent".equals(args[i])) {
+                newestFirst = true;
+            } else if ("--limit".equals(args[i]) && i + 1 < args.length) {
+                limit = Integer.parseInt(args[++i]);
+            }
+        }
+
+        SearchResults results;
+        try (SearchIndex index = SearchIndex.open(java.nio.file.Path.of(args[1]))) {
+            results = index.search(args[2], limit, newestFirst);
+        }
+        System.out.printf("%d matches (%.2f ms)%n", results.totalMatches(), results.elapsedMicros() / 1_000.0);
+        for (SearchHit hit : results.hits()) {
+            System.out.printf("  %7.3f  %s  %s%n", hit.score(), hit.publishedAt(), hit.title());
+            System.out.println("           " + hit.snippet());
+        }
+    }
+
+    // Writes <dir>/causal_graph.json in the bundled graph's schema and <dir>/events.jsonl of stories mentioning it.
+    private static void runGenerate(String[] args) {
+        if (args.length < 2) {
+            printUsage();
+            return;
+        }
+        SyntheticGraphSpec graphDefaults = SyntheticGraphSpec.of(10_000, 42L);
+        SyntheticCorpusSpec corpusDefaults = SyntheticCorpusSpec.of(10_000, 42L);
+        int entities = graphDefaults.entities();
+        double degree = graphDefaults.meanOutDegree();
+        double exponent = graphDefaults.degreeExponent();
+        double cycles = graphDefaults.cycleDensity();
+        double collisions = graphDefaults.aliasCollisionRate();
+        int stories = corpusDefaults.stories();
+        double articles = corpusDefaults.articleFraction();
+        double mentions = corpusDefaults.mentionsPer100Words();
+        long seed = graphDefaults.seed();
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--entities" -> entities = Integer.parseInt(value);
+                case "--degree" -> degree = Double.parseDouble(value);
+                case "--exponent" -> exponent = Double.parseDouble(value);
+                case "--cycles" -> cycles = Double.parseDouble(value);
+                case "--collisions" -> collisions = Double.parseDouble(value);
+                case "--stories" -> stories = Integer.parseInt(value);
+                case "--articles" -> articles = Double.parseDouble(value);
+                case "--mentions" -> mentions = Double.parseDouble(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                default -> {
+                    printUsage();
+                    return;
+                }
+            }
+        }
+        SyntheticGraphSpec graph = new SyntheticGraphSpec(
+            entities,
+            degree,
+            exponent,
+            cycles,
+            graphDefaults.aliasesPerEntity(),
+            collisions,
+            seed
+        );
+        SyntheticCorpusSpec corpus = new SyntheticCorpusSpec(
+            stories,
+            articles,
+            corpusDefaults.articleWords(),
+            corpusDefaults.headlineMentions(),
+            mentions,
+            corpusDefaults.aliasMentionRate(),
+            corpusDefaults.start(),
+            seed
+        );
+
+        java.nio.file.Path directory = java.nio.file.Path.of(args[1]);
+        java.nio.file.Path eventsPath = directory.resolve("events.jsonl");
+        SyntheticGraphGenerator generator = new SyntheticGraphGenerator(graph);
+        long started = System.nanoTime();
+        generator.write(directory.resolve("causal_graph.json"));
+        long graphMillis = (System.nanoTime() - started) / 1_000_000;
+        try {
+            java.nio.file.Files.deleteIfExists(eventsPath);
+        } catch (java.io.IOException exception) {
+            throw new IllegalStateException("Unable to replace " + eventsPath, exception);
+        }
+        try (JsonlStore store = new JsonlStore()) {
+            generator.forEachStory(corpus, story -> store.append(eventsPath, new RawEventRecord(
+                "synthetic",
+                story.title(),
+                story.body().isEmpty() ? story.title() : story.title() + "\n" + story.body(),
+                story.publishedAt(),
+                story.id(),
+                null
+            )));
+        }
+        System.out.printf(
+            "Wrote %d entities in %d ms and %d stories in %d ms to %s%n",
+            graph.entities(),
+            graphMillis,
+            corpus.stories(),
+            (System.nanoTime() - started) / 1_000_000 - graphMillis,
+            directory
+        );
+    }
+
+    private static CausalGraph loadGraph(String path) {
+        return path == null
+            ? CausalGraphLoader.loadFromResource("/causal_graph.json")
+            : CausalGraphLoader.load(java.nio.file.Path.of(path));
+    }
+
+    private static double[] parseGrid(String value) {
+        return java.util.Arrays.stream(value.split(",")).map(String::trim).mapToDouble(Double::parseDouble).toArray();
+    }
+
     private static void runServer(String[] args) {
         int port = DEFAULT_PORT;
-        if (args.length >= 2) {
+        PriceSource priceSource = null;
+        for (int i = 1; i < args.length; i++) {
+            if ("--prices".equals(args[i]) && i + 1 < args.length) {
+                priceSource = priceSource(args[++i]);
+                continue;
+            }
             try {
-                port = Integer.parseInt(args[1]);
+                port = Integer.parseInt(args[i]);
             } catch (NumberFormatException ignored) {
-                System.err.println("Invalid port: " + args[1] + ". Falling back to " + DEFAULT_PORT + ".");
+                System.err.println("Invalid port: " + args[i] + ". Falling back to " + DEFAULT_PORT + ".");
             }
         }
-        HeliosWebServer.start(port);
+        HeliosWebServer.start(port, priceSource);
+    }
+
+    private static PriceSource priceSource(String value) {
+        if ("simulated".equalsIgnoreCase(value)) {
+            return new SimulatedPriceSource(java.util.Map.of(), SIMULATED_VOLATILITY, System.nanoTime());
+        }
+        return new ReplayPriceSource(java.nio.file.Path.of(value));
     }
 
     private static void printUsage() {
         System.out.println("Usage:");
         System.out.println("  helios explain \"<headline>\"");
-        System.out.println("  helios serve [port]");
+        System.out.println("  helios serve [port] [--prices simulated|<ticks.csv|ticks.jsonl>]");
+        System.out.println("  helios replay <events.jsonl> [--ordered] [--threads n] [--graph causal_graph.json]");
+        System.out.println(
+            "  helios pipeline <events.jsonl> <analysis.jsonl> [--threads n] [--queue n] [--archive dir] [--similarity x]"
+                + " [--graph causal_graph.json]"
+        );
+        System.out.println(
+            "  helios backtest <events.jsonl> <prices.csv|prices.jsonl> [--threads n] [--cash x] [--confidence a,b,..] [--notional x,y,..]"
+        );
+        System.out.println(
+            "  helios impacts <archive dir> [--group-by entity|type|direction|rationale] [--entity name] [--direction d]"
+                + " [--type t] [--rationale text] [--from iso] [--to iso] [--limit n]"
+        );
+        System.out.println("  helios index <events.jsonl> <index dir>");
+        System.out.println("  helios search <index dir> \"<query>\" [--limit n] [--recent]");
+        System.out.println(
+            "  helios generate <output dir> [--entities n] [--degree x] [--exponent a] [--cycles f] [--collisions f]"
+                + " [--stories n] [--articles f] [--mentions x] [--seed n]"
+        );
     }
 }
@@ -1,20 +1,49 @@
 package presentation;
 
+import analysis.AccountLedgerService;
+import analysis.AnalysisExecutor;
+import analysis.AnalysisPriority;
 import analysis.CausalPropagationEngine;
+import analysis.EntityHeat;
+import analysis.EntityHeatAggregator;
+import analysis.EquityPoint;
 import analysis.ExplanationSynthesizer;
+import analysis.HeatWindow;
 import analysis.HeliosAnalyzer;
+import analysis.ImpactArchive;
+import analysis.ImpactBreakdown;
+import analysis.ImpactDimension;
+import analysis.ImpactQuery;
+import analysis.OrderRequest;
+import analysis.OrderView;
 import analysis.PortfolioView;
+import analysis.PriorityStats;
 import analysis.RecommendationEngine;
+import analysis.ReleaseResolution;
+import analysis.ReleaseScenario;
+import analysis.ReleaseScenarioPrecomputer;
+import analysis.RiskLimits;
+import analysis.RiskRejectedException;
 import analysis.RuleBasedEventClassifier;
+import analysis.ScenarioOutcome;
+import analysis.TradeBatchResult;
 import analysis.TradeExecutionResult;
+import analysis.TradeHistoryPage;
 import analysis.TradeRecommendation;
 import analysis.TradeTicket;
-import analysis.TradingLedger;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
 import ingestion.BbcBusinessScraper;
+import ingestion.EconomicCalendarIngestionService;
+import ingestion.IngestionScheduler;
+import ingestion.NearDuplicateDetector;
 import ingestion.NewsStory;
+import ingestion.PriceSource;
+import ingestion.ReleaseScheduler;
+import ingestion.RssIngestionService;
+import ingestion.SearchIndex;
+import ingestion.SearchResults;
 import ingestion.StoryDetail;
 import java.io.IOException;
 import java.io.InputStream;
@@ -23,57 +52,150 @@ import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import knowledge.CausalGraph;
 import knowledge.CausalGraphLoader;
+import knowledge.Event;
+import knowledge.EventType;
+import knowledge.ImpactDirection;
+import knowledge.PriceTick;
+import util.JsonlStore;
 
 public final class HeliosWebServer {
 
+    private static final Path DATA_DIRECTORY = Path.of("data");
+    private static final int DEFAULT_TRADE_PAGE_SIZE = 50;
+    private static final int DEFAULT_EQUITY_POINTS = 500;
+    private static final int DEFAULT_HEAT_LIMIT = 20;
+    private static final long IMPACT_FLUSH_INTERVAL_SECONDS = 5;
+    private static final long SEARCH_CHECKPOINT_INTERVAL_MINUTES = 10;
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final Duration ACCOUNT_IDLE_TIMEOUT = Duration.ofMinutes(15);
+    private static final RiskLimits RISK_LIMITS = new RiskLimits(
+        50_000.0,
+        75_000.0,
+        250_000.0,
+        0.8,
+        20.0
+    );
+    private static final long PRICE_POLL_INTERVAL_MILLIS = 250;
+    private static final int MAX_TICKS_PER_POLL = 50_000;
+    private static final Path CALENDAR_FILE = DATA_DIRECTORY.resolve(
+        "economic_calendar.csv"
+    );
+    private static final int CALENDAR_UPCOMING_LIMIT = 50;
+    private static final int MAX_CACHED_STORIES = 4_096;
+    private static final Path FEEDS_FILE = DATA_DIRECTORY.resolve("rss_feeds.txt");
+    private static final int FEED_POLL_INTERVAL_MINUTES = 5;
+    private static final int FEED_PIPELINE_QUEUE = 1_024;
+    private static final int MAX_RECENT_RELEASES = 50;
+    private static final Duration SCENARIO_HORIZON = Duration.ofHours(24);
+    private static final Duration SCENARIO_RETENTION = Duration.ofHours(6);
+
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final BbcBusinessScraper scraper;
+    private final RuleBasedEventClassifier classifier;
+    private final CausalPropagationEngine propagationEngine;
     private final RecommendationEngine recommendationEngine;
-    private final TradingLedger tradingLedger;
+    private final AnalysisExecutor analysisExecutor;
+    private final EntityHeatAggregator entityHeat = new EntityHeatAggregator();
+    private final ImpactArchive impactArchive;
+    private final SearchIndex searchIndex;
+    private final AccountLedgerService ledgerService;
+    private final PriceSource priceSource;
     private final Map<String, NewsStory> storyCache = new ConcurrentHashMap<>();
-    private final Map<String, StoryInsights> storyInsightCache =
-        new ConcurrentHashMap<>();
+    // Insights outlive listing refreshes: analysing a story again would record its heat and archive rows twice.
+    private final Map<String, StoryInsights> storyInsightCache = boundedMap(
+        MAX_CACHED_STORIES
+    );
+    // Story id -> id of the earliest near-duplicate, whose recommendations the copies share.
+    private final Map<String, String> storyLeaders = new ConcurrentHashMap<>();
+    private final Map<String, List<TradeRecommendation>> clusterRecommendations =
+        boundedMap(MAX_CACHED_STORIES);
+    private final NearDuplicateDetector storyDuplicates =
+        new NearDuplicateDetector();
+    private final ReleaseScenarioPrecomputer scenarioPrecomputer;
+    private final ReleaseScheduler releaseScheduler;
+    private final Map<String, Event> calendarEvents = new ConcurrentHashMap<>();
+    private final Deque<ReleaseAnalysis> recentReleases = new ArrayDeque<>();
     private final int port;
 
     private HttpServer server;
 
     public HeliosWebServer(int port) {
+        this(port, null);
+    }
+
+    public HeliosWebServer(int port, PriceSource priceSource) {
         this.port = port;
+        this.priceSource = priceSource;
 
         CausalGraph graph = CausalGraphLoader.loadFromResource(
             "/causal_graph.json"
         );
-        RuleBasedEventClassifier classifier =
-            RuleBasedEventClassifier.fromResources(
-                graph,
-                "/entity_aliases.json"
-            );
-        CausalPropagationEngine propagationEngine = new CausalPropagationEngine(
-            graph
+        this.classifier = RuleBasedEventClassifier.fromResources(
+            graph,
+            "/entity_aliases.json"
         );
+        this.propagationEngine = new CausalPropagationEngine(graph);
         ExplanationSynthesizer synthesizer = new ExplanationSynthesizer();
+        this.impactArchive = ImpactArchive.open(
+            DATA_DIRECTORY.resolve("impact_archive")
+        );
         HeliosAnalyzer analyzer = new HeliosAnalyzer(
             classifier,
             propagationEngine,
-            synthesizer
+            synthesizer,
+            entityHeat,
+            impactArchive
         );
 
         this.scraper = new BbcBusinessScraper();
+        this.searchIndex = SearchIndex.open(DATA_DIRECTORY.resolve("search_index"));
         this.recommendationEngine = new RecommendationEngine(analyzer);
-        this.tradingLedger = new TradingLedger(100_000.0);
+        this.analysisExecutor = new AnalysisExecutor(
+            Math.max(2, Runtime.getRuntime().availableProcessors())
+        );
+        this.ledgerService = new AccountLedgerService(
+            DATA_DIRECTORY.resolve("accounts"),
+            100_000.0,
+            ACCOUNT_IDLE_TIMEOUT,
+            RISK_LIMITS
+        );
+        this.scenarioPrecomputer = new ReleaseScenarioPrecomputer(
+            classifier,
+            propagationEngine,
+            synthesizer,
+            recommendationEngine
+        );
+        this.releaseScheduler = new ReleaseScheduler(this::analyzeRelease);
     }
 
     public static void start(int port) {
+        start(port, null);
+    }
+
+    public static void start(int port, PriceSource priceSource) {
         try {
-            HeliosWebServer app = new HeliosWebServer(port);
+            HeliosWebServer app = new HeliosWebServer(port, priceSource);
             app.start();
         } catch (BindException exception) {
             throw new IllegalStateException(
@@ -93,7 +215,11 @@ public final class HeliosWebServer {
 
     public void start() throws IOException {
         server = HttpServer.create(new InetSocketAddress(port), 0);
-        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.setExecutor(
+            Executors.newFixedThreadPool(
+                Math.max(8, Runtime.getRuntime().availableProcessors())
+            )
+        );
 
         server.createContext("/", exchange ->
             serveResource(
@@ -124,6 +250,69 @@ public final class HeliosWebServer {
         server.createContext("/api/story", this::handleStory);
         server.createContext("/api/portfolio", this::handlePortfolio);
         server.createContext("/api/trades", this::handleTrades);
+        server.createContext("/api/trades/batch", this::handleTradeBatch);
+        server.createContext("/api/orders", this::handleOrders);
+        server.createContext("/api/risk", this::handleRisk);
+        server.createContext("/api/equity", this::handleEquity);
+        server.createContext("/api/analysis/stats", this::handleAnalysisStats);
+        server.createContext("/api/heat", this::handleHeat);
+        server.createContext("/api/impacts", this::handleImpacts);
+        server.createContext("/api/search", this::handleSearch);
+        server.createContext("/api/calendar", this::handleCalendar);
+        server.createContext(
+            "/api/calendar/outcome",
+            this::handleCalendarOutcome
+        );
+
+        ScheduledExecutorService maintenanceExecutor =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "helios-maintenance");
+                thread.setDaemon(true);
+                return thread;
+            });
+        maintenanceExecutor.scheduleWithFixedDelay(
+            this::evictIdleAccounts,
+            1,
+            1,
+            TimeUnit.MINUTES
+        );
+        maintenanceExecutor.scheduleWithFixedDelay(
+            this::flushImpactArchive,
+            IMPACT_FLUSH_INTERVAL_SECONDS,
+            IMPACT_FLUSH_INTERVAL_SECONDS,
+            TimeUnit.SECONDS
+        );
+        maintenanceExecutor.scheduleWithFixedDelay(
+            this::checkpointSearchIndex,
+            SEARCH_CHECKPOINT_INTERVAL_MINUTES,
+            SEARCH_CHECKPOINT_INTERVAL_MINUTES,
+            TimeUnit.MINUTES
+        );
+        // Precomputation waits on BACKFILL, the lowest analysis class, so it gets a thread of its own rather than
+        // holding up price polling and the flushes behind a busy executor.
+        ScheduledExecutorService precomputeExecutor =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "helios-precompute");
+                thread.setDaemon(true);
+                return thread;
+            });
+        precomputeExecutor.scheduleWithFixedDelay(
+            this::precomputeUpcomingReleases,
+            0,
+            1,
+            TimeUnit.MINUTES
+        );
+        if (priceSource != null) {
+            maintenanceExecutor.scheduleWithFixedDelay(
+                this::pollPrices,
+                0,
+                PRICE_POLL_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS
+            );
+        }
+
+        scheduleCalendar();
+        scheduleFeeds();
 
         server.start();
         System.out.println(
@@ -131,6 +320,203 @@ public final class HeliosWebServer {
         );
     }
 
+    private void evictIdleAccounts() {
+        try {
+            ledgerService.evictIdle();
+        } catch (RuntimeException exception) {
+            System.err.println(
+                "Account eviction failed: " + exception.getMessage()
+            );
+        }
+    }
+
+    private void flushImpactArchive() {
+        try {
+            impactArchive.flush();
+            searchIndex.flush();
+        } catch (RuntimeException exception) {
+            System.err.println(
+                "Impact archive flush failed: " + exception.getMessage()
+            );
+        }
+    }
+
+    private void checkpointSearchIndex() {
+        try {
+            searchIndex.checkpoint();
+        } catch (RuntimeException exception) {
+            System.err.println(
+                "Search index checkpoint failed: " + exception.getMessage()
+            );
+        }
+    }
+
+    private void pollPrices() {
+        try {
+            List<PriceTick> ticks = priceSource.poll(MAX_TICKS_PER_POLL);
+            if (!ticks.isEmpty()) {
+                ledgerService.markToMarket(ticks);
+            }
+        } catch (RuntimeException exception) {
+            System.err.println("Price feed poll failed: " + exception.getMessage());
+        }
+    }
+
+    private void scheduleCalendar() {
+        if (!Files.isRegularFile(CALENDAR_FILE)) {
+            return;
+        }
+        try {
+            new EconomicCalendarIngestionService().stream(
+                CALENDAR_FILE,
+                event -> {
+                    if (releaseScheduler.schedule(event)) {
+                        calendarEvents.put(event.getId().toString(), event);
+                    }
+                }
+            );
+            System.out.println(
+                "Scheduled " +
+                    releaseScheduler.pending() +
+                    " upcoming calendar releases"
+            );
+        } catch (IllegalStateException exception) {
+            System.err.println(
+                "Economic calendar load failed: " + exception.getMessage()
+            );
+        }
+    }
+
+    // Live feed items go through the same analysis as stories: the scheduler persists each run's fresh records, then
+    // hands them to the pipeline, whose analyses land in the heat map, the impact archive and feed_analysis.jsonl. The
+    // pipeline runs that analysis on the shared executor as LIVE_FEED, so a feed burst yields to story clicks.
+    private void scheduleFeeds() {
+        if (!Files.isRegularFile(FEEDS_FILE)) {
+            return;
+        }
+        List<URI> feeds;
+        try {
+            feeds = Files.readAllLines(FEEDS_FILE)
+                .stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .map(URI::create)
+                .toList();
+        } catch (IOException | IllegalArgumentException exception) {
+            System.err.println("RSS feed list load failed: " + exception.getMessage());
+            return;
+        }
+        if (feeds.isEmpty()) {
+            return;
+        }
+        JsonlStore feedStore = new JsonlStore();
+        AnalysisPipeline feedPipeline = new AnalysisPipeline(
+            classifier,
+            propagationEngine,
+            recommendationEngine,
+            entityHeat,
+            impactArchive,
+            new NearDuplicateDetector(),
+            analysisExecutor,
+            feedStore,
+            DATA_DIRECTORY.resolve("feed_analysis.jsonl"),
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2),
+            FEED_PIPELINE_QUEUE
+        );
+        RssIngestionService rssIngestionService = new RssIngestionService(
+            feedStore,
+            Duration.ofSeconds(5),
+            Duration.ofSeconds(15),
+            DATA_DIRECTORY.resolve("rss_state")
+        );
+        IngestionScheduler feedScheduler = new IngestionScheduler(
+            rssIngestionService,
+            records -> {
+                searchIndex.addAll(records);
+                feedPipeline.submitAll(records);
+            }
+        );
+        feedScheduler.scheduleRssPolling(
+            feeds,
+            DATA_DIRECTORY.resolve("rss_events.jsonl"),
+            FEED_POLL_INTERVAL_MINUTES
+        );
+        System.out.println(
+            "Polling " +
+                feeds.size() +
+                " RSS feeds every " +
+                FEED_POLL_INTERVAL_MINUTES +
+                " minutes"
+        );
+    }
+
+    // Scenarios are prepared a day ahead rather than at load time so a long calendar does not pin every release's
+    // analysis in memory for weeks.
+    private void precomputeUpcomingReleases() {
+        try {
+            Instant now = Instant.now();
+            Instant horizon = now.plus(SCENARIO_HORIZON);
+            for (Event event : releaseScheduler.upcoming(Integer.MAX_VALUE)) {
+                if (event.getTimestamp().isAfter(horizon)) {
+                    break;
+                }
+                if (scenarioPrecomputer.isPrecomputed(event.getId())) {
+                    continue;
+                }
+                analysisExecutor
+                    .submit(AnalysisPriority.BACKFILL, () ->
+                        scenarioPrecomputer.precompute(event)
+                    )
+                    .join();
+            }
+            Instant cutoff = now.minus(SCENARIO_RETENTION);
+            scenarioPrecomputer.evictReleasedBefore(cutoff);
+            calendarEvents.values().removeIf(event ->
+                event.getTimestamp().isBefore(cutoff)
+            );
+        } catch (RuntimeException exception) {
+            System.err.println(
+                "Scenario precomputation failed: " + exception.getMessage()
+            );
+        }
+    }
+
+    private void analyzeRelease(Event event) {
+        long started = System.nanoTime();
+        Map<ScenarioOutcome, ReleaseScenario> scenarios = analysisExecutor
+            .submit(AnalysisPriority.LIVE_FEED, () ->
+                scenarioPrecomputer.precompute(event)
+            )
+            .join();
+        Map<ScenarioOutcome, List<TradeRecommendation>> recommendations =
+            new LinkedHashMap<>();
+        scenarios.forEach((outcome, scenario) ->
+            recommendations.put(outcome, scenario.recommendations())
+        );
+        Instant analyzedAt = Instant.now();
+        ReleaseAnalysis analysis = new ReleaseAnalysis(
+            event.getId().toString(),
+            event.getTimestamp().toString(),
+            event.getRawText(),
+            analyzedAt.toString(),
+            Duration.between(event.getTimestamp(), analyzedAt).toMillis(),
+            Duration.ofNanos(System.nanoTime() - started).toMillis(),
+            recommendations
+        );
+        synchronized (recentReleases) {
+            recentReleases.addFirst(analysis);
+            if (recentReleases.size() > MAX_RECENT_RELEASES) {
+                recentReleases.removeLast();
+            }
+        }
+    }
+
+    private void trackPrice(String symbol, double price) {
+        if (priceSource != null) {
+            priceSource.track(symbol, price);
+        }
+    }
+
     private void handleStories(HttpExchange exchange) throws IOException {
         if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
             sendJson(exchange, 405, Map.of("error", "Method not allowed"));
@@ -139,9 +525,11 @@ public final class HeliosWebServer {
 
         List<NewsStory> stories = scraper.fetchLatestStories();
         storyCache.clear();
-        storyInsightCache.clear();
+        storyLeaders.clear();
         for (NewsStory story : stories) {
             storyCache.put(story.id(), story);
+            storyLeaders.put(story.id(), storyDuplicates.check(story).leaderKey());
+            searchIndex.add(story);
         }
 
         sendJson(exchange, 200, stories);
@@ -172,6 +560,7 @@ public final class HeliosWebServer {
             storyCache.clear();
             for (NewsStory item : stories) {
                 storyCache.put(item.id(), item);
+                storyLeaders.put(item.id(), storyDuplicates.check(item).leaderKey());
             }
             story = storyCache.get(id);
         }
@@ -181,12 +570,25 @@ public final class HeliosWebServer {
             return;
         }
 
+        // A near-duplicate shows its own article but reuses the recommendations of whichever copy in its cluster was
+        // analysed first.
         StoryDetail detail = scraper.fetchStoryDetail(story);
-        List<TradeRecommendation> recommendations =
-            recommendationEngine.recommend(
-                detail.title() + "\n" + detail.body(),
-                detail.suggestedSymbol()
-            );
+        searchIndex.add(detail);
+        String leaderId = storyLeaders.getOrDefault(id, id);
+        List<TradeRecommendation> recommendations = clusterRecommendations.get(
+            leaderId
+        );
+        if (recommendations == null) {
+            recommendations = analysisExecutor
+                .submit(AnalysisPriority.INTERACTIVE, () ->
+                    recommendationEngine.recommend(
+                        detail.title() + "\n" + detail.body(),
+                        detail.suggestedSymbol()
+                    )
+                )
+                .join();
+            clusterRecommendations.put(leaderId, recommendations);
+        }
         StoryInsights insights = new StoryInsights(detail, recommendations);
         storyInsightCache.put(id, insights);
         sendJson(exchange, 200, insights);
@@ -198,11 +600,20 @@ public final class HeliosWebServer {
             return;
         }
 
-        PortfolioView portfolio = tradingLedger.snapshot();
-        sendJson(exchange, 200, portfolio);
+        Map<String, String> params = parseQueryParams(exchange.getRequestURI());
+        try {
+            PortfolioView portfolio = ledgerService.snapshot(params.get("account"));
+            sendJson(exchange, 200, portfolio);
+        } catch (IllegalArgumentException exception) {
+            sendError(exchange, exception);
+        }
     }
 
     private void handleTrades(HttpExchange exchange) throws IOException {
+        if ("GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            handleTradeHistory(exchange);
+            return;
+        }
         if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
             sendJson(exchange, 405, Map.of("error", "Method not allowed"));
             return;
@@ -210,13 +621,376 @@ public final class HeliosWebServer {
 
         try {
             TradeTicket ticket = parseJsonBody(exchange, TradeTicket.class);
-            TradeExecutionResult result = tradingLedger.execute(ticket);
+            String accountId = ticket != null && ticket.accountId() != null
+                ? ticket.accountId()
+                : parseQueryParams(exchange.getRequestURI()).get("account");
+            TradeExecutionResult result = ledgerService.execute(accountId, ticket);
+            trackPrice(result.trade().symbol(), result.trade().price());
+            sendJson(exchange, 200, result);
+        } catch (IllegalArgumentException exception) {
+            sendError(exchange, exception);
+        }
+    }
+
+    private void handleTradeBatch(HttpExchange exchange) throws IOException {
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            sendJson(exchange, 405, Map.of("error", "Method not allowed"));
+            return;
+        }
+
+        try {
+            TradeBatchRequest request = parseJsonBody(
+                exchange,
+                TradeBatchRequest.class
+            );
+            if (request == null) {
+                throw new IllegalArgumentException("Batch request is required");
+            }
+            String accountId = request.accountId() != null
+                ? request.accountId()
+                : parseQueryParams(exchange.getRequestURI()).get("account");
+            TradeBatchResult result = ledgerService.executeBatch(
+                accountId,
+                request.trades()
+            );
+            result.trades().forEach(trade ->
+                trackPrice(trade.symbol(), trade.price())
+            );
             sendJson(exchange, 200, result);
         } catch (IllegalArgumentException exception) {
-            sendJson(exchange, 400, Map.of("error", exception.getMessage()));
+            sendError(exchange, exception);
+        }
+    }
+
+    private void handleOrders(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQueryParams(exchange.getRequestURI());
+        String method = exchange.getRequestMethod();
+        try {
+            if ("GET".equalsIgnoreCase(method)) {
+                String id = params.get("id");
+                Object payload = id == null || id.isBlank()
+                    ? ledgerService.openOrders(params.get("account"))
+                    : ledgerService.orderStatus(params.get("account"), id);
+                sendJson(exchange, 200, payload);
+            } else if ("POST".equalsIgnoreCase(method)) {
+                OrderRequest request = parseJsonBody(exchange, OrderRequest.class);
+                String accountId = request != null && request.accountId() != null
+                    ? request.accountId()
+                    : params.get("account");
+                OrderView order = ledgerService.submitOrder(accountId, request);
+                trackPrice(order.symbol(), order.price());
+                sendJson(exchange, 200, order);
+            } else if ("DELETE".equalsIgnoreCase(method)) {
+                sendJson(
+                    exchange,
+                    200,
+                    ledgerService.cancelOrder(params.get("account"), params.get("id"))
+                );
+            } else {
+                sendJson(exchange, 405, Map.of("error", "Method not allowed"));
+            }
+        } catch (IllegalArgumentException exception) {
+            sendError(exchange, exception);
+        }
+    }
+
+    private void handleTradeHistory(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQueryParams(exchange.getRequestURI());
+        try {
+            int limit = parseLimit(
+                params.get("limit"),
+                DEFAULT_TRADE_PAGE_SIZE
+            );
+            TradeHistoryPage page = ledgerService.history(
+                params.get("account"),
+                params.get("before"),
+                limit,
+                params.get("symbol")
+            );
+            sendJson(exchange, 200, page);
+        } catch (IllegalArgumentException exception) {
+            sendError(exchange, exception);
+        }
+    }
+
+    private static int parseLimit(String value, int defaultLimit) {
+        if (value == null || value.isBlank()) {
+            return defaultLimit;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException("Invalid limit: " + value);
+        }
+    }
+
+    private void handleRisk(HttpExchange exchange) throws IOException {
+        if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            sendJson(exchange, 405, Map.of("error", "Method not allowed"));
+            return;
+        }
+
+        Map<String, String> params = parseQueryParams(exchange.getRequestURI());
+        try {
+            sendJson(exchange, 200, ledgerService.riskReport(params.get("account")));
+        } catch (IllegalArgumentException exception) {
+            sendError(exchange, exception);
+        }
+    }
+
+    private void handleCalendar(HttpExchange exchange) throws IOException {
+        if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            sendJson(exchange, 405, Map.of("error", "Method not allowed"));
+            return;
+        }
+
+        List<UpcomingRelease> upcoming = releaseScheduler
+            .upcoming(CALENDAR_UPCOMING_LIMIT)
+            .stream()
+            .map(event ->
+                new UpcomingRelease(
+                    event.getId().toString(),
+                    event.getTimestamp().toString(),
+                    event.getRawText()
+                )
+            )
+            .toList();
+        List<ReleaseAnalysis> released;
+        synchronized (recentReleases) {
+            released = List.copyOf(recentReleases);
+        }
+        sendJson(exchange, 200, new CalendarView(upcoming, released));
+    }
+
+    private void handleCalendarOutcome(HttpExchange exchange)
+        throws IOException {
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            sendJson(exchange, 405, Map.of("error", "Method not allowed"));
+            return;
+        }
+
+        try {
+            ReleaseHeadline request = parseJsonBody(
+                exchange,
+                ReleaseHeadline.class
+            );
+            if (
+                request == null ||
+                request.headline() == null ||
+                request.headline().isBlank()
+            ) {
+                throw new IllegalArgumentException(
+                    "Release headline is required"
+                );
+            }
+            Event event = request.id() == null
+                ? null
+                : calendarEvents.get(request.id());
+            if (event == null) {
+                sendJson(exchange, 404, Map.of("error", "Release not found"));
+                return;
+            }
+            ReleaseResolution resolution = analysisExecutor
+                .submit(AnalysisPriority.LIVE_FEED, () ->
+                    scenarioPrecomputer.resolve(event, request.headline())
+                )
+                .join();
+            sendJson(exchange, 200, resolution);
+        } catch (IllegalArgumentException exception) {
+            sendError(exchange, exception);
+        }
+    }
+
+    private void handleAnalysisStats(HttpExchange exchange)
+        throws IOException {
+        if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            sendJson(exchange, 405, Map.of("error", "Method not allowed"));
+            return;
+        }
+
+        List<PriorityStats> stats = analysisExecutor.stats();
+        sendJson(exchange, 200, stats);
+    }
+
+    private void handleHeat(HttpExchange exchange) throws IOException {
+        if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            sendJson(exchange, 405, Map.of("error", "Method not allowed"));
+            return;
+        }
+
+        Map<String, String> params = parseQueryParams(exchange.getRequestURI());
+        try {
+            HeatWindow window = params.containsKey("window")
+                ? HeatWindow.fromLabel(params.get("window"))
+                : HeatWindow.ONE_HOUR;
+            List<EntityHeat> movers = entityHeat.topMovers(
+                window,
+                Instant.now(),
+                parseLimit(params.get("limit"), DEFAULT_HEAT_LIMIT)
+            );
+            sendJson(exchange, 200, movers);
+        } catch (IllegalArgumentException exception) {
+            sendError(exchange, exception);
+        }
+    }
+
+    // e.g. /api/search?q=rates AND (mortgage OR "house prices") -gilts&sort=recent
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            sendJson(exchange, 405, Map.of("error", "Method not allowed"));
+            return;
+        }
+
+        Map<String, String> params = parseQueryParams(exchange.getRequestURI());
+        try {
+            SearchResults results = searchIndex.search(
+                params.get("q"),
+                parseLimit(params.get("limit"), DEFAULT_SEARCH_LIMIT),
+                "recent".equalsIgnoreCase(params.get("sort"))
+            );
+            sendJson(exchange, 200, results);
+        } catch (IllegalArgumentException exception) {
+            sendError(exchange, exception);
+        }
+    }
+
+    // e.g. /api/impacts?groupBy=rationale&entity=Housebuilders&direction=negative&from=2024-04-01T00:00:00Z
+    private void handleImpacts(HttpExchange exchange) throws IOException {
+        if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            sendJson(exchange, 405, Map.of("error", "Method not allowed"));
+            return;
+        }
+
+        Map<String, String> params = parseQueryParams(exchange.getRequestURI());
+        try {
+            ImpactQuery query = ImpactQuery.groupBy(
+                params.containsKey("groupBy")
+                    ? ImpactDimension.fromLabel(params.get("groupBy"))
+                    : ImpactDimension.ENTITY
+            )
+                .between(
+                    parseOptionalTime(params.get("from")),
+                    parseOptionalTime(params.get("to"))
+                )
+                .eventType(parseEnum(EventType.class, params.get("type"), "type"))
+                .entity(params.get("entity"))
+                .direction(
+                    parseEnum(ImpactDirection.class, params.get("direction"), "direction")
+                )
+                .rationale(params.get("rationale"));
+            ImpactBreakdown breakdown = impactArchive.query(query);
+            sendJson(exchange, 200, breakdown);
+        } catch (IllegalArgumentException exception) {
+            sendError(exchange, exception);
+        }
+    }
+
+    private static <V> Map<String, V> boundedMap(int maxEntries) {
+        return Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                    return size() > maxEntries;
+                }
+            }
+        );
+    }
+
+    private static Instant parseOptionalTime(String value) {
+        return value == null || value.isBlank()
+            ? null
+            : Instant.ofEpochMilli(parseTime(value, 0L));
+    }
+
+    private static <E extends Enum<E>> E parseEnum(
+        Class<E> type,
+        String value,
+        String name
+    ) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException(
+                name + " must be one of " + Arrays.toString(type.getEnumConstants())
+            );
+        }
+    }
+
+    private void handleEquity(HttpExchange exchange) throws IOException {
+        if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            sendJson(exchange, 405, Map.of("error", "Method not allowed"));
+            return;
+        }
+
+        Map<String, String> params = parseQueryParams(exchange.getRequestURI());
+        try {
+            List<EquityPoint> points = ledgerService.equityHistory(
+                params.get("account"),
+                parseTime(params.get("from"), Long.MIN_VALUE),
+                parseTime(params.get("to"), Long.MAX_VALUE),
+                parsePoints(params.get("points"))
+            );
+            sendJson(exchange, 200, points);
+        } catch (IllegalArgumentException exception) {
+            sendError(exchange, exception);
         }
     }
 
+    private static long parseTime(String value, long fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        String trimmed = value.trim();
+        try {
+            return Long.parseLong(trimmed);
+        } catch (NumberFormatException ignored) {
+            // Fall through to ISO-8601 instants.
+        }
+        try {
+            return Instant.parse(trimmed).toEpochMilli();
+        } catch (DateTimeParseException exception) {
+            throw new IllegalArgumentException("Invalid time: " + value);
+        }
+    }
+
+    private static int parsePoints(String value) {
+        if (value == null || value.isBlank()) {
+            return DEFAULT_EQUITY_POINTS;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException exception) {
+            throw new IllegalArgumentException("Invalid points: " + value);
+        }
+    }
+
+    private void sendError(
+        HttpExchange exchange,
+        IllegalArgumentException exception
+    ) throws IOException {
+        if (exception instanceof RiskRejectedException rejection) {
+            sendJson(
+                exchange,
+                422,
+                Map.of(
+                    "error",
+                    rejection.getMessage(),
+                    "rule",
+                    rejection.rule(),
+                    "limit",
+                    rejection.limit(),
+                    "attempted",
+                    rejection.attempted()
+                )
+            );
+            return;
+        }
+        sendJson(exchange, 400, Map.of("error", exception.getMessage()));
+    }
+
     private <T> T parseJsonBody(HttpExchange exchange, Class<T> type)
         throws IOException {
         try (InputStream body = exchange.getRequestBody()) {
@@ -301,8 +1075,31 @@ public final class HeliosWebServer {
         );
     }
 
-    private record StoryInsights(
-        StoryDetail story,
-        List<TradeRecommendation> recommendations
+    private record TradeBatchRequest(
+        String accountId,
+        List<TradeTicket> trades
+    ) {}
+
+    private record UpcomingRelease(
+        String id,
+        String scheduledAt,
+        String description
+    ) {}
+
+    private record ReleaseAnalysis(
+        String id,
+        String scheduledAt,
+        String description,
+        String analyzedAt,
+        long delayMillis,
+        long analysisMillis,
+        Map<ScenarioOutcome, List<TradeRecommendation>> scenarios
+    ) {}
+
+    private record ReleaseHeadline(String id, String headline) {}
+
+    private record CalendarView(
+        List<UpcomingRelease> upcoming,
+        List<ReleaseAnalysis> released
     ) {}
 }
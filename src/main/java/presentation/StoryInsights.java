@@ -0,0 +1,8 @@
+package presentation;
+
+import analysis.TradeRecommendation;
+import ingestion.StoryDetail;
+import java.util.List;
+
+public record StoryInsights(StoryDetail story, List<TradeRecommendation> recommendations) {
+}
@@ -0,0 +1,142 @@
+package util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Streaming RFC 4180 reader: quoted fields may hold commas, doubled quotes and line breaks. Only the current
+// record is ever held in memory, so file size does not matter.
+public final class CsvReader implements Closeable {
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_CHARS];
+    private final StringBuilder field = new StringBuilder(128);
+
+    private int position;
+    private int limit;
+    private long line = 1;
+    private long recordLine = 1;
+    private boolean finished;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    public List<String> next() {
+        if (finished) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        recordLine = line;
+        boolean quoted = false;
+        boolean fieldWasQuoted = false;
+        boolean any = false;
+
+        while (true) {
+            int next = read();
+            if (next < 0) {
+                finished = true;
+                if (quoted) {
+                    throw new IllegalStateException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (!any) {
+                    return null;
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            any = true;
+            char c = (char) next;
+            if (quoted) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append(c);
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> {
+                    if (field.length() == 0 && !fieldWasQuoted) {
+                        quoted = true;
+                        fieldWasQuoted = true;
+                    } else {
+                        field.append(c);
+                    }
+                }
+                case ',' -> {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    fieldWasQuoted = false;
+                }
+                case '\r' -> {
+                    if (peek() == '\n') {
+                        read();
+                    }
+                    line++;
+                    fields.add(field.toString());
+                    return fields;
+                }
+                case '\n' -> {
+                    line++;
+                    fields.add(field.toString());
+                    return fields;
+                }
+                default -> field.append(c);
+            }
+        }
+    }
+
+    public long recordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException ignored) {
+            // Nothing useful to do while closing.
+        }
+    }
+
+    private int read() {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() {
+        try {
+            int read = reader.read(buffer, 0, buffer.length);
+            if (read <= 0) {
+                return false;
+            }
+            position = 0;
+            limit = read;
+            return true;
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to read CSV input", exception);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package util;
+
+public enum FsyncPolicy {
+    NEVER,
+    ON_COMMIT,
+    ALWAYS
+}
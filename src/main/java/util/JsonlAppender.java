@@ -0,0 +1,120 @@
+package util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Keeps one output file open and turns many small appends into a few large writes. Records reach the file
+// when the buffer fills, when the owner's commit timer fires, or on flush/close.
+public final class JsonlAppender implements Closeable {
+    private final Object monitor = new Object();
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final FsyncPolicy fsyncPolicy;
+
+    private boolean closed;
+
+    public JsonlAppender(Path file, int bufferBytes, FsyncPolicy fsyncPolicy) {
+        if (bufferBytes <= 0) {
+            throw new IllegalArgumentException("bufferBytes must be positive");
+        }
+        this.file = file;
+        this.buffer = ByteBuffer.allocateDirect(bufferBytes);
+        this.fsyncPolicy = fsyncPolicy;
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to open JSONL file " + file, exception);
+        }
+    }
+
+    public void append(byte[] line) {
+        synchronized (monitor) {
+            ensureOpen();
+            try {
+                if (line.length > buffer.remaining()) {
+                    commitLocked();
+                }
+                if (line.length > buffer.capacity()) {
+                    writeFully(ByteBuffer.wrap(line));
+                } else {
+                    buffer.put(line);
+                }
+                if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                    commitLocked();
+                }
+            } catch (IOException exception) {
+                throw new IllegalStateException("Unable to append JSONL record to " + file, exception);
+            }
+        }
+    }
+
+    public void flush() {
+        synchronized (monitor) {
+            if (closed) {
+                return;
+            }
+            try {
+                commitLocked();
+            } catch (IOException exception) {
+                throw new IllegalStateException("Unable to flush JSONL file " + file, exception);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (monitor) {
+            if (closed) {
+                return;
+            }
+            try {
+                commitLocked();
+                if (fsyncPolicy != FsyncPolicy.NEVER) {
+                    channel.force(false);
+                }
+            } catch (IOException exception) {
+                throw new IllegalStateException("Unable to close JSONL file " + file, exception);
+            } finally {
+                closed = true;
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // Nothing useful to do while closing.
+                }
+            }
+        }
+    }
+
+    private void commitLocked() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+        if (fsyncPolicy != FsyncPolicy.NEVER) {
+            channel.force(false);
+        }
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("JSONL appender is closed: " + file);
+        }
+    }
+}
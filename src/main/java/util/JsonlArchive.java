@@ -0,0 +1,543 @@
+package util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Time-partitioned JSONL storage. The active segment is plain JSONL; sealed segments are rewritten in the
+// background as a series of independent gzip members, one per ~64 KB block, so a reader can seek straight to a
+// block. Each segment carries a sparse index of (min time, max time, offset, length) per block, which lets a
+// [from, to) read skip whole segments and blocks without decompressing them.
+public final class JsonlArchive<T> implements Closeable {
+    private static final long DEFAULT_MAX_SEGMENT_BYTES = 64L * 1024 * 1024;
+    private static final Duration DEFAULT_MAX_SEGMENT_AGE = Duration.ofHours(1);
+    private static final int BLOCK_BYTES = 64 * 1024;
+    private static final int WRITE_BUFFER_BYTES = 256 * 1024;
+    private static final String RAW_SUFFIX = ".jsonl";
+    private static final String COMPRESSED_SUFFIX = ".jsonl.gz";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final Object monitor = new Object();
+    private final Path directory;
+    private final Class<T> type;
+    private final ToLongFunction<T> timestampOf;
+    private final long maxSegmentBytes;
+    private final long maxSegmentAgeNanos;
+    private final List<Segment> segments = new ArrayList<>();
+    private final ByteBuffer pending = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+    private final ExecutorService compressor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jsonl-archive-compressor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Segment active;
+    private FileChannel activeChannel;
+    private long activeOpenedNanos;
+    private long activeSize;
+    private long blockStart;
+    private long blockMinMillis;
+    private long blockMaxMillis;
+    private boolean blockOpen;
+    private int nextSequence = 1;
+    private boolean closed;
+
+    private JsonlArchive(Path directory, Class<T> type, ToLongFunction<T> timestampOf, long maxSegmentBytes, Duration maxSegmentAge)
+        throws IOException {
+        if (maxSegmentBytes <= 0) {
+            throw new IllegalArgumentException("maxSegmentBytes must be positive");
+        }
+        if (maxSegmentAge.isNegative() || maxSegmentAge.isZero()) {
+            throw new IllegalArgumentException("maxSegmentAge must be positive");
+        }
+        this.directory = directory;
+        this.type = type;
+        this.timestampOf = timestampOf;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.maxSegmentAgeNanos = maxSegmentAge.toNanos();
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    public static <T> JsonlArchive<T> open(Path directory, Class<T> type, ToLongFunction<T> timestampOf) {
+        return open(directory, type, timestampOf, DEFAULT_MAX_SEGMENT_BYTES, DEFAULT_MAX_SEGMENT_AGE);
+    }
+
+    public static <T> JsonlArchive<T> open(
+        Path directory,
+        Class<T> type,
+        ToLongFunction<T> timestampOf,
+        long maxSegmentBytes,
+        Duration maxSegmentAge
+    ) {
+        try {
+            return new JsonlArchive<>(directory, type, timestampOf, maxSegmentBytes, maxSegmentAge);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to open JSONL archive at " + directory, exception);
+        }
+    }
+
+    public void append(T record) {
+        long timestampMillis = timestampOf.applyAsLong(record);
+        byte[] line = serialize(record);
+
+        synchronized (monitor) {
+            if (closed) {
+                throw new IllegalStateException("JSONL archive is closed: " + directory);
+            }
+            try {
+                if (active != null && activeSize > 0 && (activeSize + line.length > maxSegmentBytes
+                    || System.nanoTime() - activeOpenedNanos >= maxSegmentAgeNanos)) {
+                    sealActiveLocked();
+                }
+                if (active == null) {
+                    openActiveLocked();
+                }
+                if (line.length > pending.remaining()) {
+                    drainLocked();
+                }
+                if (line.length > pending.capacity()) {
+                    writeFully(activeChannel, ByteBuffer.wrap(line));
+                } else {
+                    pending.put(line);
+                }
+
+                if (!blockOpen) {
+                    blockOpen = true;
+                    blockStart = activeSize;
+                    blockMinMillis = timestampMillis;
+                    blockMaxMillis = timestampMillis;
+                } else {
+                    blockMinMillis = Math.min(blockMinMillis, timestampMillis);
+                    blockMaxMillis = Math.max(blockMaxMillis, timestampMillis);
+                }
+                activeSize += line.length;
+                if (activeSize - blockStart >= BLOCK_BYTES) {
+                    closeBlockLocked();
+                }
+            } catch (IOException exception) {
+                throw new IllegalStateException("Unable to append to JSONL archive at " + directory, exception);
+            }
+        }
+    }
+
+    public void flush() {
+        synchronized (monitor) {
+            try {
+                drainLocked();
+            } catch (IOException exception) {
+                throw new IllegalStateException("Unable to flush JSONL archive at " + directory, exception);
+            }
+        }
+    }
+
+    // Streams records whose timestamp falls in [fromMillis, toMillis), segment by segment in write order.
+    public void read(long fromMillis, long toMillis, Consumer<T> sink) {
+        List<SegmentReader> readers = new ArrayList<>();
+        try {
+            synchronized (monitor) {
+                drainLocked();
+                for (Segment segment : segments) {
+                    List<Block> blocks = segment == active ? activeBlocksLocked() : segment.blocks;
+                    if (!overlaps(blocks, fromMillis, toMillis)) {
+                        continue;
+                    }
+                    // Opening under the lock pins the file even if compression replaces it mid-read.
+                    Path file = segment.compressed ? compressedFile(segment.sequence) : rawFile(segment.sequence);
+                    readers.add(new SegmentReader(FileChannel.open(file, StandardOpenOption.READ), segment.compressed, blocks));
+                }
+            }
+            for (SegmentReader reader : readers) {
+                for (Block block : reader.blocks) {
+                    if (block.maxMillis() >= fromMillis && block.minMillis() < toMillis) {
+                        readBlock(reader, block, fromMillis, toMillis, sink);
+                    }
+                }
+            }
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to read JSONL archive at " + directory, exception);
+        } finally {
+            for (SegmentReader reader : readers) {
+                closeQuietly(reader.channel);
+            }
+        }
+    }
+
+    public int segmentCount() {
+        synchronized (monitor) {
+            return segments.size();
+        }
+    }
+
+    public void awaitCompression(Duration timeout) {
+        try {
+            compressor.submit(() -> {
+            }).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception exception) {
+            throw new IllegalStateException("Timed out waiting for JSONL archive compression", exception);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (monitor) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (active != null) {
+                    sealActiveLocked();
+                }
+            } catch (IOException exception) {
+                throw new IllegalStateException("Unable to close JSONL archive at " + directory, exception);
+            } finally {
+                compressor.shutdown();
+            }
+        }
+        try {
+            compressor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void openActiveLocked() throws IOException {
+        active = new Segment(nextSequence++);
+        activeChannel = FileChannel.open(
+            rawFile(active.sequence),
+            StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.WRITE
+        );
+        activeOpenedNanos = System.nanoTime();
+        activeSize = 0;
+        blockOpen = false;
+        segments.add(active);
+    }
+
+    private void sealActiveLocked() throws IOException {
+        drainLocked();
+        closeBlockLocked();
+        activeChannel.force(false);
+        activeChannel.close();
+        Segment sealed = active;
+        active = null;
+        activeChannel = null;
+        compressor.execute(() -> compress(sealed));
+    }
+
+    private void closeBlockLocked() {
+        if (!blockOpen) {
+            return;
+        }
+        active.blocks.add(new Block(blockMinMillis, blockMaxMillis, blockStart, (int) (activeSize - blockStart)));
+        blockOpen = false;
+    }
+
+    private List<Block> activeBlocksLocked() {
+        List<Block> blocks = new ArrayList<>(active.blocks);
+        if (blockOpen) {
+            blocks.add(new Block(blockMinMillis, blockMaxMillis, blockStart, (int) (activeSize - blockStart)));
+        }
+        return blocks;
+    }
+
+    private void drainLocked() throws IOException {
+        if (activeChannel == null || pending.position() == 0) {
+            return;
+        }
+        pending.flip();
+        writeFully(activeChannel, pending);
+        pending.clear();
+    }
+
+    private void compress(Segment segment) {
+        Path raw = rawFile(segment.sequence);
+        Path compressed = compressedFile(segment.sequence);
+        Path index = indexFile(segment.sequence);
+        Path compressedTemporary = temporary(compressed);
+        Path indexTemporary = temporary(index);
+        try {
+            List<Block> compressedBlocks = new ArrayList<>(segment.blocks.size());
+            try (FileChannel input = FileChannel.open(raw, StandardOpenOption.READ);
+                 FileChannel output = FileChannel.open(
+                     compressedTemporary,
+                     StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING,
+                     StandardOpenOption.WRITE
+                 )) {
+                long offset = 0;
+                ByteArrayOutputStream member = new ByteArrayOutputStream(BLOCK_BYTES / 2);
+                for (Block block : segment.blocks) {
+                    ByteBuffer source = ByteBuffer.allocate(block.length());
+                    readFully(input, source, block.offset());
+                    member.reset();
+                    try (GZIPOutputStream gzip = new GZIPOutputStream(member)) {
+                        gzip.write(source.array(), 0, block.length());
+                    }
+                    writeFully(output, ByteBuffer.wrap(member.toByteArray()));
+                    compressedBlocks.add(new Block(block.minMillis(), block.maxMillis(), offset, member.size()));
+                    offset += member.size();
+                }
+                output.force(false);
+            }
+            writeIndex(indexTemporary, compressedBlocks);
+            Files.move(indexTemporary, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(compressedTemporary, compressed, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (monitor) {
+                segment.blocks = compressedBlocks;
+                segment.compressed = true;
+            }
+            Files.deleteIfExists(raw);
+        } catch (IOException exception) {
+            // The raw segment stays readable and is compressed again on the next open.
+            System.err.println("JSONL archive compression failed for " + raw + ": " + exception.getMessage());
+        }
+    }
+
+    private void recover() throws IOException {
+        TreeMap<Integer, Path> raws = new TreeMap<>();
+        TreeMap<Integer, Path> compressed = new TreeMap<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            for (Path file : listing.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMPORARY_SUFFIX)) {
+                    Files.delete(file);
+                } else if (name.endsWith(COMPRESSED_SUFFIX)) {
+                    compressed.put(sequenceOf(name, COMPRESSED_SUFFIX), file);
+                } else if (name.endsWith(RAW_SUFFIX)) {
+                    raws.put(sequenceOf(name, RAW_SUFFIX), file);
+                }
+            }
+        }
+
+        TreeMap<Integer, Segment> recovered = new TreeMap<>();
+        for (Integer sequence : compressed.keySet()) {
+            Path index = indexFile(sequence);
+            if (!Files.exists(index)) {
+                // The index is published first, so a compressed file without one is an interrupted rewrite.
+                Files.delete(compressed.get(sequence));
+                continue;
+            }
+            Segment segment = new Segment(sequence);
+            segment.blocks = readIndex(index);
+            segment.compressed = true;
+            recovered.put(sequence, segment);
+            Path raw = raws.remove(sequence);
+            if (raw != null) {
+                Files.delete(raw);
+            }
+        }
+        for (Integer sequence : raws.keySet()) {
+            Segment segment = new Segment(sequence);
+            segment.blocks = scanRaw(raws.get(sequence));
+            recovered.put(sequence, segment);
+            compressor.execute(() -> compress(segment));
+        }
+        segments.addAll(recovered.values());
+        if (!recovered.isEmpty()) {
+            nextSequence = recovered.lastKey() + 1;
+        }
+    }
+
+    // Rebuilds the block index of a raw segment, dropping a torn final line left by a crash mid-write.
+    private List<Block> scanRaw(Path file) throws IOException {
+        List<Block> blocks = new ArrayList<>();
+        long offset = 0;
+        long validEnd = 0;
+        long start = 0;
+        long minMillis = Long.MAX_VALUE;
+        long maxMillis = Long.MIN_VALUE;
+        ByteArrayOutputStream line = new ByteArrayOutputStream(1_024);
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            int next;
+            while ((next = input.read()) >= 0) {
+                offset++;
+                if (next != '\n') {
+                    line.write(next);
+                    continue;
+                }
+                long timestampMillis = timestampOf.applyAsLong(JsonlStore.OBJECT_MAPPER.readValue(line.toByteArray(), type));
+                line.reset();
+                minMillis = Math.min(minMillis, timestampMillis);
+                maxMillis = Math.max(maxMillis, timestampMillis);
+                validEnd = offset;
+                if (validEnd - start >= BLOCK_BYTES) {
+                    blocks.add(new Block(minMillis, maxMillis, start, (int) (validEnd - start)));
+                    start = validEnd;
+                    minMillis = Long.MAX_VALUE;
+                    maxMillis = Long.MIN_VALUE;
+                }
+            }
+        }
+        if (validEnd > start) {
+            blocks.add(new Block(minMillis, maxMillis, start, (int) (validEnd - start)));
+        }
+        if (validEnd < offset) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(validEnd);
+            }
+        }
+        return blocks;
+    }
+
+    private void readBlock(SegmentReader reader, Block block, long fromMillis, long toMillis, Consumer<T> sink) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(block.length());
+        readFully(reader.channel, buffer, block.offset());
+        byte[] bytes = buffer.array();
+        if (reader.compressed) {
+            try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes), BLOCK_BYTES)) {
+                bytes = gzip.readAllBytes();
+            }
+        }
+        int lineStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+                continue;
+            }
+            T record = JsonlStore.OBJECT_MAPPER.readValue(bytes, lineStart, i - lineStart, type);
+            long timestampMillis = timestampOf.applyAsLong(record);
+            if (timestampMillis >= fromMillis && timestampMillis < toMillis) {
+                sink.accept(record);
+            }
+            lineStart = i + 1;
+        }
+    }
+
+    private static boolean overlaps(List<Block> blocks, long fromMillis, long toMillis) {
+        for (Block block : blocks) {
+            if (block.maxMillis() >= fromMillis && block.minMillis() < toMillis) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void writeIndex(Path file, List<Block> blocks) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(file))) {
+            output.writeInt(blocks.size());
+            for (Block block : blocks) {
+                output.writeLong(block.minMillis());
+                output.writeLong(block.maxMillis());
+                output.writeLong(block.offset());
+                output.writeInt(block.length());
+            }
+        }
+    }
+
+    private static List<Block> readIndex(Path file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int count = input.readInt();
+            List<Block> blocks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                blocks.add(new Block(input.readLong(), input.readLong(), input.readLong(), input.readInt()));
+            }
+            return blocks;
+        }
+    }
+
+    private byte[] serialize(T record) {
+        try {
+            byte[] json = JsonlStore.OBJECT_MAPPER.writeValueAsBytes(record);
+            byte[] line = new byte[json.length + 1];
+            System.arraycopy(json, 0, line, 0, json.length);
+            line[json.length] = '\n';
+            return line;
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to serialize JSONL archive record", exception);
+        }
+    }
+
+    private Path rawFile(int sequence) {
+        return directory.resolve(segmentName(sequence) + RAW_SUFFIX);
+    }
+
+    private Path compressedFile(int sequence) {
+        return directory.resolve(segmentName(sequence) + COMPRESSED_SUFFIX);
+    }
+
+    private Path indexFile(int sequence) {
+        return directory.resolve(segmentName(sequence) + INDEX_SUFFIX);
+    }
+
+    private static Path temporary(Path file) {
+        return file.resolveSibling(file.getFileName() + TEMPORARY_SUFFIX);
+    }
+
+    private static String segmentName(int sequence) {
+        return String.format("segment-%08d", sequence);
+    }
+
+    private static int sequenceOf(String name, String suffix) {
+        try {
+            return Integer.parseInt(name.substring("segment-".length(), name.length() - suffix.length()));
+        } catch (RuntimeException exception) {
+            throw new IllegalStateException("Unexpected JSONL archive file: " + name, exception);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of JSONL archive segment at offset " + offset);
+            }
+            offset += read;
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing useful to do while closing.
+        }
+    }
+
+    private record Block(long minMillis, long maxMillis, long offset, int length) {
+    }
+
+    private record SegmentReader(FileChannel channel, boolean compressed, List<Block> blocks) {
+    }
+
+    private static final class Segment {
+        private final int sequence;
+        private List<Block> blocks = new ArrayList<>();
+        private boolean compressed;
+
+        private Segment(int sequence) {
+            this.sequence = sequence;
+        }
+    }
+}
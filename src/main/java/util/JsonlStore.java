@@ -1,28 +1,128 @@
 package util;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.io.IOException;
-import java.nio.file.Files;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
-public final class JsonlStore {
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+public final class JsonlStore implements Closeable {
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private static final int DEFAULT_BUFFER_BYTES = 256 * 1024;
+    private static final Duration DEFAULT_COMMIT_INTERVAL = Duration.ofMillis(200);
+
+    private final Object monitor = new Object();
+    private final Map<Path, JsonlAppender> appenders = new ConcurrentHashMap<>();
+    private final int bufferBytes;
+    private final Duration commitInterval;
+    private final FsyncPolicy fsyncPolicy;
+
+    private ScheduledExecutorService committer;
+    private boolean closed;
+
+    public JsonlStore() {
+        this(DEFAULT_BUFFER_BYTES, DEFAULT_COMMIT_INTERVAL, FsyncPolicy.NEVER);
+    }
+
+    public JsonlStore(int bufferBytes, Duration commitInterval, FsyncPolicy fsyncPolicy) {
+        if (bufferBytes <= 0) {
+            throw new IllegalArgumentException("bufferBytes must be positive");
+        }
+        if (commitInterval.isNegative() || commitInterval.isZero()) {
+            throw new IllegalArgumentException("commitInterval must be positive");
+        }
+        this.bufferBytes = bufferBytes;
+        this.commitInterval = commitInterval;
+        this.fsyncPolicy = fsyncPolicy;
+    }
 
     public void append(Path outputFile, Object payload) {
-        try {
-            if (outputFile.getParent() != null) {
-                Files.createDirectories(outputFile.getParent());
+        byte[] line = serialize(outputFile, payload);
+        appenderFor(outputFile).append(line);
+    }
+
+    public void flush(Path outputFile) {
+        JsonlAppender appender = appenders.get(outputFile.toAbsolutePath().normalize());
+        if (appender != null) {
+            appender.flush();
+        }
+    }
+
+    public void flush() {
+        for (JsonlAppender appender : appenders.values()) {
+            appender.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (monitor) {
+            if (closed) {
+                return;
             }
-            String jsonLine = OBJECT_MAPPER.writeValueAsString(payload) + System.lineSeparator();
-            Files.writeString(
-                outputFile,
-                jsonLine,
-                StandardOpenOption.CREATE,
-                StandardOpenOption.WRITE,
-                StandardOpenOption.APPEND
-            );
-        } catch (IOException exception) {
+            closed = true;
+            if (committer != null) {
+                committer.shutdown();
+            }
+            for (JsonlAppender appender : appenders.values()) {
+                appender.close();
+            }
+            appenders.clear();
+        }
+    }
+
+    private JsonlAppender appenderFor(Path outputFile) {
+        Path key = outputFile.toAbsolutePath().normalize();
+        JsonlAppender appender = appenders.get(key);
+        if (appender != null) {
+            return appender;
+        }
+        synchronized (monitor) {
+            if (closed) {
+                throw new IllegalStateException("JSONL store is closed");
+            }
+            if (committer == null) {
+                committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "jsonl-committer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                long intervalMillis = commitInterval.toMillis();
+                committer.scheduleWithFixedDelay(this::commitAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            }
+            return appenders.computeIfAbsent(key, path -> new JsonlAppender(path, bufferBytes, fsyncPolicy));
+        }
+    }
+
+    private void commitAll() {
+        for (JsonlAppender appender : appenders.values()) {
+            try {
+                appender.flush();
+            } catch (RuntimeException exception) {
+                System.err.println("JSONL commit failed: " + exception.getMessage());
+            }
+        }
+    }
+
+    private static byte[] serialize(Path outputFile, Object payload) {
+        try {
+            byte[] json = OBJECT_MAPPER.writeValueAsBytes(payload);
+            byte[] line = new byte[json.length + LINE_SEPARATOR.length];
+            System.arraycopy(json, 0, line, 0, json.length);
+            System.arraycopy(LINE_SEPARATOR, 0, line, json.length, LINE_SEPARATOR.length);
+            return line;
+        } catch (JsonProcessingException exception) {
             throw new IllegalStateException("Unable to append JSONL record to " + outputFile, exception);
         }
     }
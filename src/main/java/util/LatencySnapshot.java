@@ -0,0 +1,4 @@
+package util;
+
+public record LatencySnapshot(long count, long p50, long p90, long p99, long max) {
+}
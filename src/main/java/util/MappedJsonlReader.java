@@ -0,0 +1,168 @@
+package util;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Reads JSONL by mapping the file and handing line-aligned slices of the mapping straight to Jackson's streaming
+// parser, so records are decoded from the page cache without an intermediate copy into Java strings.
+public final class MappedJsonlReader<T> implements Closeable {
+    private static final long MAX_CHUNK_BYTES = 256L * 1024 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int BOUNDARY_PROBE_BYTES = 64 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ObjectReader reader;
+    private final long size;
+
+    private MappedJsonlReader(Path file, Class<T> type) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.reader = JsonlStore.OBJECT_MAPPER.readerFor(type);
+        this.size = channel.size();
+    }
+
+    public static <T> MappedJsonlReader<T> open(Path file, Class<T> type) {
+        try {
+            return new MappedJsonlReader<>(file, type);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to open JSONL file " + file, exception);
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long forEach(Consumer<? super T> sink) {
+        long count = 0;
+        for (long[] chunk : chunks(1)) {
+            count += readChunk(chunk[0], chunk[1], sink);
+        }
+        return count;
+    }
+
+    // Parses line-aligned chunks on separate threads; the sink is called concurrently and in no particular order.
+    public long forEachParallel(int parallelism, Consumer<? super T> sink) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        if (parallelism == 1) {
+            return forEach(sink);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "jsonl-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            AtomicLong count = new AtomicLong();
+            List<Future<?>> tasks = new ArrayList<>();
+            for (long[] chunk : chunks(parallelism * CHUNKS_PER_THREAD)) {
+                tasks.add(executor.submit(() -> count.addAndGet(readChunk(chunk[0], chunk[1], sink))));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+            return count.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading " + file, exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Unable to read JSONL file " + file, exception.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Nothing useful to do while closing.
+        }
+    }
+
+    private long readChunk(long start, long end, Consumer<? super T> sink) {
+        if (end <= start) {
+            return 0;
+        }
+        try {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            long count = 0;
+            try (MappingIterator<T> records = reader.readValues(new ByteBufferBackedInputStream(mapped))) {
+                while (records.hasNextValue()) {
+                    sink.accept(records.nextValue());
+                    count++;
+                }
+            }
+            return count;
+        } catch (IOException exception) {
+            throw new IllegalStateException("Malformed JSONL in " + file + " between bytes " + start + " and " + end, exception);
+        }
+    }
+
+    // Splits the file into roughly equal ranges, each ending just after a newline so no record straddles two chunks.
+    private List<long[]> chunks(int target) {
+        int count = (int) Math.max(target, (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+        long step = Math.max(1, size / count);
+        List<long[]> chunks = new ArrayList<>(count);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + Math.min(step, MAX_CHUNK_BYTES));
+            if (end < size) {
+                // The scan gets a full MAX_CHUNK_BYTES past the cut, so a chunk spans at most twice that and still maps.
+                end = nextLineStart(end, end + MAX_CHUNK_BYTES);
+            }
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    private long nextLineStart(long from, long limit) {
+        ByteBuffer probe = ByteBuffer.allocate(BOUNDARY_PROBE_BYTES);
+        long position = from - 1;
+        try {
+            while (position < size) {
+                probe.clear();
+                int read = channel.read(probe, position);
+                if (read <= 0) {
+                    return size;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        return position + i + 1;
+                    }
+                }
+                position += read;
+                if (position >= limit) {
+                    throw new IllegalStateException("JSONL line longer than " + MAX_CHUNK_BYTES + " bytes in " + file);
+                }
+            }
+            return size;
+        } catch (IOException exception) {
+            throw new IllegalStateException("Unable to read JSONL file " + file, exception);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package util;
+
+public record StageMetrics(
+    String stage,
+    int parallelism,
+    int queueDepth,
+    int queueCapacity,
+    int busyWorkers,
+    long processed,
+    long dropped,
+    long failed,
+    double recentPerSecond,
+    double averagePerSecond
+) {
+}
@@ -0,0 +1,230 @@
+package util;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Stages are joined by bounded queues and a full queue blocks the stage feeding it, so a burst turns into queueing
+// all the way back to submit() rather than into unbounded memory. A stage function returning null drops the item.
+public final class StagedPipeline<I> implements Closeable {
+    private static final Object END = new Object();
+
+    private final List<Stage> stages;
+    private final Object monitor = new Object();
+
+    private boolean closed;
+
+    private StagedPipeline(List<Stage> stages) {
+        this.stages = List.copyOf(stages);
+        for (int i = 0; i < this.stages.size(); i++) {
+            this.stages.get(i).start(i + 1 < this.stages.size() ? this.stages.get(i + 1) : null);
+        }
+    }
+
+    public static <I> Builder<I, I> builder() {
+        return new Builder<>(new ArrayList<>());
+    }
+
+    // Submission holds the monitor so close() cannot slip its end marker in ahead of an item that was accepted.
+    public void submit(I item) {
+        synchronized (monitor) {
+            ensureOpenLocked();
+            try {
+                stages.get(0).queue.put(item);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while submitting to pipeline", exception);
+            }
+        }
+    }
+
+    public boolean offer(I item, long timeout, TimeUnit unit) {
+        synchronized (monitor) {
+            ensureOpenLocked();
+            try {
+                return stages.get(0).queue.offer(item, timeout, unit);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    public List<StageMetrics> metrics() {
+        List<StageMetrics> metrics = new ArrayList<>(stages.size());
+        for (Stage stage : stages) {
+            metrics.add(stage.metrics());
+        }
+        return metrics;
+    }
+
+    // Lets everything already submitted run to completion, then stops the workers.
+    @Override
+    public void close() {
+        synchronized (monitor) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            stages.get(0).end();
+        }
+        try {
+            stages.get(stages.size() - 1).finished.await();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            for (Stage stage : stages) {
+                stage.interrupt();
+            }
+        }
+    }
+
+    private void ensureOpenLocked() {
+        if (closed) {
+            throw new IllegalStateException("Pipeline is closed");
+        }
+    }
+
+    public static final class Builder<I, O> {
+        private final List<Stage> stages;
+
+        private Builder(List<Stage> stages) {
+            this.stages = stages;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <R> Builder<I, R> stage(String name, int parallelism, int capacity, Function<? super O, ? extends R> function) {
+            stages.add(new Stage(name, parallelism, capacity, item -> function.apply((O) item)));
+            return new Builder<>(stages);
+        }
+
+        @SuppressWarnings("unchecked")
+        public StagedPipeline<I> sink(String name, int parallelism, int capacity, Consumer<? super O> consumer) {
+            stages.add(new Stage(name, parallelism, capacity, item -> {
+                consumer.accept((O) item);
+                return null;
+            }));
+            return new StagedPipeline<>(stages);
+        }
+    }
+
+    private static final class Stage {
+        private final String name;
+        private final int parallelism;
+        private final int capacity;
+        private final Function<Object, Object> function;
+        private final BlockingQueue<Object> queue;
+        private final CountDownLatch finished;
+        private final AtomicInteger remainingWorkers;
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<Thread> workers = new ArrayList<>();
+        private final long startedNanos = System.nanoTime();
+        private long sampledNanos = startedNanos;
+        private long sampledProcessed;
+
+        private Stage(String name, int parallelism, int capacity, Function<Object, Object> function) {
+            if (parallelism <= 0 || capacity <= 0) {
+                throw new IllegalArgumentException("Stage " + name + " needs positive parallelism and capacity");
+            }
+            this.name = name;
+            this.parallelism = parallelism;
+            this.capacity = capacity;
+            this.function = function;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.finished = new CountDownLatch(parallelism);
+            this.remainingWorkers = new AtomicInteger(parallelism);
+        }
+
+        private void start(Stage next) {
+            for (int i = 0; i < parallelism; i++) {
+                Thread thread = new Thread(() -> work(next), "pipeline-" + name + "-" + i);
+                thread.setDaemon(true);
+                workers.add(thread);
+                thread.start();
+            }
+        }
+
+        private void work(Stage next) {
+            try {
+                while (true) {
+                    Object item = queue.take();
+                    if (item == END) {
+                        break;
+                    }
+                    running.incrementAndGet();
+                    try {
+                        Object result = function.apply(item);
+                        processed.incrementAndGet();
+                        if (next != null) {
+                            if (result == null) {
+                                dropped.incrementAndGet();
+                            } else {
+                                next.queue.put(result);
+                            }
+                        }
+                    } catch (RuntimeException exception) {
+                        failed.incrementAndGet();
+                        System.err.println("Pipeline stage " + name + " failed: " + exception.getMessage());
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            } finally {
+                // The last worker out hands the end marker downstream, so later stages drain only after earlier ones.
+                if (remainingWorkers.decrementAndGet() == 0 && next != null) {
+                    next.end();
+                }
+                finished.countDown();
+            }
+        }
+
+        private void end() {
+            try {
+                for (int i = 0; i < parallelism; i++) {
+                    queue.put(END);
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void interrupt() {
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+        }
+
+        private synchronized StageMetrics metrics() {
+            long now = System.nanoTime();
+            long count = processed.get();
+            double seconds = (now - sampledNanos) / 1_000_000_000.0;
+            double rate = seconds <= 0.0 ? 0.0 : (count - sampledProcessed) / seconds;
+            sampledNanos = now;
+            sampledProcessed = count;
+            return new StageMetrics(
+                name,
+                parallelism,
+                queue.size(),
+                capacity,
+                running.get(),
+                count,
+                dropped.get(),
+                failed.get(),
+                rate,
+                count / Math.max(1e-9, (now - startedNanos) / 1_000_000_000.0)
+            );
+        }
+    }
+}
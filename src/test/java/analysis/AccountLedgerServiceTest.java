@@ -0,0 +1,41 @@
+package analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AccountLedgerServiceTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void keepsAccountsIsolatedAndReloadsEvictedAccounts() {
+        try (AccountLedgerService service = new AccountLedgerService(directory, 10_000.0, Duration.ZERO)) {
+            service.execute("desk-a", new TradeTicket("ABC", TradeSide.BUY, 10, 100.0, "entry", "", ""));
+            service.execute("desk-b", new TradeTicket("XYZ", TradeSide.BUY, 5, 20.0, "entry", "", ""));
+
+            assertEquals(9_000.0, service.snapshot("DESK-A").cash());
+            assertEquals(9_900.0, service.snapshot("desk-b").cash());
+            assertEquals(10_000.0, service.snapshot(null).cash());
+
+            assertEquals(3, service.evictIdle());
+            assertEquals(0, service.activeAccounts());
+
+            PortfolioView reloaded = service.snapshot("desk-a");
+            assertEquals(9_000.0, reloaded.cash());
+            assertEquals("ABC", reloaded.positions().get(0).symbol());
+            assertEquals(1, service.history("desk-a", null, 10, "").trades().size());
+        }
+    }
+
+    @Test
+    void rejectsAccountIdsThatAreNotPathSafe() {
+        try (AccountLedgerService service = new AccountLedgerService(directory, 10_000.0, Duration.ofMinutes(1))) {
+            assertThrows(IllegalArgumentException.class, () -> service.snapshot("../escape"));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+import util.LatencyHistogram;
+
+class AnalysisExecutorTest {
+    @Test
+    void interactiveWorkOvertakesABackfillAtTheNextTaskBoundary() {
+        try (AnalysisExecutor executor = new AnalysisExecutor(1)) {
+            List<CompletableFuture<Integer>> backfill = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                int index = i;
+                backfill.add(executor.submit(AnalysisPriority.BACKFILL, () -> {
+                    sleep(5);
+                    return index;
+                }));
+            }
+            sleep(20);
+
+            long started = System.nanoTime();
+            executor.submit(AnalysisPriority.INTERACTIVE, () -> "story").join();
+            long waitedMillis = (System.nanoTime() - started) / 1_000_000;
+
+            assertTrue(waitedMillis < 100, "interactive waited " + waitedMillis + " ms");
+            assertTrue(backfill.stream().filter(CompletableFuture::isDone).count() < 100);
+            backfill.forEach(CompletableFuture::join);
+
+            PriorityStats interactive = executor.stats().get(0);
+            PriorityStats bulk = executor.stats().get(2);
+            assertEquals(AnalysisPriority.INTERACTIVE, interactive.priority());
+            assertEquals(1, interactive.completed());
+            assertEquals(200, bulk.completed());
+            assertTrue(bulk.queueWaitMicros().p99() > interactive.queueWaitMicros().p99());
+        }
+    }
+
+    @Test
+    void sharesSaturatedWorkersByWeight() throws InterruptedException {
+        List<AnalysisPriority> order = new ArrayList<>();
+        CountDownLatch gate = new CountDownLatch(1);
+        try (AnalysisExecutor executor = new AnalysisExecutor(1)) {
+            executor.submit(AnalysisPriority.BACKFILL, () -> {
+                awaitQuietly(gate);
+                return null;
+            });
+            for (int i = 0; i < 100; i++) {
+                executor.submit(AnalysisPriority.BACKFILL, () -> order.add(AnalysisPriority.BACKFILL));
+                executor.submit(AnalysisPriority.LIVE_FEED, () -> order.add(AnalysisPriority.LIVE_FEED));
+            }
+            gate.countDown();
+        }
+
+        long live = order.subList(0, 50).stream().filter(priority -> priority == AnalysisPriority.LIVE_FEED).count();
+        assertTrue(live >= 38 && live <= 42, "live share of first 50: " + live);
+        assertEquals(200, order.size());
+    }
+
+    @Test
+    void anErrorFailsItsTaskButKeepsTheWorker() {
+        try (AnalysisExecutor executor = new AnalysisExecutor(1)) {
+            CompletableFuture<Object> overflow = executor.submit(AnalysisPriority.INTERACTIVE, () -> {
+                throw new StackOverflowError("deep graph");
+            });
+
+            CompletionException failure = assertThrows(CompletionException.class, overflow::join);
+            assertTrue(failure.getCause() instanceof StackOverflowError);
+            assertEquals("next", executor.submit(AnalysisPriority.INTERACTIVE, () -> "next").join());
+            assertEquals(1, executor.stats().get(0).failed());
+            assertEquals(2, executor.stats().get(0).completed());
+        }
+    }
+
+    @Test
+    void histogramPercentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(10_000, histogram.count());
+        assertTrue(Math.abs(histogram.percentile(0.5) - 5_000) <= 5_000 / 8, "p50 " + histogram.percentile(0.5));
+        assertTrue(Math.abs(histogram.percentile(0.99) - 9_900) <= 9_900 / 8, "p99 " + histogram.percentile(0.99));
+        assertEquals(10_000, histogram.percentile(1.0));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
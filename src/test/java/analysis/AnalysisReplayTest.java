@@ -0,0 +1,61 @@
+package analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import knowledge.CausalGraph;
+import knowledge.CausalGraphLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import util.JsonlStore;
+import util.MappedJsonlReader;
+
+class AnalysisReplayTest {
+    private static final List<String> HEADLINES = List.of(
+        "Bank of England raises rates by 25bps",
+        "Oil prices surge after OPEC cuts output",
+        "Sterling falls as inflation cools"
+    );
+
+    @TempDir
+    Path directory;
+
+    record Headline(int sequence, String text) {
+    }
+
+    @Test
+    void replaysStoredEventsInFileOrderWhenAsked() {
+        Path file = directory.resolve("events.jsonl");
+        int events = 3_000;
+        try (JsonlStore store = new JsonlStore()) {
+            for (int i = 0; i < events; i++) {
+                store.append(file, new Headline(i, HEADLINES.get(i % HEADLINES.size())));
+            }
+        }
+
+        CausalGraph graph = CausalGraphLoader.loadFromResource("/causal_graph.json");
+        HeliosAnalyzer analyzer = new HeliosAnalyzer(
+            RuleBasedEventClassifier.fromResources(graph, "/entity_aliases.json"),
+            new CausalPropagationEngine(graph),
+            new ExplanationSynthesizer()
+        );
+        AnalysisReplay replay = new AnalysisReplay(analyzer, 4);
+
+        try (MappedJsonlReader<Headline> reader = MappedJsonlReader.open(file, Headline.class)) {
+            List<Integer> order = new ArrayList<>();
+            ReplaySummary ordered = replay.replay(reader, Headline::text, true, (headline, report) -> order.add(headline.sequence()));
+            assertEquals(events, ordered.records());
+            for (int i = 0; i < events; i++) {
+                assertEquals(i, order.get(i));
+            }
+
+            LongAdder analyzed = new LongAdder();
+            ReplaySummary parallel = replay.replay(reader, Headline::text, false, (headline, report) -> analyzed.increment());
+            assertEquals(events, parallel.records());
+            assertEquals(events, analyzed.sum());
+        }
+    }
+}
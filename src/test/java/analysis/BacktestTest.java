@@ -0,0 +1,105 @@
+package analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import knowledge.CausalGraph;
+import knowledge.CausalGraphLoader;
+import knowledge.PriceTick;
+import org.junit.jupiter.api.Test;
+
+class BacktestTest {
+    @Test
+    void replaysEventsAgainstPricesInTimestampOrder() {
+        RecommendationEngine recommender = recommender();
+        // Ticks at an event's timestamp apply first, so the BUY fills at 100 and the SELL at 120.
+        List<BacktestEvent> events = List.of(
+            new BacktestEvent(5_000, "SELL ABC 10", "closing out"),
+            new BacktestEvent(1_000, "BUY ABC 10", "opening"),
+            new BacktestEvent(6_000, "BUY ABC 1000", "more than the cash allows")
+        );
+        List<PriceTick> prices = List.of(
+            new PriceTick("abc", 100.0, 1_000),
+            new PriceTick("ABC", 90.0, 3_000),
+            new PriceTick("ABC", 120.0, 5_000)
+        );
+        Backtester backtester = new Backtester(events, prices);
+        assertEquals(6, backtester.stepCount());
+
+        BacktestResult result = backtester.run(new BacktestConfig("scripted", recommender, new ScriptedStrategy(), 10_000.0));
+        assertEquals(2, result.trades());
+        assertEquals(1, result.rejectedTrades());
+        assertEquals(10_200.0, result.finalEquity(), 1e-9);
+        assertEquals(200.0, result.pnl(), 1e-9);
+        assertEquals(2.0, result.returnPct(), 1e-9);
+        assertEquals(1, result.closingTrades());
+        assertEquals(1.0, result.hitRate(), 1e-9);
+        assertEquals(100.0, result.maxDrawdown(), 1e-9);
+        assertEquals(1.0, result.maxDrawdownPct(), 1e-9);
+        assertEquals(10_200.0, result.equityCurve().get(result.equityCurve().size() - 1).equity(), 1e-9);
+    }
+
+    @Test
+    void parallelSweepMatchesSequentialRuns() {
+        RecommendationEngine recommender = recommender();
+        String[] headlines = {
+            "Bank of England raises interest rates unexpectedly",
+            "Brent crude oil prices surge after OPEC cuts output",
+            "UK inflation falls faster than expected",
+            "Oil prices slump as demand outlook weakens"
+        };
+        String[] symbols = {"BARC.L", "LLOY.L", "HSBA.L", "BP.L", "SHEL.L", "PSN.L", "BDEV.L", "TW.L"};
+        List<BacktestEvent> events = new ArrayList<>();
+        List<PriceTick> prices = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            long time = i * 60_000L;
+            for (int s = 0; s < symbols.length; s++) {
+                prices.add(new PriceTick(symbols[s], 100.0 + 10.0 * Math.sin(i / 7.0 + s), time));
+            }
+            if (i % 5 == 0) {
+                events.add(new BacktestEvent(time, "event " + i, headlines[(i / 5) % headlines.length]));
+            }
+        }
+
+        List<BacktestConfig> configs = new ArrayList<>();
+        for (double confidence : new double[] {0.0, 0.3, 0.6}) {
+            for (double notional : new double[] {1_000.0, 5_000.0}) {
+                configs.add(new BacktestConfig(
+                    confidence + "/" + notional,
+                    recommender,
+                    new ThresholdStrategy(confidence, notional),
+                    50_000.0
+                ));
+            }
+        }
+        Backtester backtester = new Backtester(events, prices);
+        List<BacktestResult> parallel = backtester.sweep(configs, 4);
+        assertEquals(configs.size(), parallel.size());
+        for (int i = 0; i < configs.size(); i++) {
+            assertEquals(backtester.run(configs.get(i)), parallel.get(i));
+        }
+        assertTrue(parallel.get(0).trades() > 0);
+        assertTrue(parallel.get(0).equityCurve().size() <= 200);
+    }
+
+    private static RecommendationEngine recommender() {
+        CausalGraph graph = CausalGraphLoader.loadFromResource("/causal_graph.json");
+        return new RecommendationEngine(new HeliosAnalyzer(
+            RuleBasedEventClassifier.fromResources(graph, "/entity_aliases.json"),
+            new CausalPropagationEngine(graph),
+            new ExplanationSynthesizer()
+        ));
+    }
+
+    // Trades exactly what the event title says, at the last seen price.
+    private static final class ScriptedStrategy implements BacktestStrategy {
+        @Override
+        public List<TradeTicket> decide(BacktestEvent event, List<TradeRecommendation> recommendations, MarketView market) {
+            String[] parts = event.title().split(" ");
+            TradeSide side = TradeSide.valueOf(parts[0]);
+            return List.of(new TradeTicket(parts[1], side, Integer.parseInt(parts[2]), market.lastPrice(parts[1]), "", "", event.title()));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import knowledge.Entity;
+import knowledge.EntityType;
+import knowledge.ImpactDirection;
+import org.junit.jupiter.api.Test;
+
+class EntityHeatAggregatorTest {
+    private static final Entity BANKS = new Entity(UUID.randomUUID(), EntityType.SECTOR, "Banks", Set.of());
+    private static final Entity OIL = new Entity(UUID.randomUUID(), EntityType.COMMODITY, "Oil", Set.of());
+
+    @Test
+    void decaysEachWindowAtItsOwnRate() {
+        EntityHeatAggregator heat = new EntityHeatAggregator();
+        Instant start = Instant.parse("2024-06-01T09:00:00Z");
+        for (int i = 0; i < 4; i++) {
+            heat.record(start, List.of(impact(BANKS, ImpactDirection.POSITIVE, 0.5)));
+        }
+        heat.record(start, List.of(impact(OIL, ImpactDirection.NEGATIVE, 0.9)));
+
+        List<EntityHeat> now = heat.topMovers(HeatWindow.FIVE_MINUTES, start, 10);
+        assertEquals("Banks", now.get(0).entity());
+        assertEquals(2.0, now.get(0).net(), 1e-9);
+        assertEquals(4.0, now.get(0).mentions(), 1e-9);
+        assertEquals(-0.9, now.get(1).net(), 1e-9);
+
+        // One five-minute half-life later the short window has halved while the daily one has barely moved.
+        Instant later = start.plus(Duration.ofMinutes(5));
+        assertEquals(1.0, heat.topMovers(HeatWindow.FIVE_MINUTES, later, 1).get(0).net(), 1e-9);
+        assertTrue(heat.topMovers(HeatWindow.ONE_DAY, later, 1).get(0).net() > 1.99);
+
+        // A fresh Oil burst takes the lead; the short window has already forgotten most of the earlier Oil move.
+        heat.record(later, List.of(impact(OIL, ImpactDirection.NEGATIVE, 0.9), impact(OIL, ImpactDirection.NEGATIVE, 0.9)));
+        assertEquals("Oil", heat.topMovers(HeatWindow.FIVE_MINUTES, later, 1).get(0).entity());
+        assertEquals("Oil", heat.topMovers(HeatWindow.ONE_DAY, later, 1).get(0).entity());
+        assertEquals(-2.25, heat.topMovers(HeatWindow.FIVE_MINUTES, later, 1).get(0).net(), 1e-9);
+
+        // A late event is aged to the entity's clock instead of counting at full weight.
+        heat.record(start, List.of(impact(BANKS, ImpactDirection.POSITIVE, 1.0)));
+        assertEquals(1.5, heat.topMovers(HeatWindow.FIVE_MINUTES, later, 2).get(1).net(), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> HeatWindow.fromLabel("2w"));
+    }
+
+    private static ImpactResult impact(Entity entity, ImpactDirection direction, double score) {
+        return new ImpactResult(entity, direction, score, "test");
+    }
+}
@@ -0,0 +1,43 @@
+package analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EquitySeriesStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void downsamplesAcrossReopenedSegmentsWithoutLosingSpikes() {
+        int points = 50_000;
+        try (EquitySeriesStore store = EquitySeriesStore.open(directory)) {
+            for (int i = 0; i < points; i++) {
+                store.append(1_000L + i, i == 31_337 ? 25_000.0 : 10_000.0 + (i % 100));
+            }
+        }
+
+        try (EquitySeriesStore store = EquitySeriesStore.open(directory)) {
+            assertEquals(points, store.size());
+
+            List<EquityPoint> curve = store.query(Long.MIN_VALUE, Long.MAX_VALUE, 200);
+            assertTrue(curve.size() <= 200);
+            assertEquals(10_000.0, curve.get(0).equity());
+            assertEquals(25_000.0, curve.stream().mapToDouble(EquityPoint::equity).max().orElseThrow());
+
+            List<EquityPoint> window = store.query(1_010L, 1_020L, 200);
+            assertEquals(10, window.size());
+            assertEquals(10_010.0, window.get(0).equity());
+
+            store.append(500L, 9_000.0);
+            assertEquals(points + 1, store.size());
+            assertTrue(store.recent(50).size() <= 50);
+            assertThrows(IllegalArgumentException.class, () -> store.query(0L, 1L, 1));
+        }
+    }
+}
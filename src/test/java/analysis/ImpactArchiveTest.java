@@ -0,0 +1,94 @@
+package analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import knowledge.Entity;
+import knowledge.EntityType;
+import knowledge.EventType;
+import knowledge.ImpactDirection;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ImpactArchiveTest {
+    private static final Entity HOUSEBUILDERS = new Entity(UUID.randomUUID(), EntityType.SECTOR, "Housebuilders", Set.of());
+    private static final Entity BANKS = new Entity(UUID.randomUUID(), EntityType.SECTOR, "Banks", Set.of());
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void groupsFilteredImpactsAndSkipsBlocksOutsideTheRange() {
+        // 50k events of four impacts each span four blocks, one minute apart.
+        int events = 50_000;
+        try (ImpactArchive archive = ImpactArchive.open(directory)) {
+            for (int i = 0; i < events; i++) {
+                String channel = i % 3 == 0 ? "Higher rates squeeze mortgage demand" : "Weaker sterling lifts import costs";
+                archive.append(START.plus(Duration.ofMinutes(i)), i % 2 == 0 ? EventType.MACRO : EventType.POLICY, List.of(
+                    new ImpactResult(HOUSEBUILDERS, ImpactDirection.NEGATIVE, 0.5, channel),
+                    new ImpactResult(HOUSEBUILDERS, ImpactDirection.POSITIVE, 0.25, "Lower rates\nhelp buyers"),
+                    new ImpactResult(BANKS, ImpactDirection.POSITIVE, 1.0, "Wider net interest margins"),
+                    new ImpactResult(BANKS, ImpactDirection.MIXED, 0.1, "")
+                ));
+            }
+            assertEquals(events * 4L, archive.size());
+
+            ImpactBreakdown channels = archive.query(
+                ImpactQuery.groupBy(ImpactDimension.RATIONALE).entity("housebuilders").direction(ImpactDirection.NEGATIVE)
+            );
+            assertEquals(events, channels.matchedImpacts());
+            assertEquals("Weaker sterling lifts import costs", channels.groups().get(0).key());
+            assertEquals(33_333, channels.groups().get(0).impacts());
+            assertEquals(16_667, channels.groups().get(1).impacts());
+            assertEquals(0.5, channels.groups().get(1).averageScore(), 1e-9);
+            assertEquals(0, channels.skippedBlocks());
+
+            // The last 500 minutes live in the final, partly filled block only.
+            Instant tailStart = START.plus(Duration.ofMinutes(events - 500));
+            ImpactBreakdown tail = archive.query(
+                ImpactQuery.groupBy(ImpactDimension.EVENT_TYPE).between(tailStart, START.plus(Duration.ofDays(365))).entity("Banks")
+            );
+            assertEquals(1, tail.scannedBlocks());
+            assertEquals(3, tail.skippedBlocks());
+            assertEquals(1_000, tail.matchedImpacts());
+            assertEquals(500, tail.groups().get(0).impacts());
+
+            assertTrue(archive.query(ImpactQuery.groupBy(ImpactDimension.ENTITY).entity("Oil")).groups().isEmpty());
+        }
+
+        try (ImpactArchive reopened = ImpactArchive.open(directory)) {
+            ImpactBreakdown directions = reopened.query(ImpactQuery.groupBy(ImpactDimension.DIRECTION).rationale("Lower rates help buyers"));
+            assertEquals(List.of(new ImpactGroup("POSITIVE", events, events * 0.25, 0.25)), directions.groups());
+            Instant late = START.plus(Duration.ofMinutes(events - 10));
+            ImpactBreakdown lastMinutes = reopened.query(ImpactQuery.groupBy(ImpactDimension.ENTITY).between(late, START.plus(Duration.ofDays(365))));
+            assertEquals(40, lastMinutes.matchedImpacts());
+            assertEquals(3, lastMinutes.skippedBlocks());
+        }
+    }
+
+    @Test
+    void recoversFromATornWrite() throws IOException {
+        try (ImpactArchive archive = ImpactArchive.open(directory)) {
+            archive.append(START, EventType.MACRO, List.of(new ImpactResult(BANKS, ImpactDirection.POSITIVE, 1.0, "Wider margins")));
+        }
+        Files.write(directory.resolve("timestamp.col"), new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9}, StandardOpenOption.APPEND);
+        Files.writeString(directory.resolve("entities.txt"), "Half", StandardOpenOption.APPEND);
+
+        try (ImpactArchive archive = ImpactArchive.open(directory)) {
+            assertEquals(1, archive.size());
+            archive.append(START.plusSeconds(1), EventType.POLICY, List.of(new ImpactResult(HOUSEBUILDERS, ImpactDirection.NEGATIVE, 0.5, "")));
+            List<ImpactGroup> groups = archive.query(ImpactQuery.groupBy(ImpactDimension.ENTITY)).groups();
+            assertEquals(List.of(new ImpactGroup("Banks", 1, 1.0, 1.0), new ImpactGroup("Housebuilders", 1, 0.5, 0.5)), groups);
+        }
+    }
+}
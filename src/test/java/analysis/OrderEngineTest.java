@@ -0,0 +1,77 @@
+package analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import knowledge.PriceTick;
+import org.junit.jupiter.api.Test;
+
+class OrderEngineTest {
+    @Test
+    void fillsRestingOrdersInPriceTimePriority() {
+        TradingLedger ledger = new TradingLedger(10_000.0);
+        OrderEngine engine = new OrderEngine(ledger);
+
+        OrderView first = engine.submit(limit(TradeSide.BUY, 10, 99.0));
+        OrderView better = engine.submit(limit(TradeSide.BUY, 10, 100.0));
+        OrderView second = engine.submit(limit(TradeSide.BUY, 10, 99.0));
+        OrderView untouched = engine.submit(limit(TradeSide.BUY, 10, 90.0));
+        assertEquals(OrderStatus.OPEN, first.status());
+
+        List<OrderView> fills = engine.onPrices(List.of(new PriceTick("ABC", 98.5, 1L)));
+
+        assertEquals(3, fills.size());
+        assertEquals(better.orderId(), fills.get(0).orderId());
+        assertEquals(first.orderId(), fills.get(1).orderId());
+        assertEquals(second.orderId(), fills.get(2).orderId());
+        assertEquals(98.5, fills.get(0).fillPrice());
+        assertEquals(OrderStatus.OPEN, engine.status(untouched.orderId()).status());
+        assertEquals(30, ledger.snapshot().positions().get(0).quantity());
+
+        assertEquals(OrderStatus.CANCELLED, engine.cancel(untouched.orderId()).status());
+        assertEquals(0, engine.openOrderCount());
+        assertThrows(IllegalArgumentException.class, () -> engine.cancel(untouched.orderId()));
+    }
+
+    @Test
+    void seedsTheBookUnderTheNormalisedSymbol() {
+        TradingLedger ledger = new TradingLedger(10_000.0);
+        OrderEngine engine = new OrderEngine(ledger);
+
+        engine.seedPrice(new PriceTick(" abc", 100.0, 1L));
+        OrderView marketable = engine.submit(limit(TradeSide.BUY, 10, 101.0));
+
+        assertEquals(OrderStatus.FILLED, marketable.status());
+        assertEquals(100.0, marketable.fillPrice());
+        assertEquals(0, engine.openOrderCount());
+    }
+
+    @Test
+    void triggersStopsAndRejectsFillsTheLedgerRefuses() {
+        TradingLedger ledger = new TradingLedger(10_000.0);
+        ledger.execute(new TradeTicket("ABC", TradeSide.BUY, 10, 100.0, "entry", "", ""));
+        OrderEngine engine = new OrderEngine(ledger);
+
+        OrderView stop = engine.submit(new OrderRequest("ABC", TradeSide.SELL, OrderType.STOP, 10, 95.0, "stop", "", "", null));
+        OrderView oversell = engine.submit(new OrderRequest("ABC", TradeSide.SELL, OrderType.LIMIT, 50, 120.0, "", "", "", null));
+
+        assertEquals(List.of(), engine.onPrices(List.of(new PriceTick("ABC", 96.0, 1L))));
+        List<OrderView> stopFill = engine.onPrices(List.of(new PriceTick("ABC", 94.0, 2L)));
+        assertEquals(stop.orderId(), stopFill.get(0).orderId());
+        assertEquals(OrderStatus.FILLED, stopFill.get(0).status());
+        assertEquals(10_000.0 - 1_000.0 + 940.0, ledger.snapshot().cash());
+
+        List<OrderView> rejected = engine.onPrices(List.of(new PriceTick("ABC", 121.0, 3L)));
+        assertEquals(oversell.orderId(), rejected.get(0).orderId());
+        assertEquals(OrderStatus.REJECTED, rejected.get(0).status());
+
+        OrderView immediate = engine.submit(limit(TradeSide.BUY, 1, 125.0));
+        assertEquals(OrderStatus.FILLED, immediate.status());
+        assertEquals(121.0, immediate.fillPrice());
+    }
+
+    private static OrderRequest limit(TradeSide side, int quantity, double price) {
+        return new OrderRequest("abc", side, OrderType.LIMIT, quantity, price, "", "", "", null);
+    }
+}
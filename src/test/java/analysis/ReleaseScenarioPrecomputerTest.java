@@ -0,0 +1,71 @@
+package analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import knowledge.CausalGraph;
+import knowledge.CausalGraphLoader;
+import knowledge.Event;
+import knowledge.EventType;
+import org.junit.jupiter.api.Test;
+
+class ReleaseScenarioPrecomputerTest {
+    @Test
+    void answersMatchingHeadlinesFromPrecomputedScenarios() {
+        CausalGraph graph = CausalGraphLoader.loadFromResource("/causal_graph.json");
+        RuleBasedEventClassifier classifier = RuleBasedEventClassifier.fromResources(graph, "/entity_aliases.json");
+        CausalPropagationEngine propagation = new CausalPropagationEngine(graph);
+        ExplanationSynthesizer synthesizer = new ExplanationSynthesizer();
+        RecommendationEngine recommendations =
+            new RecommendationEngine(new HeliosAnalyzer(classifier, propagation, synthesizer));
+        ReleaseScenarioPrecomputer precomputer =
+            new ReleaseScenarioPrecomputer(classifier, propagation, synthesizer, recommendations);
+
+        Instant releaseTime = Instant.parse("2024-06-19T06:00:00Z");
+        Event release = new Event(UUID.randomUUID(), EventType.MACRO, releaseTime, "UK CPI y/y");
+        Map<ScenarioOutcome, ReleaseScenario> scenarios = precomputer.precompute(release);
+
+        assertEquals("BUY", action(scenarios.get(ScenarioOutcome.ABOVE_CONSENSUS), "Banks"));
+        assertEquals("SELL", action(scenarios.get(ScenarioOutcome.BELOW_CONSENSUS), "Banks"));
+        assertEquals("BUY", action(scenarios.get(ScenarioOutcome.BELOW_CONSENSUS), "Housebuilders"));
+        assertTrue(scenarios.get(ScenarioOutcome.IN_LINE).recommendations().isEmpty());
+
+        ReleaseResolution hot = precomputer.resolve(release, "UK inflation hotter than expected at 3.1%");
+        assertTrue(hot.precomputed());
+        assertEquals(ScenarioOutcome.ABOVE_CONSENSUS, hot.outcome());
+        assertEquals(scenarios.get(ScenarioOutcome.ABOVE_CONSENSUS).recommendations(), hot.recommendations());
+
+        ReleaseResolution unrelated = precomputer.resolve(release, "Tesco misses on margins");
+        assertFalse(unrelated.precomputed());
+
+        assertEquals(1, precomputer.evictReleasedBefore(releaseTime.plusSeconds(1)));
+        assertFalse(precomputer.isPrecomputed(release.getId()));
+    }
+
+    @Test
+    void resolvesOutcomesOnWholeWordsAndSkipsNegatedOrConflictingCues() {
+        assertEquals(ScenarioOutcome.BELOW_CONSENSUS, ScenarioOutcome.fromHeadline("Inflation below expectations as BoE hikes"));
+        assertEquals(ScenarioOutcome.ABOVE_CONSENSUS, ScenarioOutcome.fromHeadline("Rates unchanged but CPI above expectations"));
+        assertEquals(ScenarioOutcome.IN_LINE, ScenarioOutcome.fromHeadline("UK CPI as expected; Fed hikes later"));
+        assertEquals(ScenarioOutcome.ABOVE_CONSENSUS, ScenarioOutcome.fromHeadline("BoE hikes to 5.25%"));
+        assertEquals(ScenarioOutcome.BELOW_CONSENSUS, ScenarioOutcome.fromHeadline("Payrolls miss: jobs growth misses forecasts"));
+
+        assertEquals(null, ScenarioOutcome.fromHeadline("Minister dismisses inflation fears"));
+        assertEquals(null, ScenarioOutcome.fromHeadline("Heartbeats and headlines: a market diary"));
+        assertEquals(null, ScenarioOutcome.fromHeadline("Wage growth not higher than expected"));
+        assertEquals(null, ScenarioOutcome.fromHeadline("Headline CPI above expectations, core below expectations"));
+        assertEquals(ScenarioOutcome.IN_LINE, ScenarioOutcome.fromHeadline("GDP no surprise rise, in line with forecasts"));
+    }
+
+    private static String action(ReleaseScenario scenario, String entity) {
+        return scenario.recommendations().stream()
+            .filter(recommendation -> recommendation.entity().equals(entity))
+            .findFirst()
+            .orElseThrow()
+            .action();
+    }
+}
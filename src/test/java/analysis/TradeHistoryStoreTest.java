@@ -0,0 +1,47 @@
+package analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TradeHistoryStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void pagesFullHistoryBySymbolAcrossReopen() {
+        try (TradeHistoryStore store = TradeHistoryStore.open(directory, 4)) {
+            TradingLedger ledger = new TradingLedger(1_000_000.0, store);
+            for (int i = 0; i < 30; i++) {
+                String symbol = i % 3 == 0 ? "AAA" : "BBB";
+                ledger.execute(new TradeTicket(symbol, TradeSide.BUY, 1, 10.0 + i, "note " + i, "", "story " + i));
+            }
+        }
+
+        try (TradeHistoryStore store = TradeHistoryStore.open(directory, 4)) {
+            TradingLedger ledger = new TradingLedger(1_000_000.0, store);
+
+            TradeHistoryPage firstPage = ledger.history(null, 4, "aaa");
+            assertEquals(10, firstPage.totalTrades());
+            assertEquals("TRD-28", firstPage.trades().get(0).tradeId());
+            assertEquals("note 27", firstPage.trades().get(0).note());
+            assertEquals("story 27", firstPage.trades().get(0).storyTitle());
+            assertEquals("TRD-19", firstPage.nextBefore());
+
+            TradeHistoryPage lastPage = ledger.history("TRD-7", 4, "AAA");
+            assertEquals(2, lastPage.trades().size());
+            assertEquals("TRD-1", lastPage.trades().get(1).tradeId());
+            assertNull(lastPage.nextBefore());
+
+            TradeExecutionResult result = ledger.execute(new TradeTicket("AAA", TradeSide.SELL, 10, 50.0, "exit", "", ""));
+            assertEquals("TRD-31", result.trade().tradeId());
+            assertEquals(4, result.portfolio().recentTrades().size());
+            assertEquals(1, result.portfolio().positions().size());
+            assertEquals("note 0", ledger.history("TRD-2", 1, "").trades().get(0).note());
+            assertEquals("exit", ledger.history(null, 1, "AAA").trades().get(0).note());
+        }
+    }
+}
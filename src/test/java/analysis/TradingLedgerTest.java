@@ -3,6 +3,9 @@ package analysis;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.ArrayList;
+import java.util.List;
+import knowledge.PriceTick;
 import org.junit.jupiter.api.Test;
 
 class TradingLedgerTest {
@@ -34,4 +37,130 @@ class TradingLedgerTest {
             () -> ledger.execute(new TradeTicket("ABC", TradeSide.SELL, 50, 55.0, "oversell", "", ""))
         );
     }
+
+    @Test
+    void rollsBackTradesTheHistoryRefuses() {
+        TradeHistoryStore history = TradeHistoryStore.inMemory(16);
+        TradingLedger ledger = new TradingLedger(10_000.0, history);
+        ledger.execute(new TradeTicket("ABC", TradeSide.BUY, 10, 50.0, "entry", "", ""));
+        // A trade the ledger did not make puts the history a sequence number ahead, so its next append is refused.
+        history.append(new ExecutedTrade("TRD-2", "2024-03-01T12:00:00Z", "XYZ", TradeSide.BUY, 1, 10.0, 10.0, "", "", 0.0, 0.0));
+
+        assertThrows(
+            IllegalStateException.class,
+            () -> ledger.execute(new TradeTicket("ABC", TradeSide.SELL, 5, 60.0, "trim", "", ""))
+        );
+        assertThrows(
+            IllegalStateException.class,
+            () -> ledger.executeBatch(List.of(
+                new TradeTicket("ABC", TradeSide.BUY, 10, 60.0, "add", "", ""),
+                new TradeTicket("XYZ", TradeSide.BUY, 5, 100.0, "new", "", "")
+            ))
+        );
+
+        PortfolioView unchanged = ledger.snapshot();
+        assertEquals(9_500.0, unchanged.cash());
+        assertEquals(0.0, unchanged.realizedPnl());
+        assertEquals(1, unchanged.positions().size());
+        assertEquals(10, unchanged.positions().get(0).quantity());
+        assertEquals(50.0, unchanged.positions().get(0).averagePrice());
+    }
+
+    @Test
+    void rollsBackWholeBatchWhenOneTradeFails() {
+        TradingLedger ledger = new TradingLedger(10_000.0);
+        ledger.execute(new TradeTicket("ABC", TradeSide.BUY, 10, 50.0, "entry", "", ""));
+
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> ledger.executeBatch(List.of(
+                new TradeTicket("ABC", TradeSide.BUY, 10, 60.0, "add", "", ""),
+                new TradeTicket("XYZ", TradeSide.BUY, 5, 100.0, "new", "", ""),
+                new TradeTicket("ABC", TradeSide.SELL, 50, 55.0, "oversell", "", "")
+            ))
+        );
+
+        PortfolioView unchanged = ledger.snapshot();
+        assertEquals(9_500.0, unchanged.cash());
+        assertEquals(1, unchanged.positions().size());
+        assertEquals(10, unchanged.positions().get(0).quantity());
+        assertEquals(50.0, unchanged.positions().get(0).averagePrice());
+
+        TradeBatchResult result = ledger.executeBatch(List.of(
+            new TradeTicket("ABC", TradeSide.SELL, 10, 55.0, "exit", "", ""),
+            new TradeTicket("XYZ", TradeSide.BUY, 5, 100.0, "new", "", "")
+        ));
+        assertEquals("TRD-2", result.trades().get(0).tradeId());
+        assertEquals("TRD-3", result.trades().get(1).tradeId());
+        assertEquals(9_550.0, result.portfolio().cash());
+        assertEquals(50.0, result.portfolio().realizedPnl());
+    }
+
+    @Test
+    void aBasketWiderThanTheOrderRateGoesThroughAsOneOrder() {
+        // The web server's limits: a 20-order bucket, while a basket may hold up to 500 names.
+        RiskLimits limits = new RiskLimits(50_000.0, 75_000.0, 250_000.0, 0.8, 20.0);
+        TradingLedger ledger = new TradingLedger(100_000.0, TradeHistoryStore.inMemory(64), limits);
+        List<TradeTicket> basket = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            basket.add(new TradeTicket("SYM" + i, TradeSide.BUY, 10, 20.0, "basket", "", ""));
+        }
+
+        TradeBatchResult result = ledger.executeBatch(basket);
+
+        assertEquals(50, result.trades().size());
+        assertEquals(90_000.0, result.portfolio().cash());
+        assertEquals(0L, ledger.riskReport().rejectionsByRule().get(RiskRule.ORDER_RATE));
+    }
+
+    @Test
+    void marksPositionsToLatestTickInBatch() {
+        TradingLedger ledger = new TradingLedger(10_000.0);
+        ledger.execute(new TradeTicket("ABC", TradeSide.BUY, 10, 100.0, "entry", "", ""));
+
+        int updated = ledger.markToMarket(List.of(
+            new PriceTick("abc", 104.0, 2_000L),
+            new PriceTick("ABC", 110.0, 3_000L),
+            new PriceTick("ABC", 90.0, 1_000L),
+            new PriceTick("XYZ", 5.0, 3_000L)
+        ));
+        assertEquals(1, updated);
+        assertEquals(100.0, ledger.snapshot().unrealizedPnl());
+
+        ledger.markToMarket(List.of(new PriceTick("ABC", 95.0, 2_500L)));
+        assertEquals(10_100.0, ledger.snapshot().equity());
+    }
+
+    @Test
+    void rejectsTradesThatBreachRiskLimitsAndCountsByRule() {
+        RiskLimits limits = new RiskLimits(5_000.0, 6_000.0, 8_000.0, 0.5, 1_000.0);
+        TradingLedger ledger = new TradingLedger(10_000.0, TradeHistoryStore.inMemory(16), limits);
+
+        RiskRejectedException notional = assertThrows(
+            RiskRejectedException.class,
+            () -> ledger.execute(new TradeTicket("ABC", TradeSide.BUY, 60, 100.0, "", "", ""))
+        );
+        assertEquals(RiskRule.MAX_ORDER_NOTIONAL, notional.rule());
+
+        ledger.execute(new TradeTicket("ABC", TradeSide.BUY, 40, 100.0, "", "", ""));
+        RiskRejectedException concentration = assertThrows(
+            RiskRejectedException.class,
+            () -> ledger.execute(new TradeTicket("ABC", TradeSide.BUY, 15, 100.0, "", "", ""))
+        );
+        assertEquals(RiskRule.CONCENTRATION, concentration.rule());
+
+        ledger.execute(new TradeTicket("XYZ", TradeSide.BUY, 40, 100.0, "", "", ""));
+        RiskRejectedException gross = assertThrows(
+            RiskRejectedException.class,
+            () -> ledger.execute(new TradeTicket("QQQ", TradeSide.BUY, 1, 1.0, "", "", ""))
+        );
+        assertEquals(RiskRule.GROSS_EXPOSURE, gross.rule());
+
+        ledger.execute(new TradeTicket("ABC", TradeSide.SELL, 40, 100.0, "", "", ""));
+        RiskReport report = ledger.riskReport();
+        assertEquals(1L, report.rejectionsByRule().get(RiskRule.MAX_ORDER_NOTIONAL));
+        assertEquals(1L, report.rejectionsByRule().get(RiskRule.CONCENTRATION));
+        assertEquals(1L, report.rejectionsByRule().get(RiskRule.GROSS_EXPOSURE));
+        assertEquals(4_000.0, report.grossExposure());
+    }
 }
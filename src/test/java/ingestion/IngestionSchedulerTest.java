@@ -0,0 +1,149 @@
+package ingestion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import util.JsonlStore;
+
+class IngestionSchedulerTest {
+    private final AtomicInteger slowActive = new AtomicInteger();
+    private final AtomicInteger slowMaxActive = new AtomicInteger();
+    private final AtomicInteger slowRuns = new AtomicInteger();
+    private final AtomicInteger brokenRuns = new AtomicInteger();
+    private final AtomicInteger feedVersion = new AtomicInteger();
+
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/slow", exchange -> {
+            slowMaxActive.accumulateAndGet(slowActive.incrementAndGet(), Math::max);
+            slowRuns.incrementAndGet();
+            try {
+                Thread.sleep(250);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            slowActive.decrementAndGet();
+            respond(exchange, 200, "<rss><channel></channel></rss>");
+        });
+        server.createContext("/broken", exchange -> {
+            brokenRuns.incrementAndGet();
+            respond(exchange, 503, "down");
+        });
+        server.createContext("/news", exchange -> respond(
+            exchange,
+            200,
+            "<rss><channel><item><title>Story " + feedVersion.incrementAndGet() + "</title></item></channel></rss>"
+        ));
+        server.createContext("/busy", exchange -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "<rss><channel><item><title>Busy " + exchange.getRequestURI() + "</title></item></channel></rss>");
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void runsEachSourceOnItsOwnCadenceWithoutOverlapAndBacksOffFailures(@TempDir Path directory) throws Exception {
+        Path output = directory.resolve("events.jsonl");
+        RssIngestionService service = new RssIngestionService(new JsonlStore(), Duration.ofSeconds(2), Duration.ofSeconds(2));
+        IngestionScheduler scheduler =
+            new IngestionScheduler(service, 1, 8, Duration.ofMillis(400), Duration.ofMillis(200));
+        try {
+            scheduler.addSource(uri("/slow"), output, Duration.ofMillis(20), Duration.ZERO);
+            scheduler.addSource(uri("/broken"), output, Duration.ofMillis(20), Duration.ZERO);
+            scheduler.addSource(uri("/news"), output, Duration.ofMillis(50), Duration.ofMillis(10));
+            Thread.sleep(1_500);
+
+            assertEquals(1, slowMaxActive.get());
+            assertTrue(slowRuns.get() >= 3, "slow runs " + slowRuns.get());
+
+            // Without backoff a 20 ms cadence would have produced ~70 attempts in this window.
+            SourceSchedule broken = scheduler.schedule(uri("/broken"));
+            assertTrue(brokenRuns.get() < 15, "broken runs " + brokenRuns.get());
+            assertTrue(broken.consecutiveFailures() >= 3 && broken.consecutiveFailures() <= brokenRuns.get());
+            assertEquals("HTTP 503", broken.lastError());
+            assertNull(broken.lastSuccessAt());
+
+            SourceSchedule news = scheduler.schedule(uri("/news"));
+            assertNotNull(news.lastSuccessAt());
+            assertNotNull(news.nextRunAt());
+            assertEquals(0, news.consecutiveFailures());
+            assertTrue(news.recordsIngested() >= 5, news.toString());
+            assertEquals(3, scheduler.schedules().size());
+
+            assertTrue(scheduler.removeSource(uri("/news")));
+            long written = Files.lines(output).count();
+            assertTrue(written >= news.recordsIngested());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void checkpointsWhileFetchesKeepOverlapping(@TempDir Path directory) throws Exception {
+        Path state = directory.resolve("state");
+        RssIngestionService service =
+            new RssIngestionService(new JsonlStore(), Duration.ofSeconds(2), Duration.ofSeconds(2), state);
+        IngestionScheduler scheduler =
+            new IngestionScheduler(service, 2, 32, Duration.ofMillis(400), Duration.ofMillis(200));
+        try {
+            // Feeds that each hold a fetch open almost all the time, so some run is always in flight.
+            for (int i = 0; i < 32; i++) {
+                scheduler.addSource(uri("/busy?feed=" + i), directory.resolve("events.jsonl"), Duration.ofMillis(10), Duration.ZERO);
+            }
+            Path validators = state.resolve("feed-validators.json");
+            long deadline = System.nanoTime() + Duration.ofMillis(1_500).toNanos();
+            while (!Files.exists(validators) && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+
+            // Waiting for a gap in the traffic would have taken the full 8 s lock timeout, and then been skipped.
+            assertTrue(Files.exists(validators), "checkpoint starved by in-flight fetches");
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
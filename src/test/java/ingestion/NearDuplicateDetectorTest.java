@@ -0,0 +1,65 @@
+package ingestion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class NearDuplicateDetectorTest {
+    private static final String WIRE =
+        "Bank of England raises interest rates to 5.25% as inflation stays stubbornly high. The Monetary Policy "
+            + "Committee voted six to three for the increase, the fourteenth in a row, and warned that further "
+            + "tightening may be needed if price pressures persist.";
+
+    @Test
+    void clustersRewordedCopiesUnderTheFirstStory() {
+        NearDuplicateDetector detector = new NearDuplicateDetector();
+
+        DuplicateCheck first = detector.check("bbc", WIRE);
+        DuplicateCheck reworded = detector.check(
+            "rss-1",
+            WIRE.replace("stubbornly high", "stubborn").replace("warned that", "said")
+        );
+        DuplicateCheck retitled = detector.check(
+            "rss-2",
+            "UK rates rise again. " + WIRE.replace("Bank of England", "The Bank of England")
+        );
+
+        assertFalse(first.duplicate());
+        assertTrue(reworded.duplicate());
+        assertEquals("bbc", reworded.leaderKey());
+        assertTrue(reworded.similarity() >= 0.7);
+        assertEquals("bbc", retitled.leaderKey());
+    }
+
+    @Test
+    void keepsDifferentStoriesApart() {
+        NearDuplicateDetector detector = new NearDuplicateDetector();
+
+        detector.check("rise", "Brent crude oil prices surge after OPEC cuts output");
+        DuplicateCheck fall = detector.check("fall", "Oil prices slump as demand outlook weakens in China");
+        DuplicateCheck rates = detector.check("rates", WIRE);
+
+        assertFalse(fall.duplicate());
+        assertFalse(rates.duplicate());
+        assertFalse(detector.check("empty", "  --  ").duplicate());
+        assertFalse(detector.check("also-empty", "").duplicate());
+    }
+
+    @Test
+    void answersRepeatedKeysConsistentlyAndForgetsBeyondCapacity() {
+        NearDuplicateDetector detector = new NearDuplicateDetector(0.7, 2);
+
+        detector.check("a", WIRE);
+        assertEquals("a", detector.check("b", WIRE).leaderKey());
+        assertEquals("a", detector.check("b", "unrelated text now").leaderKey());
+
+        detector.check("c", "Supermarket sales climb over the holiday period");
+        assertEquals(2, detector.size());
+        // The leader "a" has been evicted, so the same text now starts a new cluster.
+        assertEquals("d", detector.check("d", WIRE).leaderKey());
+        assertThrows(IllegalArgumentException.class, () -> new NearDuplicateDetector(0.0, 10));
+    }
+}
@@ -0,0 +1,83 @@
+package ingestion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import knowledge.Event;
+import knowledge.EventType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReleaseSchedulerTest {
+    @Test
+    void streamsQuotedCalendarRows(@TempDir Path directory) throws IOException {
+        Path csv = directory.resolve("calendar.csv");
+        Files.writeString(csv, """
+            timestamp,description
+            # provisional
+            2024-06-12T12:30:00,"US CPI, core ""ex food"" y/y"\r
+            2024-06-12T18:00:00,"FOMC statement
+            and projections"
+
+            2024-06-13T08:00:00,UK GDP m/m,flash
+            """, StandardCharsets.UTF_8);
+
+        List<Event> events = new ArrayList<>();
+        int count = new EconomicCalendarIngestionService().stream(csv, events::add);
+
+        assertEquals(3, count);
+        assertEquals("US CPI, core \"ex food\" y/y", events.get(0).getRawText());
+        assertEquals(Instant.parse("2024-06-12T12:30:00Z"), events.get(0).getTimestamp());
+        assertEquals("FOMC statement\nand projections", events.get(1).getRawText());
+        assertEquals("UK GDP m/m,flash", events.get(2).getRawText());
+    }
+
+    @Test
+    void firesReleasesInTimeOrderAtTheirScheduledInstant() throws InterruptedException {
+        BlockingQueue<Event> fired = new LinkedBlockingQueue<>();
+        List<Long> lateness = new ArrayList<>();
+        try (ReleaseScheduler scheduler = new ReleaseScheduler(event -> {
+            synchronized (lateness) {
+                lateness.add(Duration.between(event.getTimestamp(), Instant.now()).toMillis());
+            }
+            fired.add(event);
+        })) {
+            Instant now = Instant.now();
+            Event later = release(now.plusMillis(400), "later");
+            Event sooner = release(now.plusMillis(150), "sooner");
+            Event cancelled = release(now.plusMillis(250), "cancelled");
+
+            assertTrue(scheduler.schedule(later));
+            assertTrue(scheduler.schedule(sooner));
+            assertTrue(scheduler.schedule(cancelled));
+            assertFalse(scheduler.schedule(release(now.minusSeconds(1), "stale")));
+            assertEquals(List.of(sooner, cancelled, later), scheduler.upcoming(10));
+            assertTrue(scheduler.cancel(cancelled.getId()));
+
+            assertEquals("sooner", fired.poll(2, TimeUnit.SECONDS).getRawText());
+            assertEquals("later", fired.poll(2, TimeUnit.SECONDS).getRawText());
+            assertEquals(null, fired.poll(200, TimeUnit.MILLISECONDS));
+            assertEquals(0, scheduler.pending());
+            synchronized (lateness) {
+                assertTrue(lateness.stream().allMatch(millis -> millis >= 0 && millis < 250), lateness.toString());
+            }
+        }
+    }
+
+    private static Event release(Instant at, String description) {
+        return new Event(UUID.randomUUID(), EventType.MACRO, at, description);
+    }
+}
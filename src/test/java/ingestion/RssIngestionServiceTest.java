@@ -0,0 +1,179 @@
+package ingestion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import util.JsonlStore;
+
+class RssIngestionServiceTest {
+    private static final String FEED = """
+        <?xml version="1.0"?>
+        <rss version="2.0"><channel>
+          <item><title>Rates rise</title><description>Bank of England moves</description></item>
+          <item><title>Oil slips</title><description>Brent falls</description></item>
+        </channel></rss>
+        """;
+    private static final String ATOM = """
+        <?xml version="1.0" encoding="utf-8"?>
+        <feed xmlns="http://www.w3.org/2005/Atom">
+          <title>Markets</title>
+          <entry>
+            <title>Gilts rally</title>
+            <id>urn:uuid:1225c695</id>
+            <link rel="self" href="https://example.com/self"/>
+            <link href="https://example.com/gilts"/>
+            <published>2024-05-01T07:30:00Z</published>
+            <summary type="xhtml"><div>Yields <b>fall</b></div></summary>
+            <source><id>urn:other</id><title>Wire</title></source>
+          </entry>
+        </feed>
+        """;
+    private static final String XXE = """
+        <?xml version="1.0"?>
+        <!DOCTYPE rss [<!ENTITY xxe SYSTEM "file:///etc/hostname">]>
+        <rss version="2.0"><channel><item><title>&xxe;</title></item></channel></rss>
+        """;
+
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/good", exchange -> respond(exchange, 200, FEED));
+        server.createContext("/atom", exchange -> respond(exchange, 200, ATOM));
+        server.createContext("/xxe", exchange -> respond(exchange, 200, XXE));
+        server.createContext("/etag", exchange -> {
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            respond(exchange, 200, FEED);
+        });
+        server.createContext("/broken", exchange -> respond(exchange, 500, "down"));
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(3_000);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, FEED);
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void isolatesSlowAndBrokenSourcesFromHealthyOnes() {
+        RssIngestionService service = new RssIngestionService(new JsonlStore(), Duration.ofSeconds(1), Duration.ofMillis(500));
+        List<URI> sources = List.of(uri("/slow"), uri("/good"), uri("/broken"), uri("/good?mirror=1"));
+
+        long started = System.nanoTime();
+        List<SourceFetchResult> results = service.pollSources(sources);
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - started).toMillis();
+
+        assertEquals(4, results.size());
+        assertFalse(results.get(0).succeeded());
+        assertTrue(results.get(0).error().startsWith("Timed out") || results.get(0).error().contains("timed out"));
+        assertEquals(2, results.get(1).records().size());
+        assertEquals("Rates rise", results.get(1).records().get(0).title());
+        assertEquals("HTTP 500", results.get(2).error());
+        assertTrue(results.get(3).succeeded());
+        assertTrue(elapsedMillis < 2_500, "poll took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void streamsAtomEntriesAndRefusesExternalEntities() {
+        RssIngestionService service = new RssIngestionService(new JsonlStore());
+        List<SourceFetchResult> results = service.pollSources(List.of(uri("/atom"), uri("/xxe")));
+
+        RawEventRecord entry = results.get(0).records().get(0);
+        assertEquals("Gilts rally", entry.title());
+        assertEquals("urn:uuid:1225c695", entry.guid());
+        assertEquals("https://example.com/gilts", entry.link());
+        assertEquals(Instant.parse("2024-05-01T07:30:00Z"), entry.timestamp());
+        assertEquals("Gilts rally\nYields fall", entry.rawText());
+
+        SourceFetchResult hostile = results.get(1);
+        assertTrue(hostile.records().stream().allMatch(record -> record.title().isEmpty()), hostile.toString());
+    }
+
+    @Test
+    void skipsUnchangedFeedsAndItemsSeenBeforeARestart(@TempDir Path state) {
+        List<URI> sources = List.of(uri("/etag"), uri("/good"));
+        RssIngestionService first = new RssIngestionService(new JsonlStore(), Duration.ofSeconds(2), Duration.ofSeconds(2), state);
+        List<SourceFetchResult> initial = first.pollSources(sources);
+        assertEquals(2, initial.get(0).records().size());
+        assertEquals(2, initial.get(1).records().size());
+        for (SourceFetchResult result : initial) {
+            first.persist(state.resolve("events.jsonl"), result);
+        }
+
+        RssIngestionService restarted = new RssIngestionService(new JsonlStore(), Duration.ofSeconds(2), Duration.ofSeconds(2), state);
+        List<SourceFetchResult> again = restarted.pollSources(sources);
+        assertTrue(again.get(0).notModified());
+        assertEquals(List.of(), again.get(1).records());
+        assertEquals(2, again.get(1).duplicates());
+    }
+
+    @Test
+    void itemsStayUnseenUntilTheirRecordsArePersisted(@TempDir Path state) throws IOException {
+        List<URI> sources = List.of(uri("/etag"), uri("/good"));
+        RssIngestionService service = new RssIngestionService(new JsonlStore(), Duration.ofSeconds(2), Duration.ofSeconds(2), state);
+        Path unwritable = Files.createDirectories(state.resolve("events.jsonl"));
+
+        for (SourceFetchResult result : service.pollSources(sources)) {
+            assertThrows(RuntimeException.class, () -> service.persist(unwritable, result));
+        }
+
+        // The failed append committed nothing, so the items come back and the feed is not answered with a 304.
+        List<SourceFetchResult> retried = service.pollSources(sources);
+        assertFalse(retried.get(0).notModified());
+        assertEquals(2, retried.get(0).records().size());
+        assertEquals(2, retried.get(1).records().size());
+
+        List<RawEventRecord> persisted = service.poll(sources, state.resolve("persisted.jsonl"));
+        assertEquals(4, persisted.size());
+        assertEquals(4, Files.readAllLines(state.resolve("persisted.jsonl")).size());
+        assertTrue(service.pollSources(sources).get(0).notModified());
+        assertEquals(List.of(), service.poll(sources, state.resolve("persisted.jsonl")));
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
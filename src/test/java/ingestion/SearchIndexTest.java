@@ -0,0 +1,123 @@
+package ingestion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SearchIndexTest {
+    private static final Instant NOW = Instant.now();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void answersBooleanAndPhraseQueries() {
+        SearchIndex index = SearchIndex.inMemory();
+        index.add(event("1", "Bank of England raises interest rates", "Mortgage rates are expected to follow the base rate higher."));
+        index.add(event("2", "Housebuilders slide", "Interest in new homes fell as mortgage costs climbed."));
+        index.add(event("3", "Oil jumps", "Brent crude rose after OPEC cut output; rates traders shrugged."));
+        index.add(event("4", "Rates on hold", "The Bank of England kept interest rates on hold."));
+
+        assertEquals(List.of("1", "4"), keys(index.search("\"interest rates\"", 10, false)).stream().sorted().toList());
+        assertEquals(List.of("1", "2", "4"), keys(index.search("mortgage OR \"bank of england\"", 10, true)).stream().sorted().toList());
+        assertEquals(List.of("1"), keys(index.search("rates AND mortgage -hold", 10, false)));
+        assertEquals(List.of("3"), keys(index.search("rates NOT (bank OR mortgage)", 10, false)));
+        assertEquals(0, index.search("\"rates interest\"", 10, false).totalMatches());
+        assertEquals(0, index.search("gilts", 10, false).totalMatches());
+        assertThrows(IllegalArgumentException.class, () -> index.search("-rates", 10, false));
+        assertThrows(IllegalArgumentException.class, () -> index.search("(rates", 10, false));
+    }
+
+    @Test
+    void ranksByTermWeightAndRecency() {
+        SearchIndex index = SearchIndex.inMemory();
+        index.add(event("rare", "Gilt yields", "Gilt auction demand was weak.", NOW.minusSeconds(3_600)));
+        index.add(event("common", "Markets", "Markets were mixed and markets closed flat.", NOW.minusSeconds(3_600)));
+        index.add(event("old", "Gilt yields", "Gilt auction demand was weak.", NOW.minusSeconds(365L * 24 * 3_600)));
+        for (int i = 0; i < 20; i++) {
+            index.add(event("filler" + i, "Markets today", "Stocks and markets moved.", NOW.minusSeconds(7_200)));
+        }
+
+        SearchResults results = index.search("gilt OR markets", 3, false);
+        assertEquals(23, results.totalMatches());
+        assertEquals(List.of("rare", "old"), keys(results).subList(0, 2));
+        assertTrue(results.hits().get(0).score() > results.hits().get(1).score());
+        assertEquals("rare", keys(index.search("gilt", 1, true)).get(0));
+    }
+
+    @Test
+    void replacesChangedDocumentsAndSurvivesRestart() throws IOException {
+        NewsStory story = new NewsStory("abc", "Retailer warns on profits", "Short summary.", "https://example.com/a",
+            "2024-06-01T09:00:00Z", "BBC News", "NEXT.L");
+        try (SearchIndex index = SearchIndex.open(directory)) {
+            assertTrue(index.add(story));
+            assertFalse(index.add(story));
+            assertTrue(index.add(new StoryDetail("abc", "Retailer warns on profits", "Weaker consumer demand hit margins.",
+                "https://example.com/a", "2024-06-01T10:00:00Z", "BBC News", "NEXT.L")));
+            assertEquals(1, index.size());
+            assertEquals(0, index.search("summary", 10, false).totalMatches());
+            assertEquals("2024-06-01T09:00:00Z", index.search("margins", 10, false).hits().get(0).publishedAt());
+            index.checkpoint();
+            index.add(event("late", "Added after the snapshot", "Consumer confidence improved."));
+        }
+        // A torn append after the last record must not lose anything that was complete.
+        Files.write(directory.resolve("documents.log"), new byte[] {0, 0, 1}, StandardOpenOption.APPEND);
+
+        try (SearchIndex reopened = SearchIndex.open(directory)) {
+            assertEquals(2, reopened.size());
+            assertEquals(List.of("event:test\nlate", "story:abc"),
+                reopened.search("consumer", 10, false).hits().stream().map(SearchHit::key).sorted().toList());
+            SearchHit story1 = reopened.search("\"weaker consumer demand\"", 10, false).hits().get(0);
+            assertEquals("https://example.com/a", story1.url());
+            assertEquals("Weaker consumer demand hit margins.", story1.snippet());
+        }
+    }
+
+    @Test
+    void keepsIndexingWhileACheckpointIsWritten() throws Exception {
+        int documents = 20_000;
+        try (SearchIndex index = SearchIndex.open(directory)) {
+            for (int i = 0; i < documents / 2; i++) {
+                index.add(event("seed" + i, "Seed story " + i, "Sterling traded near recent highs in session " + i + "."));
+            }
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < documents / 2; i++) {
+                    index.add(event("live" + i, "Live story " + i, "Sterling traded near recent highs in session " + i + "."));
+                }
+            });
+            writer.start();
+            while (writer.isAlive()) {
+                index.checkpoint();
+            }
+            writer.join();
+        }
+
+        try (SearchIndex reopened = SearchIndex.open(directory)) {
+            assertEquals(documents, reopened.size());
+            assertEquals(documents, reopened.search("\"near recent highs\"", 10, false).totalMatches());
+            assertEquals(2, reopened.search("\"session 1234\"", 10, false).totalMatches());
+        }
+    }
+
+    private static RawEventRecord event(String id, String title, String text) {
+        return event(id, title, text, NOW);
+    }
+
+    private static RawEventRecord event(String id, String title, String text, Instant timestamp) {
+        return new RawEventRecord("test", title, text, timestamp, id, null);
+    }
+
+    private static List<String> keys(SearchResults results) {
+        return results.hits().stream().map(hit -> hit.key().substring("event:test\n".length())).toList();
+    }
+}
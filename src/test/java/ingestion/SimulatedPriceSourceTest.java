@@ -0,0 +1,45 @@
+package ingestion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import knowledge.PriceTick;
+import org.junit.jupiter.api.Test;
+
+class SimulatedPriceSourceTest {
+    // Four polls a second, as the server schedules them.
+    private static final int POLLS_PER_HOUR = 4 * 60 * 60;
+
+    @Test
+    void pricesStayBoundedOverASimulatedHour() {
+        SimulatedPriceSource source = new SimulatedPriceSource(Map.of("BP.L", 4.5, "SHEL.L", 25.0), 0.0005, 7L);
+        source.track("hsba.l", 6.5);
+
+        for (int poll = 0; poll < POLLS_PER_HOUR; poll++) {
+            List<PriceTick> ticks = source.poll(50_000);
+            assertEquals(3, ticks.size());
+            for (PriceTick tick : ticks) {
+                double reference = switch (tick.getSymbol()) {
+                    case "BP.L" -> 4.5;
+                    case "SHEL.L" -> 25.0;
+                    default -> 6.5;
+                };
+                double ratio = tick.getPrice() / reference;
+                assertTrue(ratio > 0.5 && ratio < 2.0, tick.getSymbol() + " at " + tick.getPrice());
+            }
+        }
+    }
+
+    @Test
+    void extremeVolatilityIsClampedInsteadOfKillingTheFeed() {
+        SimulatedPriceSource source = new SimulatedPriceSource(Map.of("PENNY", 0.02), 5.0, 11L);
+
+        for (int poll = 0; poll < 10_000; poll++) {
+            PriceTick tick = source.poll(10).get(0);
+            assertTrue(tick.getPrice() >= 0.01 && tick.getPrice() <= 0.2, "price " + tick.getPrice());
+        }
+        assertTrue(source.poll(0).isEmpty());
+    }
+}
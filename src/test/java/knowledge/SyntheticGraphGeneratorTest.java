@@ -0,0 +1,161 @@
+package knowledge;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SyntheticGraphGeneratorTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writesAGraphTheLoaderReadsBackIdentically() {
+        SyntheticGraphGenerator generator = new SyntheticGraphGenerator(SyntheticGraphSpec.of(2_000, 7L));
+        Path file = tempDir.resolve("causal_graph.json");
+
+        generator.write(file);
+        CausalGraph loaded = CausalGraphLoader.load(file);
+        CausalGraph built = generator.build();
+
+        assertEquals(2_000, loaded.getEntities().size());
+        assertEquals(linkCount(built), linkCount(loaded));
+        for (Entity entity : built.getEntities()) {
+            Entity copy = loaded.findByCanonicalName(entity.getCanonicalName()).orElseThrow();
+            assertEquals(entity.getId(), copy.getId());
+            assertEquals(entity.getAliases(), copy.getAliases());
+            assertEquals(built.getOutgoingLinks(entity).size(), loaded.getOutgoingLinks(copy).size());
+        }
+    }
+
+    @Test
+    void sameSeedGivesTheSameGraphAndCorpus() {
+        SyntheticGraphGenerator first = new SyntheticGraphGenerator(SyntheticGraphSpec.of(1_000, 11L));
+        SyntheticGraphGenerator second = new SyntheticGraphGenerator(SyntheticGraphSpec.of(1_000, 11L));
+        SyntheticGraphGenerator other = new SyntheticGraphGenerator(SyntheticGraphSpec.of(1_000, 12L));
+
+        assertEquals(describe(first.build()), describe(second.build()));
+        assertFalse(describe(first.build()).equals(describe(other.build())));
+        assertEquals(stories(first, 50), stories(second, 50));
+    }
+
+    @Test
+    void degreesAreHeavyTailedAndCyclesFollowTheDensity() {
+        SyntheticGraphSpec acyclic = new SyntheticGraphSpec(5_000, 4.0, 2.2, 0.0, 2, 0.0, 3L);
+        CausalGraph graph = new SyntheticGraphGenerator(acyclic).build();
+
+        Map<java.util.UUID, Integer> order = new HashMap<>();
+        SyntheticGraphGenerator generator = new SyntheticGraphGenerator(acyclic);
+        for (int index = 0; index < acyclic.entities(); index++) {
+            order.put(CausalGraphLoader.stableId(generator.canonicalName(index)), index);
+        }
+        int maxDegree = 0;
+        for (Entity entity : graph.getEntities()) {
+            List<CausalLink> links = graph.getOutgoingLinks(entity);
+            maxDegree = Math.max(maxDegree, links.size());
+            for (CausalLink link : links) {
+                assertTrue(order.get(link.getTarget().getId()) > order.get(entity.getId()), "back link without cycles");
+            }
+        }
+        double mean = (double) linkCount(graph) / acyclic.entities();
+        assertTrue(mean > 2.5 && mean < 5.5, "mean out-degree " + mean);
+        assertTrue(maxDegree > 10 * mean, "max out-degree " + maxDegree);
+
+        SyntheticGraphSpec cyclic = new SyntheticGraphSpec(5_000, 4.0, 2.2, 0.3, 2, 0.0, 3L);
+        assertTrue(backLinks(new SyntheticGraphGenerator(cyclic)) > 0);
+    }
+
+    @Test
+    void collidingAliasesPointAtAnotherEntitysName() {
+        SyntheticGraphSpec spec = new SyntheticGraphSpec(2_000, 4.0, 2.5, 0.05, 3, 0.1, 5L);
+        SyntheticGraphGenerator generator = new SyntheticGraphGenerator(spec);
+        Set<String> words = new HashSet<>();
+        for (int index = 0; index < spec.entities(); index++) {
+            words.add(generator.aliases(index).get(0));
+        }
+
+        int collisions = 0;
+        for (int index = 0; index < spec.entities(); index++) {
+            List<String> aliases = generator.aliases(index);
+            String last = aliases.get(aliases.size() - 1);
+            if (!last.startsWith(aliases.get(0)) && words.contains(last)) {
+                collisions++;
+            }
+        }
+        assertTrue(collisions > 100 && collisions < 300, "collisions " + collisions);
+        assertThrows(IllegalArgumentException.class, () -> new SyntheticGraphSpec(10, 4.0, 2.0, 0.0, 2, 0.0, 1L));
+    }
+
+    @Test
+    void corpusMentionsAreFoundInTheGraph() {
+        SyntheticGraphGenerator generator = new SyntheticGraphGenerator(SyntheticGraphSpec.of(2_000, 9L));
+        CausalGraph graph = generator.build();
+        List<SyntheticStory> stories = new ArrayList<>();
+        generator.forEachStory(SyntheticCorpusSpec.of(200, 9L), stories::add);
+
+        assertEquals(200, stories.size());
+        int mentioned = 0;
+        int articles = 0;
+        for (SyntheticStory story : stories) {
+            Set<String> found = new HashSet<>();
+            for (Entity entity : graph.findEntitiesInText(story.title() + "\n" + story.body())) {
+                found.add(entity.getCanonicalName());
+            }
+            assertTrue(found.containsAll(story.mentions()), story.id() + " " + story.mentions() + " vs " + found);
+            mentioned += story.mentions().isEmpty() ? 0 : 1;
+            articles += story.body().isEmpty() ? 0 : 1;
+        }
+        assertTrue(mentioned > 150, "stories with mentions " + mentioned);
+        assertTrue(articles > 30 && articles < 90, "articles " + articles);
+    }
+
+    private static int linkCount(CausalGraph graph) {
+        int links = 0;
+        for (Entity entity : graph.getEntities()) {
+            links += graph.getOutgoingLinks(entity).size();
+        }
+        return links;
+    }
+
+    private static int backLinks(SyntheticGraphGenerator generator) {
+        Map<java.util.UUID, Integer> order = new HashMap<>();
+        for (int index = 0; index < generator.spec().entities(); index++) {
+            order.put(CausalGraphLoader.stableId(generator.canonicalName(index)), index);
+        }
+        CausalGraph graph = generator.build();
+        int back = 0;
+        for (Entity entity : graph.getEntities()) {
+            for (CausalLink link : graph.getOutgoingLinks(entity)) {
+                back += order.get(link.getTarget().getId()) < order.get(entity.getId()) ? 1 : 0;
+            }
+        }
+        return back;
+    }
+
+    private static List<String> describe(CausalGraph graph) {
+        List<String> lines = new ArrayList<>();
+        for (Entity entity : graph.getEntities()) {
+            lines.add(entity.getCanonicalName() + " " + entity.getType() + " " + entity.getAliases());
+            for (CausalLink link : graph.getOutgoingLinks(entity)) {
+                lines.add("  -> " + link.getTarget().getCanonicalName() + " " + link.getDirection() + " " + link.getStrength());
+            }
+        }
+        return lines;
+    }
+
+    private static List<SyntheticStory> stories(SyntheticGraphGenerator generator, int count) {
+        List<SyntheticStory> stories = new ArrayList<>();
+        generator.forEachStory(SyntheticCorpusSpec.of(count, 1L), stories::add);
+        return stories;
+    }
+}
@@ -0,0 +1,242 @@
+package presentation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import analysis.AnalysisExecutor;
+import analysis.AnalysisPriority;
+import analysis.AnalyzedEvent;
+import analysis.CausalPropagationEngine;
+import analysis.EventClassifier;
+import analysis.ExplanationSynthesizer;
+import analysis.HeliosAnalyzer;
+import analysis.PriorityStats;
+import analysis.RecommendationEngine;
+import analysis.RuleBasedEventClassifier;
+import ingestion.NearDuplicateDetector;
+import ingestion.RawEventRecord;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import knowledge.CausalGraph;
+import knowledge.CausalGraphLoader;
+import knowledge.Entity;
+import knowledge.EventType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import util.JsonlStore;
+import util.StageMetrics;
+
+class AnalysisPipelineTest {
+    private static final String WIRE =
+        "Bank of England raises interest rates to 5.25% as inflation stays stubbornly high. The Monetary Policy "
+            + "Committee voted six to three for the increase and warned that further tightening may be needed.";
+
+    private static final CausalGraph GRAPH = CausalGraphLoader.loadFromResource("/causal_graph.json");
+    private static final RuleBasedEventClassifier RULES =
+        RuleBasedEventClassifier.fromResources(GRAPH, "/entity_aliases.json");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void dropsRepeatsAndBlankRecordsAndFeedsEverySubscriber() throws IOException {
+        List<AnalyzedEvent> first = new CopyOnWriteArrayList<>();
+        List<AnalyzedEvent> second = new CopyOnWriteArrayList<>();
+        Path output = tempDir.resolve("analysis.jsonl");
+        List<StageMetrics> metrics;
+
+        try (JsonlStore store = new JsonlStore()) {
+            AnalysisPipeline pipeline = new AnalysisPipeline(
+                RULES,
+                new CausalPropagationEngine(GRAPH),
+                recommendations(),
+                store,
+                output,
+                2,
+                4
+            );
+            pipeline.subscribe(first::add);
+            pipeline.subscribe(second::add);
+            pipeline.submitAll(List.of(
+                record("bbc", "1", WIRE),
+                record("bbc", "1", WIRE.replace("stubbornly high", "stubborn")),
+                record("bbc", "2", "   "),
+                new RawEventRecord("ft", "Oil", "Oil prices surge amid Middle East tensions", null),
+                new RawEventRecord("ft", "Oil", "Oil prices surge amid Middle East tensions", null),
+                record("rss", "1", WIRE)
+            ));
+            pipeline.close();
+            metrics = pipeline.metrics();
+            store.flush();
+        }
+
+        // Same guid from the same source is a repeat; the same guid from another source is not, and without a
+        // detector a re-worded copy is analysed on its own.
+        assertEquals(3, first.size());
+        assertEquals(first, second);
+        assertTrue(first.stream().allMatch(event -> event.duplicateOf() == null));
+        assertEquals(List.of("bbc", "ft", "rss"), first.stream().map(AnalyzedEvent::source).sorted().toList());
+        assertEquals("dedupe", metrics.get(0).stage());
+        assertEquals(3, metrics.get(0).dropped());
+        assertEquals(3, Files.readAllLines(output).size());
+    }
+
+    @Test
+    void copyThatOvertakesItsLeaderWaitsAndReusesItsAnalysis() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        EventClassifier slowLeader = delegate(() -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        List<AnalyzedEvent> published = new CopyOnWriteArrayList<>();
+        Path output = tempDir.resolve("analysis.jsonl");
+
+        try (JsonlStore store = new JsonlStore()) {
+            AnalysisPipeline pipeline = pipeline(slowLeader, store, output);
+            pipeline.subscribe(published::add);
+            pipeline.submit(record("bbc", "1", WIRE));
+            pipeline.submit(record("rss", "2", WIRE.replace("stubbornly high", "stubborn")));
+            awaitPersisted(pipeline, 1);
+            assertTrue(published.isEmpty(), "the copy must not be published before its leader");
+
+            release.countDown();
+            pipeline.close();
+            store.flush();
+        }
+
+        assertEquals(2, published.size());
+        assertEquals("bbc", published.get(0).source());
+        assertNull(published.get(0).duplicateOf());
+        assertEquals("rss", published.get(1).source());
+        assertTrue(published.get(1).duplicateOf().startsWith("bbc: "));
+        assertEquals(published.get(0).recommendations(), published.get(1).recommendations());
+        assertEquals(2, Files.readAllLines(output).size());
+    }
+
+    @Test
+    void copiesOfAFailedLeaderAreAnalysedThemselves() throws IOException {
+        AtomicBoolean first = new AtomicBoolean(true);
+        EventClassifier failingLeader = delegate(() -> {
+            if (first.getAndSet(false)) {
+                throw new IllegalStateException("classifier unavailable");
+            }
+        });
+        List<AnalyzedEvent> published = new CopyOnWriteArrayList<>();
+        Path output = tempDir.resolve("analysis.jsonl");
+
+        try (JsonlStore store = new JsonlStore()) {
+            AnalysisPipeline pipeline = pipeline(failingLeader, store, output);
+            pipeline.subscribe(published::add);
+            pipeline.submit(record("bbc", "1", WIRE));
+            pipeline.submit(record("rss", "2", WIRE.replace("stubbornly high", "stubborn")));
+            pipeline.submit(record("ft", "3", WIRE.replace("warned that", "said")));
+            pipeline.close();
+            store.flush();
+        }
+
+        assertEquals(2, published.size());
+        assertTrue(published.stream().noneMatch(event -> event.source().equals("bbc")));
+        assertEquals(1, published.stream().filter(event -> event.duplicateOf() == null).count());
+        assertEquals(RULES.classify(WIRE).name(), published.get(0).eventType());
+        assertEquals(2, Files.readAllLines(output).size());
+    }
+
+    @Test
+    void analysisRunsOnTheSharedExecutorAsLiveFeed() throws IOException {
+        List<AnalyzedEvent> published = new CopyOnWriteArrayList<>();
+        Path output = tempDir.resolve("analysis.jsonl");
+
+        try (JsonlStore store = new JsonlStore(); AnalysisExecutor executor = new AnalysisExecutor(2)) {
+            AnalysisPipeline pipeline = new AnalysisPipeline(
+                RULES,
+                new CausalPropagationEngine(GRAPH),
+                recommendations(),
+                null,
+                null,
+                new NearDuplicateDetector(),
+                executor,
+                store,
+                output,
+                2,
+                16
+            );
+            pipeline.subscribe(published::add);
+            pipeline.submit(record("bbc", "1", WIRE));
+            pipeline.submit(record("ft", "2", "Oil prices surge amid Middle East tensions"));
+            pipeline.close();
+            store.flush();
+
+            // Two stories, each classified, propagated and recommended on the executor.
+            for (PriorityStats stats : executor.stats()) {
+                long expected = stats.priority() == AnalysisPriority.LIVE_FEED ? 6 : 0;
+                assertEquals(expected, stats.completed(), stats.priority().name());
+            }
+        }
+
+        assertEquals(2, published.size());
+    }
+
+    private static AnalysisPipeline pipeline(EventClassifier classifier, JsonlStore store, Path output) {
+        return new AnalysisPipeline(
+            classifier,
+            new CausalPropagationEngine(GRAPH),
+            recommendations(),
+            null,
+            null,
+            new NearDuplicateDetector(),
+            store,
+            output,
+            2,
+            16
+        );
+    }
+
+    private static RecommendationEngine recommendations() {
+        CausalPropagationEngine propagationEngine = new CausalPropagationEngine(GRAPH);
+        return new RecommendationEngine(new HeliosAnalyzer(RULES, propagationEngine, new ExplanationSynthesizer()));
+    }
+
+    private static EventClassifier delegate(Runnable beforeClassify) {
+        return new EventClassifier() {
+            @Override
+            public EventType classify(String rawText) {
+                beforeClassify.run();
+                return RULES.classify(rawText);
+            }
+
+            @Override
+            public Set<Entity> extractEntities(String rawText) {
+                return RULES.extractEntities(rawText);
+            }
+        };
+    }
+
+    private static RawEventRecord record(String source, String guid, String text) {
+        return new RawEventRecord(source, text.substring(0, Math.min(40, text.length())), text, Instant.parse("2024-03-01T12:00:00Z"), guid, null);
+    }
+
+    private static void awaitPersisted(AnalysisPipeline pipeline, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            for (StageMetrics metrics : pipeline.metrics()) {
+                if (metrics.stage().equals("persist") && metrics.processed() >= count) {
+                    return;
+                }
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("persist stage did not reach " + count);
+    }
+}
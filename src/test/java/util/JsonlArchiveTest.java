@@ -0,0 +1,61 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JsonlArchiveTest {
+    private static final long START = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    @TempDir
+    Path directory;
+
+    record Event(Instant at, String headline) {
+    }
+
+    @Test
+    void readsTimeWindowsAcrossRotatedCompressedSegments() throws Exception {
+        int events = 20_000;
+        try (JsonlArchive<Event> archive = open()) {
+            for (int i = 0; i < events; i++) {
+                archive.append(new Event(Instant.ofEpochMilli(START + i * 1_000L), "headline number " + i));
+            }
+            assertTrue(archive.segmentCount() > 3);
+            assertEquals(100, window(archive, 19_900, 20_000).size());
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".jsonl")));
+        }
+
+        try (JsonlArchive<Event> archive = open()) {
+            List<Event> window = window(archive, 5_000, 5_250);
+            assertEquals(250, window.size());
+            assertEquals("headline number 5000", window.get(0).headline());
+            assertEquals("headline number 5249", window.get(249).headline());
+
+            archive.append(new Event(Instant.ofEpochMilli(START - 1_000L), "late arrival"));
+            assertEquals(List.of("late arrival"), window(archive, -1, 0).stream().map(Event::headline).toList());
+            assertEquals(events + 1, window(archive, -10, events).size());
+        }
+    }
+
+    private JsonlArchive<Event> open() {
+        return JsonlArchive.open(directory, Event.class, event -> event.at().toEpochMilli(), 256 * 1024, Duration.ofHours(1));
+    }
+
+    private static List<Event> window(JsonlArchive<Event> archive, long fromSecond, long toSecond) {
+        List<Event> events = new ArrayList<>();
+        archive.read(START + fromSecond * 1_000L, START + toSecond * 1_000L, events::add);
+        return events;
+    }
+}
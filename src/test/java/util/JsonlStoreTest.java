@@ -0,0 +1,60 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JsonlStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void keepsEveryLineIntactUnderConcurrentAppenders() throws Exception {
+        Path output = directory.resolve("nested").resolve("events.jsonl");
+        int writers = 8;
+        int perWriter = 20_000;
+
+        try (JsonlStore store = new JsonlStore(4_096, Duration.ofMillis(5), FsyncPolicy.NEVER)) {
+            ExecutorService executor = Executors.newFixedThreadPool(writers);
+            for (int writer = 0; writer < writers; writer++) {
+                int id = writer;
+                executor.submit(() -> {
+                    for (int i = 0; i < perWriter; i++) {
+                        store.append(output, Map.of("writer", id, "sequence", i, "text", "headline " + i));
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        }
+
+        List<String> lines = Files.readAllLines(output);
+        assertEquals(writers * perWriter, lines.size());
+        ObjectMapper mapper = new ObjectMapper();
+        int[] lastSequence = new int[writers];
+        Arrays.fill(lastSequence, -1);
+        for (String line : lines) {
+            Map<?, ?> record = parse(mapper, line);
+            int writer = (Integer) record.get("writer");
+            int sequence = (Integer) record.get("sequence");
+            assertEquals(lastSequence[writer] + 1, sequence);
+            lastSequence[writer] = sequence;
+        }
+    }
+
+    private static Map<?, ?> parse(ObjectMapper mapper, String line) throws IOException {
+        return mapper.readValue(line, Map.class);
+    }
+}
@@ -0,0 +1,61 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class StagedPipelineTest {
+    @Test
+    void appliesBackpressureAndDrainsEverythingOnClose() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicLong sum = new AtomicLong();
+        StagedPipeline<Integer> pipeline = StagedPipeline.<Integer>builder()
+            .stage("filter", 2, 4, (Integer value) -> value % 3 == 0 ? null : value)
+            .stage("square", 3, 4, (Integer value) -> (long) value * value)
+            .sink("collect", 1, 4, (Long value) -> {
+                try {
+                    release.await();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                sum.addAndGet(value);
+            });
+
+        // With the sink stalled, at most every queue plus one in-hand item per worker can be absorbed.
+        int accepted = 0;
+        while (pipeline.offer(accepted + 1, 50, TimeUnit.MILLISECONDS)) {
+            accepted++;
+        }
+        assertTrue(accepted < 40, "accepted " + accepted);
+        assertEquals(4, pipeline.metrics().get(0).queueDepth());
+
+        release.countDown();
+        for (int i = accepted + 1; i <= 1_000; i++) {
+            pipeline.submit(i);
+        }
+        pipeline.close();
+
+        long expected = 0;
+        for (long i = 1; i <= 1_000; i++) {
+            if (i % 3 != 0) {
+                expected += i * i;
+            }
+        }
+        assertEquals(expected, sum.get());
+
+        List<StageMetrics> metrics = pipeline.metrics();
+        assertEquals(1_000, metrics.get(0).processed());
+        assertEquals(333, metrics.get(0).dropped());
+        assertEquals(667, metrics.get(2).processed());
+        assertEquals(0, metrics.get(2).queueDepth());
+        assertFalse(metrics.get(1).averagePerSecond() <= 0.0);
+        assertThrows(IllegalStateException.class, () -> pipeline.submit(1));
+    }
+}